@@ -17,18 +17,54 @@
  */
 package com.adobe.acs.commons.adobeio.service.impl;
 
+import java.util.Dictionary;
+import java.util.Hashtable;
+
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
+
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.osgi.services.HttpClientBuilderFactory;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 
+import com.adobe.acs.commons.http.impl.SharedConnectionPool;
+
 @Component
 public class AdobeioHelperImpl implements AdobeioHelper {
 
     @Reference
     private HttpClientBuilderFactory clientBuilderFactory;
 
+    private SharedConnectionPool connectionPool;
+    private ServiceRegistration<?> connectionPoolRegistration;
+
+    @Activate
+    protected void activate(BundleContext bundleContext) throws NotCompliantMBeanException {
+        connectionPool = new SharedConnectionPool(SharedConnectionPool.DEFAULT_MAX_CONNECTIONS);
+
+        final Dictionary<String, Object> mbeanProps = new Hashtable<>();
+        mbeanProps.put("jmx.objectname", "com.adobe.acs.commons:type=HTTP Connection Pool,name=Adobe I/O");
+        connectionPoolRegistration = bundleContext.registerService(DynamicMBean.class.getName(), connectionPool, mbeanProps);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if (connectionPoolRegistration != null) {
+            connectionPoolRegistration.unregister();
+            connectionPoolRegistration = null;
+        }
+        if (connectionPool != null) {
+            connectionPool.shutdown();
+            connectionPool = null;
+        }
+    }
+
     @Override
     public CloseableHttpClient getHttpClient(int timeoutInMilliSeconds) {
         RequestConfig requestConfig = RequestConfig.copy(RequestConfig.DEFAULT)
@@ -36,6 +72,11 @@ public class AdobeioHelperImpl implements AdobeioHelper {
             .setConnectTimeout(timeoutInMilliSeconds)
             .setConnectionRequestTimeout(timeoutInMilliSeconds)
             .build();
-        return clientBuilderFactory.newBuilder().setDefaultRequestConfig(requestConfig).build();
+        if (connectionPool == null) {
+            return clientBuilderFactory.newBuilder().setDefaultRequestConfig(requestConfig).build();
+        }
+        // closing the client returns its connections to the shared pool
+        connectionPool.evictConnections();
+        return connectionPool.configure(clientBuilderFactory.newBuilder()).setDefaultRequestConfig(requestConfig).build();
     }
 }
@@ -248,8 +248,8 @@ public class EndpointServiceImpl implements EndpointService {
          get.setHeader(CONTENT_TYPE, CONTENT_TYPE_APPLICATION_JSON);
       }
 
-      try (CloseableHttpClient httpClient = helper.getHttpClient(integrationService.getTimeoutinMilliSeconds())) {
-         CloseableHttpResponse response = httpClient.execute(get);
+      try (CloseableHttpClient httpClient = helper.getHttpClient(integrationService.getTimeoutinMilliSeconds());
+           CloseableHttpResponse response = httpClient.execute(get)) {
          final JsonObject result = responseAsJson(response);
 
          LOGGER.debug("Response-code {}", response.getStatusLine().getStatusCode());
@@ -301,8 +301,8 @@ public class EndpointServiceImpl implements EndpointService {
 
       LOGGER.debug("Process call. uri = {}. payload = {}", base.getURI(), payload);
 
-      try (CloseableHttpClient httpClient = helper.getHttpClient(integrationService.getTimeoutinMilliSeconds())) {
-         CloseableHttpResponse response = httpClient.execute(base);
+      try (CloseableHttpClient httpClient = helper.getHttpClient(integrationService.getTimeoutinMilliSeconds());
+           CloseableHttpResponse response = httpClient.execute(base)) {
          final JsonObject result = responseAsJson(response);
 
          LOGGER.debug("STOPPING STOPWATCH processRequestWithBody");
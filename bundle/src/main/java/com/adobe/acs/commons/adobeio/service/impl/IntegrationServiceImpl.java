@@ -35,8 +35,8 @@ import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.HttpResponse;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.message.BasicNameValuePair;
@@ -124,12 +124,13 @@ public class IntegrationServiceImpl implements IntegrationService, Runnable {
 
             post.setEntity(new UrlEncodedFormEntity(params));
 
-            HttpResponse response = client.execute(post);
-
-            if (response.getStatusLine().getStatusCode() != 200) {
-                LOGGER.info("response code {} ", response.getStatusLine().getStatusCode());
+            final String result;
+            try (CloseableHttpResponse response = client.execute(post)) {
+                if (response.getStatusLine().getStatusCode() != 200) {
+                    LOGGER.info("response code {} ", response.getStatusLine().getStatusCode());
+                }
+                result = IOUtils.toString(response.getEntity().getContent(), "UTF-8");
             }
-            String result = IOUtils.toString(response.getEntity().getContent(), "UTF-8");
 
             LOGGER.info("JSON Response : {}", result);
             JsonParser parser = new JsonParser();
@@ -20,7 +20,6 @@ package com.adobe.acs.commons.data;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.osgi.annotation.versioning.ProviderType;
 
 /**
@@ -33,7 +32,9 @@ import org.osgi.annotation.versioning.ProviderType;
 public final class CompositeVariant<T> {
 
     private final Class type;
-    private final List<Variant> values = new ArrayList<>();
+    // Most cells hold a single value, so only multi-value cells allocate a list for the remaining values
+    private Variant firstValue;
+    private List<Variant> moreValues;
 
     /**
      * Create a variant either as a preferred type (set value later with addValue) or
@@ -66,14 +67,18 @@ public final class CompositeVariant<T> {
     }
 
     public boolean isEmpty() {
-        return values.isEmpty() || getValue() == null;
+        return firstValue == null || getValue() == null;
     }
 
     public final void addValue(Object val) {
-        if (val instanceof Variant) {
-            values.add((Variant) val);
+        final Variant variant = val instanceof Variant ? (Variant) val : new Variant(val);
+        if (firstValue == null) {
+            firstValue = variant;
         } else {
-            values.add(new Variant(val));
+            if (moreValues == null) {
+                moreValues = new ArrayList<>(4);
+            }
+            moreValues.add(variant);
         }
     }
 
@@ -82,7 +87,7 @@ public final class CompositeVariant<T> {
     }
 
     public <U> U getValueAs(Class<U> otherType) {
-        return values.isEmpty() ? null : (U) values.get(0).asType(otherType);
+        return firstValue == null ? null : (U) firstValue.asType(otherType);
     }
 
     public List<T> getValues() {
@@ -90,7 +95,17 @@ public final class CompositeVariant<T> {
     }
 
     public <U> List<U> getValuesAs(Class<U> otherType) {
-        return values.stream().map(v -> getValueAsType(v, otherType)).collect(Collectors.toList());
+        if (firstValue == null) {
+            return new ArrayList<>();
+        }
+        final List<U> converted = new ArrayList<>(moreValues == null ? 1 : moreValues.size() + 1);
+        converted.add(getValueAsType(firstValue, otherType));
+        if (moreValues != null) {
+            for (Variant v : moreValues) {
+                converted.add(getValueAsType(v, otherType));
+            }
+        }
+        return converted;
     }
 
     private <U> U getValueAsType(Variant v, Class<U> type) {
@@ -19,6 +19,7 @@ package com.adobe.acs.commons.data;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,12 +31,14 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
@@ -56,13 +59,15 @@ public class Spreadsheet {
     public static final String ROW_NUMBER = "~~ROWNUM~~";
     private String fileName = "unknown";
     private int rowCount;
-    private transient List<Map<String, CompositeVariant>> dataRows;
+    private List<Map<String, CompositeVariant>> dataRows;
     private final List<String> requiredColumns;
     private Map<String, Optional<Class>> headerTypes;
     private List<String> headerRow;
     private final Map<String, String> delimiters;
     private boolean enableHeaderNameConversion = true;
     private InputStream inputStream;
+    private StreamingSheetReader streamingReader;
+    private boolean streamed;
     private List<String> caseInsensitiveHeaders = new ArrayList<>();
 
     /**
@@ -152,26 +157,114 @@ public class Spreadsheet {
         rowCount = sheet.getLastRowNum();
         final Iterator<Row> rows = sheet.rowIterator();
 
-        Row firstRow = rows.next();
-        headerRow = readRow(firstRow, locale).stream()
+        readHeaderRow(readRow(rows.next(), locale));
+
+        Iterable<Row> remainingRows = () -> rows;
+        dataRows = StreamSupport.stream(remainingRows.spliterator(), false)
+                .map(row -> buildRow(row.getRowNum(), readRow(row, locale)))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList());
+
+        return this;
+    }
+
+    /**
+     * Read the header row only, leaving the data rows to be read lazily from the input file through
+     * {@link #getDataRowIterator()}.
+     * This overload will implicitly use the default JVM locale for numeric and date/time conversions.
+     *
+     * @return this spreadsheet, with its header row read
+     * @throws IOException if the file couldn't be read
+     */
+    public Spreadsheet streamSpreadsheet() throws IOException {
+        return streamSpreadsheet(Locale.getDefault());
+    }
+
+    /**
+     * Read the header row only, leaving the data rows to be read lazily from the input file through
+     * {@link #getDataRowIterator()}. The workbook is not loaded into memory, so rows can be processed
+     * while the rest of the file is still being parsed. Data rows are not retained in this mode.
+     *
+     * @param locale The locale to be used for numeric and date/time conversions.
+     * @return this spreadsheet, with its header row read
+     * @throws IOException if the file couldn't be read
+     */
+    public Spreadsheet streamSpreadsheet(Locale locale) throws IOException {
+        final StreamingSheetReader reader = new StreamingSheetReader(this.inputStream, locale);
+        final StreamingSheetReader.SheetRow firstRow = reader.nextRow();
+        if (firstRow == null) {
+            reader.close();
+            throw new IOException("The spreadsheet has no header row");
+        }
+        rowCount = reader.getLastRowNum();
+        readHeaderRow(firstRow.getCells());
+        streamingReader = reader;
+        streamed = true;
+        return this;
+    }
+
+    private void readHeaderRow(List<Variant> firstRow) {
+        headerRow = firstRow.stream()
                 .map(v -> v != null ? convertHeaderName(v.toString()) : null)
                 .collect(Collectors.toList());
-        headerTypes = readRow(firstRow, locale).stream()
+        headerTypes = firstRow.stream()
                 .map(Variant::toString)
                 .collect(Collectors.toMap(
                         this::convertHeaderName,
                         this::detectTypeFromName,
                         this::upgradeToArray
                 ));
+    }
 
-        Iterable<Row> remainingRows = () -> rows;
-        dataRows = StreamSupport.stream(remainingRows.spliterator(), false)
-                .map(row -> buildRow(row, locale))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+    /**
+     * Iterate the data rows. If the spreadsheet was opened with {@link #streamSpreadsheet(Locale)}, rows are
+     * parsed from the input file as the iterator advances, and the file is closed once the last row is read;
+     * in that case the rows can only be iterated once.
+     *
+     * @return the data rows
+     * @throws UncheckedIOException while iterating, if the input file couldn't be read
+     */
+    public Iterator<Map<String, CompositeVariant>> getDataRowIterator() {
+        final StreamingSheetReader reader = streamingReader;
+        if (reader == null) {
+            return Collections.unmodifiableList(dataRows).iterator();
+        }
+        streamingReader = null;
+        return new Iterator<Map<String, CompositeVariant>>() {
+            private Map<String, CompositeVariant> next;
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && !finished) {
+                    try {
+                        final StreamingSheetReader.SheetRow row = reader.nextRow();
+                        if (row == null) {
+                            finished = true;
+                            reader.close();
+                        } else {
+                            next = buildRow(row.getRowNum(), row.getCells()).orElse(null);
+                        }
+                    } catch (IOException ex) {
+                        finished = true;
+                        IOUtils.closeQuietly(reader);
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+                return next != null;
+            }
 
-        return this;
+            @Override
+            public Map<String, CompositeVariant> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Map<String, CompositeVariant> row = next;
+                next = null;
+                return row;
+            }
+        };
     }
 
     private List<Variant> readRow(Row row, Locale locale) {
@@ -189,10 +282,9 @@ public class Spreadsheet {
     }
 
     @SuppressWarnings("squid:S3776")
-    private Optional<Map<String, CompositeVariant>> buildRow(Row row, Locale locale) {
+    private Optional<Map<String, CompositeVariant>> buildRow(int rowNum, List<Variant> data) {
         Map<String, CompositeVariant> out = new LinkedHashMap<>();
-        out.put(ROW_NUMBER, new CompositeVariant(row.getRowNum()));
-        List<Variant> data = readRow(row, locale);
+        out.put(ROW_NUMBER, new CompositeVariant(rowNum));
         boolean empty = true;
         for (int i = 0; i < data.size() && i < getHeaderRow().size(); i++) {
             String colName = getHeaderRow().get(i);
@@ -235,7 +327,7 @@ public class Spreadsheet {
     }
 
     /**
-     * @return the rowCount
+     * @return the rowCount, or -1 if the spreadsheet is streamed and its sheet does not declare its dimension
      */
     public int getRowCount() {
         return rowCount;
@@ -250,8 +342,13 @@ public class Spreadsheet {
 
     /**
      * @return the dataRows
+     * @throws IllegalStateException if the spreadsheet was opened with {@link #streamSpreadsheet(Locale)}, whose
+     * rows are not retained and can only be read through {@link #getDataRowIterator()}
      */
     public List<Map<String, CompositeVariant>> getDataRowsAsCompositeVariants() {
+        if (streamed) {
+            throw new IllegalStateException("The rows of a streamed spreadsheet are only available through getDataRowIterator()");
+        }
         return Collections.unmodifiableList(dataRows);
     }
 
@@ -0,0 +1,330 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+/**
+ * Reads the rows of the first sheet of an XLSX workbook one at a time, without building the workbook DOM.
+ * The workbook is spooled to a temporary file so that its parts are read from the zip file rather than
+ * inflated into memory, and the sheet part is pull-parsed, and cell values are converted to {@link Variant} the same way
+ * {@link Variant#Variant(org.apache.poi.ss.usermodel.Cell, Locale)} converts them.
+ */
+final class StreamingSheetReader implements Closeable {
+
+    /**
+     * A row of the sheet, with null for empty cells.
+     */
+    static final class SheetRow {
+        private final int rowNum;
+        private final List<Variant> cells;
+
+        SheetRow(int rowNum, List<Variant> cells) {
+            this.rowNum = rowNum;
+            this.cells = cells;
+        }
+
+        int getRowNum() {
+            return rowNum;
+        }
+
+        List<Variant> getCells() {
+            return cells;
+        }
+    }
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final Path file;
+    private final OPCPackage pkg;
+    private final List<String> sharedStrings;
+    private final StylesTable styles;
+    private final DataFormatter dataFormatter;
+    private final boolean date1904;
+    private final InputStream sheetStream;
+    private final XMLStreamReader xml;
+    private int lastRowNum = -1;
+    private int nextRowNum = 0;
+    private boolean done = false;
+
+    StreamingSheetReader(InputStream inputStream, Locale locale) throws IOException {
+        file = Files.createTempFile("acs-commons-spreadsheet", ".xlsx");
+        OPCPackage opened = null;
+        boolean complete = false;
+        try {
+            Files.copy(inputStream, file, StandardCopyOption.REPLACE_EXISTING);
+            opened = OPCPackage.open(file.toFile(), PackageAccess.READ);
+            pkg = opened;
+            final XSSFReader reader = new XSSFReader(pkg);
+            sharedStrings = readSharedStrings(reader.getSharedStringsData());
+            styles = reader.getStylesTable();
+            dataFormatter = new DataFormatter(locale);
+            try (InputStream workbookStream = reader.getWorkbookData()) {
+                date1904 = isDate1904(workbookStream);
+            }
+            final Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IOException("The workbook has no sheets");
+            }
+            sheetStream = sheets.next();
+            xml = XML_INPUT_FACTORY.createXMLStreamReader(sheetStream);
+            complete = true;
+        } catch (OpenXML4JException | XMLStreamException ex) {
+            throw new IOException("Unable to read the workbook", ex);
+        } finally {
+            if (!complete) {
+                if (opened != null) {
+                    opened.revert();
+                }
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * @return the zero-based index of the last row declared by the sheet, or -1 if it is not known before
+     * the sheet has been read
+     */
+    int getLastRowNum() {
+        return lastRowNum;
+    }
+
+    /**
+     * @return the next row of the sheet, or null once all rows have been read
+     * @throws IOException if the sheet cannot be parsed
+     */
+    SheetRow nextRow() throws IOException {
+        try {
+            while (!done && xml.hasNext()) {
+                final int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    final String name = xml.getLocalName();
+                    if ("dimension".equals(name)) {
+                        readDimension(xml.getAttributeValue(null, "ref"));
+                    } else if ("row".equals(name)) {
+                        return readRow();
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "sheetData".equals(xml.getLocalName())) {
+                    done = true;
+                }
+            }
+            done = true;
+            return null;
+        } catch (XMLStreamException ex) {
+            throw new IOException("Unable to parse the sheet", ex);
+        }
+    }
+
+    private void readDimension(String ref) {
+        if (StringUtils.isNotEmpty(ref)) {
+            final String lastCell = ref.contains(":") ? StringUtils.substringAfterLast(ref, ":") : ref;
+            lastRowNum = new CellReference(lastCell).getRow();
+        }
+    }
+
+    private SheetRow readRow() throws XMLStreamException {
+        final String r = xml.getAttributeValue(null, "r");
+        final int rowNum = r != null ? Integer.parseInt(r) - 1 : nextRowNum;
+        nextRowNum = rowNum + 1;
+        final List<Variant> cells = new ArrayList<>();
+        while (xml.hasNext()) {
+            final int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "c".equals(xml.getLocalName())) {
+                final String ref = xml.getAttributeValue(null, "r");
+                final int column = ref != null ? new CellReference(ref).getCol() : cells.size();
+                final Variant value = readCell();
+                while (column > cells.size()) {
+                    cells.add(null);
+                }
+                cells.add(value.isEmpty() ? null : value);
+            } else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) {
+                break;
+            }
+        }
+        return new SheetRow(rowNum, cells);
+    }
+
+    private Variant readCell() throws XMLStreamException {
+        final String type = xml.getAttributeValue(null, "t");
+        final String style = xml.getAttributeValue(null, "s");
+        String value = null;
+        final StringBuilder inlineString = new StringBuilder();
+        while (xml.hasNext()) {
+            final int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                final String name = xml.getLocalName();
+                if ("v".equals(name)) {
+                    value = xml.getElementText();
+                } else if ("t".equals(name)) {
+                    inlineString.append(xml.getElementText());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && "c".equals(xml.getLocalName())) {
+                break;
+            }
+        }
+
+        final Variant variant = new Variant();
+        if ("inlineStr".equals(type)) {
+            variant.setValue(inlineString.toString().trim());
+        } else if (value == null || value.isEmpty()) {
+            // blank cell
+            return variant;
+        } else if ("s".equals(type)) {
+            variant.setValue(sharedStrings.get(Integer.parseInt(value)).trim());
+        } else if ("str".equals(type) || "d".equals(type)) {
+            variant.setValue(value.trim());
+        } else if ("b".equals(type)) {
+            variant.setValue("1".equals(value) || "true".equalsIgnoreCase(value));
+        } else if (type == null || "n".equals(type)) {
+            setNumericValue(variant, Double.parseDouble(value), style);
+        }
+        // error cells are left empty
+        return variant;
+    }
+
+    private void setNumericValue(Variant variant, double number, String style) {
+        if (Math.floor(number) == number) {
+            variant.setValue((long) number);
+        } else {
+            variant.setValue(number);
+        }
+        short formatIndex = 0;
+        String formatString = null;
+        final int styleIndex = style != null ? Integer.parseInt(style) : 0;
+        if (styleIndex < styles.getNumCellStyles()) {
+            final XSSFCellStyle cellStyle = styles.getStyleAt(styleIndex);
+            formatIndex = cellStyle.getDataFormat();
+            formatString = cellStyle.getDataFormatString();
+        }
+        if (formatString != null && DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(number)) {
+            variant.setValue(DateUtil.getJavaDate(number, date1904));
+        }
+        variant.setValue(dataFormatter.formatRawCellContents(number, formatIndex, formatString));
+    }
+
+    /**
+     * Reads the plain text of the shared strings part. The part is parsed here rather than through POI's
+     * shared strings tables, whose accessors differ between POI versions.
+     */
+    private static List<String> readSharedStrings(InputStream sharedStringsStream) throws IOException, XMLStreamException {
+        if (sharedStringsStream == null) {
+            return Collections.emptyList();
+        }
+        final List<String> strings = new ArrayList<>();
+        try (InputStream in = sharedStringsStream) {
+            final XMLStreamReader sst = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                StringBuilder current = null;
+                int phoneticDepth = 0;
+                while (sst.hasNext()) {
+                    final int event = sst.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        final String name = sst.getLocalName();
+                        if ("si".equals(name)) {
+                            current = new StringBuilder();
+                        } else if ("rPh".equals(name)) {
+                            // phonetic runs are not part of the cell text
+                            phoneticDepth++;
+                        } else if ("t".equals(name) && current != null && phoneticDepth == 0) {
+                            current.append(sst.getElementText());
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        final String name = sst.getLocalName();
+                        if ("si".equals(name) && current != null) {
+                            strings.add(current.toString());
+                            current = null;
+                        } else if ("rPh".equals(name)) {
+                            phoneticDepth--;
+                        }
+                    }
+                }
+            } finally {
+                sst.close();
+            }
+        }
+        return strings;
+    }
+
+    private static boolean isDate1904(InputStream workbookStream) throws XMLStreamException {
+        final XMLStreamReader workbook = XML_INPUT_FACTORY.createXMLStreamReader(workbookStream);
+        try {
+            while (workbook.hasNext()) {
+                if (workbook.next() == XMLStreamConstants.START_ELEMENT) {
+                    final String name = workbook.getLocalName();
+                    if ("workbookPr".equals(name)) {
+                        final String date1904 = workbook.getAttributeValue(null, "date1904");
+                        return "1".equals(date1904) || "true".equalsIgnoreCase(date1904);
+                    } else if ("sheets".equals(name)) {
+                        return false;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            workbook.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        done = true;
+        try {
+            xml.close();
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        } finally {
+            try {
+                sheetStream.close();
+            } finally {
+                pkg.revert();
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -23,7 +23,6 @@ import java.time.Instant;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
-import java.util.Optional;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -47,11 +46,23 @@ public final class Variant {
     private Class baseType = null;
     private static final Locale STANDARD_LOCALE = Locale.ROOT;
     private static final FastDateFormat STANDARD_DATE_FORMAT = FastDateFormat.getDateTimeInstance(FastDateFormat.SHORT, FastDateFormat.SHORT, STANDARD_LOCALE);
-    private Optional<Long> longVal = Optional.empty();
-    private Optional<Double> doubleVal = Optional.empty();
-    private Optional<String> stringVal = Optional.empty();
-    private Optional<Boolean> booleanVal = Optional.empty();
-    private Optional<Date> dateVal = Optional.empty();
+
+    // Flags of the value slots which are set, so values are held as primitives instead of boxed optionals
+    private static final int HAS_LONG = 1;
+    private static final int HAS_DOUBLE = 1 << 1;
+    private static final int HAS_BOOLEAN = 1 << 2;
+    private static final int HAS_DATE = 1 << 3;
+    private static final int BOOLEAN_TRUE = 1 << 4;
+    // Cached when a string can't be parsed as a date, so it is only attempted once
+    private static final Object UNPARSEABLE_DATE = new Object();
+
+    private int flags = 0;
+    private long longVal;
+    private double doubleVal;
+    private long dateVal;
+    private String stringVal;
+    // Lazily computed conversion: the formatted string of a non-string value, or the parsed date of a string
+    private Object converted;
 
     private static final FastDateFormat[] DATE_FORMATS = {
             FastDateFormat.getDateInstance(FastDateFormat.SHORT, STANDARD_LOCALE),
@@ -82,19 +93,18 @@ public final class Variant {
     }
 
     public void clear() {
-        longVal = Optional.empty();
-        doubleVal = Optional.empty();
-        stringVal = Optional.empty();
-        booleanVal = Optional.empty();
-        dateVal = Optional.empty();
+        flags = 0;
+        stringVal = null;
+        converted = null;
     }
 
     public boolean isEmpty() {
-        return !stringVal.isPresent()
-                && !longVal.isPresent()
-                && !doubleVal.isPresent()
-                && !dateVal.isPresent()
-                && !booleanVal.isPresent();
+        return stringVal == null
+                && (flags & (HAS_LONG | HAS_DOUBLE | HAS_DATE | HAS_BOOLEAN)) == 0;
+    }
+
+    private boolean has(int flag) {
+        return (flags & flag) != 0;
     }
 
     @SuppressWarnings("squid:S00115")
@@ -180,11 +190,12 @@ public final class Variant {
         Class valueType = val.getClass();
         if (valueType == Variant.class) {
             Variant v = (Variant) val;
+            flags = v.flags;
             longVal = v.longVal;
             doubleVal = v.doubleVal;
             stringVal = v.stringVal;
-            booleanVal = v.booleanVal;
             dateVal = v.dateVal;
+            converted = v.converted;
             this.baseType = v.baseType;
         } else if (valueType == Byte.TYPE || valueType == Byte.class) {
             setLongVal(((Byte) val).longValue());
@@ -208,7 +219,7 @@ public final class Variant {
             }
         } else if (valueType == Float.TYPE || valueType == Float.class
                 || valueType == Double.TYPE || valueType == Double.class) {
-            setDoubleVal((Double) val);
+            setDoubleVal(((Number) val).doubleValue());
             if (baseType == null || baseType == String.class) {
                 baseType = Double.TYPE;
             }
@@ -239,83 +250,141 @@ public final class Variant {
         }
     }
 
-    private void setLongVal(Long l) {
-        longVal = l == null ? Optional.empty() : Optional.of(l);
+    private void setLongVal(long l) {
+        longVal = l;
+        setFlags(HAS_LONG);
     }
 
-    private void setDoubleVal(Double d) {
-        doubleVal = d == null ? Optional.empty() : Optional.of(d);
+    private void setDoubleVal(double d) {
+        doubleVal = d;
+        setFlags(HAS_DOUBLE);
     }
 
     private void setStringVal(String s) {
-        if (s != null && !s.isEmpty()) {
-            stringVal = Optional.of(s);
-        } else {
-            stringVal = Optional.empty();
-        }
+        stringVal = s != null && !s.isEmpty() ? s : null;
+        setFlags(0);
     }
 
-    private void setBooleanVal(Boolean b) {
-        booleanVal = b == null ? Optional.empty() : Optional.of(b);
+    private void setBooleanVal(boolean b) {
+        flags &= ~BOOLEAN_TRUE;
+        setFlags(b ? HAS_BOOLEAN | BOOLEAN_TRUE : HAS_BOOLEAN);
     }
 
     private void setDateVal(Date d) {
-        dateVal = d == null ? Optional.empty() : Optional.of(d);
+        dateVal = d.getTime();
+        setFlags(HAS_DATE);
+    }
+
+    private void setFlags(int set) {
+        flags |= set;
+        // any cached conversion may be stale now
+        converted = null;
     }
 
     public Long toLong() {
-        return longVal.orElse(dateVal.map(Date::getTime)
-                .orElse(doubleVal.map(Double::longValue)
-                        .orElse(booleanVal.map(b -> (Long) (b ? 1L : 0L))
-                                .orElseGet(() -> {
-                                    try {
-                                        return stringVal.map(s -> (long) Double.parseDouble(s)).orElse(null);
-                                    } catch (NumberFormatException ex) {
-                                        return null;
-                                    }
-                                }))));
+        if (has(HAS_LONG)) {
+            return longVal;
+        } else if (has(HAS_DATE)) {
+            return dateVal;
+        } else if (has(HAS_DOUBLE)) {
+            return (long) doubleVal;
+        } else if (has(HAS_BOOLEAN)) {
+            return has(BOOLEAN_TRUE) ? 1L : 0L;
+        } else if (stringVal != null) {
+            try {
+                return (long) Double.parseDouble(stringVal);
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        } else {
+            return null;
+        }
     }
 
     public Double toDouble() {
-        return doubleVal.orElse(longVal.map(Long::doubleValue)
-                .orElse(booleanVal.map(b -> (Double) (b ? 1.0 : 0.0))
-                        .orElseGet(() -> {
-                            try {
-                                return stringVal.map(Double::parseDouble).orElse(null);
-                            } catch (NumberFormatException ex) {
-                                return null;
-                            }
-                        })));
+        if (has(HAS_DOUBLE)) {
+            return doubleVal;
+        } else if (has(HAS_LONG)) {
+            return (double) longVal;
+        } else if (has(HAS_BOOLEAN)) {
+            return has(BOOLEAN_TRUE) ? 1.0 : 0.0;
+        } else if (stringVal != null) {
+            try {
+                return Double.parseDouble(stringVal);
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        } else {
+            return null;
+        }
     }
 
     @Override
     public String toString() {
-        return stringVal.orElse(dateVal.map(STANDARD_DATE_FORMAT::format)
-                .orElse(doubleVal.map(String::valueOf)
-                        .orElse(longVal.map(String::valueOf)
-                                .orElse(booleanVal.map(String::valueOf)
-                                        .orElse(null)))));
+        if (stringVal != null) {
+            return stringVal;
+        } else if (converted instanceof String) {
+            return (String) converted;
+        }
+        final String str;
+        if (has(HAS_DATE)) {
+            str = STANDARD_DATE_FORMAT.format(dateVal);
+        } else if (has(HAS_DOUBLE)) {
+            str = String.valueOf(doubleVal);
+        } else if (has(HAS_LONG)) {
+            str = String.valueOf(longVal);
+        } else if (has(HAS_BOOLEAN)) {
+            str = String.valueOf(has(BOOLEAN_TRUE));
+        } else {
+            str = null;
+        }
+        if (str != null) {
+            converted = str;
+        }
+        return str;
     }
 
     public Date toDate() {
-        return dateVal.orElse(longVal.map(Date::new)
-                .orElse(stringVal.map(s -> {
-                    for (FastDateFormat format : DATE_FORMATS) {
-                        try {
-                            return format.parse(s);
-                        } catch (ParseException ex) {
-                            // No good, go to the next pattern
-                        }
-                    }
-                    return null;
-                }).orElse(null)));
+        if (has(HAS_DATE)) {
+            return new Date(dateVal);
+        } else if (has(HAS_LONG)) {
+            return new Date(longVal);
+        } else if (stringVal == null) {
+            return null;
+        }
+        Object date = converted;
+        if (!(date instanceof Date) && date != UNPARSEABLE_DATE) {
+            final Date parsed = parseDate(stringVal);
+            date = parsed != null ? parsed : UNPARSEABLE_DATE;
+            converted = date;
+        }
+        // hand out copies, as the cached date is shared
+        return date == UNPARSEABLE_DATE ? null : new Date(((Date) date).getTime());
+    }
+
+    private static Date parseDate(String s) {
+        for (FastDateFormat format : DATE_FORMATS) {
+            try {
+                return format.parse(s);
+            } catch (ParseException ex) {
+                // No good, go to the next pattern
+            }
+        }
+        return null;
     }
 
     public Boolean toBoolean() {
-        return booleanVal.orElse(longVal.map(l -> l != 0)
-                .orElse(doubleVal.map(d -> d != 0)
-                        .orElse(stringVal.map(this::isStringTruthy)
-                                .orElse(null))));
+        if (has(HAS_BOOLEAN)) {
+            return has(BOOLEAN_TRUE);
+        } else if (has(HAS_LONG)) {
+            return longVal != 0;
+        } else if (has(HAS_DOUBLE)) {
+            return doubleVal != 0;
+        } else if (stringVal != null) {
+            return isStringTruthy(stringVal);
+        } else {
+            return null;
+        }
     }
 
     /**
@@ -0,0 +1,224 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.dispatcher.impl;
+
+import javax.jcr.RepositoryException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches access decisions of the {@link PermissionSensitiveCacheServlet} for a limited time.
+ * <p>
+ * Decisions are keyed by the full principal set of the requesting user, including the user's own principal, so access
+ * control entries written for individual users are respected. Principal sets are interned, so a decision key only
+ * holds a reference to the shared set together with the host and the URI that was checked.
+ * <p>
+ * Lookups that started before an invalidation are not cached, so a decision made against changed content or ACLs
+ * never outlives the invalidation.
+ */
+final class PermissionDecisionCache {
+
+    /**
+     * The sorted names of the group principals of a user, with a precomputed hash.
+     */
+    static final class PrincipalSet {
+        private final String[] names;
+        private final int hash;
+
+        PrincipalSet(Collection<String> principalNames) {
+            this.names = principalNames.toArray(new String[0]);
+            Arrays.sort(names);
+            this.hash = Arrays.hashCode(names);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PrincipalSet)) {
+                return false;
+            }
+            final PrincipalSet that = (PrincipalSet) o;
+            return hash == that.hash && Arrays.equals(names, that.names);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class DecisionKey {
+        private final PrincipalSet principals;
+        private final String host;
+        private final String uri;
+        private final int hash;
+
+        private DecisionKey(PrincipalSet principals, String host, String uri) {
+            this.principals = principals;
+            this.host = host;
+            this.uri = uri;
+            this.hash = 31 * (31 * principals.hashCode() + (host == null ? 0 : host.hashCode())) + uri.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DecisionKey)) {
+                return false;
+            }
+            final DecisionKey that = (DecisionKey) o;
+            // Principal sets are interned, so identity is enough here
+            return hash == that.hash && principals == that.principals
+                    && uri.equals(that.uri) && (host == null ? that.host == null : host.equals(that.host));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry<T> {
+        final T value;
+        final long expiresAt;
+
+        private Entry(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Map<String, Entry<PrincipalSet>> principalsByUser = new ConcurrentHashMap<>();
+    private final Map<PrincipalSet, PrincipalSet> internedPrincipals = new ConcurrentHashMap<>();
+    private final Map<DecisionKey, Entry<Boolean>> decisions = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final long ttlMs;
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    PermissionDecisionCache(long ttlMs, int maxEntries) {
+        this(ttlMs, maxEntries, System::currentTimeMillis);
+    }
+
+    PermissionDecisionCache(long ttlMs, int maxEntries, LongSupplier clock) {
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * @param userId     the id of the user
+     * @param principals resolves the principal names of the user if they are not cached
+     * @return the interned principal set of the user, or null if the principals could not be determined
+     * @throws RepositoryException if the principals cannot be read
+     */
+    PrincipalSet getPrincipals(String userId, PrincipalSupplier principals) throws RepositoryException {
+        final long now = clock.getAsLong();
+        final Entry<PrincipalSet> cached = principalsByUser.get(userId);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.value;
+        }
+        final long startGeneration = generation.get();
+        final Collection<String> names = principals.get();
+        if (names == null) {
+            return null;
+        }
+        if (internedPrincipals.size() >= maxEntries) {
+            internedPrincipals.clear();
+        }
+        final PrincipalSet resolved = internedPrincipals.computeIfAbsent(new PrincipalSet(names), set -> set);
+        if (generation.get() == startGeneration) {
+            makeRoom(principalsByUser, now);
+            principalsByUser.put(userId, new Entry<>(resolved, now + ttlMs));
+            if (generation.get() != startGeneration) {
+                principalsByUser.remove(userId);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * @param principals the principal set of the requesting user
+     * @param host       the host the URI was requested on
+     * @param uri        the URI to check
+     * @param check      determines the decision if it is not cached
+     * @return true if the principals may access the URI
+     */
+    boolean isAllowed(PrincipalSet principals, String host, String uri, DecisionSupplier check) {
+        final long now = clock.getAsLong();
+        final DecisionKey key = new DecisionKey(principals, host, uri);
+        final Entry<Boolean> cached = decisions.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.value;
+        }
+        final long startGeneration = generation.get();
+        final boolean allowed = check.get();
+        if (generation.get() == startGeneration) {
+            makeRoom(decisions, now);
+            decisions.put(key, new Entry<>(allowed, now + ttlMs));
+            if (generation.get() != startGeneration) {
+                decisions.remove(key);
+            }
+        }
+        return allowed;
+    }
+
+    private <K> void makeRoom(Map<K, ? extends Entry<?>> entries, long now) {
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(entry -> entry.expiresAt <= now);
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+    }
+
+    void invalidateAll() {
+        generation.incrementAndGet();
+        decisions.clear();
+        principalsByUser.clear();
+        internedPrincipals.clear();
+    }
+
+    int size() {
+        return decisions.size();
+    }
+
+    /**
+     * Resolves the principal names of a user on a cache miss.
+     */
+    @FunctionalInterface
+    interface PrincipalSupplier {
+        Collection<String> get() throws RepositoryException;
+    }
+
+    /**
+     * Performs the actual access check on a cache miss.
+     */
+    @FunctionalInterface
+    interface DecisionSupplier {
+        boolean get();
+    }
+}
@@ -17,19 +17,40 @@
  */
 package com.adobe.acs.commons.dispatcher.impl;
 
+import javax.jcr.RepositoryException;
 import javax.servlet.http.HttpServletResponse;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.commons.lang3.StringUtils;
+import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
 import org.apache.felix.scr.annotations.Properties;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Service;
+import org.apache.jackrabbit.api.security.user.Group;
+import org.apache.jackrabbit.api.security.user.User;
+import org.apache.jackrabbit.oak.spi.security.principal.EveryonePrincipal;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
+import org.apache.sling.commons.osgi.PropertiesUtil;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +65,25 @@ import org.slf4j.LoggerFactory;
                 cardinality = Integer.MAX_VALUE,
                 label = "Sling Servlet Paths",
                 description = "Paths that this servlet will resolve to"
+        ),
+        @Property(
+                name = PermissionSensitiveCacheServlet.PROP_CACHE_TTL,
+                longValue = PermissionSensitiveCacheServlet.DEFAULT_CACHE_TTL,
+                label = "Decision cache TTL",
+                description = "Seconds an access decision is cached for the principals of a user. 0 disables the cache."
+        ),
+        @Property(
+                name = PermissionSensitiveCacheServlet.PROP_CACHE_MAX_ENTRIES,
+                intValue = PermissionSensitiveCacheServlet.DEFAULT_CACHE_MAX_ENTRIES,
+                label = "Decision cache size",
+                description = "Maximum number of cached access decisions"
+        ),
+        @Property(
+                name = PermissionSensitiveCacheServlet.PROP_CACHE_INVALIDATION_PATHS,
+                value = { "/content", "/home/groups" },
+                cardinality = Integer.MAX_VALUE,
+                label = "Decision cache invalidation paths",
+                description = "Any change of a resource or ACL below these paths clears the decision cache"
         )
 })
 @Service
@@ -51,37 +91,130 @@ public class PermissionSensitiveCacheServlet extends SlingSafeMethodsServlet {
 
     private static final Logger log = LoggerFactory.getLogger(PermissionSensitiveCacheServlet.class);
 
+    static final String PROP_CACHE_TTL = "permission-cache.ttl";
+    static final long DEFAULT_CACHE_TTL = 0;
+    static final String PROP_CACHE_MAX_ENTRIES = "permission-cache.max-entries";
+    static final int DEFAULT_CACHE_MAX_ENTRIES = 10000;
+    static final String PROP_CACHE_INVALIDATION_PATHS = "permission-cache.invalidation-paths";
+
+    private transient PermissionDecisionCache decisionCache;
+    private transient ServiceRegistration<?> listenerRegistration;
+
+    @Activate
+    @Modified
+    protected void activate(BundleContext bundleContext, Map<String, Object> config) {
+        unregisterListener();
+        final long ttl = PropertiesUtil.toLong(config.get(PROP_CACHE_TTL), DEFAULT_CACHE_TTL);
+        if (ttl > 0) {
+            final PermissionDecisionCache cache = new PermissionDecisionCache(ttl * 1000L,
+                    PropertiesUtil.toInteger(config.get(PROP_CACHE_MAX_ENTRIES), DEFAULT_CACHE_MAX_ENTRIES));
+            if (bundleContext != null) {
+                final Dictionary<String, Object> properties = new Hashtable<>();
+                properties.put(ResourceChangeListener.PATHS, PropertiesUtil.toStringArray(
+                        config.get(PROP_CACHE_INVALIDATION_PATHS), new String[]{ "/content", "/home/groups" }));
+                listenerRegistration = bundleContext.registerService(ResourceChangeListener.class,
+                        new DecisionInvalidationListener(cache), properties);
+            }
+            decisionCache = cache;
+        } else {
+            decisionCache = null;
+        }
+    }
 
+    @Deactivate
+    protected void deactivate() {
+        unregisterListener();
+        decisionCache = null;
+    }
+
+    private void unregisterListener() {
+        if (listenerRegistration != null) {
+            listenerRegistration.unregister();
+            listenerRegistration = null;
+        }
+    }
+
+    /**
+     * Checks access to the URI given in the <code>uri</code> parameter. The parameter may be repeated to check several
+     * URIs at once, in which case access is only granted if the session can read all of them.
+     */
     public void doHead(SlingHttpServletRequest request, SlingHttpServletResponse response) {
         try{
 
             //retrieve the requested URL
             ResourceResolver resourceResolver = request.getResourceResolver();
-            String requestUri = request.getParameter( "uri" );
+            String[] requestUris = request.getParameterValues( "uri" );
 
-            log.debug( "Checking access for URI {}", requestUri );
+            if( requestUris == null || requestUris.length == 0 ){
+                log.debug( "No URI to check" );
+                response.setStatus( HttpServletResponse.SC_UNAUTHORIZED );
+                return;
+            }
+
+            PermissionDecisionCache cache = decisionCache;
+            PermissionDecisionCache.PrincipalSet principals = null;
+            if( cache != null && resourceResolver.getUserID() != null ){
+                principals = cache.getPrincipals( resourceResolver.getUserID(), () -> getPrincipalNames( resourceResolver ) );
+            }
 
-            if( isUriValid( requestUri ) ){
-                Resource requestedResource = resourceResolver.resolve( request, requestUri );
+            for( String requestUri : requestUris ){
+                log.debug( "Checking access for URI {}", requestUri );
 
-                if( !ResourceUtil.isNonExistingResource( requestedResource ) ){
-                    log.debug("Current Session has access to {}", requestUri );
-                    response.setStatus(HttpServletResponse.SC_OK);
+                if( !isUriValid( requestUri ) ){
+                    log.debug( "Invalid URI {}", requestUri );
+                    response.setStatus( HttpServletResponse.SC_UNAUTHORIZED );
+                    return;
+                }
+
+                boolean allowed;
+                if( principals != null ){
+                    allowed = cache.isAllowed( principals, request.getServerName(), requestUri,
+                            () -> hasAccess( request, requestUri ) );
                 } else {
+                    allowed = hasAccess( request, requestUri );
+                }
+
+                if( !allowed ){
                     log.info("Current Session does not have access to {}", requestUri );
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    return;
                 }
-
-            } else {
-                log.debug( "Invalid URI {}", requestUri );
-                response.setStatus( HttpServletResponse.SC_UNAUTHORIZED );
+                log.debug("Current Session has access to {}", requestUri );
             }
+            response.setStatus(HttpServletResponse.SC_OK);
         } catch(Exception e) {
             log.error("Authchecker servlet exception", e);
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED );
         }
     }
 
+    private boolean hasAccess(SlingHttpServletRequest request, String requestUri) {
+        Resource requestedResource = request.getResourceResolver().resolve( request, requestUri );
+        return !ResourceUtil.isNonExistingResource( requestedResource );
+    }
+
+    /**
+     * Access control entries are evaluated per principal, so the decisions depend on the full principal set of the
+     * session: the user's own principal, the principals of all its groups and <code>everyone</code>.
+     *
+     * @return the principal names of the session, or null if the user is unknown or its access does not depend on
+     * access control entries
+     */
+    private Collection<String> getPrincipalNames(ResourceResolver resourceResolver) throws RepositoryException {
+        User user = resourceResolver.adaptTo( User.class );
+        if( user == null || user.isAdmin() || user.isSystemUser() ){
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        names.add( user.getPrincipal().getName() );
+        names.add( EveryonePrincipal.NAME );
+        Iterator<Group> groups = user.memberOf();
+        while( groups.hasNext() ){
+            names.add( groups.next().getPrincipal().getName() );
+        }
+        return names;
+    }
+
     public boolean isUriValid( String requestUri ){
         boolean isValidUri = true;
 
@@ -91,4 +224,21 @@ public class PermissionSensitiveCacheServlet extends SlingSafeMethodsServlet {
 
         return isValidUri;
     }
+
+    /**
+     * Clears the cached decisions when content, ACLs or groups change, locally or on another cluster node.
+     */
+    private static final class DecisionInvalidationListener implements ResourceChangeListener, ExternalResourceChangeListener {
+        private final PermissionDecisionCache cache;
+
+        private DecisionInvalidationListener(PermissionDecisionCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void onChange(List<ResourceChange> changes) {
+            log.debug("Changes detected, clearing {} cached access decisions", cache.size());
+            cache.invalidateAll();
+        }
+    }
 }
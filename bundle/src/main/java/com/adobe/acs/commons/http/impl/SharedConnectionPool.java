@@ -0,0 +1,112 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.http.impl;
+
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import javax.management.NotCompliantMBeanException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pool of http connections shared by all http clients of an integration, so that requests reuse open (TLS)
+ * connections instead of connecting anew. Clients using the pool may be closed after each use, this does not close
+ * the pooled connections.
+ * <p>
+ * As the pool opens the connections, the socket factories of the builders using it are not used. Secure connections
+ * are opened with the JVM's default SSL context, protocols and cipher suites as configured by the system properties,
+ * as {@link HttpClientBuilder#useSystemProperties()} would.
+ */
+public class SharedConnectionPool extends AnnotatedStandardMBean implements SharedConnectionPoolMBean {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+
+    private static final int VALIDATE_AFTER_INACTIVITY_MS = 2000;
+    private static final long IDLE_TIMEOUT_SECONDS = 60;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    public SharedConnectionPool(int maxConnections) throws NotCompliantMBeanException {
+        super(SharedConnectionPoolMBean.class);
+        final Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                .build();
+        connectionManager = new PoolingHttpClientConnectionManager(socketFactories);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MS);
+    }
+
+    /**
+     * Lets the given builder create clients using this pool.
+     *
+     * @param builder the builder
+     * @return the builder
+     */
+    public HttpClientBuilder configure(HttpClientBuilder builder) {
+        return builder.setConnectionManager(connectionManager).setConnectionManagerShared(true);
+    }
+
+    /**
+     * Closes expired connections and connections idle for longer than a minute, should be called before connections
+     * are leased from the pool as there is no background thread evicting them.
+     */
+    public void evictConnections() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Closes all pooled connections, the pool cannot be used afterwards.
+     */
+    public void shutdown() {
+        connectionManager.shutdown();
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return connectionManager.getTotalStats().getMax();
+    }
+
+    @Override
+    public int getLeasedConnections() {
+        return connectionManager.getTotalStats().getLeased();
+    }
+
+    @Override
+    public int getAvailableConnections() {
+        return connectionManager.getTotalStats().getAvailable();
+    }
+
+    @Override
+    public int getPendingRequests() {
+        return connectionManager.getTotalStats().getPending();
+    }
+
+    @Override
+    public void closeIdleConnections() {
+        connectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+    }
+}
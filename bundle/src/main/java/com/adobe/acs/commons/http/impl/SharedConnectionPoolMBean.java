@@ -0,0 +1,40 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.http.impl;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+@Description("ACS AEM Commons - HTTP Connection Pool")
+public interface SharedConnectionPoolMBean {
+
+    @Description("Maximum number of pooled connections")
+    int getMaxConnections();
+
+    @Description("Number of connections currently in use")
+    int getLeasedConnections();
+
+    @Description("Number of idle connections kept for reuse")
+    int getAvailableConnections();
+
+    @Description("Number of requests waiting for a connection")
+    int getPendingRequests();
+
+    /* Operations */
+    @Description("Close all idle connections")
+    void closeIdleConnections();
+}
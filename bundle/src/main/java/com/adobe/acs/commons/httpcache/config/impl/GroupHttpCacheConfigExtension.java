@@ -26,13 +26,13 @@ import com.adobe.acs.commons.httpcache.keys.AbstractCacheKey;
 import com.adobe.acs.commons.httpcache.keys.CacheKey;
 import com.adobe.acs.commons.httpcache.keys.CacheKeyFactory;
 import com.adobe.acs.commons.httpcache.util.UserUtils;
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.ConfigurationPolicy;
+import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Modified;
 import org.apache.felix.scr.annotations.Properties;
 import org.apache.felix.scr.annotations.Property;
@@ -40,14 +40,22 @@ import org.apache.felix.scr.annotations.PropertyUnbounded;
 import org.apache.felix.scr.annotations.Service;
 import org.apache.jackrabbit.api.security.user.User;
 import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.apache.sling.commons.osgi.PropertiesUtil;
+import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceRegistration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jcr.RepositoryException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -84,7 +92,19 @@ public class GroupHttpCacheConfigExtension implements HttpCacheConfigExtension,
     @Property(label = "Config Name")
     private static final String PROP_CONFIG_NAME = "config.name";
 
+    private static final long DEFAULT_MEMBERSHIP_CACHE_TTL = 60;
+    @Property(label = "Group membership cache TTL",
+              description = "Seconds for which the group membership of a user is cached. The cache is cleared on "
+                      + "any change under /home/groups. Set to 0 to read the membership on every request.",
+              longValue = DEFAULT_MEMBERSHIP_CACHE_TTL)
+    private static final String PROP_MEMBERSHIP_CACHE_TTL = "httpcache.config.extension.user-groups.cache.ttl";
+
+    private static final String GROUPS_PATH = "/home/groups";
+
     private List<String> userGroups;
+    private UserGroupMembershipCache.GroupSet userGroupSet;
+    private UserGroupMembershipCache membershipCache;
+    private ServiceRegistration<?> listenerRegistration;
 
     //-------------------------<HttpCacheConfigExtension methods>
 
@@ -107,11 +127,18 @@ public class GroupHttpCacheConfigExtension implements HttpCacheConfigExtension,
             }
 
             try {
-                List<String> requestUserGroupNames = UserUtils.getUserGroupMembershipNames(request
-                        .getResourceResolver().adaptTo(User.class));
+                final ResourceResolver resourceResolver = request.getResourceResolver();
+                final UserGroupMembershipCache.GroupSet requestUserGroups;
+                if (membershipCache != null) {
+                    requestUserGroups = membershipCache.getGroups(resourceResolver.getUserID(),
+                            () -> resourceResolver.adaptTo(User.class));
+                } else {
+                    requestUserGroups = new UserGroupMembershipCache.GroupSet(
+                            UserUtils.getUserGroupMembershipNames(resourceResolver.adaptTo(User.class)));
+                }
 
                 // At least one of the group in config should match.
-                boolean isGroupMatchFound = CollectionUtils.containsAny(userGroups, requestUserGroupNames);
+                boolean isGroupMatchFound = requestUserGroups.containsAny(userGroupSet);
                 if (!isGroupMatchFound) {
                     log.trace("Group didn't match and hence rejecting the cache config.");
                 } else {
@@ -157,7 +184,7 @@ public class GroupHttpCacheConfigExtension implements HttpCacheConfigExtension,
 
     @Activate
     @Modified
-    protected void activate(Map<String, Object> configs) {
+    protected void activate(BundleContext bundleContext, Map<String, Object> configs) {
 
         // User groups after removing empty strings.
         userGroups = new ArrayList(Arrays.asList(PropertiesUtil.toStringArray(configs.get(PROP_USER_GROUPS), new
@@ -169,7 +196,53 @@ public class GroupHttpCacheConfigExtension implements HttpCacheConfigExtension,
                 listIterator.remove();
             }
         }
+        userGroupSet = new UserGroupMembershipCache.GroupSet(userGroups);
+
+        unregisterListener();
+        final long ttl = PropertiesUtil.toLong(configs.get(PROP_MEMBERSHIP_CACHE_TTL), DEFAULT_MEMBERSHIP_CACHE_TTL);
+        if (ttl > 0) {
+            final UserGroupMembershipCache cache = new UserGroupMembershipCache(ttl * 1000L);
+            if (bundleContext != null) {
+                final Dictionary<String, Object> properties = new Hashtable<>();
+                properties.put(ResourceChangeListener.PATHS, new String[]{ GROUPS_PATH });
+                listenerRegistration = bundleContext.registerService(ResourceChangeListener.class,
+                        new MembershipChangeListener(cache), properties);
+            }
+            membershipCache = cache;
+        } else {
+            membershipCache = null;
+        }
 
         log.info("GroupHttpCacheConfigExtension activated/modified.");
     }
+
+    @Deactivate
+    protected void deactivate() {
+        unregisterListener();
+        membershipCache = null;
+    }
+
+    private void unregisterListener() {
+        if (listenerRegistration != null) {
+            listenerRegistration.unregister();
+            listenerRegistration = null;
+        }
+    }
+
+    /**
+     * Clears the cached group memberships when groups are changed, locally or on another cluster node.
+     */
+    private static final class MembershipChangeListener implements ResourceChangeListener, ExternalResourceChangeListener {
+        private final UserGroupMembershipCache cache;
+
+        private MembershipChangeListener(UserGroupMembershipCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void onChange(List<ResourceChange> changes) {
+            log.debug("Group changes detected, clearing {} cached group memberships", cache.size());
+            cache.invalidateAll();
+        }
+    }
 }
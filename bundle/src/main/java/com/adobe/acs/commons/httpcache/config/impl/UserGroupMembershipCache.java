@@ -0,0 +1,161 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.httpcache.config.impl;
+
+import com.adobe.acs.commons.httpcache.util.UserUtils;
+import org.apache.jackrabbit.api.security.user.User;
+
+import javax.jcr.RepositoryException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the transitive group membership of users for a limited time, so that matching an authenticated request
+ * against the configured groups does not walk the user's memberOf() on every request.
+ * <p>
+ * Group names are held as sorted arrays of their hash codes, so that matching is a binary search on integers; the
+ * names themselves are only compared on a hash hit.
+ */
+final class UserGroupMembershipCache {
+
+    static final int MAX_ENTRIES = 10000;
+
+    /**
+     * Group names with their precomputed hash codes.
+     */
+    static final class GroupSet {
+        private final String[] names;
+        private final int[] hashes;
+
+        GroupSet(Collection<String> groupNames) {
+            final String[] sorted = groupNames.toArray(new String[0]);
+            Arrays.sort(sorted, (a, b) -> Integer.compare(a.hashCode(), b.hashCode()));
+            this.names = sorted;
+            this.hashes = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                hashes[i] = sorted[i].hashCode();
+            }
+        }
+
+        boolean isEmpty() {
+            return names.length == 0;
+        }
+
+        boolean contains(String name) {
+            final int hash = name.hashCode();
+            int idx = Arrays.binarySearch(hashes, hash);
+            if (idx < 0) {
+                return false;
+            }
+            // binarySearch lands on any of the names sharing the hash, so look both ways
+            while (idx > 0 && hashes[idx - 1] == hash) {
+                idx--;
+            }
+            for (; idx < hashes.length && hashes[idx] == hash; idx++) {
+                if (names[idx].equals(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @param other the groups to look for
+         * @return true if at least one of the other groups is part of this set
+         */
+        boolean containsAny(GroupSet other) {
+            for (final String name : other.names) {
+                if (contains(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Entry {
+        private final GroupSet groups;
+        private final long expiresAt;
+
+        private Entry(GroupSet groups, long expiresAt) {
+            this.groups = groups;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMs;
+    private final LongSupplier clock;
+
+    UserGroupMembershipCache(long ttlMs) {
+        this(ttlMs, System::currentTimeMillis);
+    }
+
+    UserGroupMembershipCache(long ttlMs, LongSupplier clock) {
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+    }
+
+    /**
+     * @param userId the id of the user
+     * @param user   resolves the user if its membership is not cached
+     * @return the names of the groups the user is a member of
+     * @throws RepositoryException if the group membership cannot be read
+     */
+    GroupSet getGroups(String userId, UserSupplier user) throws RepositoryException {
+        final long now = clock.getAsLong();
+        final Entry cached = entries.get(userId);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.groups;
+        }
+
+        final User resolved = user.get();
+        if (resolved == null) {
+            return new GroupSet(Collections.emptyList());
+        }
+        final GroupSet groups = new GroupSet(UserUtils.getUserGroupMembershipNames(resolved));
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.values().removeIf(entry -> entry.expiresAt <= now);
+            if (entries.size() >= MAX_ENTRIES) {
+                entries.clear();
+            }
+        }
+        entries.put(userId, new Entry(groups, now + ttlMs));
+        return groups;
+    }
+
+    void invalidateAll() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Resolves the user on a cache miss.
+     */
+    @FunctionalInterface
+    interface UserSupplier {
+        User get() throws RepositoryException;
+    }
+}
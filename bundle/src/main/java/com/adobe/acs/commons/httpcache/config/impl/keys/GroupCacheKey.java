@@ -45,6 +45,8 @@ class GroupCacheKey extends AbstractCacheKey implements CacheKey, Serializable {
 
     /* This key is composed of uri, list of user groups and authentication requirement details */
     private List<String> cacheKeyUserGroups;
+    /* Precomputed so that keys with different groups are told apart without comparing the lists */
+    private transient int cacheKeyUserGroupsHash;
 
     public GroupCacheKey(SlingHttpServletRequest request, HttpCacheConfig cacheConfig, List<String> userGroups) throws
             HttpCacheKeyCreationException {
@@ -53,6 +55,7 @@ class GroupCacheKey extends AbstractCacheKey implements CacheKey, Serializable {
         this.cacheKeyUserGroups = Optional.ofNullable(userGroups)
                 .map(list -> (List<String>) new ArrayList<>(list))
                 .orElse(Collections.emptyList());
+        this.cacheKeyUserGroupsHash = cacheKeyUserGroups.hashCode();
     }
 
     public GroupCacheKey(String uri, HttpCacheConfig cacheConfig, List<String> userGroups) throws HttpCacheKeyCreationException {
@@ -60,6 +63,7 @@ class GroupCacheKey extends AbstractCacheKey implements CacheKey, Serializable {
         this.cacheKeyUserGroups = Optional.ofNullable(userGroups)
                 .map(list -> (List<String>) new ArrayList<>(list))
                 .orElse(Collections.emptyList());
+        this.cacheKeyUserGroupsHash = cacheKeyUserGroups.hashCode();
     }
 
     @Override
@@ -73,6 +77,9 @@ class GroupCacheKey extends AbstractCacheKey implements CacheKey, Serializable {
         }
 
         GroupCacheKey that = (GroupCacheKey) o;
+        if (cacheKeyUserGroupsHash != that.cacheKeyUserGroupsHash) {
+            return false;
+        }
 
         return new EqualsBuilder()
                 .append(getUri(), that.getUri())
@@ -85,7 +92,7 @@ class GroupCacheKey extends AbstractCacheKey implements CacheKey, Serializable {
     public int hashCode() {
         return new HashCodeBuilder(17, 37)
                 .append(getUri())
-                .append(cacheKeyUserGroups)
+                .append(cacheKeyUserGroupsHash)
                 .append(getAuthenticationRequirement()).toHashCode();
     }
 
@@ -113,5 +120,6 @@ class GroupCacheKey extends AbstractCacheKey implements CacheKey, Serializable {
         final String userGroupsStr = (String) o.readObject();
         final String[] userGroupStrArray = userGroupsStr.split(",");
         cacheKeyUserGroups = Arrays.asList(userGroupStrArray);
+        cacheKeyUserGroupsHash = cacheKeyUserGroups.hashCode();
     }
 }
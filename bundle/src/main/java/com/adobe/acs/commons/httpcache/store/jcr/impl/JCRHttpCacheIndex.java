@@ -0,0 +1,157 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.httpcache.store.jcr.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import com.adobe.acs.commons.httpcache.keys.CacheKey;
+
+/**
+ * In-memory index of the cache entry nodes in the JCR cache store, keyed by cache key and ordered by expiry.
+ * <p>
+ * Lookups use the key index to go straight to the entry node instead of walking its bucket, and purges use
+ * the expiry order to visit only expired entries. Once the index has been populated from a full traversal
+ * of the cache tree it is marked complete, after which purges, size and invalidation by cache config no
+ * longer traverse the tree. Lookups of keys which are not indexed still walk their bucket, since other
+ * cluster nodes may have written them; external changes mark the index incomplete again.
+ */
+class JCRHttpCacheIndex {
+
+    /**
+     * A single indexed cache entry node.
+     */
+    static final class Entry {
+        private final CacheKey key;
+        private final String path;
+        private final long expiresOn;
+
+        Entry(CacheKey key, String path, long expiresOn) {
+            this.key = key;
+            this.path = path;
+            this.expiresOn = expiresOn;
+        }
+
+        CacheKey getKey() {
+            return key;
+        }
+
+        String getPath() {
+            return path;
+        }
+
+        long getExpiresOn() {
+            return expiresOn;
+        }
+    }
+
+    private static final Comparator<Entry> EXPIRY_ORDER =
+            Comparator.comparingLong(Entry::getExpiresOn).thenComparing(Entry::getPath);
+
+    private final Map<CacheKey, Entry> byKey = new ConcurrentHashMap<>();
+    private final Map<String, Entry> byPath = new HashMap<>();
+    private final NavigableSet<Entry> byExpiry = new TreeSet<>(EXPIRY_ORDER);
+
+    private volatile boolean complete;
+
+    /**
+     * @return true if every cache entry node in the repository is known to be indexed, as of the last traversal
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    /**
+     * @param key the cache key
+     * @return the indexed entry for the key, or null if it is not indexed
+     */
+    Entry get(CacheKey key) {
+        return byKey.get(key);
+    }
+
+    synchronized void put(CacheKey key, String path, long expiresOn) {
+        removeInternal(byKey.get(key));
+        removeInternal(byPath.get(path));
+        final Entry entry = new Entry(key, path, expiresOn);
+        byKey.put(key, entry);
+        byPath.put(path, entry);
+        byExpiry.add(entry);
+    }
+
+    synchronized void remove(String path) {
+        removeInternal(byPath.get(path));
+    }
+
+    private void removeInternal(Entry entry) {
+        if (entry != null) {
+            byKey.remove(entry.key, entry);
+            byPath.remove(entry.path, entry);
+            byExpiry.remove(entry);
+        }
+    }
+
+    /**
+     * @param now the current time in epoch milliseconds
+     * @return the entries which expired before {@code now}, soonest expiry first
+     */
+    synchronized List<Entry> getExpired(long now) {
+        final List<Entry> expired = new ArrayList<>();
+        for (Entry entry : byExpiry) {
+            if (entry.expiresOn >= now) {
+                break;
+            }
+            expired.add(entry);
+        }
+        return expired;
+    }
+
+    /**
+     * @param filter the cache key filter
+     * @return the entries whose cache key is accepted by the filter
+     */
+    synchronized List<Entry> getEntries(Predicate<CacheKey> filter) {
+        final List<Entry> entries = new ArrayList<>();
+        for (Entry entry : byPath.values()) {
+            if (filter.test(entry.key)) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    synchronized int size() {
+        return byPath.size();
+    }
+
+    synchronized void clear() {
+        byKey.clear();
+        byPath.clear();
+        byExpiry.clear();
+    }
+}
@@ -22,10 +22,14 @@ import com.adobe.acs.commons.functions.CheckedFunction;
 
 import java.io.IOException;
 import java.time.Clock;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
@@ -41,14 +45,19 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Properties;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.Service;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.apache.sling.commons.classloader.DynamicClassLoaderManager;
 import org.apache.sling.commons.osgi.PropertiesUtil;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,15 +65,22 @@ import org.slf4j.LoggerFactory;
 import com.adobe.acs.commons.httpcache.config.HttpCacheConfig;
 import com.adobe.acs.commons.httpcache.engine.CacheContent;
 import com.adobe.acs.commons.httpcache.exception.HttpCacheDataStreamException;
+import com.adobe.acs.commons.httpcache.exception.HttpCacheKeyCreationException;
 import com.adobe.acs.commons.httpcache.keys.CacheKey;
 import com.adobe.acs.commons.httpcache.keys.CacheKeyFactory;
 import com.adobe.acs.commons.httpcache.store.HttpCacheStore;
 import com.adobe.acs.commons.httpcache.store.TempSink;
 import com.adobe.acs.commons.httpcache.store.jcr.impl.exceptions.BucketNodeFactoryException;
+import static com.adobe.acs.commons.httpcache.store.jcr.impl.JCRHttpCacheStoreConstants.PN_CACHEKEY;
+import static com.adobe.acs.commons.httpcache.store.jcr.impl.JCRHttpCacheStoreConstants.PN_EXPIRES_ON;
+
 import com.adobe.acs.commons.httpcache.store.jcr.impl.handler.BucketNodeHandler;
 import com.adobe.acs.commons.httpcache.store.jcr.impl.handler.EntryNodeToCacheContentHandler;
+import com.adobe.acs.commons.httpcache.store.jcr.impl.handler.EntryNodeToCacheKeyHandler;
+import com.adobe.acs.commons.httpcache.store.jcr.impl.visitor.AbstractNodeVisitor;
 import com.adobe.acs.commons.httpcache.store.jcr.impl.visitor.AllEntryNodesCountVisitor;
 import com.adobe.acs.commons.httpcache.store.jcr.impl.visitor.EntryNodeByStringKeyVisitor;
+import com.adobe.acs.commons.httpcache.store.jcr.impl.visitor.EntryNodeIndexVisitor;
 import com.adobe.acs.commons.httpcache.store.jcr.impl.visitor.EntryNodeMapVisitor;
 import com.adobe.acs.commons.httpcache.store.jcr.impl.visitor.ExpiredNodesVisitor;
 import com.adobe.acs.commons.httpcache.store.jcr.impl.visitor.InvalidateAllNodesVisitor;
@@ -134,6 +150,26 @@ import com.adobe.acs.commons.util.impl.JcrCacheMBean;
                 description = "The time seconds after which nodes will be removed by the scheduled cleanup service. ",
                 name = JCRHttpCacheStoreImpl.PN_EXPIRETIMEINSECONDS,
                 intValue = JCRHttpCacheStoreImpl.DEFAULT_EXPIRETIMEINSECONDS
+        ),
+        @Property(
+                label = "Write-behind",
+                description = "Queue cache entries in memory and write them in batches on a background thread "
+                        + "using a single save per batch, instead of saving every entry on the request thread.",
+                name = JCRHttpCacheStoreImpl.PN_WRITEBEHIND,
+                boolValue = JCRHttpCacheStoreImpl.DEFAULT_WRITEBEHIND
+        ),
+        @Property(
+                label = "Write-behind queue size",
+                description = "The maximum number of cache entries waiting to be written. "
+                        + "When the queue is full, entries are written on the request thread.",
+                name = JCRHttpCacheStoreImpl.PN_WRITEBEHIND_QUEUESIZE,
+                intValue = JCRHttpCacheStoreImpl.DEFAULT_WRITEBEHIND_QUEUESIZE
+        ),
+        @Property(
+                label = "Write-behind batch size",
+                description = "The maximum number of cache entries written per save.",
+                name = JCRHttpCacheStoreImpl.PN_WRITEBEHIND_BATCHSIZE,
+                intValue = JCRHttpCacheStoreImpl.DEFAULT_WRITEBEHIND_BATCHSIZE
         )
 })
 @Service(value = {HttpCacheStore.class, Runnable.class})
@@ -144,6 +180,9 @@ public class JCRHttpCacheStoreImpl extends AbstractJCRCacheMBean<CacheKey, Cache
     public static final String PN_BUCKETDEPTH = "httpcache.config.jcr.bucketdepth";
     public static final String PN_SAVEDELTA = "httpcache.config.jcr.savedelta";
     public static final String PN_EXPIRETIMEINSECONDS = "httpcache.config.jcr.expiretimeinseconds";
+    public static final String PN_WRITEBEHIND = "httpcache.config.jcr.writebehind";
+    public static final String PN_WRITEBEHIND_QUEUESIZE = "httpcache.config.jcr.writebehind.queuesize";
+    public static final String PN_WRITEBEHIND_BATCHSIZE = "httpcache.config.jcr.writebehind.batchsize";
 
     //defaults
     public static final String DEFAULT_ROOTPATH = "/var/acs-commons/httpcache";
@@ -164,6 +203,10 @@ public class JCRHttpCacheStoreImpl extends AbstractJCRCacheMBean<CacheKey, Cache
     // 1 week.
     public static final int DEFAULT_EXPIRETIMEINSECONDS = 604800;
 
+    public static final boolean DEFAULT_WRITEBEHIND = false;
+    public static final int DEFAULT_WRITEBEHIND_QUEUESIZE = 1000;
+    public static final int DEFAULT_WRITEBEHIND_BATCHSIZE = 100;
+
     private static final Logger log = LoggerFactory.getLogger(JCRHttpCacheStoreImpl.class);
 
     //fields
@@ -171,8 +214,13 @@ public class JCRHttpCacheStoreImpl extends AbstractJCRCacheMBean<CacheKey, Cache
     private int bucketTreeDepth;
     private int deltaSaveThreshold;
     private int expireTimeInSeconds;
-    
-    
+
+    private final JCRHttpCacheIndex index = new JCRHttpCacheIndex();
+    private ServiceRegistration<ResourceChangeListener> externalChangeListenerRegistration;
+    private JCRHttpCacheWriteBehindQueue writeBehindQueue;
+    /* Only used by the write-behind thread */
+    private ResourceResolver writeBehindResolver;
+
     protected Clock clock;
 
     @Reference
@@ -194,25 +242,74 @@ public class JCRHttpCacheStoreImpl extends AbstractJCRCacheMBean<CacheKey, Cache
         bucketTreeDepth = PropertiesUtil.toInteger(properties.get(PN_BUCKETDEPTH), DEFAULT_BUCKETDEPTH);
         deltaSaveThreshold = PropertiesUtil.toInteger(properties.get(PN_SAVEDELTA), DEFAULT_SAVEDELTA);
         expireTimeInSeconds = PropertiesUtil.toInteger(properties.get(PN_EXPIRETIMEINSECONDS), DEFAULT_EXPIRETIMEINSECONDS);
+
+        // entries written or removed by other cluster nodes are not in the index; the next purge re-indexes the tree
+        final Dictionary<String, Object> listenerProps = new Hashtable<>();
+        listenerProps.put(ResourceChangeListener.PATHS, new String[]{cacheRootPath});
+        externalChangeListenerRegistration = context.getBundleContext().registerService(ResourceChangeListener.class,
+                new ExternalChangeListener(), listenerProps);
+
+        if (PropertiesUtil.toBoolean(properties.get(PN_WRITEBEHIND), DEFAULT_WRITEBEHIND)) {
+            writeBehindQueue = new JCRHttpCacheWriteBehindQueue(
+                    PropertiesUtil.toInteger(properties.get(PN_WRITEBEHIND_QUEUESIZE), DEFAULT_WRITEBEHIND_QUEUESIZE),
+                    PropertiesUtil.toInteger(properties.get(PN_WRITEBEHIND_BATCHSIZE), DEFAULT_WRITEBEHIND_BATCHSIZE),
+                    this::writeBatch,
+                    this::invalidate);
+        }
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if (externalChangeListenerRegistration != null) {
+            externalChangeListenerRegistration.unregister();
+            externalChangeListenerRegistration = null;
+        }
+        if (writeBehindQueue != null) {
+            writeBehindQueue.close();
+            writeBehindQueue = null;
+        }
+        if (writeBehindResolver != null) {
+            writeBehindResolver.close();
+            writeBehindResolver = null;
+        }
+        index.clear();
+        index.setComplete(false);
     }
 
     @Override
     public void put(final CacheKey key, final CacheContent content) throws HttpCacheDataStreamException {
+        CacheContent toWrite = content;
+        final JCRHttpCacheWriteBehindQueue queue = writeBehindQueue;
+        if (queue != null) {
+            final JCRHttpCacheWriteBehindQueue.PendingEntry pendingEntry;
+            try {
+                pendingEntry = new JCRHttpCacheWriteBehindQueue.PendingEntry(key, content);
+            } catch (IOException e) {
+                incrementLoadExceptionCount();
+                throw new HttpCacheDataStreamException("Unable to buffer the cache content", e);
+            }
+            if (queue.offer(pendingEntry)) {
+                return;
+            }
+            // the queue is full, write on the calling thread instead
+            toWrite = pendingEntry.toCacheContent();
+        }
+
+        writeNow(key, toWrite);
+    }
+
+    /**
+     * Writes and saves a single entry with its own session.
+     */
+    private void writeNow(final CacheKey key, final CacheContent cacheContent) {
         final long currentTime = clock.instant().toEpochMilli();
         incrementLoadCount();
 
         withSession((Session session) -> {
-            final long expireTimeInMilliSeconds = expireTimeInSeconds * 1000;
-            final BucketNodeFactory factory = createBucketNodeFactory(session, key);
-            final Node bucketNode = factory.getBucketNode();
-
-            final Node entryNode = createBucketNodeHandler(bucketNode).createOrRetrieveEntryNode(key, expireTimeInMilliSeconds);
-
-            long expiryTime = (key.getExpiryForCreation() > 0) ? key.getExpiryForCreation() : expireTimeInMilliSeconds;
-
-            createEntryNodeWriter(session, entryNode, key, content, expiryTime).write();
+            final Node entryNode = writeEntry(session, key, cacheContent);
 
             session.save();
+            index.put(key, entryNode.getPath(), getExpiresOn(entryNode));
 
             incrementLoadSuccessCount();
             incrementTotalLoadTime(clock.instant().toEpochMilli() - currentTime);
@@ -221,6 +318,126 @@ public class JCRHttpCacheStoreImpl extends AbstractJCRCacheMBean<CacheKey, Cache
         });
     }
 
+    /**
+     * Writes a batch of queued entries with the long-lived write-behind session and a single save.
+     * If the batch cannot be saved, its entries are written one by one so that a single bad entry
+     * does not drop the others.
+     */
+    private void writeBatch(final List<JCRHttpCacheWriteBehindQueue.PendingEntry> batch) {
+        final long currentTime = clock.instant().toEpochMilli();
+        try {
+            if (writeBehindResolver == null || !writeBehindResolver.isLive()) {
+                writeBehindResolver = resourceResolverFactory.getServiceResourceResolver(AUTH_INFO);
+            }
+            final Session session = writeBehindResolver.adaptTo(Session.class);
+            session.refresh(false);
+
+            final List<Node> entryNodes = new ArrayList<>(batch.size());
+            for (final JCRHttpCacheWriteBehindQueue.PendingEntry pendingEntry : batch) {
+                entryNodes.add(writeEntry(session, pendingEntry.getKey(), pendingEntry.toCacheContent()));
+            }
+            session.save();
+
+            for (int i = 0; i < batch.size(); i++) {
+                index.put(batch.get(i).getKey(), entryNodes.get(i).getPath(), getExpiresOn(entryNodes.get(i)));
+                incrementLoadCount();
+                incrementLoadSuccessCount();
+            }
+            incrementTotalLoadTime(clock.instant().toEpochMilli() - currentTime);
+            log.debug("Wrote {} cache entries in {} ms", batch.size(), clock.instant().toEpochMilli() - currentTime);
+        } catch (Exception e) {
+            log.warn("Error in writing a batch of {} cache entries, writing them individually", batch.size(), e);
+            if (writeBehindResolver != null) {
+                writeBehindResolver.close();
+                writeBehindResolver = null;
+            }
+            for (final JCRHttpCacheWriteBehindQueue.PendingEntry pendingEntry : batch) {
+                writeNow(pendingEntry.getKey(), pendingEntry.toCacheContent());
+            }
+        }
+    }
+
+    /**
+     * Creates or updates the entry node for a key, without saving.
+     */
+    private Node writeEntry(final Session session, final CacheKey key, final CacheContent content) throws Exception {
+        final long expireTimeInMilliSeconds = expireTimeInSeconds * 1000L;
+
+        Node entryNode = getIndexedEntryNode(session, key);
+        if (entryNode != null) {
+            if (key.getExpiryForUpdate() > 0) {
+                entryNode.setProperty(PN_EXPIRES_ON, clock.instant().toEpochMilli() + key.getExpiryForUpdate());
+            }
+        } else {
+            // the entry may have been written by another cluster node, so look in the bucket before creating one
+            final BucketNodeFactory factory = createBucketNodeFactory(session, key);
+            entryNode = createBucketNodeHandler(factory.getBucketNode()).createOrRetrieveEntryNode(key, expireTimeInMilliSeconds);
+        }
+
+        long expiryTime = (key.getExpiryForCreation() > 0) ? key.getExpiryForCreation() : expireTimeInMilliSeconds;
+
+        createEntryNodeWriter(session, entryNode, key, content, expiryTime).write();
+        return entryNode;
+    }
+
+    /**
+     * @return the entry node the index points to for the key, or null if not indexed, no longer present or reused
+     * for another key (e.g. after another cluster node removed the entry and created a new one at the same path)
+     */
+    private Node getIndexedEntryNode(final Session session, final CacheKey key) throws Exception {
+        final JCRHttpCacheIndex.Entry entry = index.get(key);
+        if (entry != null) {
+            if (session.nodeExists(entry.getPath())) {
+                final Node entryNode = session.getNode(entry.getPath());
+                if (entryNode.hasProperty(PN_CACHEKEY)
+                        && key.equals(new EntryNodeToCacheKeyHandler(entryNode, dclm).get())) {
+                    return entryNode;
+                }
+            }
+            index.remove(entry.getPath());
+        }
+        return null;
+    }
+
+    /**
+     * Finds the entry node for a key, going through the index first and only walking the bucket
+     * if the key is not indexed. Entries written by other cluster nodes are only found by the walk.
+     */
+    private Node findEntryNode(final Session session, final CacheKey key, final boolean ignoreExpiration) throws Exception {
+        Node entryNode = getIndexedEntryNode(session, key);
+        if (entryNode == null) {
+            final BucketNodeFactory factory = createBucketNodeFactory(session, key);
+            entryNode = createBucketNodeHandler(factory.getBucketNode()).getEntryIfExists(key, true);
+            if (entryNode != null) {
+                index.put(key, entryNode.getPath(), getExpiresOn(entryNode));
+            }
+        }
+        if (entryNode != null && !ignoreExpiration && getExpiresOn(entryNode) < clock.instant().toEpochMilli()) {
+            return null;
+        }
+        return entryNode;
+    }
+
+    /**
+     * Marks the index incomplete when another cluster node changes the cache tree, so that purges,
+     * size and invalidation by cache config go back to the repository until it is re-indexed.
+     */
+    private final class ExternalChangeListener implements ResourceChangeListener, ExternalResourceChangeListener {
+        @Override
+        public void onChange(final List<ResourceChange> changes) {
+            for (final ResourceChange change : changes) {
+                if (change.isExternal()) {
+                    index.setComplete(false);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static long getExpiresOn(final Node entryNode) throws RepositoryException {
+        return entryNode.hasProperty(PN_EXPIRES_ON) ? entryNode.getProperty(PN_EXPIRES_ON).getLong() : Long.MAX_VALUE;
+    }
+
     /* This is broken out into its own method to allow for easier unit testing */
     protected BucketNodeFactory createBucketNodeFactory(final Session session, final CacheKey key)
             throws RepositoryException, BucketNodeFactoryException {
@@ -243,18 +460,20 @@ public class JCRHttpCacheStoreImpl extends AbstractJCRCacheMBean<CacheKey, Cache
         final long currentTime = clock.instant().toEpochMilli();
         incrementRequestCount();
 
-        return withSession((Session session) -> {
-            final BucketNodeFactory factory = createBucketNodeFactory(session, key);
-            final Node bucketNode = factory.getBucketNode();
+        final JCRHttpCacheWriteBehindQueue queue = writeBehindQueue;
+        if (queue != null && queue.get(key) != null) {
+            incrementTotalLookupTime(clock.instant().toEpochMilli() - currentTime);
+            incrementHitCount();
+            return true;
+        }
 
-            if (bucketNode != null) {
-                Node entryNode = createBucketNodeHandler(bucketNode).getEntryIfExists(key);
-                if (entryNode != null) {
-                    incrementTotalLookupTime(clock.instant().toEpochMilli() - currentTime);
-                    incrementHitCount();
+        return withSession((Session session) -> {
+            final Node entryNode = findEntryNode(session, key, false);
+            if (entryNode != null) {
+                incrementTotalLookupTime(clock.instant().toEpochMilli() - currentTime);
+                incrementHitCount();
 
-                    return true;
-                }
+                return true;
             }
 
             incrementTotalLookupTime(clock.instant().toEpochMilli() - currentTime);
@@ -269,20 +488,22 @@ public class JCRHttpCacheStoreImpl extends AbstractJCRCacheMBean<CacheKey, Cache
         final long currentTime = clock.instant().toEpochMilli();
         incrementRequestCount();
 
+        final JCRHttpCacheWriteBehindQueue queue = writeBehindQueue;
+        final JCRHttpCacheWriteBehindQueue.PendingEntry pendingEntry = queue != null ? queue.get(key) : null;
+        if (pendingEntry != null) {
+            incrementTotalLookupTime(clock.instant().toEpochMilli() - currentTime);
+            incrementHitCount();
+            return pendingEntry.toCacheContent();
+        }
+
         return withSession((Session session) -> {
-            final BucketNodeFactory factory = createBucketNodeFactory(session, key);
-            final Node bucketNode = factory.getBucketNode();
-
-            if (bucketNode != null) {
-                final Node entryNode = createBucketNodeHandler(bucketNode).getEntryIfExists(key);
-                if (entryNode != null) {
-
-                    final CacheContent content = new EntryNodeToCacheContentHandler(entryNode).get();
-                    if (content != null) {
-                        incrementTotalLookupTime(clock.instant().toEpochMilli() - currentTime);
-                        incrementHitCount();
-                        return content;
-                    }
+            final Node entryNode = findEntryNode(session, key, false);
+            if (entryNode != null) {
+                final CacheContent content = new EntryNodeToCacheContentHandler(entryNode).get();
+                if (content != null) {
+                    incrementTotalLookupTime(clock.instant().toEpochMilli() - currentTime);
+                    incrementHitCount();
+                    return content;
                 }
             }
 
@@ -295,6 +516,9 @@ public class JCRHttpCacheStoreImpl extends AbstractJCRCacheMBean<CacheKey, Cache
 
     @Override
     public long size() {
+        if (index.isComplete()) {
+            return index.size();
+        }
         return withSession((Session session) -> {
             final Node rootNode = session.getNode(cacheRootPath);
             final AllEntryNodesCountVisitor visitor = new AllEntryNodesCountVisitor(11);
@@ -305,34 +529,85 @@ public class JCRHttpCacheStoreImpl extends AbstractJCRCacheMBean<CacheKey, Cache
 
     @Override
     public void invalidate(final CacheKey key) {
+        final JCRHttpCacheWriteBehindQueue queue = writeBehindQueue;
+        if (queue != null) {
+            queue.remove(key);
+        }
         withSession((Session session) -> {
-            final BucketNodeFactory factory = createBucketNodeFactory(session, key);
-            final Node bucketNode = factory.getBucketNode();
-
-            if (bucketNode != null) {
-                final Node entryNode = createBucketNodeHandler(bucketNode).getEntryIfExists(key,true);
-                if (entryNode != null) {
-                    entryNode.remove();
-                    session.save();
-                    incrementEvictionCount(1);
-                }
+            final Node entryNode = findEntryNode(session, key, true);
+            if (entryNode != null) {
+                final String path = entryNode.getPath();
+                entryNode.remove();
+                session.save();
+                index.remove(path);
+                incrementEvictionCount(1);
             }
         });
     }
 
     @Override
     public void invalidate(final HttpCacheConfig cacheConfig) {
+        final Predicate<CacheKey> knows = (CacheKey key) -> {
+            try {
+                return cacheConfig.knows(key);
+            } catch (HttpCacheKeyCreationException e) {
+                log.error("Unable to match cache key {} against the cache config", key, e);
+                return false;
+            }
+        };
+        final JCRHttpCacheWriteBehindQueue queue = writeBehindQueue;
+        if (queue != null) {
+            queue.removeIf(knows);
+        }
         withSession((Session session) -> {
-            final InvalidateByCacheConfigVisitor visitor = new InvalidateByCacheConfigVisitor(11, deltaSaveThreshold, cacheConfig, dclm);
-            final Node rootNode = session.getNode(cacheRootPath);
-            visitor.visit(rootNode);
-            visitor.close();
-            incrementEvictionCount(visitor.getEvictionCount());
+            if (index.isComplete()) {
+                removeEntries(session, index.getEntries(knows));
+            } else {
+                final InvalidateByCacheConfigVisitor visitor = new InvalidateByCacheConfigVisitor(11, deltaSaveThreshold, cacheConfig, dclm);
+                final Node rootNode = session.getNode(cacheRootPath);
+                visitor.visit(rootNode);
+                visitor.close();
+                for (final JCRHttpCacheIndex.Entry entry : index.getEntries(knows)) {
+                    index.remove(entry.getPath());
+                }
+                incrementEvictionCount(visitor.getEvictionCount());
+            }
         });
     }
 
+    /**
+     * Removes indexed entry nodes and any bucket nodes left empty, saving every {@code deltaSaveThreshold} removals.
+     */
+    private void removeEntries(final Session session, final List<JCRHttpCacheIndex.Entry> entries) throws RepositoryException {
+        final int saveThreshold = Math.max(1, deltaSaveThreshold);
+        long evictions = 0;
+        for (final JCRHttpCacheIndex.Entry entry : entries) {
+            if (session.nodeExists(entry.getPath())) {
+                final Node entryNode = session.getNode(entry.getPath());
+                Node bucketNode = entryNode.getParent();
+                entryNode.remove();
+                while (AbstractNodeVisitor.isEmptyBucketNode(bucketNode)) {
+                    final Node parent = bucketNode.getParent();
+                    bucketNode.remove();
+                    bucketNode = parent;
+                }
+                if (++evictions % saveThreshold == 0) {
+                    session.save();
+                }
+            }
+            index.remove(entry.getPath());
+        }
+        session.save();
+        incrementEvictionCount(evictions);
+    }
+
     @Override
     public void invalidateAll() {
+        final JCRHttpCacheWriteBehindQueue queue = writeBehindQueue;
+        if (queue != null) {
+            queue.clear();
+        }
+        index.clear();
         withSession((Session session) -> {
             final Node rootNode = session.getNode(cacheRootPath);
             final InvalidateAllNodesVisitor visitor = new InvalidateAllNodesVisitor(11, deltaSaveThreshold);
@@ -360,14 +635,41 @@ public class JCRHttpCacheStoreImpl extends AbstractJCRCacheMBean<CacheKey, Cache
     @Override
     public void purgeExpiredEntries() {
         withSession((Session session) -> {
+            if (index.isComplete()) {
+                purgeIndexedExpiredEntries(session);
+                return;
+            }
             final Node rootNode = session.getNode(cacheRootPath);
             final ExpiredNodesVisitor visitor = new ExpiredNodesVisitor(11, deltaSaveThreshold, clock);
             visitor.visit(rootNode);
             visitor.close();
             incrementEvictionCount(visitor.getEvictionCount());
+
+            // index what is left so that following purges and lookups don't need to traverse the tree
+            final EntryNodeIndexVisitor indexVisitor = new EntryNodeIndexVisitor(11, dclm, index::put);
+            indexVisitor.visit(session.getNode(cacheRootPath));
+            index.setComplete(indexVisitor.getErrorCount() == 0);
+            log.info("Indexed {} JCR cache entries", indexVisitor.getEntryCount());
         });
     }
 
+    private void purgeIndexedExpiredEntries(final Session session) throws RepositoryException {
+        final long now = clock.instant().toEpochMilli();
+        final List<JCRHttpCacheIndex.Entry> expired = new ArrayList<>();
+        for (final JCRHttpCacheIndex.Entry entry : index.getExpired(now)) {
+            if (session.nodeExists(entry.getPath())) {
+                final long expiresOn = getExpiresOn(session.getNode(entry.getPath()));
+                if (expiresOn >= now) {
+                    // the entry was refreshed since it was indexed
+                    index.put(entry.getKey(), entry.getPath(), expiresOn);
+                    continue;
+                }
+            }
+            expired.add(entry);
+        }
+        removeEntries(session, expired);
+    }
+
     @Override
     public long getTtl() {
         return expireTimeInSeconds;
@@ -0,0 +1,208 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.httpcache.store.jcr.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.acs.commons.httpcache.engine.CacheContent;
+import com.adobe.acs.commons.httpcache.engine.HttpCacheServletResponseWrapper;
+import com.adobe.acs.commons.httpcache.keys.CacheKey;
+
+/**
+ * Bounded write-behind queue for the JCR cache store. Entries are buffered in memory, remain visible to
+ * lookups while pending, and are handed to a batch writer on a dedicated thread so that many puts share
+ * a single repository save.
+ */
+class JCRHttpCacheWriteBehindQueue {
+    private static final Logger log = LoggerFactory.getLogger(JCRHttpCacheWriteBehindQueue.class);
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 30000L;
+
+    /**
+     * A cache entry waiting to be written, with its content buffered so it can be served and written repeatedly.
+     */
+    static final class PendingEntry {
+        private final CacheKey key;
+        private final int status;
+        private final String charEncoding;
+        private final String contentType;
+        private final Map<String, List<String>> headers;
+        private final HttpCacheServletResponseWrapper.ResponseWriteMethod writeMethod;
+        private final byte[] data;
+
+        PendingEntry(CacheKey key, CacheContent content) throws IOException {
+            this.key = key;
+            this.status = content.getStatus();
+            this.charEncoding = content.getCharEncoding();
+            this.contentType = content.getContentType();
+            this.headers = content.getHeaders();
+            this.writeMethod = content.getWriteMethod();
+            this.data = IOUtils.toByteArray(content.getInputDataStream());
+        }
+
+        CacheKey getKey() {
+            return key;
+        }
+
+        CacheContent toCacheContent() {
+            return new CacheContent(status, charEncoding, contentType, headers, new ByteArrayInputStream(data), writeMethod);
+        }
+    }
+
+    private final BlockingQueue<PendingEntry> queue;
+    private final Map<CacheKey, PendingEntry> pending = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final Consumer<List<PendingEntry>> batchWriter;
+    private final Consumer<CacheKey> invalidator;
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param queueSize   the maximum number of entries waiting to be written
+     * @param batchSize   the maximum number of entries written per save
+     * @param batchWriter writes and saves a batch of entries
+     * @param invalidator removes the written entry of a key which was invalidated while its batch was being written
+     */
+    JCRHttpCacheWriteBehindQueue(int queueSize, int batchSize, Consumer<List<PendingEntry>> batchWriter,
+                                 Consumer<CacheKey> invalidator) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.batchSize = Math.max(1, batchSize);
+        this.batchWriter = batchWriter;
+        this.invalidator = invalidator;
+        this.worker = new Thread(this::drainLoop, "ACS AEM Commons - HTTP Cache JCR write-behind");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * @param entry the entry to write
+     * @return false if the queue is full or closed and the caller must write the entry itself
+     */
+    boolean offer(PendingEntry entry) {
+        if (!running) {
+            return false;
+        }
+        pending.put(entry.getKey(), entry);
+        if (!queue.offer(entry)) {
+            pending.remove(entry.getKey(), entry);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param key the cache key
+     * @return the entry waiting to be written for the key, or null
+     */
+    PendingEntry get(CacheKey key) {
+        return pending.get(key);
+    }
+
+    void remove(CacheKey key) {
+        pending.remove(key);
+    }
+
+    void removeIf(Predicate<CacheKey> filter) {
+        pending.keySet().removeIf(filter);
+    }
+
+    void clear() {
+        pending.clear();
+    }
+
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Writes the entries already queued and stops the worker thread.
+     */
+    void close() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Discarding {} cache entries which could not be written before shutdown", queue.size());
+            queue.clear();
+            pending.clear();
+        }
+    }
+
+    private void drainLoop() {
+        final List<PendingEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (running) {
+                    final PendingEntry first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+            } catch (InterruptedException e) {
+                // close() was called; fall through and write what is left
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<PendingEntry> batch) {
+        // skip entries which were invalidated or superseded by a newer put while queued
+        final List<PendingEntry> live = new ArrayList<>(batch.size());
+        for (PendingEntry entry : batch) {
+            if (pending.get(entry.getKey()) == entry) {
+                live.add(entry);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+        try {
+            batchWriter.accept(live);
+        } catch (RuntimeException e) {
+            log.error("Unable to write {} cache entries", live.size(), e);
+        }
+        for (PendingEntry entry : live) {
+            if (!pending.remove(entry.getKey(), entry) && !pending.containsKey(entry.getKey())) {
+                // invalidated while the batch was being written
+                invalidator.accept(entry.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.httpcache.store.jcr.impl.visitor;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+
+import org.apache.sling.commons.classloader.DynamicClassLoaderManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.acs.commons.httpcache.keys.CacheKey;
+import com.adobe.acs.commons.httpcache.store.jcr.impl.JCRHttpCacheStoreConstants;
+import com.adobe.acs.commons.httpcache.store.jcr.impl.handler.EntryNodeToCacheKeyHandler;
+
+/**
+ * Traverses the cache tree once and reports the key, path and expiry of every cache entry node,
+ * so the store can build its in-memory index.
+ */
+public class EntryNodeIndexVisitor extends AbstractNodeVisitor
+{
+    private static final Logger log = LoggerFactory.getLogger(EntryNodeIndexVisitor.class);
+
+    /**
+     * Receives every visited cache entry node.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer
+    {
+        void accept(CacheKey key, String path, long expiresOn);
+    }
+
+    private final DynamicClassLoaderManager dclm;
+    private final EntryConsumer consumer;
+    private long entryCount = 0;
+    private long errorCount = 0;
+
+    public EntryNodeIndexVisitor(int maxLevel, DynamicClassLoaderManager dclm, EntryConsumer consumer) {
+        super(maxLevel, -1);
+        this.dclm = dclm;
+        this.consumer = consumer;
+    }
+
+    @Override
+    protected void entering(final Node node, int level) throws RepositoryException
+    {
+        super.entering(node, level);
+
+        if(isCacheEntryNode(node)) {
+            try {
+                final CacheKey key = new EntryNodeToCacheKeyHandler(node, dclm).get();
+                final long expiresOn = node.hasProperty(JCRHttpCacheStoreConstants.PN_EXPIRES_ON)
+                        ? node.getProperty(JCRHttpCacheStoreConstants.PN_EXPIRES_ON).getLong() : Long.MAX_VALUE;
+                consumer.accept(key, node.getPath(), expiresOn);
+                entryCount++;
+            } catch (Exception e) {
+                log.error("Error in reading cache node {}", node.getPath(), e);
+                errorCount++;
+            }
+        }
+    }
+
+    public long getEntryCount()
+    {
+        return entryCount;
+    }
+
+    public long getErrorCount()
+    {
+        return errorCount;
+    }
+}
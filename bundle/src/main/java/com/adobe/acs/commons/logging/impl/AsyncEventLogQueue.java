@@ -0,0 +1,254 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.logging.impl;
+
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import org.osgi.service.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.NotCompliantMBeanException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue which takes OSGi events off the event admin dispatch thread and
+ * serializes them in batches on a dedicated worker thread.
+ */
+public class AsyncEventLogQueue extends AnnotatedStandardMBean implements AsyncEventLogQueueMBean {
+    private static final Logger log = LoggerFactory.getLogger(AsyncEventLogQueue.class);
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000L;
+
+    /**
+     * What to do with an event when the queue is full.
+     */
+    public enum DropPolicy {
+        /**
+         * Discard the incoming event.
+         */
+        DROP_NEWEST,
+        /**
+         * Discard the oldest queued event to make room for the incoming one.
+         */
+        DROP_OLDEST,
+        /**
+         * Log the incoming event synchronously on the dispatching thread.
+         */
+        CALLER_RUNS;
+
+        public static DropPolicy fromProperty(String prop) {
+            if (prop != null) {
+                for (DropPolicy value : values()) {
+                    if (value.name().equalsIgnoreCase(prop.trim())) {
+                        return value;
+                    }
+                }
+            }
+            return DROP_NEWEST;
+        }
+    }
+
+    /**
+     * An event together with the time it was handed to the queue, so the logged
+     * timestamp reflects delivery rather than serialization time.
+     */
+    static final class QueuedEvent {
+        final Event event;
+        final long timestamp;
+
+        QueuedEvent(Event event, long timestamp) {
+            this.event = event;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final BlockingQueue<QueuedEvent> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final DropPolicy dropPolicy;
+    private final Consumer<String> sink;
+    private final Thread worker;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private volatile boolean running = true;
+
+    public AsyncEventLogQueue(final String name, final int capacity, final int batchSize,
+                              final DropPolicy dropPolicy, final Consumer<String> sink) throws NotCompliantMBeanException {
+        super(AsyncEventLogQueueMBean.class);
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.dropPolicy = dropPolicy;
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+        this.worker = new Thread(this::drainLoop, "JsonEventLogger-" + name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Hands an event over to the worker thread without blocking the caller.
+     *
+     * @param event the event to log
+     * @return true if the event was queued or logged, false if it was dropped
+     */
+    public boolean offer(final Event event) {
+        final QueuedEvent queuedEvent = new QueuedEvent(event, System.currentTimeMillis());
+        if (running && queue.offer(queuedEvent)) {
+            enqueued.increment();
+            return true;
+        }
+        switch (dropPolicy) {
+            case DROP_OLDEST:
+                while (running && !queue.offer(queuedEvent)) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+                if (running) {
+                    enqueued.increment();
+                    return true;
+                }
+                dropped.increment();
+                return false;
+            case CALLER_RUNS:
+                callerRuns.increment();
+                write(queuedEvent);
+                return true;
+            case DROP_NEWEST:
+            default:
+                dropped.increment();
+                return false;
+        }
+    }
+
+    /**
+     * Stops the worker thread, flushing events which are already queued.
+     */
+    public void close() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final int remaining = queue.size();
+        if (remaining > 0) {
+            log.warn("Discarding {} queued events which could not be logged before shutdown", remaining);
+            queue.clear();
+        }
+    }
+
+    private void drainLoop() {
+        final List<QueuedEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (running) {
+                    final QueuedEvent first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+            } catch (InterruptedException e) {
+                // close() was called; fall through and flush what is left
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            if (!batch.isEmpty()) {
+                for (QueuedEvent queuedEvent : batch) {
+                    write(queuedEvent);
+                }
+                batches.increment();
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(final QueuedEvent queuedEvent) {
+        try {
+            sink.accept(JsonEventLogger.constructMessage(queuedEvent.event, queuedEvent.timestamp));
+            logged.increment();
+        } catch (RuntimeException e) {
+            log.error("Unable to log event on topic {}", queuedEvent.event.getTopic(), e);
+        }
+    }
+
+    //
+    // ---------------------------------------------------------< MBean methods >-------------
+    //
+
+    @Override
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public String getDropPolicy() {
+        return dropPolicy.name();
+    }
+
+    @Override
+    public long getEnqueuedCount() {
+        return enqueued.sum();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public long getCallerRunsCount() {
+        return callerRuns.sum();
+    }
+
+    @Override
+    public long getLoggedCount() {
+        return logged.sum();
+    }
+
+    @Override
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    @Override
+    public void resetCounters() {
+        enqueued.reset();
+        dropped.reset();
+        callerRuns.reset();
+        logged.reset();
+        batches.reset();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.logging.impl;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+@Description("ACS AEM Commons - JSON Event Logger Queue")
+public interface AsyncEventLogQueueMBean {
+
+    @Description("Number of events currently waiting to be logged")
+    int getQueueDepth();
+
+    @Description("Maximum number of events the queue can hold")
+    int getQueueCapacity();
+
+    @Description("Policy applied when the queue is full")
+    String getDropPolicy();
+
+    @Description("Total number of events accepted into the queue")
+    long getEnqueuedCount();
+
+    @Description("Total number of events dropped because the queue was full")
+    long getDroppedCount();
+
+    @Description("Total number of events logged on the event dispatch thread because the queue was full")
+    long getCallerRunsCount();
+
+    @Description("Total number of events written to the logger")
+    long getLoggedCount();
+
+    @Description("Total number of batches written to the logger")
+    long getBatchCount();
+
+    /* Operations */
+    @Description("Reset the enqueued, dropped, logged and batch counters")
+    void resetCounters();
+}
@@ -33,6 +33,8 @@ import org.apache.felix.scr.annotations.Reference;
 import org.apache.jackrabbit.util.ISO8601;
 import org.apache.sling.commons.osgi.PropertiesUtil;
 
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventConstants;
 import org.osgi.service.event.EventHandler;
@@ -50,6 +52,10 @@ import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+
 /**
  * Logs OSGi Events for any set of topics to an SLF4j Logger Category, as JSON
  * objects.
@@ -76,6 +82,20 @@ public class JsonEventLogger implements EventHandler {
 
     private static final String DEFAULT_LEVEL = "INFO";
 
+    private static final boolean DEFAULT_ASYNC = false;
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static final int DEFAULT_BATCH_SIZE = 64;
+
+    private static final String DEFAULT_DROP_POLICY = "DROP_NEWEST";
+
+    /**
+     * Gson instances are thread-safe, so a single serializer is shared by all
+     * loggers and worker threads.
+     */
+    private static final Gson GSON = new Gson();
+
     /**
      * A simple enum for Slf4j logging levels.
      */
@@ -118,10 +138,34 @@ public class JsonEventLogger implements EventHandler {
     }, description = "Select the logging level the messages should be sent with.")
     static final String OSGI_LEVEL = "event.logger.level";
 
+    @Property(label = "Asynchronous", boolValue = DEFAULT_ASYNC,
+            description = "Hand events to a bounded queue and serialize them on a dedicated thread instead of the event dispatch thread. Recommended for high-volume topics.")
+    static final String OSGI_ASYNC = "event.logger.async";
+
+    @Property(label = "Queue Capacity", intValue = DEFAULT_QUEUE_CAPACITY,
+            description = "Maximum number of events held in the queue when running asynchronously.")
+    static final String OSGI_QUEUE_CAPACITY = "event.logger.queue.capacity";
+
+    @Property(label = "Batch Size", intValue = DEFAULT_BATCH_SIZE,
+            description = "Maximum number of queued events serialized per batch when running asynchronously.")
+    static final String OSGI_BATCH_SIZE = "event.logger.batch.size";
+
+    @SuppressWarnings("AEM Rules:AEM-1")
+    @Property(label = "Drop Policy", value = DEFAULT_DROP_POLICY, options = {
+        @PropertyOption(name = "DROP_NEWEST", value = "Drop the incoming event"),
+        @PropertyOption(name = "DROP_OLDEST", value = "Drop the oldest queued event"),
+        @PropertyOption(name = "CALLER_RUNS", value = "Log the incoming event on the dispatch thread")
+    }, description = "What to do with an event when the queue is full.")
+    static final String OSGI_DROP_POLICY = "event.logger.drop.policy";
+
     private String[] topics;
     private String filter;
     private String category;
     private String level;
+    private boolean async;
+
+    private AsyncEventLogQueue asyncQueue;
+    private ServiceRegistration<?> asyncQueueRegistration;
 
     /**
      * Suppress the PMD.LoggerIsNotStaticFinal check because the point is to
@@ -194,15 +238,28 @@ public class JsonEventLogger implements EventHandler {
      * @return a serialized JSON object
      */
     protected static String constructMessage(Event event) {
+        return constructMessage(event, System.currentTimeMillis());
+    }
+
+    /**
+     * Serializes an OSGi {@link org.osgi.service.event.Event} into a JSON
+     * object string, stamped with the given time.
+     *
+     * @param event     the event to be serialized as
+     * @param timestamp the time the event was received, in epoch milliseconds
+     * @return a serialized JSON object
+     */
+    static String constructMessage(Event event, long timestamp) {
         Map<String, Object> eventProperties = new LinkedHashMap<>();
         for (String prop : event.getPropertyNames()) {
             Object val = event.getProperty(prop);
             Object converted = convertValue(val);
             eventProperties.put(prop, converted == null ? val : converted);
         }
-        eventProperties.put(PROP_TIMESTAMP, ISO8601.format(Calendar.getInstance()));
-        Gson gson = new Gson();
-        return gson.toJson(eventProperties);
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestamp);
+        eventProperties.put(PROP_TIMESTAMP, ISO8601.format(calendar));
+        return GSON.toJson(eventProperties);
     }
 
     /**
@@ -236,7 +293,12 @@ public class JsonEventLogger implements EventHandler {
     @Override
     public void handleEvent(Event event) {
         if (event.getProperty("event.application") == null && this.logEnabler.get()) {
-            logMapper.accept(constructMessage(event));
+            final AsyncEventLogQueue queue = this.asyncQueue;
+            if (queue != null) {
+                queue.offer(event);
+            } else {
+                logMapper.accept(constructMessage(event));
+            }
         }
     }
 
@@ -245,7 +307,7 @@ public class JsonEventLogger implements EventHandler {
     //
     @Activate
     @SuppressWarnings("squid:S1149")
-    protected void activate(final Map<String, Object> config) {
+    protected void activate(final BundleContext bundleContext, final Map<String, Object> config) {
         log.trace("[activate] entered activate method.");
         this.topics = PropertiesUtil.toStringArray(config.get(OSGI_TOPICS));
         this.filter = PropertiesUtil.toString(config.get(OSGI_FILTER), "").trim();
@@ -261,12 +323,46 @@ public class JsonEventLogger implements EventHandler {
         final LogLevel logLevel = LogLevel.fromProperty(this.level);
         this.logEnabler = logEnablerForLevel(logLevel, this.eventLogger);
         this.logMapper = logMapperForLevel(logLevel, this.eventLogger);
+
+        this.async = PropertiesUtil.toBoolean(config.get(OSGI_ASYNC), DEFAULT_ASYNC);
+        if (this.async && this.eventLogger != null) {
+            startAsyncQueue(bundleContext, config);
+        }
         log.trace("[activate] logger state: {}", this);
     }
 
+    private void startAsyncQueue(final BundleContext bundleContext, final Map<String, Object> config) {
+        final int capacity = PropertiesUtil.toInteger(config.get(OSGI_QUEUE_CAPACITY), DEFAULT_QUEUE_CAPACITY);
+        final int batchSize = PropertiesUtil.toInteger(config.get(OSGI_BATCH_SIZE), DEFAULT_BATCH_SIZE);
+        final AsyncEventLogQueue.DropPolicy dropPolicy = AsyncEventLogQueue.DropPolicy.fromProperty(
+                PropertiesUtil.toString(config.get(OSGI_DROP_POLICY), DEFAULT_DROP_POLICY));
+        try {
+            this.asyncQueue = new AsyncEventLogQueue(this.category, capacity, batchSize, dropPolicy, this.logMapper);
+        } catch (NotCompliantMBeanException e) {
+            log.error("Unable to create asynchronous queue, events will be logged synchronously", e);
+            return;
+        }
+
+        if (bundleContext != null) {
+            Dictionary<String, Object> serviceProps = new Hashtable<>();
+            serviceProps.put("jmx.objectname", "com.adobe.acs.commons:type=JSON Event Logger,name="
+                    + ObjectName.quote(this.category));
+            this.asyncQueueRegistration = bundleContext.registerService(DynamicMBean.class.getName(),
+                    this.asyncQueue, serviceProps);
+        }
+    }
+
     @Deactivate
     protected void deactivate() {
         log.trace("[deactivate] entered deactivate method.");
+        if (this.asyncQueueRegistration != null) {
+            this.asyncQueueRegistration.unregister();
+            this.asyncQueueRegistration = null;
+        }
+        if (this.asyncQueue != null) {
+            this.asyncQueue.close();
+            this.asyncQueue = null;
+        }
         this.logEnabler = logEnablerForLevel(LogLevel.NONE, this.eventLogger);
         this.logMapper = logMapperForLevel(LogLevel.NONE, this.eventLogger);
         this.eventLogger = null;
@@ -282,6 +378,7 @@ public class JsonEventLogger implements EventHandler {
                 + ", filter='" + filter + '\''
                 + ", category='" + category + '\''
                 + ", level='" + level + '\''
+                + ", async=" + async
                 + ", enabled=" + logEnabler.get()
                 + '}';
     }
@@ -39,6 +39,19 @@ public interface MarketoClient {
      */
     public @NotNull String getApiToken(@NotNull MarketoClientConfiguration config) throws MarketoApiException;
 
+    /**
+     * Retrieve an API token used for interacting with the Marketo API.
+     * 
+     * @param config   the configuration to use to retrieve the token
+     * @param useCache false to request a new token from Marketo even if a valid token is cached
+     * @return a valid Marketo API Token
+     * @throws MarketoApiException an error occurs retrieving the token
+     */
+    default @NotNull String getApiToken(@NotNull MarketoClientConfiguration config, boolean useCache)
+            throws MarketoApiException {
+        return getApiToken(config);
+    }
+
     /**
      * Retrieve a HttpClient for interacting with the Marketo API
      * 
@@ -55,6 +68,19 @@ public interface MarketoClient {
      */
     public @NotNull List<MarketoForm> getForms(@NotNull MarketoClientConfiguration config) throws MarketoApiException;
 
+    /**
+     * Retrieve all of the available forms from the current organization in Marketo.
+     * 
+     * @param config   the configuration for this request
+     * @param useCache false to retrieve the forms from Marketo with a new API token even if they are cached
+     * @return the full list of available forms
+     * @throws MarketoApiException an exception occurs interacting with the API
+     */
+    default @NotNull List<MarketoForm> getForms(@NotNull MarketoClientConfiguration config, boolean useCache)
+            throws MarketoApiException {
+        return getForms(config);
+    }
+
     /**
      * Retrieve all of the available forms from the current organization in Marketo.
      * 
@@ -0,0 +1,129 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.marketo.client.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.adobe.acs.commons.marketo.client.MarketoApiException;
+
+/**
+ * Caches listings retrieved from the Marketo API per configuration. Once a listing is older than the time to live, it
+ * is still returned while a fresh listing is loaded in the background. A listing which cannot be refreshed is dropped,
+ * so the next request loads it again and sees the error.
+ */
+final class ListingCache<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(ListingCache.class);
+
+    interface Loader<T> {
+        List<T> load() throws MarketoApiException;
+    }
+
+    private static final class Entry<T> {
+        private final List<T> values;
+        private final long loaded = System.currentTimeMillis();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(List<T> values) {
+            this.values = Collections.unmodifiableList(new ArrayList<>(values));
+        }
+    }
+
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile long ttl = 0;
+    private volatile Executor refresher = Runnable::run;
+
+    /**
+     * @param ttl the time in milliseconds after which a listing gets refreshed, 0 disables caching
+     * @param refresher the executor refreshing expired listings
+     */
+    void configure(long ttl, Executor refresher) {
+        this.ttl = ttl;
+        this.refresher = refresher;
+        entries.clear();
+    }
+
+    List<T> get(String key, Loader<T> loader) throws MarketoApiException {
+        if (ttl <= 0) {
+            return loader.load();
+        }
+
+        final Entry<T> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return load(key, loader).values;
+        }
+
+        hits.increment();
+        if (System.currentTimeMillis() - entry.loaded > ttl && entry.refreshing.compareAndSet(false, true)) {
+            try {
+                refresher.execute(() -> refresh(key, loader, entry));
+            } catch (RejectedExecutionException e) {
+                entry.refreshing.set(false);
+            }
+        }
+        return entry.values;
+    }
+
+    private void refresh(String key, Loader<T> loader, Entry<T> entry) {
+        try {
+            load(key, loader);
+        } catch (MarketoApiException | RuntimeException e) {
+            log.warn("Failed to refresh cached Marketo listing, dropping it", e);
+            entries.remove(key, entry);
+        }
+    }
+
+    private Entry<T> load(String key, Loader<T> loader) throws MarketoApiException {
+        final Entry<T> entry = new Entry<>(loader.load());
+        if (ttl > 0) {
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+}
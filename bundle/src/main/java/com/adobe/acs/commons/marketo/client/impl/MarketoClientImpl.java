@@ -21,11 +21,21 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
+
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
@@ -45,15 +55,22 @@ import org.apache.http.util.EntityUtils;
 import org.apache.poi.util.IOUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.osgi.framework.BundleContext;
 import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.cm.Configuration;
 import org.osgi.service.cm.ConfigurationAdmin;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.adobe.acs.commons.http.impl.SharedConnectionPool;
 import com.adobe.acs.commons.marketo.MarketoClientConfiguration;
 import com.adobe.acs.commons.marketo.client.MarketoApiException;
 import com.adobe.acs.commons.marketo.client.MarketoClient;
@@ -67,13 +84,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * Implementation of the MarketoClient using the REST API.
  */
 @Component(service = MarketoClient.class)
+@Designate(ocd = MarketoClientImpl.Config.class)
 public class MarketoClientImpl implements MarketoClient {
 
+    @ObjectClassDefinition(name = "ACS AEM Commons - Marketo Client",
+            description = "Client for the Marketo REST API")
+    @interface Config {
+        @AttributeDefinition(name = "Listing Cache TTL",
+                description = "Time in seconds the forms and fields retrieved from Marketo are cached. Expired "
+                        + "listings are returned while they are refreshed in the background. Set to 0 to disable "
+                        + "caching. [ Default: 600 ]")
+        long listing_cache_ttl() default 600;
+    }
+
     private static final Logger log = LoggerFactory.getLogger(MarketoClientImpl.class);
 
     private static final int SOCKET_TIMEOUT_MS = 5000;
     private static final int CONNECT_TIMEOUT_MS = 5000;
     private static final int PAGE_SIZE = 200;
+    private static final long TOKEN_EXPIRY_MARGIN_MS = 60000;
 
     private ObjectMapper mapper = new ObjectMapper();
 
@@ -83,11 +112,67 @@ public class MarketoClientImpl implements MarketoClient {
                     .setConnectTimeout(CONNECT_TIMEOUT_MS)
                     .build());
 
+    private final Map<String, ApiToken> apiTokens = new ConcurrentHashMap<>();
+    private final LongAdder tokenRequests = new LongAdder();
+    private final LongAdder tokenCacheHits = new LongAdder();
+    private final ListingCache<MarketoForm> formCache = new ListingCache<>();
+    private final ListingCache<MarketoField> fieldCache = new ListingCache<>();
+
+    private SharedConnectionPool connectionPool;
+    private ExecutorService refresher;
+    private ServiceRegistration<?> connectionPoolRegistration;
+    private ServiceRegistration<?> statsRegistration;
+
     @Reference
     protected ConfigurationAdmin configAdmin;
 
     @Activate
-    public void activate() {
+    public void activate(BundleContext bundleContext, Config config) throws NotCompliantMBeanException {
+        configureProxy();
+
+        connectionPool = new SharedConnectionPool(SharedConnectionPool.DEFAULT_MAX_CONNECTIONS);
+        connectionPool.configure(clientBuilder);
+
+        refresher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Marketo Listing Refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long ttl = TimeUnit.SECONDS.toMillis(config.listing_cache_ttl());
+        formCache.configure(ttl, refresher);
+        fieldCache.configure(ttl, refresher);
+
+        Dictionary<String, Object> mbeanProps = new Hashtable<>();
+        mbeanProps.put("jmx.objectname", "com.adobe.acs.commons:type=HTTP Connection Pool,name=Marketo");
+        connectionPoolRegistration = bundleContext.registerService(DynamicMBean.class.getName(), connectionPool, mbeanProps);
+
+        mbeanProps = new Hashtable<>();
+        mbeanProps.put("jmx.objectname", "com.adobe.acs.commons:type=Marketo Client");
+        statsRegistration = bundleContext.registerService(DynamicMBean.class.getName(), new MarketoClientStats(this), mbeanProps);
+    }
+
+    @Deactivate
+    public void deactivate() {
+        if (statsRegistration != null) {
+            statsRegistration.unregister();
+            statsRegistration = null;
+        }
+        if (connectionPoolRegistration != null) {
+            connectionPoolRegistration.unregister();
+            connectionPoolRegistration = null;
+        }
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+        if (connectionPool != null) {
+            connectionPool.shutdown();
+            connectionPool = null;
+        }
+        clearCache();
+    }
+
+    private void configureProxy() {
         Configuration[] configs;
         try {
             configs = configAdmin.listConfigurations("(service.factoryPid=org.apache.http.proxyconfigurator)");
@@ -150,6 +235,10 @@ public class MarketoClientImpl implements MarketoClient {
 
     @Override
     public CloseableHttpClient getHttpClient() {
+        if (connectionPool != null) {
+            // closing the client returns its connections to the shared pool
+            connectionPool.evictConnections();
+        }
         return clientBuilder.build();
     }
 
@@ -187,7 +276,31 @@ public class MarketoClientImpl implements MarketoClient {
     }
 
     public @NotNull String getApiToken(@NotNull MarketoClientConfiguration config) throws MarketoApiException {
+        return getApiToken(config, true);
+    }
+
+    @Override
+    public @NotNull String getApiToken(@NotNull MarketoClientConfiguration config, boolean useCache)
+            throws MarketoApiException {
         log.trace("getApiToken");
+        String key = getCacheKey(config);
+        ApiToken cached = useCache ? apiTokens.get(key) : null;
+        if (cached != null && cached.isValid()) {
+            tokenCacheHits.increment();
+            return cached.getValue();
+        }
+
+        ApiToken token = requestApiToken(config);
+        if (token.isValid()) {
+            apiTokens.put(key, token);
+        } else {
+            apiTokens.remove(key);
+        }
+        return token.getValue();
+    }
+
+    private @NotNull ApiToken requestApiToken(@NotNull MarketoClientConfiguration config) throws MarketoApiException {
+        tokenRequests.increment();
         String url = String.format(
                 "https://%s/identity/oauth/token?grant_type=client_credentials&client_id=%s&client_secret=%s",
                 config.getEndpointHost(), config.getClientId(), config.getClientSecret());
@@ -197,16 +310,24 @@ public class MarketoClientImpl implements MarketoClient {
                 body = EntityUtils.toString(res.getEntity());
                 Map<?, ?> responseData = mapper.readValue(body, Map.class);
                 String token = (String) responseData.get("access_token");
-                return new ParsedResponse<String>(token);
+                Object expiresIn = responseData.get("expires_in");
+                long expiresAt = expiresIn instanceof Number
+                        ? System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(((Number) expiresIn).longValue())
+                                - TOKEN_EXPIRY_MARGIN_MS
+                        : 0;
+                return new ParsedResponse<ApiToken>(new ApiToken(token, expiresAt));
             } catch (IOException e) {
-                return new ParsedResponse<String>(new MarketoApiException("Failed to get API Token", req, res, body));
+                return new ParsedResponse<ApiToken>(new MarketoApiException("Failed to get API Token", req, res, body));
             }
         });
     }
 
     @Override
     public List<MarketoField> getFields(MarketoClientConfiguration config) throws MarketoApiException {
-        String apiToken = getApiToken(config);
+        return fieldCache.get(getCacheKey(config), () -> withApiToken(config, this::loadFields));
+    }
+
+    private List<MarketoField> loadFields(MarketoClientConfiguration config, String apiToken) throws MarketoApiException {
         List<MarketoField> fields = new ArrayList<>();
 
         String base = String.format("https://%s/rest/asset/v1/form/fields.json?", config.getEndpointHost());
@@ -253,7 +374,19 @@ public class MarketoClientImpl implements MarketoClient {
 
     @Override
     public List<MarketoForm> getForms(@NotNull MarketoClientConfiguration config) throws MarketoApiException {
-        String apiToken = getApiToken(config);
+        return getForms(config, true);
+    }
+
+    @Override
+    public @NotNull List<MarketoForm> getForms(@NotNull MarketoClientConfiguration config, boolean useCache)
+            throws MarketoApiException {
+        if (!useCache) {
+            return loadForms(config, getApiToken(config, false));
+        }
+        return formCache.get(getCacheKey(config), () -> withApiToken(config, this::loadForms));
+    }
+
+    private List<MarketoForm> loadForms(MarketoClientConfiguration config, String apiToken) throws MarketoApiException {
         List<MarketoForm> forms = new ArrayList<>();
         String base = String.format("https://%s/rest/asset/v1/forms.json?status=approved&", config.getEndpointHost());
         for (int i = 0; true; i++) {
@@ -268,6 +401,73 @@ public class MarketoClientImpl implements MarketoClient {
         return forms;
     }
 
+    /**
+     * Calls the API with the API token for the configuration. A cached token is dropped if the call fails, as Marketo
+     * might have revoked it before it expired.
+     */
+    private <T> T withApiToken(MarketoClientConfiguration config, ApiCall<T> call) throws MarketoApiException {
+        String apiToken = getApiToken(config);
+        try {
+            return call.apply(config, apiToken);
+        } catch (MarketoApiException e) {
+            apiTokens.remove(getCacheKey(config));
+            throw e;
+        }
+    }
+
+    /**
+     * @return the key of the tokens and listings of a configuration, with a digest of the client secret so that the
+     *         secret is not kept in memory in plain text
+     */
+    private static String getCacheKey(MarketoClientConfiguration config) {
+        return config.getEndpointHost() + "|" + config.getClientId() + "|"
+                + DigestUtils.sha256Hex(StringUtils.defaultString(config.getClientSecret()));
+    }
+
+    void clearCache() {
+        apiTokens.clear();
+        formCache.clear();
+        fieldCache.clear();
+    }
+
+    long getTokenRequestCount() {
+        return tokenRequests.sum();
+    }
+
+    long getTokenCacheHitCount() {
+        return tokenCacheHits.sum();
+    }
+
+    ListingCache<MarketoForm> getFormCache() {
+        return formCache;
+    }
+
+    ListingCache<MarketoField> getFieldCache() {
+        return fieldCache;
+    }
+
+    private interface ApiCall<T> {
+        T apply(MarketoClientConfiguration config, String apiToken) throws MarketoApiException;
+    }
+
+    private static final class ApiToken {
+        private final String value;
+        private final long expiresAt;
+
+        private ApiToken(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private String getValue() {
+            return value;
+        }
+
+        private boolean isValid() {
+            return value != null && System.currentTimeMillis() < expiresAt;
+        }
+    }
+
     class ParsedResponse<T> {
         private final boolean success;
         private final MarketoApiException exception;
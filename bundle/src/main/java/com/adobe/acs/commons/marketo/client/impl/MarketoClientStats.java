@@ -0,0 +1,70 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.marketo.client.impl;
+
+import javax.management.NotCompliantMBeanException;
+
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+
+/**
+ * Exposes the token and listing cache statistics of a {@link MarketoClientImpl}.
+ */
+public class MarketoClientStats extends AnnotatedStandardMBean implements MarketoClientStatsMBean {
+
+    private final MarketoClientImpl client;
+
+    public MarketoClientStats(MarketoClientImpl client) throws NotCompliantMBeanException {
+        super(MarketoClientStatsMBean.class);
+        this.client = client;
+    }
+
+    @Override
+    public long getTokenRequestCount() {
+        return client.getTokenRequestCount();
+    }
+
+    @Override
+    public long getTokenCacheHitCount() {
+        return client.getTokenCacheHitCount();
+    }
+
+    @Override
+    public long getFormCacheHitCount() {
+        return client.getFormCache().getHitCount();
+    }
+
+    @Override
+    public long getFormCacheMissCount() {
+        return client.getFormCache().getMissCount();
+    }
+
+    @Override
+    public long getFieldCacheHitCount() {
+        return client.getFieldCache().getHitCount();
+    }
+
+    @Override
+    public long getFieldCacheMissCount() {
+        return client.getFieldCache().getMissCount();
+    }
+
+    @Override
+    public void clearCache() {
+        client.clearCache();
+    }
+}
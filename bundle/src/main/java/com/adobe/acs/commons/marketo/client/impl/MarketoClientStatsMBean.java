@@ -0,0 +1,46 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.marketo.client.impl;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+@Description("ACS AEM Commons - Marketo Client")
+public interface MarketoClientStatsMBean {
+
+    @Description("Number of API tokens requested from Marketo")
+    long getTokenRequestCount();
+
+    @Description("Number of API calls using a cached API token")
+    long getTokenCacheHitCount();
+
+    @Description("Number of form listings answered from the cache")
+    long getFormCacheHitCount();
+
+    @Description("Number of form listings retrieved from Marketo because they were not cached")
+    long getFormCacheMissCount();
+
+    @Description("Number of field listings answered from the cache")
+    long getFieldCacheHitCount();
+
+    @Description("Number of field listings retrieved from Marketo because they were not cached")
+    long getFieldCacheMissCount();
+
+    /* Operations */
+    @Description("Remove all cached API tokens, forms and fields")
+    void clearCache();
+}
@@ -18,5 +18,5 @@
 /**
  * Adobe I/O services.
  */
-@org.osgi.annotation.versioning.Version("4.4.1")
+@org.osgi.annotation.versioning.Version("4.5.0")
 package com.adobe.acs.commons.marketo.client;
\ No newline at end of file
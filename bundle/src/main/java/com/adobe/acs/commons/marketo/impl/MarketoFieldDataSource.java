@@ -21,7 +21,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.jcr.RepositoryException;
@@ -47,9 +46,6 @@ import com.adobe.acs.commons.marketo.client.MarketoField;
 import com.adobe.granite.ui.components.ds.DataSource;
 import com.adobe.granite.ui.components.ds.SimpleDataSource;
 import com.adobe.granite.ui.components.ds.ValueMapResource;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 
 /**
  * Used to drive the list of Form ID options for the Marketo Form component
@@ -66,14 +62,6 @@ public class MarketoFieldDataSource extends SlingSafeMethodsServlet {
 
   private transient MarketoClient client;
 
-
-  private transient LoadingCache<MarketoClientConfiguration, List<MarketoField>> formCache = CacheBuilder.newBuilder()
-      .expireAfterWrite(10, TimeUnit.MINUTES).build(new CacheLoader<MarketoClientConfiguration, List<MarketoField>>() {
-        public List<MarketoField> load(MarketoClientConfiguration config) throws Exception {
-          return client.getFields(config);
-        }
-      });
-
   @Reference
   public void bindMarketoClient(MarketoClient client) {
     this.client = client;
@@ -99,7 +87,7 @@ public class MarketoFieldDataSource extends SlingSafeMethodsServlet {
       }
 
 
-      options = formCache.get(config).stream()
+      options = client.getFields(config).stream()
           .sorted((MarketoField f1, MarketoField f2) -> f1.getId().compareTo(f2.getId())).map(f -> {
             Map<String, Object> data = new HashMap<>();
             data.put("value", f.getId());
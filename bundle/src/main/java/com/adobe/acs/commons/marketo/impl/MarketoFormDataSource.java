@@ -21,7 +21,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.jcr.RepositoryException;
@@ -47,9 +46,6 @@ import com.adobe.acs.commons.marketo.client.MarketoForm;
 import com.adobe.granite.ui.components.ds.DataSource;
 import com.adobe.granite.ui.components.ds.SimpleDataSource;
 import com.adobe.granite.ui.components.ds.ValueMapResource;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 
 /**
  * Used to drive the list of Form and Field ID options for the Marketo Form
@@ -66,13 +62,6 @@ public class MarketoFormDataSource extends SlingSafeMethodsServlet {
 
   private transient MarketoClient client;
 
-  private transient LoadingCache<MarketoClientConfiguration, List<MarketoForm>> formCache = CacheBuilder.newBuilder()
-      .expireAfterWrite(10, TimeUnit.MINUTES).build(new CacheLoader<MarketoClientConfiguration, List<MarketoForm>>() {
-        public List<MarketoForm> load(MarketoClientConfiguration config) throws Exception {
-          return client.getForms(config);
-        }
-      });
-
   @Reference
   public void bindMarketoClient(MarketoClient client) {
     this.client = client;
@@ -96,7 +85,7 @@ public class MarketoFormDataSource extends SlingSafeMethodsServlet {
       }
 
       int currentValue = getCurrentValue(request);
-      options = formCache.get(config).stream()
+      options = client.getForms(config).stream()
           .sorted((MarketoForm f1, MarketoForm f2) -> f1.getName().compareTo(f2.getName())).map(f -> {
             Map<String, Object> data = new HashMap<>();
             data.put("selected", currentValue == f.getId());
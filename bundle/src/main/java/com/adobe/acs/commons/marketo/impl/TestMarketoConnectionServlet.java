@@ -96,7 +96,8 @@ public class TestMarketoConnectionServlet extends SlingSafeMethodsServlet {
         logs.add("Resolved configuration: " + config);
 
         try {
-            client.getApiToken(config);
+            // bypass the client's caches, the configuration must be validated against Marketo
+            client.getApiToken(config, false);
             logs.add("Retrieved token successfully");
         } catch (MarketoApiException e) {
             log.warn("Failed to validate Marketo configuration, cannot retrieve token. Logs: {}", log, e);
@@ -108,7 +109,7 @@ public class TestMarketoConnectionServlet extends SlingSafeMethodsServlet {
         }
 
         try {
-            client.getForms(config);
+            client.getForms(config, false);
             logs.add("Retrieved forms successfully");
         } catch (MarketoApiException e) {
             log.warn("Failed to validate Marketo configuration, cannot retrieve forms. Logs: {}", log, e);
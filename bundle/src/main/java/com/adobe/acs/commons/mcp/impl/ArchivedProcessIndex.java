@@ -0,0 +1,188 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.mcp.impl;
+
+import com.adobe.acs.commons.mcp.ProcessInstance;
+import com.adobe.acs.commons.mcp.model.impl.ArchivedProcessInstance;
+import com.adobe.acs.commons.util.visitors.TreeFilteringResourceVisitor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory index of the archived process instances stored below {@link ProcessInstanceImpl#BASE_PATH}.
+ * <p>
+ * The tree is walked once when the index is built; afterwards resource change events (and completed processes
+ * reported by the manager) only mark individual instance paths as stale, and those are reloaded in one pass on the
+ * next read. Removed instances are dropped from the index directly.
+ */
+class ArchivedProcessIndex implements ResourceChangeListener, ExternalResourceChangeListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArchivedProcessIndex.class);
+
+    private static final String JCR_CONTENT_SEGMENT = "/jcr:content";
+
+    @FunctionalInterface
+    interface ResolverSupplier {
+        ResourceResolver get() throws LoginException;
+    }
+
+    private final ResolverSupplier resolverSupplier;
+    private final String basePath;
+    private final Function<Resource, ProcessInstance> adapter;
+
+    /* instance path -> archived instance */
+    private final Map<String, ProcessInstance> instances = new ConcurrentHashMap<>();
+    /* instance paths that have to be reloaded before the next read */
+    private final Set<String> stalePaths = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready = false;
+
+    ArchivedProcessIndex(ResolverSupplier resolverSupplier, String basePath) {
+        this(resolverSupplier, basePath, r -> r.adaptTo(ArchivedProcessInstance.class));
+    }
+
+    ArchivedProcessIndex(ResolverSupplier resolverSupplier, String basePath, Function<Resource, ProcessInstance> adapter) {
+        this.resolverSupplier = resolverSupplier;
+        this.basePath = basePath;
+        this.adapter = adapter;
+    }
+
+    /**
+     * Walks the whole instance tree and replaces the contents of the index. Instances marked stale while the tree
+     * is walked stay stale, since the walk may have read them before they changed.
+     */
+    synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        List<String> covered = new ArrayList<>(stalePaths);
+        stalePaths.removeAll(covered);
+        try (ResourceResolver rr = resolverSupplier.get()) {
+            Map<String, ProcessInstance> found = new HashMap<>();
+            Resource tree = rr.getResource(basePath);
+            if (tree != null) {
+                TreeFilteringResourceVisitor visitor = new TreeFilteringResourceVisitor();
+                visitor.setLeafVisitor((r, l) -> {
+                    ProcessInstance instance = adapter.apply(r);
+                    if (instance != null) {
+                        found.put(r.getPath(), instance);
+                    }
+                });
+                visitor.accept(tree);
+            }
+            instances.clear();
+            instances.putAll(found);
+            ready = true;
+            LOG.debug("Indexed {} archived processes in {} ms", found.size(), System.currentTimeMillis() - start);
+        } catch (Exception ex) {
+            LOG.error("Error building the archived process index", ex);
+            stalePaths.addAll(covered);
+        }
+    }
+
+    /**
+     * Returns the archived instances not matching the given filter, bringing the index up to date first.
+     *
+     * @param exclude filter for instances that should be left out, e.g. the ones which are still active
+     * @return snapshot of the matching instances
+     */
+    Collection<ProcessInstance> getInstances(Predicate<ProcessInstance> exclude) {
+        if (!ready) {
+            rebuild();
+        } else if (!stalePaths.isEmpty()) {
+            refreshStalePaths();
+        }
+        List<ProcessInstance> result = new ArrayList<>(instances.size());
+        instances.values().stream().filter(exclude.negate()).forEach(result::add);
+        return result;
+    }
+
+    /**
+     * Marks an instance as changed so it is reloaded on the next read.
+     *
+     * @param path path of the process instance
+     */
+    void invalidate(String path) {
+        stalePaths.add(path);
+    }
+
+    int size() {
+        return instances.size();
+    }
+
+    @Override
+    public void onChange(List<ResourceChange> changes) {
+        for (ResourceChange change : changes) {
+            String path = change.getPath();
+            if (!path.startsWith(basePath + "/")) {
+                continue;
+            }
+            if (change.getType() == ResourceChange.ChangeType.REMOVED) {
+                instances.keySet().removeIf(p -> p.equals(path) || p.startsWith(path + "/"));
+                stalePaths.removeIf(p -> p.equals(path) || p.startsWith(path + "/"));
+                if (path.contains(JCR_CONTENT_SEGMENT + "/") || path.endsWith(JCR_CONTENT_SEGMENT)) {
+                    invalidate(getInstancePath(path));
+                }
+            } else {
+                invalidate(getInstancePath(path));
+            }
+        }
+    }
+
+    private synchronized void refreshStalePaths() {
+        List<String> paths = new ArrayList<>(stalePaths);
+        if (paths.isEmpty()) {
+            return;
+        }
+        try (ResourceResolver rr = resolverSupplier.get()) {
+            for (String path : paths) {
+                stalePaths.remove(path);
+                Resource resource = rr.getResource(path);
+                ProcessInstance instance = null;
+                if (resource != null && resource.getChild("jcr:content") != null) {
+                    instance = adapter.apply(resource);
+                }
+                if (instance != null) {
+                    instances.put(path, instance);
+                } else {
+                    instances.remove(path);
+                }
+            }
+        } catch (Exception ex) {
+            LOG.error("Error refreshing the archived process index", ex);
+            stalePaths.addAll(paths);
+        }
+    }
+
+    private static String getInstancePath(String path) {
+        int pos = path.indexOf(JCR_CONTENT_SEGMENT);
+        return pos > 0 ? path.substring(0, pos) : path;
+    }
+}
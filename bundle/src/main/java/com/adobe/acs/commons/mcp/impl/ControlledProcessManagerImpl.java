@@ -24,14 +24,13 @@ import com.adobe.acs.commons.mcp.ProcessDefinition;
 import com.adobe.acs.commons.mcp.ProcessDefinitionFactory;
 import com.adobe.acs.commons.mcp.ProcessInstance;
 import com.adobe.acs.commons.mcp.form.FieldComponent;
-import com.adobe.acs.commons.mcp.model.impl.ArchivedProcessInstance;
 import com.adobe.acs.commons.mcp.util.AnnotatedFieldDeserializer;
-import com.adobe.acs.commons.util.visitors.TreeFilteringResourceVisitor;
 import java.text.MessageFormat;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Dictionary;
 import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,7 +40,9 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 import javax.management.openmbean.OpenDataException;
 import javax.management.openmbean.TabularDataSupport;
+import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
@@ -49,10 +50,12 @@ import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.felix.scr.annotations.Service;
 import org.apache.jackrabbit.api.security.user.User;
 import org.apache.sling.api.resource.LoginException;
-import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.apache.sling.api.scripting.SlingScriptHelper;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 import org.slf4j.LoggerFactory;
 
 /**
@@ -80,12 +83,32 @@ public class ControlledProcessManagerImpl implements ControlledProcessManager {
 
     Map<String, ProcessInstance> activeProcesses = Collections.synchronizedMap(new LinkedHashMap<>());
 
+    ArchivedProcessIndex archivedProcesses = new ArchivedProcessIndex(this::getServiceResourceResolver, ProcessInstanceImpl.BASE_PATH);
+
+    private ServiceRegistration<ResourceChangeListener> archiveListenerRegistration;
+
     @Reference
     ResourceResolverFactory resourceResolverFactory;
 
     @Reference
     ActionManagerFactory amf;
 
+    @Activate
+    protected void activate(BundleContext bundleContext) {
+        final Dictionary<String, Object> listenerProps = new Hashtable<>();
+        listenerProps.put(ResourceChangeListener.PATHS, new String[]{ProcessInstanceImpl.BASE_PATH});
+        archiveListenerRegistration = bundleContext.registerService(ResourceChangeListener.class, archivedProcesses, listenerProps);
+        archivedProcesses.rebuild();
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if (archiveListenerRegistration != null) {
+            archiveListenerRegistration.unregister();
+            archiveListenerRegistration = null;
+        }
+    }
+
     @Override
     public ActionManagerFactory getActionManagerFactory() {
         return amf;
@@ -133,11 +156,18 @@ public class ControlledProcessManagerImpl implements ControlledProcessManager {
         Set<ProcessInstance> instances = new HashSet<>(activeProcesses.values());
         activeProcesses.clear();
         instances.forEach(ProcessInstance::halt);
+        instances.forEach(instance -> archivedProcesses.invalidate(instance.getPath()));
     }
 
     @Override
     public void purgeCompletedProcesses() {
-        activeProcesses.values().removeIf(proc -> !proc.getInfo().isIsRunning());
+        activeProcesses.values().removeIf(proc -> {
+            if (proc.getInfo().isIsRunning()) {
+                return false;
+            }
+            archivedProcesses.invalidate(proc.getPath());
+            return true;
+        });
     }
 
     @Override
@@ -203,20 +233,7 @@ public class ControlledProcessManagerImpl implements ControlledProcessManager {
 
     @Override
     public Collection<ProcessInstance> getInactiveProcesses() {
-        ArrayList<ProcessInstance> processes = new ArrayList();
-        try ( ResourceResolver rr = getServiceResourceResolver()) {
-            Resource tree = rr.getResource(ProcessInstanceImpl.BASE_PATH);
-            TreeFilteringResourceVisitor visitor = new TreeFilteringResourceVisitor();
-            visitor.setLeafVisitor((r, l) -> {
-                if (!activeProcesses.containsKey(r.getName())) {
-                    processes.add(r.adaptTo(ArchivedProcessInstance.class));
-                }
-            });
-            visitor.accept(tree);
-        } catch (Exception ex) {
-            LOG.error("Error getting inactive process list", ex);
-        }
-        return processes;
+        return archivedProcesses.getInstances(p -> activeProcesses.containsKey(p.getId()));
     }
 
     @Override
@@ -95,7 +95,7 @@ public class ControlledProcessManagerServlet extends SlingAllMethodsServlet {
                     result = doStartProcess(request);
                     break;
                 case "list":
-                    result = doProcessList();
+                    result = doProcessList(request);
                     break;
                 case "status":
                     result = doProcessStatusCheck(request);
@@ -224,11 +224,46 @@ public class ControlledProcessManagerServlet extends SlingAllMethodsServlet {
                 ));
     }
 
-    private Collection<ProcessInstance> doProcessList() {
+    /**
+     * Lists active and archived processes. The list is sorted by the <code>sort</code> parameter (one of
+     * <code>startTime</code>, <code>stopTime</code> or <code>name</code>, defaults to <code>startTime</code>) in the
+     * <code>order</code> given (<code>asc</code> or <code>desc</code>, defaults to <code>desc</code>) and can be paged
+     * with the <code>offset</code> and <code>limit</code> parameters.
+     */
+    private Collection<ProcessInstance> doProcessList(SlingHttpServletRequest request) {
         ArrayList<ProcessInstance> processes = new ArrayList();
         processes.addAll(manager.getActiveProcesses());
         processes.addAll(manager.getInactiveProcesses());
-        processes.sort(Comparator.comparing((ProcessInstance p) -> p.getInfo().getStartTime()).reversed());
-        return processes;
+        processes.sort(getListComparator(request.getParameter("sort"), request.getParameter("order")));
+        int offset = getIntParameter(request, "offset", 0);
+        int limit = getIntParameter(request, "limit", -1);
+        if (offset <= 0 && limit < 0) {
+            return processes;
+        }
+        return processes.stream().skip(Math.max(offset, 0)).limit(limit < 0 ? Long.MAX_VALUE : limit).collect(Collectors.toList());
+    }
+
+    static Comparator<ProcessInstance> getListComparator(String sort, String order) {
+        Comparator<ProcessInstance> comparator;
+        if ("stopTime".equals(sort)) {
+            comparator = Comparator.comparing((ProcessInstance p) -> p.getInfo().getStopTime(), Comparator.nullsFirst(Comparator.naturalOrder()));
+        } else if ("name".equals(sort)) {
+            comparator = Comparator.comparing((ProcessInstance p) -> p.getInfo().getName(), Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+        } else {
+            comparator = Comparator.comparing((ProcessInstance p) -> p.getInfo().getStartTime(), Comparator.nullsFirst(Comparator.naturalOrder()));
+        }
+        return "asc".equalsIgnoreCase(order) ? comparator : comparator.reversed();
+    }
+
+    private int getIntParameter(SlingHttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a number", ex);
+        }
     }
 }
@@ -32,10 +32,11 @@ import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
 import org.apache.poi.xssf.usermodel.XSSFColor;
 import org.apache.poi.xssf.usermodel.XSSFFont;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.apache.poi.xssf.usermodel.DefaultIndexedColorMap;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
@@ -48,6 +49,7 @@ import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Export a generic report as an excel spreadsheet
@@ -57,6 +59,8 @@ import java.util.List;
 public class GenericReportExcelServlet extends SlingSafeMethodsServlet {
     private static final org.slf4j.Logger LOG = LoggerFactory.getLogger(GenericReportExcelServlet.class);
 
+    private static final int ROW_ACCESS_WINDOW = 100;
+
     @Override
     protected void doGet(SlingHttpServletRequest request, SlingHttpServletResponse response) throws ServletException, IOException {
         AbstractReport report = getReport(request.getResource());
@@ -64,7 +68,7 @@ public class GenericReportExcelServlet extends SlingSafeMethodsServlet {
             String title = report.getName();
             String fileName = JcrUtil.createValidName(title) + ".xlsx";
 
-            Workbook workbook = createSpreadsheet(report);
+            SXSSFWorkbook workbook = createSpreadsheet(report);
             response.setContentType("application/vnd.ms-excel");
             response.setHeader("Expires", "0");
             response.setHeader("Cache-Control", "must-revalidate, post-check=0, pre-check=0");
@@ -76,6 +80,8 @@ public class GenericReportExcelServlet extends SlingSafeMethodsServlet {
             } catch (Exception ex) {
                 LOG.error("Error generating excel export for "+request.getResource().getPath(), ex);
                 throw ex;
+            } finally {
+                workbook.dispose();
             }
         } else {
             String msg = String.format("Unable to process report stored at %s", request.getResource().getPath());
@@ -83,15 +89,19 @@ public class GenericReportExcelServlet extends SlingSafeMethodsServlet {
         }
     }
 
-    @SuppressWarnings("squid:S3776")
-    private Workbook createSpreadsheet(AbstractReport report) {
-        Workbook wb = new XSSFWorkbook();
+    /**
+     * Rows are written through a streaming workbook, so only a window of rows is kept in memory while the
+     * report is being read.
+     */
+    private SXSSFWorkbook createSpreadsheet(AbstractReport report) {
+        SXSSFWorkbook wb = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
 
         String name = report.getName();
         for (char ch : new char[]{'\\','/','*','[',']',':','?'}) {
             name = StringUtils.remove(name, ch);
         }
-        Sheet sheet = wb.createSheet(name);
+        SXSSFSheet sheet = wb.createSheet(name);
+        sheet.trackAllColumnsForAutoSizing();
         sheet.createFreezePane(0, 1, 0, 1);
 
         Row headerRow = sheet.createRow(0);
@@ -102,38 +112,41 @@ public class GenericReportExcelServlet extends SlingSafeMethodsServlet {
             headerCell.setCellStyle(headerStyle);
         }
 
-        List<ValueMap> rows = report.getRows();
-        //make rows, don't forget the header row
-        for (int r = 0; r < rows.size(); r++) {
-            Row row = sheet.createRow(r+1);
-
+        List<String> columns = report.getColumns();
+        AtomicInteger rowCount = new AtomicInteger();
+        report.forEachRow(values -> {
+            //make rows, don't forget the header row
+            Row row = sheet.createRow(rowCount.incrementAndGet());
             //make columns
-            for (int c = 0; c < report.getColumns().size(); c++) {
-                String col = report.getColumns().get(c);
+            for (int c = 0; c < columns.size(); c++) {
+                String col = columns.get(c);
                 Cell cell = row.createCell(c);
 
-                if (rows.get(r).containsKey(col)) {
-                    Object val = rows.get(r).get(col);
-                    if (val instanceof Number) {
-                        Number n = (Number) val;
-                        cell.setCellValue(n.doubleValue());
-                    } else {
-                        String sval = String.valueOf(val);
-                        if (sval.startsWith("=")) {
-                            cell.setCellFormula(sval.substring(1));
-                        } else {
-                            cell.setCellValue(sval);
-                        }
-                    }
+                if (values.containsKey(col)) {
+                    setCellValue(cell, values.get(col));
                 }
             }
-        }
+        });
         int lastColumnIndex = report.getColumnNames().size();
         autosize(sheet, lastColumnIndex);
-        sheet.setAutoFilter(new CellRangeAddress(0, 1 + rows.size(),0, lastColumnIndex - 1));
+        sheet.setAutoFilter(new CellRangeAddress(0, 1 + rowCount.get(),0, lastColumnIndex - 1));
         return wb;
     }
 
+    private void setCellValue(Cell cell, Object val) {
+        if (val instanceof Number) {
+            Number n = (Number) val;
+            cell.setCellValue(n.doubleValue());
+        } else {
+            String sval = String.valueOf(val);
+            if (sval.startsWith("=")) {
+                cell.setCellFormula(sval.substring(1));
+            } else {
+                cell.setCellValue(sval);
+            }
+        }
+    }
+
     CellStyle createHeaderStyle(Workbook wb){
         XSSFCellStyle xstyle = (XSSFCellStyle)wb.createCellStyle();
         XSSFColor header = new XSSFColor(new Color(79, 129, 189), new DefaultIndexedColorMap());
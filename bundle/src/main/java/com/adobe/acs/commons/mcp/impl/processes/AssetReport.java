@@ -35,15 +35,21 @@ import com.day.cq.dam.api.Rendition;
 import com.day.cq.dam.api.Revision;
 import com.day.cq.dam.commons.util.DamUtil;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import javax.jcr.RepositoryException;
 import org.apache.jackrabbit.JcrConstants;
 import org.apache.sling.api.resource.LoginException;
@@ -83,14 +89,14 @@ public class AssetReport extends ProcessDefinition implements Serializable {
             component = PathfieldComponent.FolderSelectComponent.class,
             options = {"default=/content/dam", "base=/content/dam"}
     )
-    private String baseFolder;
+    String baseFolder;
     @FormField(
             name = "Levels",
             description = "Determines how many levels down are included in report summary -- all levels below are rolled up into that the level.",
             hint = "5",
             options = {"default=5"}
     )
-    private int folderLevels;
+    int folderLevels;
     @FormField(
             name = "Include subassets",
             description = "If checked, subassets are counted and evaluated as part of the total folder size.  This takes additional time to process.",
@@ -105,6 +111,26 @@ public class AssetReport extends ProcessDefinition implements Serializable {
             options = {"checked"}
     )
     private boolean includeVersions = false;
+    @FormField(
+            name = "Use size metadata",
+            description = "If checked, the size of original renditions is taken from the dam:size metadata when it is present instead of the binary",
+            component = CheckboxComponent.class
+    )
+    boolean useSizeMetadata = false;
+    @FormField(
+            name = "Batch size",
+            description = "Number of assets examined per task; each batch shares one resolver for its rendition and version reads",
+            hint = "20",
+            options = {"default=20"}
+    )
+    int batchSize = 20;
+    @FormField(
+            name = "Structure threads",
+            description = "Number of threads reading the folder structure in the first pass, 1 reads it on a single thread",
+            hint = "1",
+            options = {"default=1"}
+    )
+    int structureThreads = 1;
     private transient int depthLimit;
 
     @Override
@@ -135,7 +161,8 @@ public class AssetReport extends ProcessDefinition implements Serializable {
     }
 
     private final transient GenericBlobReport report = new GenericBlobReport();
-    private final transient Map<String, EnumMap<Column, Long>> reportData = new TreeMap<>();
+    // Counters are updated concurrently by every task, so each cell is a LongAdder rather than a lock around the row
+    private final transient Map<String, Map<Column, LongAdder>> reportData = new ConcurrentHashMap<>();
 
     private final transient Queue<String> assetList = new ConcurrentLinkedQueue<>();
     private final transient Queue<String> folderList = new ConcurrentLinkedQueue<>();
@@ -143,6 +170,7 @@ public class AssetReport extends ProcessDefinition implements Serializable {
     public void evaluateStructure(ActionManager manager) {
         TreeFilteringResourceVisitor visitor = new TreeFilteringResourceVisitor();
         visitor.setBreadthFirstMode();
+        visitor.setParallelism(structureThreads);
         visitor.setTraversalFilter(r -> visitor.isFolder(r) && getDepth(r.getPath()) < depthLimit);
         visitor.setLeafVisitor((r, depth) -> {
             if (isAsset(r)) {
@@ -182,10 +210,32 @@ public class AssetReport extends ProcessDefinition implements Serializable {
     }
 
     public void examineAssets(ActionManager manager) {
-        assetList.stream().peek(assetList::remove).forEach(path -> {
-            manager.deferredWithResolver(rr -> examineAsset(rr, path));
+        List<String> batch = new ArrayList<>();
+        String path;
+        while ((path = assetList.poll()) != null) {
+            batch.add(path);
+            if (batch.size() >= Math.max(1, batchSize)) {
+                examineBatch(manager, batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            examineBatch(manager, batch);
+        }
+    }
+
+    private void examineBatch(ActionManager manager, List<String> batch) {
+        manager.deferredWithResolver(rr -> {
+            for (String path : batch) {
+                try {
+                    tabulate(getParentPath(path), examineAsset(rr, path));
+                } catch (Exception ex) {
+                    // Nothing was tabulated for this asset yet, so retry it on its own to have the failure reported against it
+                    rr.refresh();
+                    manager.deferredWithResolver(r -> tabulate(getParentPath(path), examineAsset(r, path)));
+                }
+            }
         });
-        assetList.clear(); // Should already be empty but just in case...
     }
 
     public boolean isAsset(Resource r) {
@@ -199,102 +249,143 @@ public class AssetReport extends ProcessDefinition implements Serializable {
 
     private void setValue(String path, Column field, long amount) {
         if (getDepth(path) < depthLimit) {
-            synchronized (report) {
-                EnumMap<Column, Long> row = getReportRow(path);
-                row.put(field, amount);
-            }
+            LongAdder cell = getReportCell(path, field);
+            cell.reset();
+            cell.add(amount);
         }
     }
 
-    private synchronized void tabulate(String path, Column counter, long amount) {
-        if (getDepth(path) < depthLimit && path.length() >= baseFolder.length()) {
-            synchronized (report) {
-                EnumMap<Column, Long> row = getReportRow(path);
-                if (row.containsKey(counter)) {
-                    row.put(counter, row.get(counter) + amount);
-                } else {
-                    row.put(counter, amount);
-                }
+    private void tabulate(String path, Column counter, long amount) {
+        for (String p = path; p.length() >= baseFolder.length(); p = getParentPath(p)) {
+            if (getDepth(p) < depthLimit) {
+                getReportCell(p, counter).add(amount);
+            }
+            if (p.length() == baseFolder.length()) {
+                break;
             }
         }
-        if (path.length() > baseFolder.length()) {
-            tabulate(getParentPath(path), counter, amount);
-        }
     }
 
+    private void tabulate(String path, Map<Column, Long> amounts) {
+        amounts.forEach((counter, amount) -> tabulate(path, counter, amount));
+    }
+
+    private static void add(Map<Column, Long> totals, Column counter, long amount) {
+        totals.merge(counter, amount, Long::sum);
+    }
+
+    /**
+     * Measures a single asset without touching the shared report, so that a failed asset leaves no partial totals behind.
+     *
+     * @return counters to add to the asset's folder and all of its parents
+     */
     @SuppressWarnings("squid:S00112")
-    private void examineAsset(ResourceResolver rr, String assetPath) throws RepositoryException, Exception {
+    Map<Column, Long> examineAsset(ResourceResolver rr, String assetPath) throws RepositoryException, Exception {
         Actions.setCurrentItem(assetPath);
-        String folderPath = getParentPath(assetPath);
+        Map<Column, Long> totals = new EnumMap<>(Column.class);
         Set<String> observedHashes = new HashSet<>();
 
         Asset asset = rr.getResource(assetPath).adaptTo(Asset.class);
+        // Seed with the asset's own binary so versions sharing it are not counted again below
         String hash = asset.getMetadataValue(SHA1);
-        if (hash != null) {
+        if (StringUtils.isNotEmpty(hash)) {
             observedHashes.add(hash);
         }
         Map<String, Rendition> renditions = new HashMap<>();
         asset.listRenditions().forEachRemaining(r -> renditions.put(r.getName(), r));
-        Rendition original = renditions.remove("original");
-        tabulate(folderPath, Column.rendition_count, renditions.size());
+        Rendition original = renditions.remove(DamConstants.ORIGINAL_FILE);
+        add(totals, Column.rendition_count, renditions.size());
 
         if (original != null) {
-            long size = original.getSize();
-            tabulate(folderPath, Column.original_size, size);
-            tabulate(folderPath, Column.combined_size, size);
+            long size = getSize(asset, original);
+            add(totals, Column.original_size, size);
+            add(totals, Column.combined_size, size);
         }
 
         renditions.values().forEach(rendition -> {
             long size = rendition.getSize();
-            tabulate(folderPath, Column.rendition_size, size);
-            tabulate(folderPath, Column.combined_size, size);
+            add(totals, Column.rendition_size, size);
+            add(totals, Column.combined_size, size);
         });
 
         if (includeSubassets) {
             DamUtil.getSubAssets(asset.adaptTo(Resource.class)).stream().forEach(subasset -> {
-                tabulate(folderPath, Column.subasset_count, 1);
-                long size = subasset.getRenditions().stream().collect(Collectors.summingLong(Rendition::getSize));
-                tabulate(folderPath, Column.subasset_size, size);
-                tabulate(folderPath, Column.combined_size, size);
+                add(totals, Column.subasset_count, 1);
+                long size = getRenditionsSize(subasset);
+                add(totals, Column.subasset_size, size);
+                add(totals, Column.combined_size, size);
             });
         }
         if (includeVersions) {
             for (Revision rev : asset.getRevisions(null)) {
-                tabulate(folderPath, Column.version_count, 1);
+                add(totals, Column.version_count, 1);
                 Asset assetVersion = FrozenAsset.createFrozenAsset(asset, rev);
                 String versionHash = assetVersion.getMetadataValue(SHA1);
-                if (versionHash != null) {
-                    if (observedHashes.contains(versionHash)) {
-                        return;
-                    } else {
-                        observedHashes.add(versionHash);
-                    }
+                if (StringUtils.isNotEmpty(versionHash) && !observedHashes.add(versionHash)) {
+                    // Same binary as the asset (seeded above) or an earlier version, so it takes no additional space
+                    continue;
                 }
                 long size = getTotalAssetSize(assetVersion);
-                tabulate(folderPath, Column.version_size, size);
-                tabulate(folderPath, Column.combined_size, size);
+                add(totals, Column.version_size, size);
+                add(totals, Column.combined_size, size);
             }
         }
+        return totals;
     }
 
     private long getTotalAssetSize(Asset asset) {
-        long size = asset.getRenditions().stream().collect(Collectors.summingLong(r -> r.getSize()));
+        long size = getRenditionsSize(asset);
         if (includeSubassets && !asset.isSubAsset()) {
-            size += DamUtil.getSubAssets(asset.adaptTo(Resource.class)).stream().collect(Collectors.summingLong(this::getTotalAssetSize));
+            for (Asset subasset : DamUtil.getSubAssets(asset.adaptTo(Resource.class))) {
+                size += getTotalAssetSize(subasset);
+            }
         }
         return size;
     }
 
-    private EnumMap<Column, Long> getReportRow(String path) {
-        if (!reportData.containsKey(path)) {
-            reportData.put(path, new EnumMap<>(Column.class));
+    private long getRenditionsSize(Asset asset) {
+        long size = 0;
+        for (Rendition rendition : asset.getRenditions()) {
+            size += DamConstants.ORIGINAL_FILE.equals(rendition.getName()) ? getSize(asset, rendition) : rendition.getSize();
+        }
+        return size;
+    }
+
+    /**
+     * Size of the original rendition, read from the dam:size metadata if enabled and present so the binary is not resolved.
+     */
+    private long getSize(Asset asset, Rendition original) {
+        if (useSizeMetadata) {
+            long size = NumberUtils.toLong(asset.getMetadataValue(DamConstants.DAM_SIZE), -1L);
+            if (size >= 0) {
+                return size;
+            }
         }
-        return reportData.get(path);
+        return original.getSize();
+    }
+
+    private LongAdder getReportCell(String path, Column column) {
+        return reportData.computeIfAbsent(path, p -> new ConcurrentHashMap<>())
+                .computeIfAbsent(column, c -> new LongAdder());
+    }
+
+    Map<String, EnumMap<Column, Long>> getReportData() {
+        Map<String, EnumMap<Column, Long>> rows = new TreeMap<>();
+        reportData.keySet().forEach(path -> rows.put(path, getReportRow(path)));
+        return rows;
+    }
+
+    private EnumMap<Column, Long> getReportRow(String path) {
+        EnumMap<Column, Long> row = new EnumMap<>(Column.class);
+        reportData.get(path).forEach((column, cell) -> row.put(column, cell.sum()));
+        return row;
     }
 
     @Override
     public void storeReport(ProcessInstance instance, ResourceResolver rr) throws RepositoryException, PersistenceException {
-        report.setRows(reportData, "Path", Column.class);
+        // rows are converted one at a time, so only the counters and the sorted paths are held in memory
+        report.setColumns("Path", Column.class);
+        new TreeSet<>(reportData.keySet()).forEach(path -> report.appendRow(path, getReportRow(path)));
         report.persist(rr, instance.getPath() + "/jcr:content/report");
     }
 }
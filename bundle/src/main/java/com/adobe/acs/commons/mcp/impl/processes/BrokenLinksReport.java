@@ -42,13 +42,13 @@ import javax.jcr.RepositoryException;
 import java.io.ByteArrayInputStream;
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.List;
 import java.util.EnumMap;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -114,11 +114,10 @@ public class BrokenLinksReport extends ProcessDefinition implements Serializable
         reference
     }
 
-    private final transient Map<String, EnumMap<Report, Object>> reportData = new ConcurrentHashMap<>();
-
     @Override
     public void buildProcess(ProcessInstance instance, ResourceResolver rr) throws LoginException, RepositoryException {
         report.setName(instance.getName());
+        report.setColumns("Source", Report.class);
         instance.defineAction("Collect Broken References", rr, this::buildReport);
         instance.getInfo().setDescription(sourcePath);
 
@@ -126,9 +125,7 @@ public class BrokenLinksReport extends ProcessDefinition implements Serializable
 
     @Override
     public void storeReport(ProcessInstance instance, ResourceResolver rr) throws RepositoryException, PersistenceException {
-        GenericBlobReport genericReport = new GenericBlobReport();
-        genericReport.setRows(reportData, "Source", Report.class);
-        genericReport.persist(rr, instance.getPath() + "/jcr:content/report");
+        report.persist(rr, instance.getPath() + "/jcr:content/report");
 
     }
 
@@ -140,10 +137,12 @@ public class BrokenLinksReport extends ProcessDefinition implements Serializable
             manager.deferredWithResolver(rr -> {
                 Map<String, List<String>> brokenRefs = collectBrokenReferences(resource, regex, excludeList, deepCheckList);
                 for(Map.Entry<String, List<String>> ref : brokenRefs.entrySet()){
-                    String propertyPath = ref.getKey();
-                    List<String> refs = ref.getValue();
-                    reportData.put(propertyPath, new EnumMap<>(Report.class));
-                    reportData.get(propertyPath).put(Report.reference, refs.stream().collect(Collectors.joining(",")));
+                    EnumMap<Report, Object> row = new EnumMap<>(Report.class);
+                    row.put(Report.reference, ref.getValue().stream().collect(Collectors.joining(",")));
+                    // rows are added as soon as they are found, by concurrent tasks
+                    synchronized (report) {
+                        report.appendRow(ref.getKey(), row);
+                    }
                 }
             });
         });
@@ -226,6 +225,14 @@ public class BrokenLinksReport extends ProcessDefinition implements Serializable
 
     // access from unit tests
     Map<String, EnumMap<Report, Object>> getReportData() {
+        Map<String, EnumMap<Report, Object>> reportData = new HashMap<>();
+        synchronized (report) {
+            report.forEachRow(row -> {
+                EnumMap<Report, Object> data = new EnumMap<>(Report.class);
+                data.put(Report.reference, row.get(Report.reference.toString()));
+                reportData.put(row.get("Source", String.class), data);
+            });
+        }
         return reportData;
     }
 }
@@ -213,11 +213,19 @@ public class DataImporter extends ProcessDefinition {
     public void buildProcess(ProcessInstance instance, ResourceResolver rr) throws LoginException, RepositoryException {
         if (data == null && importFile != null) {
             try {
-                data = new Spreadsheet(enableHeaderNameConversion, importFile, PATH).buildSpreadsheet();
+                data = new Spreadsheet(enableHeaderNameConversion, importFile, PATH);
                 if (presortData) {
-                    data.sortRows(PATH);
+                    data.buildSpreadsheet().sortRows(PATH);
+                } else {
+                    // rows are parsed as they are imported instead of loading the whole file up front
+                    data.streamSpreadsheet();
+                }
+                if (data.getRowCount() >= 0) {
+                    instance.getInfo().setDescription("Import " + data.getFileName() + " (" + data.getRowCount() + " rows)");
+                } else {
+                    // streamed sheets without a dimension element don't tell their size up front
+                    instance.getInfo().setDescription("Import " + data.getFileName());
                 }
-                instance.getInfo().setDescription("Import " + data.getFileName() + " (" + data.getRowCount() + " rows)");
             } catch (IOException ex) {
                 instance.getInfo().setDescription("Import " + data.getFileName() + " (failed)");
                 throw new RepositoryException("Unable to parse input file", ex);
@@ -235,7 +243,7 @@ public class DataImporter extends ProcessDefinition {
     }
 
     private void importData(ActionManager manager) {
-        data.getDataRowsAsCompositeVariants().forEach((row) -> {
+        data.getDataRowIterator().forEachRemaining((row) -> {
             manager.deferredWithResolver(rr -> {
                 String path = row.get(PATH).toString();
                 Resource r = rr.getResource(path);
@@ -18,8 +18,6 @@
 package com.adobe.acs.commons.mcp.impl.processes;
 
 import com.adobe.acs.commons.fam.ActionManager;
-import com.adobe.acs.commons.fam.actions.ActionBatch;
-import com.adobe.acs.commons.fam.actions.Actions;
 import com.adobe.acs.commons.mcp.form.FormField;
 import com.adobe.acs.commons.mcp.ProcessDefinition;
 import com.adobe.acs.commons.mcp.ProcessInstance;
@@ -28,19 +26,30 @@ import com.adobe.acs.commons.mcp.form.PathfieldComponent;
 import com.adobe.acs.commons.mcp.form.RadioComponent.EnumerationSelector;
 import com.adobe.acs.commons.mcp.util.StringUtil;
 import com.adobe.acs.commons.util.visitors.TreeFilteringResourceVisitor;
+import com.day.cq.commons.jcr.JcrUtil;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.jackrabbit.JcrConstants;
 import org.apache.sling.api.resource.LoginException;
 import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceUtil;
 import org.apache.sling.event.jobs.JobManager;
 import org.apache.sling.event.jobs.Queue;
+import org.apache.sling.jcr.resource.api.JcrResourceConstants;
 
 /**
  * Stops all running sling jobs and empties the queue entirely.
@@ -84,6 +93,11 @@ public class DeepPrune extends ProcessDefinition implements Serializable {
         hint="10",
         options={"default=10"})
     public int batchSize = 10;
+    @FormField(name="Target commit time",
+        description="Commit duration (in milliseconds) to aim for; the batch size is halved when commits are slower and doubled when they are much faster",
+        hint="500",
+        options={"default=500"})
+    public int targetCommitTime = 500;
     @FormField(name="Retries",
         description="Max number of retries per commit",
         hint="3",
@@ -110,8 +124,21 @@ public class DeepPrune extends ProcessDefinition implements Serializable {
     )
     private boolean stopJobs = true;
 
+    @FormField(
+            name = "Resume from checkpoint",
+            description = "If checked, skip the subtrees an interrupted earlier run of this process already finished for the same starting folder",
+            component = CheckboxComponent.class
+    )
+    boolean resume = false;
+
     public static final String JOB_TYPE = "slingevent:Job";
+    static final String CHECKPOINT_PATH = "/var/acs-commons/mcp/checkpoints/deep-prune";
+    // the tree is split into at least this many subtrees (if it has enough folders) which are pruned in parallel
+    static final int TARGET_PARTITIONS = 32;
     private final transient List<String> suspendedQueues = new ArrayList<>();
+    // partitions an earlier run recorded as finished, skipped by the first pass of a resumed run only
+    private final transient Set<String> resumedPartitions = ConcurrentHashMap.newKeySet();
+    private transient boolean checkpointLoaded = false;
 
     public DeepPrune(JobManager jobManager) {
         this.jobManager = jobManager;
@@ -136,6 +163,7 @@ public class DeepPrune extends ProcessDefinition implements Serializable {
         if (numPasses > 2) {
             instance.defineAction("3rd pass", rr, this::purgeJobs);
         }
+        instance.defineAction("Clear checkpoint", rr, this::clearCheckpoint);
         if (stopJobs) {
             instance.defineCriticalAction("Resume job queues", rr, this::resumeJobQueues);
         }
@@ -155,49 +183,164 @@ public class DeepPrune extends ProcessDefinition implements Serializable {
         return res == null || ignoreList.contains(res.getName());
     }
     
-    private void purgeJobs(ActionManager manager) {
-        ActionBatch batch = new ActionBatch(manager, batchSize);
-        batch.setRetryCount(retryCount);
-        batch.setRetryWait(retryWait);
-        TreeFilteringResourceVisitor visitor = new TreeFilteringResourceVisitor();
-        visitor.setDepthFirstMode();
-        visitor.setTraversalFilter(res->visitor.isFolder(res) && !shouldIgnore(res));
-        AtomicInteger lastLevel = new AtomicInteger(0);
-        visitor.setResourceVisitor((res, level) -> {
-            if (level >= minPurgeDepth && !shouldIgnore(res) && folderRule.matcher.apply(res.getName())) {
-                if (lastLevel.getAndSet(level) != level) {
-                    batch.commitBatch();
+    /**
+     * Splits the tree below the starting folder into subtrees and prunes each of them leaf-up in its own task.
+     * The tree is split level by level, regardless of the minimum purge level, until there are enough subtrees or no
+     * folders are left to split. Leaves found above the subtrees are removed by the planning task itself, and the
+     * folders the tree was split at are removed by the task finishing their last subtree.
+     */
+    void purgeJobs(ActionManager manager) {
+        TreeFilteringResourceVisitor folders = new TreeFilteringResourceVisitor();
+        manager.deferredWithResolver(rr -> {
+            Resource start = rr.getResource(startingFolder);
+            if (start == null) {
+                return;
+            }
+            prepareCheckpoint(rr);
+            final Set<String> skipped = new HashSet<>(resumedPartitions);
+            // later passes go over everything again to remove what earlier passes left behind
+            resumedPartitions.clear();
+            PruneBatch batch = createBatch(rr);
+            List<Subtree> partitions = new ArrayList<>();
+            List<Subtree> splitting = Collections.singletonList(new Subtree(start.getPath(), 0, null));
+            while (!splitting.isEmpty() && partitions.size() + splitting.size() < TARGET_PARTITIONS) {
+                List<Subtree> next = new ArrayList<>();
+                for (Subtree subtree : splitting) {
+                    for (Resource child : getChildren(rr, subtree.path)) {
+                        if (folders.isFolder(child)) {
+                            next.add(new Subtree(child.getPath(), subtree.level + 1, subtree));
+                            subtree.remaining.incrementAndGet();
+                        } else {
+                            batch.delete(child.getPath());
+                        }
+                    }
+                    if (subtree.remaining.get() == 0) {
+                        // nothing left to split, the folder itself is pruned as a subtree
+                        partitions.add(subtree);
+                    }
                 }
-                String path = res.getPath();
-                batch.add(rr -> deleteResource(rr, path));
+                batch.commit();
+                splitting = next;
             }
-        });
-        visitor.setLeafVisitor((res, level) -> {
-            if (!shouldIgnore(res)) {
-                if (lastLevel.getAndSet(level) != level) {
-                    batch.commitBatch();
+            partitions.addAll(splitting);
+            for (Subtree partition : partitions) {
+                if (skipped.contains(partition.path) && getChildren(rr, partition.path).isEmpty()) {
+                    // finished by an earlier run and nothing was added since
+                    subtreeDone(rr, partition.parent);
+                } else {
+                    manager.deferredWithResolver(rr2 -> prunePartition(rr2, partition, folders));
                 }
-                String path = res.getPath();
-                batch.add(rr -> deleteResource(rr, path));
             }
         });
-        manager.deferredWithResolver(rr -> {
-            Resource res = rr.getResource(startingFolder);
-            if (res != null) {
-                visitor.accept(res);
+    }
+
+    private void prunePartition(ResourceResolver rr, Subtree partition, TreeFilteringResourceVisitor folders)
+            throws PersistenceException {
+        Resource root = rr.getResource(partition.path);
+        if (root != null) {
+            PruneBatch batch = createBatch(rr);
+            prune(rr, root, partition.level, batch, folders);
+            batch.commit();
+        }
+        recordCheckpoint(rr, partition.path);
+        subtreeDone(rr, partition.parent);
+    }
+
+    /**
+     * Counts a finished subtree against the folder it was split from. Once all subtrees of a folder are finished the
+     * folder is removed like any other folder, unless something was added to it in the meantime, and the folder it
+     * was split from is updated in turn.
+     */
+    private void subtreeDone(ResourceResolver rr, Subtree parent) throws PersistenceException {
+        for (Subtree folder = parent; folder != null && folder.remaining.decrementAndGet() == 0; folder = folder.parent) {
+            if (folder.level >= minPurgeDepth && folderRule.matcher.apply(ResourceUtil.getName(folder.path))
+                    && rr.getResource(folder.path) != null && getChildren(rr, folder.path).isEmpty()) {
+                PruneBatch batch = createBatch(rr);
+                batch.delete(folder.path);
+                batch.commit();
             }
-            batch.commitBatch();
-        });
+        }
+    }
+
+    /**
+     * Deletes everything below the folder before the folder itself, so parents are only removed once they are empty.
+     */
+    private void prune(ResourceResolver rr, Resource folder, int level, PruneBatch batch,
+            TreeFilteringResourceVisitor folders) throws PersistenceException {
+        String path = folder.getPath();
+        for (Resource child : getChildren(rr, path)) {
+            if (folders.isFolder(child)) {
+                prune(rr, child, level + 1, batch, folders);
+            } else {
+                batch.delete(child.getPath());
+            }
+        }
+        if (level >= minPurgeDepth && folderRule.matcher.apply(folder.getName())) {
+            batch.delete(path);
+        }
+    }
+
+    /**
+     * Lists the children which are not ignored up front, so the listing is not affected by the deletes.
+     */
+    private List<Resource> getChildren(ResourceResolver rr, String path) {
+        List<Resource> children = new ArrayList<>();
+        Resource parent = rr.getResource(path);
+        if (parent != null) {
+            parent.listChildren().forEachRemaining(child -> {
+                if (!shouldIgnore(child)) {
+                    children.add(child);
+                }
+            });
+        }
+        return children;
+    }
+
+    private PruneBatch createBatch(ResourceResolver rr) {
+        return new PruneBatch(rr, batchSize, targetCommitTime, retryCount, retryWait);
+    }
+
+    private String getCheckpointPath() {
+        return CHECKPOINT_PATH + "/" + JcrUtil.escapeIllegalJcrChars(startingFolder);
+    }
+
+    private void prepareCheckpoint(ResourceResolver rr) throws PersistenceException {
+        Resource checkpoint = rr.getResource(getCheckpointPath());
+        if (resume && !checkpointLoaded && checkpoint != null) {
+            checkpoint.getChildren().forEach(c -> resumedPartitions.add(c.getValueMap().get("path", String.class)));
+        }
+        checkpointLoaded = true;
+        if (checkpoint == null) {
+            // a non-orderable folder, so partitions finishing at the same time do not conflict
+            Map<String, Object> props = new HashMap<>();
+            props.put(JcrConstants.JCR_PRIMARYTYPE, JcrResourceConstants.NT_SLING_FOLDER);
+            ResourceUtil.getOrCreateResource(rr, getCheckpointPath(), props, JcrResourceConstants.NT_SLING_FOLDER, true);
+        }
     }
 
-    private void deleteResource(ResourceResolver rr, String path) throws PersistenceException {
-        Actions.setCurrentItem(path);
-        Resource r = rr.getResource(path);
-        if (r != null) {
-            rr.delete(r);
+    private void recordCheckpoint(ResourceResolver rr, String path) throws PersistenceException {
+        Resource checkpoint = rr.getResource(getCheckpointPath());
+        String name = JcrUtil.escapeIllegalJcrChars(path);
+        if (checkpoint != null && checkpoint.getChild(name) == null) {
+            Map<String, Object> props = new HashMap<>();
+            props.put(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED);
+            props.put("path", path);
+            props.put("completed", Calendar.getInstance());
+            rr.create(checkpoint, name, props);
+            rr.commit();
         }
     }
 
+    void clearCheckpoint(ActionManager manager) {
+        manager.deferredWithResolver(rr -> {
+            Resource checkpoint = rr.getResource(getCheckpointPath());
+            if (checkpoint != null) {
+                rr.delete(checkpoint);
+                rr.commit();
+            }
+        });
+    }
+
     private void resumeJobQueues(ActionManager manager) {
         for (Queue q : jobManager.getQueues()) {
             if (suspendedQueues.contains(q.getName())) {
@@ -206,6 +349,23 @@ public class DeepPrune extends ProcessDefinition implements Serializable {
         }
     }
 
+    /**
+     * A folder the tree was split at, or one of the subtrees which are pruned in parallel.
+     */
+    private static final class Subtree {
+        private final String path;
+        private final int level;
+        private final Subtree parent;
+        /* subtrees split from this folder which are not finished yet */
+        private final AtomicInteger remaining = new AtomicInteger();
+
+        Subtree(String path, int level, Subtree parent) {
+            this.path = path;
+            this.level = level;
+            this.parent = parent;
+        }
+    }
+
     @Override
     public void storeReport(ProcessInstance instance, ResourceResolver rr) {
         // no-op
@@ -0,0 +1,145 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.mcp.impl.processes;
+
+import com.adobe.acs.commons.fam.actions.Actions;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deletes resources with a single resolver and commits them in batches whose size follows the measured commit time:
+ * slow commits halve the batch, fast ones double it.
+ */
+class PruneBatch {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PruneBatch.class);
+
+    static final int MIN_BATCH_SIZE = 1;
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private final ResourceResolver rr;
+    private final long targetCommitTime;
+    private final int retryCount;
+    private final long retryWait;
+    private final List<String> pending = new ArrayList<>();
+    private int batchSize;
+    private long deleted = 0;
+
+    PruneBatch(ResourceResolver rr, int initialBatchSize, long targetCommitTime, int retryCount, long retryWait) {
+        this.rr = rr;
+        this.batchSize = Math.max(MIN_BATCH_SIZE, Math.min(MAX_BATCH_SIZE, initialBatchSize));
+        this.targetCommitTime = targetCommitTime;
+        this.retryCount = retryCount;
+        this.retryWait = retryWait;
+    }
+
+    void delete(String path) throws PersistenceException {
+        Actions.setCurrentItem(path);
+        if (deleteResource(path)) {
+            pending.add(path);
+            if (pending.size() >= batchSize) {
+                commit();
+            }
+        }
+    }
+
+    void commit() throws PersistenceException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        for (int attempt = 1;; attempt++) {
+            try {
+                rr.commit();
+                break;
+            } catch (PersistenceException ex) {
+                if (attempt > retryCount) {
+                    throw ex;
+                }
+                LOG.debug("Commit of {} deletions failed, retrying (attempt {})", pending.size(), attempt, ex);
+                retry(attempt);
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        deleted += pending.size();
+        int nextBatchSize = getNextBatchSize(batchSize, elapsed, targetCommitTime);
+        if (nextBatchSize != batchSize) {
+            LOG.debug("Commit of {} deletions took {} ms, batch size is now {}", pending.size(), elapsed, nextBatchSize);
+        }
+        batchSize = nextBatchSize;
+        pending.clear();
+    }
+
+    long getDeleted() {
+        return deleted;
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Calculates the batch size for the next commit from the duration of the previous one.
+     *
+     * @param batchSize the current batch size
+     * @param elapsed the time the last commit took, in milliseconds
+     * @param target the commit time to aim for, in milliseconds
+     * @return the batch size to use next
+     */
+    static int getNextBatchSize(int batchSize, long elapsed, long target) {
+        if (elapsed > target) {
+            return Math.max(MIN_BATCH_SIZE, batchSize / 2);
+        } else if (elapsed < target / 4) {
+            return Math.min(MAX_BATCH_SIZE, batchSize * 2);
+        } else {
+            return batchSize;
+        }
+    }
+
+    private void retry(int attempt) throws PersistenceException {
+        rr.revert();
+        rr.refresh();
+        try {
+            Thread.sleep(retryWait * attempt);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("Interrupted while waiting to retry commit", ex);
+        }
+        List<String> paths = new ArrayList<>(pending);
+        pending.clear();
+        for (String path : paths) {
+            if (deleteResource(path)) {
+                pending.add(path);
+            }
+        }
+    }
+
+    private boolean deleteResource(String path) throws PersistenceException {
+        Resource r = rr.getResource(path);
+        if (r != null) {
+            rr.delete(r);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.mcp.impl.processes.asset;
+
+import com.adobe.acs.commons.fam.ActionManager;
+import com.adobe.acs.commons.fam.actions.Actions;
+import org.apache.commons.io.FileUtils;
+import org.apache.sling.api.resource.ResourceResolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Splits asset ingestion into two overlapping stages.  Every source is first staged by its own FAM action, optionally
+ * copying the remote content into a local temporary file, so downloads run in parallel on the FAM thread pool.  Staged
+ * sources are then handed to the writer in batches so that many assets share a single repository commit.  Whichever
+ * staging action fills a batch (or finds nothing else in flight) writes it with its own resolver, so no work is ever
+ * left behind once the action manager has drained.
+ */
+final class AssetImportPipeline {
+
+    @FunctionalInterface
+    interface BatchWriter {
+        void write(ResourceResolver rr, List<Source> batch, ActionManager manager) throws Exception;
+    }
+
+    private final boolean prefetch;
+    private final int batchSize;
+    private final int retries;
+    private final long retryPause;
+    private final BatchWriter batchWriter;
+
+    private final List<Source> pending = new ArrayList<>();
+    private int inFlight = 0;
+    private int peakQueueDepth = 0;
+
+    final Stage prefetchStage = new Stage();
+    final Stage writeStage = new Stage();
+    private final AtomicLong commits = new AtomicLong();
+
+    AssetImportPipeline(boolean prefetch, int batchSize, int retries, long retryPause,
+                        BatchWriter batchWriter) {
+        this.prefetch = prefetch;
+        this.batchSize = Math.max(1, batchSize);
+        this.retries = retries;
+        this.retryPause = retryPause;
+        this.batchWriter = batchWriter;
+    }
+
+    void submit(Source source, ActionManager manager) {
+        synchronized (pending) {
+            inFlight++;
+        }
+        manager.deferredWithResolver(rr -> {
+            String item = source.getElement() != null ? source.getElement().getSourcePath() : source.getName();
+            manager.setCurrentItem(item);
+            Source staged = null;
+            Exception failure = null;
+            try {
+                staged = stage(source, rr);
+            } catch (Exception ex) {
+                failure = ex;
+            }
+            List<Source> batch = offer(staged);
+            if (!batch.isEmpty()) {
+                write(batch, rr, manager);
+            }
+            if (failure != null) {
+                manager.setCurrentItem(item);
+                throw failure;
+            }
+        });
+    }
+
+    private Source stage(Source source, ResourceResolver rr) throws Exception {
+        if (!prefetch) {
+            return source;
+        }
+        Source[] staged = new Source[1];
+        Actions.retry(retries, retryPause, r -> staged[0] = LocalCopy.of(source, prefetchStage)).accept(rr);
+        return staged[0];
+    }
+
+    private List<Source> offer(Source staged) {
+        synchronized (pending) {
+            inFlight--;
+            if (staged != null) {
+                pending.add(staged);
+                peakQueueDepth = Math.max(peakQueueDepth, pending.size());
+            }
+            if (pending.size() >= batchSize || (inFlight == 0 && !pending.isEmpty())) {
+                List<Source> batch = new ArrayList<>(pending);
+                pending.clear();
+                return batch;
+            }
+            return Collections.emptyList();
+        }
+    }
+
+    private void write(List<Source> batch, ResourceResolver rr, ActionManager manager) throws Exception {
+        writeStage.start();
+        try {
+            batchWriter.write(rr, batch, manager);
+            commits.incrementAndGet();
+        } finally {
+            long bytes = 0;
+            for (Source source : batch) {
+                bytes += Math.max(0, source.getLength());
+                if (source instanceof LocalCopy) {
+                    ((LocalCopy) source).discard();
+                } else {
+                    source.close();
+                }
+            }
+            writeStage.finish(batch.size(), bytes);
+        }
+    }
+
+    int getPeakQueueDepth() {
+        synchronized (pending) {
+            return peakQueueDepth;
+        }
+    }
+
+    long getCommitCount() {
+        return commits.get();
+    }
+
+    boolean isPrefetching() {
+        return prefetch;
+    }
+
+    /**
+     * Throughput bookkeeping for one pipeline stage, measured between the first start and the last finish.
+     */
+    static final class Stage {
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastFinish = new AtomicLong(Long.MIN_VALUE);
+
+        void start() {
+            firstStart.accumulateAndGet(System.nanoTime(), Math::min);
+        }
+
+        void finish(long itemCount, long byteCount) {
+            items.addAndGet(itemCount);
+            bytes.addAndGet(byteCount);
+            lastFinish.accumulateAndGet(System.nanoTime(), Math::max);
+        }
+
+        long getItems() {
+            return items.get();
+        }
+
+        long getBytes() {
+            return bytes.get();
+        }
+
+        double getItemsPerSecond() {
+            long elapsed = lastFinish.get() - firstStart.get();
+            if (items.get() == 0 || elapsed <= 0) {
+                return 0;
+            }
+            return items.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        }
+    }
+
+    /**
+     * Source backed by a local temporary copy of another source.  The copy outlives {@link #close()} so a failed batch
+     * can be written again asset by asset; the pipeline discards it once the batch is done.
+     */
+    static final class LocalCopy implements Source {
+        private final Source original;
+        private final File file;
+
+        private LocalCopy(Source original, File file) {
+            this.original = original;
+            this.file = file;
+        }
+
+        static LocalCopy of(Source original, Stage stage) throws IOException {
+            stage.start();
+            File file = Files.createTempFile("asset-ingest-", ".tmp").toFile();
+            try (InputStream in = original.getStream()) {
+                FileUtils.copyInputStreamToFile(in, file);
+            } catch (IOException | RuntimeException ex) {
+                FileUtils.deleteQuietly(file);
+                throw ex;
+            } finally {
+                original.close();
+            }
+            stage.finish(1, file.length());
+            return new LocalCopy(original, file);
+        }
+
+        @Override
+        public String getName() {
+            return original.getName();
+        }
+
+        @Override
+        public InputStream getStream() throws IOException {
+            return Files.newInputStream(file.toPath());
+        }
+
+        @Override
+        public long getLength() {
+            return file.length();
+        }
+
+        @Override
+        public HierarchicalElement getElement() {
+            return original.getElement();
+        }
+
+        @Override
+        public void close() {
+            // Streams are closed by their consumers, the file itself is released by discard()
+        }
+
+        void discard() {
+            FileUtils.deleteQuietly(file);
+        }
+    }
+}
@@ -18,6 +18,8 @@
 package com.adobe.acs.commons.mcp.impl.processes.asset;
 
 import com.adobe.acs.commons.fam.ActionManager;
+import com.adobe.acs.commons.fam.Failure;
+import com.adobe.acs.commons.fam.actions.Actions;
 import com.adobe.acs.commons.functions.CheckedConsumer;
 import com.adobe.acs.commons.mcp.ProcessDefinition;
 import com.adobe.acs.commons.mcp.ProcessInstance;
@@ -38,6 +40,8 @@ import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.commons.mime.MimeTypeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
@@ -52,10 +56,12 @@ import java.util.TreeSet;
 
 
 public abstract class AssetIngestor extends ProcessDefinition {
+    private static final Logger LOG = LoggerFactory.getLogger(AssetIngestor.class);
 
     private static final String ALL_ASSETS = "All Assets";
     private static final int DEFAULT_TIMEOUT = 200;
     private static final int DEFAULT_RETRIES = 10;
+    private static final String PIPELINE = "Pipeline";
 
 
     static final String[] AUTHORIZED_GROUPS = new String[]{
@@ -189,6 +195,18 @@ public abstract class AssetIngestor extends ProcessDefinition {
             options = {"default=1073741824"}
     )
     private transient long maximumSize = 1073741824;
+    @FormField(
+            name = "Prefetch sources",
+            description = "If checked, each source is first copied to a local temporary file so that downloads run in parallel with repository writes",
+            component = CheckboxComponent.class
+    )
+    boolean prefetchSources = false;
+    @FormField(
+            name = "Commit batch size",
+            description = "Number of assets written per repository commit, 1=commit every asset",
+            options = ("default=1")
+    )
+    int commitBatchSize = 1;
 
     protected static final String DEFAULT_FOLDER_TYPE = "sling:Folder";
     protected static final String CHANGED_BY_WORKFLOW = "changedByWorkflowProcess";
@@ -208,6 +226,8 @@ public abstract class AssetIngestor extends ProcessDefinition {
     }
 
     private List<EnumMap<ReportColumns, Object>> reportRows;
+    private transient AssetImportPipeline pipeline;
+    private final transient ThreadLocal<List<Runnable>> openBatch = new ThreadLocal<>();
 
     private synchronized EnumMap<ReportColumns, Object> trackActivity(String item, String action, String description, Long bytes) {
         if (reportRows == null) {
@@ -277,6 +297,10 @@ public abstract class AssetIngestor extends ProcessDefinition {
             this.retryPause = DEFAULT_TIMEOUT;
         }
 
+        if (this.commitBatchSize <= 0) {
+            this.commitBatchSize = 1;
+        }
+
         if (!preserveFileName) {
             jcrBasePath = NameUtil.createValidDamPath(jcrBasePath);
         }
@@ -308,21 +332,39 @@ public abstract class AssetIngestor extends ProcessDefinition {
                 }
                 saveMigrationInfo(source, asset);
 
-                r.commit();
-                r.refresh();
-            }
-            if (versioned) {
-                trackDetailedActivity(assetPath, "Revised", "Created new version of asset", source.getLength());
-            } else {
-                trackDetailedActivity(assetPath, "Create", "Imported asset", source.getLength());
+                if (openBatch.get() == null) {
+                    r.commit();
+                    r.refresh();
+                }
             }
-            incrementBytes(importedData, source.getLength());
-            incrementCount(importedAssets, 1L);
+            final boolean revised = versioned;
+            final long length = source.getLength();
+            recordActivity(() -> {
+                if (revised) {
+                    trackDetailedActivity(assetPath, "Revised", "Created new version of asset", length);
+                } else {
+                    trackDetailedActivity(assetPath, "Create", "Imported asset", length);
+                }
+                incrementBytes(importedData, length);
+                incrementCount(importedAssets, 1L);
+            });
         } finally {
             source.close();
         }
     }
 
+    /**
+     * Runs the activity bookkeeping right away, or once the surrounding batch has been committed.
+     */
+    private void recordActivity(Runnable activity) {
+        List<Runnable> batch = openBatch.get();
+        if (batch == null) {
+            activity.run();
+        } else {
+            batch.add(activity);
+        }
+    }
+
     void saveMigrationInfo(final Source source, final Asset asset) {
         Resource assetResource = asset.adaptTo(Resource.class);
 
@@ -454,6 +496,76 @@ public abstract class AssetIngestor extends ProcessDefinition {
         };
     }
 
+    /**
+     * Schedules the import of a single source.  By default every asset is imported and committed by its own action;
+     * when prefetching or commit batching is enabled the source goes through the import pipeline instead.
+     */
+    protected void scheduleImport(Source source, ActionManager manager) {
+        if (prefetchSources || getEffectiveBatchSize() > 1) {
+            getPipeline().submit(source, manager);
+        } else {
+            manager.deferredWithResolver(Actions.retry(retries, retryPause, importAsset(source, manager)));
+        }
+    }
+
+    synchronized AssetImportPipeline getPipeline() {
+        if (pipeline == null) {
+            pipeline = new AssetImportPipeline(prefetchSources, getEffectiveBatchSize(), retries, retryPause, this::importBatch);
+        }
+        return pipeline;
+    }
+
+    /**
+     * Versioning an existing asset has to commit the revision before the asset is replaced, which would commit the
+     * rest of a batch half-way through, so assets are committed one at a time when versioning.
+     */
+    int getEffectiveBatchSize() {
+        return existingAssetAction == AssetAction.version ? 1 : commitBatchSize;
+    }
+
+    @SuppressWarnings("squid:S00112")
+    private void importBatch(ResourceResolver r, List<Source> batch, ActionManager manager) throws Exception {
+        if (batch.size() == 1) {
+            // nothing to share a commit with; import it the same way as without the pipeline
+            Actions.retry(retries, retryPause, importAsset(batch.get(0), manager)).accept(r);
+            return;
+        }
+        List<Runnable> activity = new ArrayList<>();
+        openBatch.set(activity);
+        try {
+            for (Source source : batch) {
+                importAsset(source, manager).accept(r);
+            }
+            r.commit();
+            r.refresh();
+        } catch (Exception ex) {
+            LOG.warn("Unable to import a batch of {} assets, importing them one at a time", batch.size(), ex);
+            r.revert();
+            r.refresh();
+            activity = null;
+        } finally {
+            openBatch.remove();
+        }
+        if (activity != null) {
+            activity.forEach(Runnable::run);
+            return;
+        }
+        // One bad asset should not sink the whole batch, so fall back to committing each asset on its own
+        for (Source source : batch) {
+            try {
+                // the failed batch closed the source, possibly half-read; release it so the retry opens a fresh stream
+                source.close();
+                Actions.retry(retries, retryPause, importAsset(source, manager)).accept(r);
+            } catch (Exception ex) {
+                Failure failure = new Failure();
+                failure.setException(ex);
+                HierarchicalElement el = source.getElement();
+                failure.setNodePath(el != null ? el.getNodePath(preserveFileName) : source.getName());
+                manager.getFailureList().add(failure);
+            }
+        }
+    }
+
     protected boolean canImportFile(Source source) throws IOException {
         String name = source.getName().toLowerCase();
         if (minimumSize > 0 && source.getLength() < minimumSize) {
@@ -508,9 +620,28 @@ public abstract class AssetIngestor extends ProcessDefinition {
 
     @Override
     public synchronized void storeReport(ProcessInstance instance, ResourceResolver rr) throws RepositoryException, PersistenceException {
+        if (pipeline != null) {
+            reportPipeline();
+        }
         report.setRows(reportRows, ReportColumns.class);
         report.persist(rr, instance.getPath() + "/jcr:content/report");
     }
 
+    private void reportPipeline() {
+        reportRows.removeIf(row -> PIPELINE.equals(row.get(ReportColumns.item)));
+        if (pipeline.isPrefetching()) {
+            reportStage("Prefetch", "Sources staged to local files", pipeline.prefetchStage);
+        }
+        reportStage("Write", "Assets written by batch actions", pipeline.writeStage);
+        EnumMap<ReportColumns, Object> commits = trackActivity(PIPELINE, "Commit", "Batch commits", 0L);
+        incrementCount(commits, pipeline.getCommitCount());
+        EnumMap<ReportColumns, Object> queue = trackActivity(PIPELINE, "Queue depth", "Peak number of staged assets waiting to be written", 0L);
+        incrementCount(queue, pipeline.getPeakQueueDepth());
+    }
 
+    private void reportStage(String action, String description, AssetImportPipeline.Stage stage) {
+        EnumMap<ReportColumns, Object> row = trackActivity(PIPELINE, action,
+                String.format("%s (%.1f per second)", description, stage.getItemsPerSecond()), stage.getBytes());
+        incrementCount(row, stage.getItems());
+    }
 }
\ No newline at end of file
@@ -167,7 +167,7 @@ public class FileAssetIngestor extends AssetIngestor {
     private void addFileImportTask(Source fileSource, ActionManager manager) {
         try {
             if (canImportFile(fileSource)) {
-                manager.deferredWithResolver(Actions.retry(retries, retryPause, importAsset(fileSource, manager)));
+                scheduleImport(fileSource, manager);
             } else {
                 incrementCount(skippedFiles, 1);
                 trackDetailedActivity(fileSource.getName(), "Skip", "Skipping file", 0L);
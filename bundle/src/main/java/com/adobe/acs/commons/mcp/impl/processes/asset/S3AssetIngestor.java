@@ -149,7 +149,7 @@ public class S3AssetIngestor extends AssetIngestor {
                 .map(S3HierarchicalElement::getSource).forEach(ss -> {
             try {
                 if (canImportFile(ss)) {
-                    manager.deferredWithResolver(Actions.retry(retries, retryPause, importAsset(ss, manager)));
+                    scheduleImport(ss, manager);
                 } else {
                     incrementCount(skippedFiles, 1);
                     trackDetailedActivity(ss.getName(), "Skip", "Skipping file", 0L);
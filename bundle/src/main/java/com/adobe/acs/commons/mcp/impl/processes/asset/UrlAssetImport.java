@@ -238,7 +238,7 @@ public class UrlAssetImport extends AssetIngestor {
                 manager.setCurrentItem(String.format("Asset %s (line %s)", file.getItemName(), lineNumber));
                 try {
                     if (canImportFile(file.getSource())) {
-                        manager.deferredWithResolver(Actions.retry(retries, retryPause, importAsset(file.getSource(), manager)));
+                        scheduleImport(file.getSource(), manager);
                     } else if (file.getSource().getLength() < 0) {
                         incrementCount(skippedFiles, 1);
                         throw new IOException("Unable to download " + file.getSourcePath());
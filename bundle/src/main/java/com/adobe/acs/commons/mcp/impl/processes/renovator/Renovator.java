@@ -50,14 +50,19 @@ import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
@@ -187,6 +192,15 @@ public class Renovator extends ProcessDefinition {
             component = CheckboxComponent.class)
     private boolean detailedReport = false;
 
+    @FormField(name = "Replication batch size",
+            description = "Number of paths sent to the replicator in a single request when activating new content, "
+                    + "activating references and deactivating old content.  1 replicates every path on its own.",
+            hint = "1, 100, ...",
+            component = TextfieldComponent.class,
+            required = false,
+            options = {"default=1"})
+    private int replicationBatchSize = 1;
+
     private final transient String[] requiredMovePrivilegeNames = {
             Privilege.JCR_READ,
             Privilege.JCR_WRITE,
@@ -711,40 +725,50 @@ public class Renovator extends ProcessDefinition {
 
     protected void activateNew(ActionManager step3) {
         step3.deferredWithResolver(rr -> {
-            getAllActivationPaths().filter(this::isActivationPath)
-                    .forEach(path -> {
-                        step3.deferredWithResolver(rr2 -> {
-                            Actions.setCurrentItem("Replicating " + path);
-                            performNecessaryReplication(rr2, path);
-                        });
-                    });
+            replicateInBatches(step3, "Replicating ", getAllActivationPaths().filter(this::isActivationPath));
         });
     }
 
     protected void activateReferences(ActionManager step4) {
         step4.deferredWithResolver(rr -> {
-            getAllReplicationPaths().filter(this::isForeignPath)
-                    .forEach(path -> {
-                        step4.deferredWithResolver(rr2 -> {
-                            Actions.setCurrentItem("Replicating references " + path);
-                            performNecessaryReplication(rr2, path);
-                        });
-                    });
+            replicateInBatches(step4, "Replicating references ", getAllReplicationPaths().filter(this::isForeignPath));
         });
     }
 
     protected void deactivateOld(ActionManager step5) {
         step5.deferredWithResolver(rr -> {
-            getAllReplicationPaths().filter(this::isDeactivationPath)
-                    .forEach(path -> {
-                        step5.deferredWithResolver(rr2 -> {
-                            Actions.setCurrentItem("Deactivating " + path);
-                            performNecessaryReplication(rr2, path);
-                        });
-                    });
+            replicateInBatches(step5, "Deactivating ", getAllReplicationPaths().filter(this::isDeactivationPath));
         });
     }
 
+    private void replicateInBatches(ActionManager manager, String description, Stream<String> paths) {
+        if (replicationBatchSize <= 1) {
+            paths.forEach(path -> {
+                manager.deferredWithResolver(rr -> {
+                    Actions.setCurrentItem(description + path);
+                    performNecessaryReplication(rr, path);
+                });
+            });
+            return;
+        }
+        Map<Boolean, List<String>> pathsByDeactivation = paths.collect(Collectors.partitioningBy(this::isDeactivationPath));
+        pathsByDeactivation.forEach((isDeactivation, actionPaths) -> {
+            ReplicationActionType action = isDeactivation ? ReplicationActionType.DEACTIVATE : ReplicationActionType.ACTIVATE;
+            forEachBatch(actionPaths, replicationBatchSize, batch -> {
+                manager.deferredWithResolver(rr -> {
+                    Actions.setCurrentItem(description + batch.get(0) + " (+" + (batch.size() - 1) + ")");
+                    performNecessaryReplication(rr, action, batch);
+                });
+            });
+        });
+    }
+
+    static void forEachBatch(List<String> paths, int batchSize, Consumer<List<String>> batchConsumer) {
+        for (int start = 0; start < paths.size(); start += batchSize) {
+            batchConsumer.accept(new ArrayList<>(paths.subList(start, Math.min(start + batchSize, paths.size()))));
+        }
+    }
+
     protected boolean isDeactivationPath(String path) {
         boolean result = false;
         for (Map.Entry<String, String> mapping : movePaths.entrySet()) {
@@ -789,6 +813,9 @@ public class Renovator extends ProcessDefinition {
     }
 
     private final Map<String, EnumMap<Report, Object>> reportData = new LinkedHashMap<>();
+    private final LongAdder replicationRequests = new LongAdder();
+    private final LongAdder replicatedPaths = new LongAdder();
+    private final LongAdder replicationTime = new LongAdder();
 
     private void note(String page, Report col, Object value) {
         synchronized (reportData) {
@@ -801,11 +828,24 @@ public class Renovator extends ProcessDefinition {
 
     @Override
     public void storeReport(ProcessInstance instance, ResourceResolver rr) throws RepositoryException, PersistenceException {
+        noteReplicationStatistics();
         GenericReport report = new GenericReport();
         report.setRows(reportData, SOURCE_COL, Report.class);
         report.persist(rr, instance.getPath() + "/jcr:content/report");
     }
 
+    private void noteReplicationStatistics() {
+        note("Replication queue: requested operations", Report.misc, replicatorQueue.getRequestedOperationCount());
+        note("Replication queue: collapsed operations", Report.misc, replicatorQueue.getCollapsedOperationCount());
+        note("Replication queue: activations", Report.misc, replicatorQueue.getActivateOperations().size());
+        note("Replication queue: deactivations", Report.misc, replicatorQueue.getDeactivateOperations().size());
+        note("Replication: requests", Report.misc, replicationRequests.sum());
+        note("Replication: paths", Report.misc, replicatedPaths.sum());
+        long time = replicationTime.sum();
+        note("Replication: paths per second", Report.misc,
+                time > 0 ? String.format("%.1f", replicatedPaths.sum() * 1000.0 / time) : "n/a");
+    }
+
     private Privilege[] getPrivilegesFromNames(ResourceResolver res, String[] names) throws RepositoryException {
         Session session = res.adaptTo(Session.class);
         AccessControlManager acm = session.getAccessControlManager();
@@ -872,6 +912,7 @@ public class Renovator extends ProcessDefinition {
             replicator.replicate(rr.adaptTo(Session.class), action, path);
         }
         long end = System.currentTimeMillis();
+        recordReplication(1, end - start);
         if (isDeactivation) {
             note(path, Report.deactivate_time, end - start);
         } else {
@@ -879,6 +920,31 @@ public class Renovator extends ProcessDefinition {
         }
     }
 
+    private void performNecessaryReplication(ResourceResolver rr, ReplicationActionType action, List<String> paths) throws ReplicationException {
+        long start = System.currentTimeMillis();
+        if (!dryRun) {
+            replicator.replicate(rr.adaptTo(Session.class), action, paths.toArray(new String[0]), null);
+        }
+        long end = System.currentTimeMillis();
+        recordReplication(paths.size(), end - start);
+        long timePerPath = (end - start) / paths.size();
+        for (String path : paths) {
+            if (action == ReplicationActionType.DEACTIVATE) {
+                note(path, Report.deactivate_time, timePerPath);
+            } else {
+                note(reversePathLookup(path), Report.activate_time, timePerPath);
+            }
+        }
+    }
+
+    private void recordReplication(int pathCount, long time) {
+        if (!dryRun) {
+            replicationRequests.increment();
+            replicatedPaths.add(pathCount);
+            replicationTime.add(time);
+        }
+    }
+
     private void performNecessaryReplicationOnAncestors(ResourceResolver rr, String path) throws ReplicationException {
         String checkPath = "";
         for (String part : path.split(Pattern.quote("/"))) {
@@ -23,16 +23,19 @@ import com.day.cq.replication.ReplicationOptions;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import javax.jcr.Session;
 
 /**
  * Collect a list of replication events for later examination and/or replay.
+ * <p>
+ * Operations are kept once per path; a later activation of a path cancels its queued deactivation and vice versa.
  */
 public class ReplicatorQueue {
     private Map<String, ReplicationOptions> deactivateOperations = Collections.synchronizedMap(new LinkedHashMap<>());
     private Map<String, ReplicationOptions> activateOperations = Collections.synchronizedMap(new LinkedHashMap<>());
-
-
+    private final LongAdder requestedOperations = new LongAdder();
+    private final LongAdder collapsedOperations = new LongAdder();
 
     public void replicate(Session session, ReplicationActionType actionType, String path) throws ReplicationException {
         replicate(session, actionType, path, null);
@@ -40,22 +43,50 @@ public class ReplicatorQueue {
 
     public void replicate(Session session, ReplicationActionType actionType, String path, ReplicationOptions replicationOptions) throws ReplicationException {
         Map<String, ReplicationOptions> queue;
+        Map<String, ReplicationOptions> opposite;
         switch (actionType) {
             case ACTIVATE:
                 queue = getActivateOperations();
+                opposite = getDeactivateOperations();
                 break;
             case DEACTIVATE:
             case DELETE:
                 queue = getDeactivateOperations();
+                opposite = getActivateOperations();
                 break;
             default:
                 queue = null;
+                opposite = null;
         }
         if (queue != null) {
-            queue.put(path, replicationOptions);
+            requestedOperations.increment();
+            boolean collapsed;
+            synchronized (this) {
+                collapsed = opposite.containsKey(path) || queue.containsKey(path);
+                opposite.remove(path);
+                queue.put(path, replicationOptions);
+            }
+            if (collapsed) {
+                collapsedOperations.increment();
+            }
         }
     }
 
+    /**
+     * @return number of replication requests received by this queue
+     */
+    public long getRequestedOperationCount() {
+        return requestedOperations.sum();
+    }
+
+    /**
+     * @return number of replication requests which were merged with, or cancelled, an operation already queued for
+     * the same path
+     */
+    public long getCollapsedOperationCount() {
+        return collapsedOperations.sum();
+    }
+
     /**
      * @return the deactivateOperations
      */
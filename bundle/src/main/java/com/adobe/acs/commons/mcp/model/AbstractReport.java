@@ -22,8 +22,8 @@ import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import javax.jcr.RepositoryException;
 
@@ -47,6 +47,7 @@ public abstract class AbstractReport {
     protected List<String> columnsData;
     protected List<ValueMap> rowsData;
     protected String nameData = "report";
+    private String keyName;
 
     /**
      * Persist all data stored in the properties
@@ -61,37 +62,30 @@ public abstract class AbstractReport {
     
     public <E extends Enum<E>, V> void setRows(Map<String, EnumMap<E, V>> reportData, String keyName,
             Class<E> enumClass) throws PersistenceException, RepositoryException {
-        getColumns().clear();
-        getColumns().add(keyName);
-        Stream.of().map(Object::toString).collect(Collectors.toCollection(this::getColumns));
-        for (Enum e : enumClass.getEnumConstants()) {
-            this.getColumns().add(e.toString());
-            ValueFormat format = ValueFormat.forField(e);
-            if (format.columnCount > 1) {
-                this.getColumns().add(e.toString() + format.suffix);
-            }
-        }
-        getRows().clear();
-        reportData.forEach((path, row) -> {
-            Map<String, Object> rowData = new LinkedHashMap<>();
-            rowData.put(keyName, path);
-            for (Enum<E> c : enumClass.getEnumConstants()) {
-                if (row.containsKey(c)) {
-                    ValueFormat format = ValueFormat.forField(c);
-                    rowData.put(c.toString(), row.get(c));
-                    if (format.columnCount > 1) {
-                        rowData.put(c.toString() + format.suffix, format.getAlternateValue(row.get(c)));
-                    }
-                }
-            }
-            getRows().add(new ValueMapDecorator(rowData));
-        });
+        setColumns(keyName, enumClass);
+        reportData.forEach(this::appendRow);
     }
 
     public <E extends Enum<E>, V> void setRows(List<EnumMap<E, V>> reportData, Class<E> enumClass)
             throws PersistenceException, RepositoryException {
+        setColumns(null, enumClass);
+        reportData.forEach(this::appendRow);
+    }
+
+    /**
+     * Sets the columns of a report whose rows are added one at a time with {@link #appendRow(String, EnumMap)} or
+     * {@link #appendRow(EnumMap)}, and removes all rows added so far. Unlike the setRows methods, this does not need
+     * all rows at once, so rows can be appended while they are produced.
+     *
+     * @param keyName   name of the first column, which holds the key of each row, or null for reports without keys
+     * @param enumClass enumeration of the other columns, in order
+     * @param <E>       the column enumeration
+     */
+    public <E extends Enum<E>> void setColumns(String keyName, Class<E> enumClass) {
         getColumns().clear();
-        Stream.of().map(Object::toString).collect(Collectors.toCollection(this::getColumns));
+        if (keyName != null) {
+            getColumns().add(keyName);
+        }
         for (Enum e : enumClass.getEnumConstants()) {
             this.getColumns().add(e.toString());
             ValueFormat format = ValueFormat.forField(e);
@@ -99,20 +93,72 @@ public abstract class AbstractReport {
                 this.getColumns().add(e.toString() + format.suffix);
             }
         }
-        getRows().clear();
-        reportData.forEach(row -> {
-            Map<String, Object> rowData = new LinkedHashMap<>();
-            for (Enum<E> c : enumClass.getEnumConstants()) {
-                if (row.containsKey(c)) {
-                    ValueFormat format = ValueFormat.forField(c);
-                    rowData.put(c.toString(), row.get(c));
-                    if (format.columnCount > 1) {
-                        rowData.put(c.toString() + format.suffix, format.getAlternateValue(row.get(c)));
-                    }
-                }
+        this.keyName = keyName;
+        clearRows();
+    }
+
+    /**
+     * Appends a row to a report set up with {@link #setColumns(String, Class)}. This is not thread-safe; callers
+     * producing rows concurrently have to synchronize on the report.
+     *
+     * @param key the value of the key column
+     * @param row the values of the other columns
+     * @param <E> the column enumeration
+     * @param <V> the value type
+     */
+    public <E extends Enum<E>, V> void appendRow(String key, EnumMap<E, V> row) {
+        Map<String, Object> rowData = new LinkedHashMap<>();
+        if (keyName != null) {
+            rowData.put(keyName, key);
+        }
+        // an EnumMap iterates in the order of the enumeration, which is the order of the columns
+        row.forEach((c, value) -> {
+            ValueFormat format = ValueFormat.forField(c);
+            rowData.put(c.toString(), value);
+            if (format.columnCount > 1) {
+                rowData.put(c.toString() + format.suffix, format.getAlternateValue(value));
             }
-            getRows().add(new ValueMapDecorator(rowData));
         });
+        addRow(rowData);
+    }
+
+    /**
+     * Appends a row without a key to a report set up with {@link #setColumns(String, Class)}.
+     *
+     * @param row the values of the columns
+     * @param <E> the column enumeration
+     * @param <V> the value type
+     * @see #appendRow(String, EnumMap)
+     */
+    public <E extends Enum<E>, V> void appendRow(EnumMap<E, V> row) {
+        appendRow(null, row);
+    }
+
+    /**
+     * Removes all rows from the report.
+     */
+    protected void clearRows() {
+        getRows().clear();
+    }
+
+    /**
+     * Adds a single row to the report. Implementations which do not keep their rows on the heap can override this to
+     * write the row out as soon as it is produced.
+     *
+     * @param rowData the row, keyed by column name
+     */
+    protected void addRow(Map<String, Object> rowData) {
+        getRows().add(new ValueMapDecorator(rowData));
+    }
+
+    /**
+     * Visits all rows of the report in order. Implementations which can read their rows lazily override this so
+     * that callers do not need the complete row list in memory.
+     *
+     * @param action the action to perform for each row
+     */
+    public void forEachRow(Consumer<ValueMap> action) {
+        getRows().forEach(action);
     }
 
     /**
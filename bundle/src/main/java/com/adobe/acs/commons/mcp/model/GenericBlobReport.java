@@ -19,25 +19,23 @@ package com.adobe.acs.commons.mcp.model;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import javax.annotation.PostConstruct;
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.jackrabbit.commons.JcrUtils;
 import org.apache.sling.api.resource.ModifiableValueMap;
 import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.api.wrappers.ValueMapDecorator;
 import org.apache.sling.models.annotations.Model;
 import org.apache.sling.models.annotations.injectorspecific.ChildResource;
@@ -46,16 +44,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.adobe.acs.commons.mcp.ProcessInstance;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 
 /**
  * Stores the reports into a single blob in the repository. This is more
  * efficient compared to the GenericReport, and should be used furtheron.
- * 
+ * <p>
+ * Rows set on the report are spooled to a temporary file as they are converted
+ * and streamed into the blob on persist; when reading, rows are only parsed
+ * from the blob when they are requested.
  */
 
 @Model(adaptables = Resource.class)
@@ -72,6 +73,11 @@ public class GenericBlobReport extends AbstractReport {
 
     private static final Logger LOG = LoggerFactory.getLogger(GenericBlobReport.class);
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ReportRowSpool spool;
+    private boolean rowsLoaded = false;
+
     public static final String BLOB_REPORT_RESOURCE_TYPE = ProcessInstance.RESOURCE_TYPE + "/process-blob-report";
 
     public String getResourceType() {
@@ -80,32 +86,117 @@ public class GenericBlobReport extends AbstractReport {
 
     @PostConstruct
     public void init() {
-        // read all data from the blob and store it in the properties of the
-        // AbstractReport
+        // the rows are read from the blob on first access
         columnsData = columns;
         nameData = name;
-        ObjectMapper mapper = new ObjectMapper();
-        try (InputStream is = blobreport.adaptTo(InputStream.class)) {
-            JsonNode array = mapper.readTree(is);
-            if (!array.isArray()) {
+    }
+
+    /**
+     * Rows which were spooled to a temporary file are moved into memory by this call. Once such rows have been
+     * stored by {@link #persist(ResourceResolver, String)}, they are no longer held by this report and the list is
+     * empty; adapt the stored report resource to read them again.
+     *
+     * @return the rows held by this report
+     */
+    @Override
+    public List<ValueMap> getRows() {
+        if (spool != null) {
+            // rows were spooled but are needed as a list after all
+            List<ValueMap> rows = super.getRows();
+            try {
+                spool.forEachRow(rows::add);
+            } catch (IOException e) {
+                LOG.error("Unable to read back spooled report rows", e);
+            } finally {
+                spool.close();
+                spool = null;
+            }
+        } else if (!rowsLoaded && blobreport != null) {
+            rowsLoaded = true;
+            readBlob(super.getRows()::add);
+        }
+        return super.getRows();
+    }
+
+    /**
+     * Like {@link #getRows()}, this does not visit spooled rows which were already stored.
+     */
+    @Override
+    public void forEachRow(Consumer<ValueMap> action) {
+        if (spool == null && !rowsLoaded && blobreport != null) {
+            readBlob(action);
+        } else {
+            super.forEachRow(action);
+        }
+    }
+
+    @Override
+    protected void clearRows() {
+        if (spool != null) {
+            spool.close();
+            spool = null;
+        }
+        rowsLoaded = true;
+        super.getRows().clear();
+    }
+
+    /**
+     * Spools the row to a temporary file instead of keeping it in memory. The spooled rows are written to the
+     * repository by {@link #persist(ResourceResolver, String)}.
+     */
+    @Override
+    protected void addRow(Map<String, Object> rowData) {
+        if (spool != null && spool.isFinished()) {
+            // a failed persist completed the spool, continue with a new spool of all rows
+            getRows();
+        }
+        try {
+            if (spool == null) {
+                spool = new ReportRowSpool(MAPPER);
+                // keep the order of rows which were already held in memory
+                for (ValueMap row : super.getRows()) {
+                    spool.append(row);
+                }
+                super.getRows().clear();
+            }
+            spool.append(rowData);
+        } catch (IOException e) {
+            LOG.warn("Unable to spool report row, keeping it in memory", e);
+            super.addRow(rowData);
+        }
+    }
+
+    /**
+     * Reads the rows of the blob one by one, so only a single row is held in memory at a time.
+     */
+    private void readBlob(Consumer<ValueMap> action) {
+        try (InputStream is = blobreport.adaptTo(InputStream.class);
+                JsonParser parser = MAPPER.getFactory().createParser(is)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
                 LOG.error("blobreport does not contain a JSON array, not reading any data from {}",
                         blobreport.getPath());
-            } else {
-                for (JsonNode ar : array) {
-                    Map<String, Object> map = new HashMap<>();
-                    for (String c : columns) {
-                        if (ar.has(c) && ar.get(c) != null) {
-                            map.put(c, ar.get(c).asText());
-                        }
+                return;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode ar = MAPPER.readTree(parser);
+                Map<String, Object> map = new HashMap<>();
+                for (String c : columns) {
+                    if (ar.has(c) && ar.get(c) != null) {
+                        map.put(c, ar.get(c).asText());
                     }
-                    getRows().add(new ValueMapDecorator(map));
                 }
+                action.accept(new ValueMapDecorator(map));
             }
         } catch (IOException e) {
             LOG.error("Problems during de-serialization of report (path={})", blobreport.getPath(), e);
         }
     }
 
+    /**
+     * Streams all rows into the blob. Rows which were spooled to a temporary file are copied from there and are not
+     * available from this report once they are stored; if storing them fails they are kept, so persisting can be
+     * retried.
+     */
     @Override
     public void persist(ResourceResolver rr, String path) throws PersistenceException, RepositoryException {
         // persist all data to the blob
@@ -114,33 +205,46 @@ public class GenericBlobReport extends AbstractReport {
         jcrContent.put("jcr:primaryType", "nt:unstructured");
         jcrContent.put("columns", getColumns().toArray(new String[0]));
         jcrContent.put("name", getName());
-        
-        ObjectMapper mapper = new ObjectMapper();
-        ArrayNode jsonRows = new ArrayNode(JsonNodeFactory.instance);
-        
-        for (Map<String, Object> row : rowsData) {
-            // First strip out null values
-            Map<String, Object> properties = row.entrySet().stream().filter(e -> e.getValue() != null)
-                    .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
-            JsonNode elem = mapper.convertValue(properties, JsonNode.class);
-            jsonRows.add(elem);
-        }
+
         Node parent = Optional.ofNullable(rr.getResource(path)).map(resource -> resource.adaptTo(Node.class)).orElse(null);
-        if (parent != null) {
-            try {
-                String jsonString = mapper.writeValueAsString(jsonRows);
-                try (InputStream is = IOUtils.toInputStream(jsonString, Charset.defaultCharset())) {
+        if (parent == null) {
+            LOG.error("{} is not a JCR path, cannot persist report", path);
+            return;
+        }
+        ReportRowSpool rows = null;
+        boolean stored = false;
+        try {
+            rows = spool != null ? spool : spoolRows();
+            try (InputStream is = rows.finish()) {
+                JcrUtils.putFile(parent, "blobreport", "text/json", is);
+                rr.commit();
+            }
+            stored = true;
+        } catch (JsonProcessingException ex) {
+            throw new PersistenceException("Cannot convert Json to String", ex);
+        } catch (IOException ioe) {
+            throw new PersistenceException("Cannot close inputstream for report", ioe);
+        } finally {
+            if (rows != null && rows != spool) {
+                // a spool of the rows held in memory, which remain available
+                rows.close();
+            } else if (stored) {
+                spool.close();
+                spool = null;
+            }
+        }
+    }
 
-                    JcrUtils.putFile(parent, "blobreport", "text/json", is);
-                    rr.commit();
-                }
-            } catch (JsonProcessingException ex) {
-                throw new PersistenceException("Cannot convert Json to String", ex);
-            } catch (IOException ioe) {
-                throw new PersistenceException("Cannot close inputstream for report", ioe);
+    private ReportRowSpool spoolRows() throws IOException {
+        ReportRowSpool rows = new ReportRowSpool(MAPPER);
+        try {
+            for (ValueMap row : getRows()) {
+                rows.append(row);
             }
-        } else {
-            LOG.error("{} is not a JCR path, cannot persist report", path);
+        } catch (IOException e) {
+            rows.close();
+            throw e;
         }
+        return rows;
     }
 }
@@ -0,0 +1,148 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.mcp.model;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Spools report rows to a temporary file as they are produced, in the same JSON array format that is stored in the
+ * blob of a {@link GenericBlobReport}. Once finished the file can be streamed into the repository as is, so the rows
+ * never have to be held in memory at the same time.
+ */
+class ReportRowSpool implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReportRowSpool.class);
+
+    private static final TypeReference<LinkedHashMap<String, Object>> ROW_TYPE =
+            new TypeReference<LinkedHashMap<String, Object>>() { };
+
+    private final ObjectMapper mapper;
+    private final Path file;
+    private JsonGenerator generator;
+    private int rowCount = 0;
+
+    ReportRowSpool(ObjectMapper mapper) throws IOException {
+        this.mapper = mapper;
+        // the owning report deletes the file once its rows are stored or dropped; files of reports abandoned in
+        // between are removed when the bundle is started again (see util.impl.Activator)
+        this.file = Files.createTempFile("acs-commons-report", ".json");
+        try {
+            generator = mapper.getFactory().createGenerator(new BufferedOutputStream(Files.newOutputStream(file)));
+            generator.writeStartArray();
+        } catch (IOException ex) {
+            Files.deleteIfExists(file);
+            throw ex;
+        }
+    }
+
+    /**
+     * Appends a row, leaving out all columns without a value.
+     *
+     * @param row the row to append
+     * @throws IOException if the row could not be written
+     */
+    void append(Map<String, Object> row) throws IOException {
+        if (generator == null) {
+            throw new IllegalStateException("Report rows were already finished");
+        }
+        generator.writeStartObject();
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (entry.getValue() != null) {
+                generator.writeFieldName(entry.getKey());
+                generator.writeObject(entry.getValue());
+            }
+        }
+        generator.writeEndObject();
+        rowCount++;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return true once the JSON array is complete and no more rows can be appended
+     */
+    boolean isFinished() {
+        return generator == null;
+    }
+
+    /**
+     * Completes the JSON array and opens the spooled rows for reading.
+     *
+     * @return stream of the complete JSON document
+     * @throws IOException if the file could not be completed or opened
+     */
+    InputStream finish() throws IOException {
+        if (generator != null) {
+            generator.writeEndArray();
+            generator.close();
+            generator = null;
+        }
+        return Files.newInputStream(file);
+    }
+
+    /**
+     * Reads the spooled rows back, keeping the value types produced by JSON deserialization.
+     *
+     * @param action the action to perform for each row
+     * @throws IOException if the rows could not be read
+     */
+    void forEachRow(Consumer<ValueMap> action) throws IOException {
+        try (InputStream is = finish(); JsonParser parser = mapper.getFactory().createParser(is)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                Map<String, Object> row = mapper.readValue(parser, ROW_TYPE);
+                action.accept(new ValueMapDecorator(row));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (generator != null) {
+                generator.close();
+                generator = null;
+            }
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            LOG.warn("Unable to remove report spool file {}", file, ex);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.models.injectors.impl;
+
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import com.day.cq.commons.jcr.JcrConstants;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+
+import javax.management.NotCompliantMBeanException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers, per page content resource, property name and requested type, which ancestor page content resource
+ * provides an inherited page property.
+ * <p>
+ * Lookups are keyed by the user of the resource resolver as well, as the pages a user can read decide which ancestor
+ * the hierarchy walk ends up at. A change to a page drops the cached lookups of that page and all pages below it.
+ */
+public class HierarchicalPagePropertyCache extends AnnotatedStandardMBean implements HierarchicalPagePropertyCacheMBean,
+        ResourceChangeListener, ExternalResourceChangeListener {
+
+    /**
+     * Cached value of a lookup that found no page providing the property.
+     */
+    static final String NOT_FOUND = "";
+
+    private static final String CONTENT_SEGMENT = "/" + JcrConstants.JCR_CONTENT;
+
+    private final Map<Key, String> cache = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public HierarchicalPagePropertyCache(int maxEntries) throws NotCompliantMBeanException {
+        super(HierarchicalPagePropertyCacheMBean.class);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return the path of the content resource providing the property, {@link #NOT_FOUND} if no page provides it, or
+     * null if the lookup is not cached
+     */
+    String get(String userId, String contentPath, String name, Type declaredType) {
+        final String definingPath = cache.get(new Key(userId, contentPath, name, declaredType));
+        if (definingPath != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return definingPath;
+    }
+
+    void put(String userId, String contentPath, String name, Type declaredType, String definingPath) {
+        if (cache.size() >= maxEntries) {
+            cache.clear();
+        }
+        cache.put(new Key(userId, contentPath, name, declaredType), definingPath);
+    }
+
+    @Override
+    public void onChange(List<ResourceChange> changes) {
+        for (ResourceChange change : changes) {
+            invalidate(getPagePath(change.getPath()));
+        }
+    }
+
+    private void invalidate(String pagePath) {
+        final String pageContentPath = pagePath + CONTENT_SEGMENT;
+        final String descendantPrefix = pagePath.endsWith("/") ? pagePath : pagePath + "/";
+        final Iterator<Key> keys = cache.keySet().iterator();
+        while (keys.hasNext()) {
+            final String contentPath = keys.next().contentPath;
+            if (contentPath.equals(pageContentPath) || contentPath.startsWith(descendantPrefix)) {
+                keys.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    private static String getPagePath(String path) {
+        final int index = path.indexOf(CONTENT_SEGMENT + "/");
+        if (index >= 0) {
+            return path.substring(0, index);
+        }
+        return path.endsWith(CONTENT_SEGMENT) ? path.substring(0, path.length() - CONTENT_SEGMENT.length()) : path;
+    }
+
+    @Override
+    public int getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        final long hitCount = hits.sum();
+        final long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public void clear() {
+        cache.clear();
+    }
+
+    private static final class Key {
+        private final String userId;
+        private final String contentPath;
+        private final String name;
+        private final Type declaredType;
+        private final int hashCode;
+
+        Key(String userId, String contentPath, String name, Type declaredType) {
+            this.userId = userId;
+            this.contentPath = contentPath;
+            this.name = name;
+            this.declaredType = declaredType;
+            int result = userId != null ? userId.hashCode() : 0;
+            result = 31 * result + contentPath.hashCode();
+            result = 31 * result + name.hashCode();
+            result = 31 * result + declaredType.hashCode();
+            this.hashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return hashCode == other.hashCode
+                    && contentPath.equals(other.contentPath)
+                    && name.equals(other.name)
+                    && declaredType.equals(other.declaredType)
+                    && (userId == null ? other.userId == null : userId.equals(other.userId));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
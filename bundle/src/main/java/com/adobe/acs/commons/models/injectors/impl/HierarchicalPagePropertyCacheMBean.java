@@ -0,0 +1,43 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.models.injectors.impl;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+@Description("ACS AEM Commons - Hierarchical Page Property Cache")
+public interface HierarchicalPagePropertyCacheMBean {
+
+    @Description("Number of cached inherited property lookups")
+    int getSize();
+
+    @Description("Number of lookups answered from the cache")
+    long getHitCount();
+
+    @Description("Number of lookups that walked the page hierarchy")
+    long getMissCount();
+
+    @Description("Ratio of lookups answered from the cache")
+    double getHitRatio();
+
+    @Description("Number of cached lookups dropped because of content changes")
+    long getInvalidationCount();
+
+    /* Operations */
+    @Description("Remove all cached lookups")
+    void clear();
+}
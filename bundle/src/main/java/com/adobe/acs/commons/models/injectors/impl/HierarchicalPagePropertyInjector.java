@@ -21,20 +21,33 @@ import com.adobe.acs.commons.models.injectors.annotation.HierarchicalPagePropert
 import com.adobe.acs.commons.models.injectors.annotation.PageProperty;
 import com.adobe.acs.commons.util.impl.ReflectionUtil;
 import com.day.cq.commons.inherit.HierarchyNodeInheritanceValueMap;
+import com.day.cq.commons.jcr.JcrConstants;
 import com.day.cq.commons.inherit.InheritanceValueMap;
 import com.day.cq.wcm.api.Page;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.apache.sling.models.annotations.Source;
 import org.apache.sling.models.spi.DisposalCallbackRegistry;
 import org.apache.sling.models.spi.Injector;
+import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Type;
+import java.util.Dictionary;
+import java.util.Hashtable;
 
 import static com.adobe.acs.commons.models.injectors.impl.InjectorUtils.*;
 
@@ -44,8 +57,35 @@ import static com.adobe.acs.commons.models.injectors.impl.InjectorUtils.*;
         },
         service = Injector.class
 )
+@Designate(ocd = HierarchicalPagePropertyInjector.Config.class)
 public class HierarchicalPagePropertyInjector implements Injector {
 
+    @ObjectClassDefinition(
+            name = "ACS AEM Commons - Hierarchical Page Property Injector",
+            description = "Injects page properties, optionally inherited from ancestor pages"
+    )
+    public @interface Config {
+        @AttributeDefinition(
+                name = "Cache inherited properties",
+                description = "Remember which ancestor page provides an inherited property, so that the page tree is "
+                        + "not walked on every injection. Cached lookups are dropped when a page above or at the "
+                        + "looked up page changes."
+        )
+        boolean cache_enabled() default false;
+
+        @AttributeDefinition(
+                name = "Cache paths",
+                description = "Paths below which page changes invalidate cached lookups"
+        )
+        String[] cache_paths() default {"/content"};
+
+        @AttributeDefinition(
+                name = "Cache max entries",
+                description = "Maximum number of cached lookups, the cache is cleared when it grows beyond this size"
+        )
+        int cache_max_entries() default 10000;
+    }
+
     /**
      * Source value used for injector
      *
@@ -55,6 +95,44 @@ public class HierarchicalPagePropertyInjector implements Injector {
 
     private static final Logger LOG = LoggerFactory.getLogger(HierarchicalPagePropertyInjector.class);
 
+    private HierarchicalPagePropertyCache cache;
+    private ServiceRegistration<?> listenerRegistration;
+    private ServiceRegistration<?> mbeanRegistration;
+
+    @Activate
+    protected void activate(BundleContext bundleContext, Config config) {
+        if (!config.cache_enabled()) {
+            return;
+        }
+        try {
+            cache = new HierarchicalPagePropertyCache(config.cache_max_entries());
+        } catch (NotCompliantMBeanException e) {
+            LOG.error("Unable to create the hierarchical page property cache, inherited properties will not be cached", e);
+            return;
+        }
+
+        final Dictionary<String, Object> listenerProps = new Hashtable<>();
+        listenerProps.put(ResourceChangeListener.PATHS, config.cache_paths());
+        listenerRegistration = bundleContext.registerService(ResourceChangeListener.class, cache, listenerProps);
+
+        final Dictionary<String, Object> mbeanProps = new Hashtable<>();
+        mbeanProps.put("jmx.objectname", "com.adobe.acs.commons:type=Hierarchical Page Property Cache");
+        mbeanRegistration = bundleContext.registerService(DynamicMBean.class.getName(), cache, mbeanProps);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if (listenerRegistration != null) {
+            listenerRegistration.unregister();
+            listenerRegistration = null;
+        }
+        if (mbeanRegistration != null) {
+            mbeanRegistration.unregister();
+            mbeanRegistration = null;
+        }
+        cache = null;
+    }
+
     @Override
     public String getName() {
         return SOURCE;
@@ -63,16 +141,23 @@ public class HierarchicalPagePropertyInjector implements Injector {
     public Object getValue(Object adaptable, String name, Type declaredType, AnnotatedElement element,
                            DisposalCallbackRegistry callbackRegistry) {
 
-        if (!(element.isAnnotationPresent(HierarchicalPageProperty.class) || element.isAnnotationPresent(PageProperty.class))) {
+        HierarchicalPageProperty hierarchicalPageProperty =
+                InjectionMetadata.of(element, declaredType, HierarchicalPageProperty.class).getAnnotation();
+        PageProperty pageProperty = InjectionMetadata.of(element, declaredType, PageProperty.class).getAnnotation();
+        if (hierarchicalPageProperty == null && pageProperty == null) {
             //skipping javax.Inject for performance reasons. Only supports direct injection.
             return null;
         }
 
         Resource currentResource = getResource(adaptable);
         if (currentResource != null) {
-            Resource adaptableRes = lookUpFromPage(adaptable, currentResource, element);
+            Resource adaptableRes = lookUpFromPage(adaptable, currentResource, hierarchicalPageProperty, pageProperty);
             if (adaptableRes != null) {
-                if (useInheritance(element)) {
+                if (hierarchicalPageProperty != null && hierarchicalPageProperty.inherit()) {
+                    final HierarchicalPagePropertyCache inheritedCache = cache;
+                    if (inheritedCache != null) {
+                        return getInheritedValue(inheritedCache, adaptableRes, name, declaredType);
+                    }
                     InheritanceValueMap inheritanceValueMap = new HierarchyNodeInheritanceValueMap(adaptableRes);
                     return ReflectionUtil.convertValueMapValue(inheritanceValueMap, name, declaredType);
                 } else {
@@ -85,9 +170,51 @@ public class HierarchicalPagePropertyInjector implements Injector {
 
     }
 
-    private Resource lookUpFromPage(Object adaptable, Resource currentResource, AnnotatedElement element) {
+    private Object getInheritedValue(HierarchicalPagePropertyCache inheritedCache, Resource contentResource, String name,
+                                     Type declaredType) {
+        final String userId = contentResource.getResourceResolver().getUserID();
+        final String definingPath = inheritedCache.get(userId, contentResource.getPath(), name, declaredType);
+        if (HierarchicalPagePropertyCache.NOT_FOUND.equals(definingPath)) {
+            return null;
+        } else if (definingPath != null) {
+            final Resource definingResource = contentResource.getResourceResolver().getResource(definingPath);
+            final Object value = definingResource != null
+                    ? ReflectionUtil.convertValueMapValue(definingResource.getValueMap(), name, declaredType) : null;
+            if (value != null) {
+                return value;
+            }
+        }
+
+        Resource current = contentResource;
+        while (current != null) {
+            final Object value = ReflectionUtil.convertValueMapValue(current.getValueMap(), name, declaredType);
+            if (value != null) {
+                inheritedCache.put(userId, contentResource.getPath(), name, declaredType, current.getPath());
+                return value;
+            }
+            current = getParentContentResource(current);
+        }
+        inheritedCache.put(userId, contentResource.getPath(), name, declaredType, HierarchicalPagePropertyCache.NOT_FOUND);
+        return null;
+    }
+
+    private static Resource getParentContentResource(Resource contentResource) {
+        Resource page = contentResource.getParent();
+        while (page != null) {
+            page = page.getParent();
+            final Resource parentContent = page != null ? page.getChild(JcrConstants.JCR_CONTENT) : null;
+            if (parentContent != null) {
+                return parentContent;
+            }
+        }
+        return null;
+    }
+
+    private Resource lookUpFromPage(Object adaptable, Resource currentResource,
+                                    HierarchicalPageProperty hierarchicalPageProperty, PageProperty pageProperty) {
 
-        boolean useCurrentPage = useCurrentPage(element);
+        boolean useCurrentPage = hierarchicalPageProperty != null
+                ? hierarchicalPageProperty.useCurrentPage() : pageProperty.useCurrentPage();
         Page containingPage;
 
         if(useCurrentPage){
@@ -99,31 +226,13 @@ public class HierarchicalPagePropertyInjector implements Injector {
             containingPage = getResourcePage(currentResource);
         }
 
-        if(containingPage != null && element.isAnnotationPresent(HierarchicalPageProperty.class)) {
-            HierarchicalPageProperty annotation = element.getAnnotation(HierarchicalPageProperty.class);
-            if(annotation.traverseFromAbsoluteParent() > -1){
-                containingPage = containingPage.getAbsoluteParent(annotation.traverseFromAbsoluteParent());
-            }
+        if(containingPage != null && hierarchicalPageProperty != null
+                && hierarchicalPageProperty.traverseFromAbsoluteParent() > -1) {
+            containingPage = containingPage.getAbsoluteParent(hierarchicalPageProperty.traverseFromAbsoluteParent());
         }
 
         return containingPage != null ? containingPage.getContentResource() : null;
     }
 
 
-    private boolean useCurrentPage(AnnotatedElement element){
-
-        if(element.isAnnotationPresent(HierarchicalPageProperty.class)){
-            return element.getAnnotation(HierarchicalPageProperty.class).useCurrentPage();
-        }else if (element.isAnnotationPresent(PageProperty.class)){
-            return element.getAnnotation(PageProperty.class).useCurrentPage();
-        }
-        return false;
-
-    }
-
-    private boolean useInheritance(AnnotatedElement element){
-        return element.isAnnotationPresent(HierarchicalPageProperty.class) && element.getAnnotation(HierarchicalPageProperty.class).inherit();
-    }
-
-
 }
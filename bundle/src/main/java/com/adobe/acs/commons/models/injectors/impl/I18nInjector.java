@@ -55,43 +55,44 @@ public class I18nInjector implements Injector {
     @Override
     public Object getValue(Object adaptable, String name, Type type, AnnotatedElement annotatedElement, DisposalCallbackRegistry disposal) {
 
-        if (annotatedElement.isAnnotationPresent(I18N.class) && canAdaptToString(adaptable, type)) {
+        I18N annotation = InjectionMetadata.of(annotatedElement, type, I18N.class).getAnnotation();
+        if (annotation != null && canAdaptToString(adaptable, type)) {
             //skipping javax.Inject for performance reasons. Only supports direct injection.
-            return i18nStringAdaptation(adaptable, name, annotatedElement);
+            return i18nStringAdaptation(adaptable, name, annotation);
         }else if(canAdaptToObject(adaptable, type)){
-            return i18nObjectAdaptation(adaptable, annotatedElement);
+            return i18nObjectAdaptation(adaptable, annotation);
         }
 
         return null;
     }
 
-    private I18n i18nObjectAdaptation(Object adaptable, AnnotatedElement annotatedElement) {
+    private I18n i18nObjectAdaptation(Object adaptable, I18N annotation) {
         if (adaptable instanceof SlingHttpServletRequest) {
             SlingHttpServletRequest request = (SlingHttpServletRequest) adaptable;
 
-            boolean forceLocaleRetrievalFromUnderlyingResource = isLocaleRetrievalFromUnderlyingResourceForced(annotatedElement);
+            boolean forceLocaleRetrievalFromUnderlyingResource = isLocaleRetrievalFromUnderlyingResourceForced(annotation);
 
             if(forceLocaleRetrievalFromUnderlyingResource){
-                boolean localeIgnoreContent = getLocaleIgnoreContent(annotatedElement);
+                boolean localeIgnoreContent = getLocaleIgnoreContent(annotation);
                 return i18nProvider.i18n(request.getResource(), localeIgnoreContent);
             }else{
                 return i18nProvider.i18n(request);
             }
 
         } else {
-            boolean localeIgnoreContent = getLocaleIgnoreContent(annotatedElement);
+            boolean localeIgnoreContent = getLocaleIgnoreContent(annotation);
             Resource resource = getResource(adaptable);
             return i18nProvider.i18n(resource,localeIgnoreContent);
         }
     }
 
-    private String i18nStringAdaptation(Object adaptable, String name, AnnotatedElement annotatedElement) {
-        boolean localeIgnoreContent = getLocaleIgnoreContent(annotatedElement);
+    private String i18nStringAdaptation(Object adaptable, String name, I18N annotation) {
+        boolean localeIgnoreContent = getLocaleIgnoreContent(annotation);
 
-        String key = getI18nKey(name, annotatedElement);
+        String key = getI18nKey(name, annotation);
 
         if (adaptable instanceof SlingHttpServletRequest) {
-            boolean forceLocaleRetrievalFromUnderlyingResource = isLocaleRetrievalFromUnderlyingResourceForced(annotatedElement);
+            boolean forceLocaleRetrievalFromUnderlyingResource = isLocaleRetrievalFromUnderlyingResourceForced(annotation);
             SlingHttpServletRequest request = (SlingHttpServletRequest) adaptable;
 
             if(forceLocaleRetrievalFromUnderlyingResource){
@@ -106,30 +107,17 @@ public class I18nInjector implements Injector {
         }
     }
 
-    private boolean isLocaleRetrievalFromUnderlyingResourceForced(AnnotatedElement annotatedElement) {
-
-        if(annotatedElement.isAnnotationPresent(I18N.class)){
-            I18N annotation = annotatedElement.getAnnotation(I18N.class);
-            return annotation.forceRetrievalFromUnderlyingResource();
-        }
-
-        return false;
+    private boolean isLocaleRetrievalFromUnderlyingResourceForced(I18N annotation) {
+        return annotation != null && annotation.forceRetrievalFromUnderlyingResource();
     }
 
-    private boolean getLocaleIgnoreContent(AnnotatedElement annotatedElement) {
-
-        if(annotatedElement.isAnnotationPresent(I18N.class)){
-            I18N annotation = annotatedElement.getAnnotation(I18N.class);
-            return annotation.localeIgnoreContent();
-        }
-
-        return false;
+    private boolean getLocaleIgnoreContent(I18N annotation) {
+        return annotation != null && annotation.localeIgnoreContent();
     }
 
-    private String getI18nKey(String name, AnnotatedElement annotatedElement) {
+    private String getI18nKey(String name, I18N annotation) {
 
-        if(annotatedElement.isAnnotationPresent(I18N.class)) {
-            I18N annotation = annotatedElement.getAnnotation(I18N.class);
+        if(annotation != null) {
             String annotationKey = annotation.value();
 
             if (StringUtils.isNotEmpty(annotationKey)) {
@@ -0,0 +1,163 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.models.injectors.impl;
+
+import com.adobe.acs.commons.util.impl.ReflectionUtil;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What an injector needs to know about an injection point, computed once per element instead of on every adaptation:
+ * the injector annotation (if present), the shape of the declared type and its element type.
+ * <p>
+ * Entries are held in a {@link ClassValue} of the class declaring the injection point, so they go away together with
+ * the model class when its bundle is refreshed.
+ */
+final class InjectionMetadata {
+
+    enum Kind {
+        SET, LIST, ARRAY, SINGLE
+    }
+
+    private static final ClassValue<Map<Key, InjectionMetadata>> CACHE = new ClassValue<Map<Key, InjectionMetadata>>() {
+        @Override
+        protected Map<Key, InjectionMetadata> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final Annotation annotation;
+    private final Type declaredType;
+    private final Kind kind;
+    private final Class<?> elementType;
+
+    private InjectionMetadata(Annotation annotation, Type declaredType) {
+        this.annotation = annotation;
+        this.declaredType = declaredType;
+        Kind resolvedKind = Kind.SINGLE;
+        Class<?> resolvedElementType = null;
+        // Only the injection points of the injector need their type analysed; other injectors handle the rest
+        if (annotation != null) {
+            try {
+                if (ReflectionUtil.isSetType(declaredType)) {
+                    resolvedKind = Kind.SET;
+                    resolvedElementType = ReflectionUtil.getGenericParameter(declaredType);
+                } else if (ReflectionUtil.isListType(declaredType) || ReflectionUtil.isCollectionType(declaredType)) {
+                    resolvedKind = Kind.LIST;
+                    resolvedElementType = ReflectionUtil.getGenericParameter(declaredType);
+                } else if (ReflectionUtil.isArray(declaredType)) {
+                    resolvedKind = Kind.ARRAY;
+                    resolvedElementType = ReflectionUtil.getGenericParameter(declaredType);
+                } else {
+                    resolvedElementType = ReflectionUtil.getClassOrGenericParam(declaredType);
+                }
+            } catch (ClassCastException e) {
+                // type variables and wildcards are not supported by the injectors
+                resolvedKind = Kind.SINGLE;
+                resolvedElementType = null;
+            }
+        }
+        this.kind = resolvedKind;
+        this.elementType = resolvedElementType;
+    }
+
+    /**
+     * @param element        the injection point
+     * @param declaredType   the declared type of the injection point
+     * @param annotationType the annotation of the injector
+     * @return the metadata of the injection point
+     */
+    static InjectionMetadata of(AnnotatedElement element, Type declaredType, Class<? extends Annotation> annotationType) {
+        final Class<?> declaringClass = getDeclaringClass(element);
+        if (declaringClass == null) {
+            return new InjectionMetadata(element.getAnnotation(annotationType), declaredType);
+        }
+        final Map<Key, InjectionMetadata> entries = CACHE.get(declaringClass);
+        final Key key = new Key(element, annotationType);
+        InjectionMetadata metadata = entries.get(key);
+        if (metadata == null || !metadata.declaredType.equals(declaredType)) {
+            metadata = new InjectionMetadata(element.getAnnotation(annotationType), declaredType);
+            entries.put(key, metadata);
+        }
+        return metadata;
+    }
+
+    private static Class<?> getDeclaringClass(AnnotatedElement element) {
+        if (element instanceof Member) {
+            return ((Member) element).getDeclaringClass();
+        } else if (element instanceof Parameter) {
+            return ((Parameter) element).getDeclaringExecutable().getDeclaringClass();
+        }
+        return null;
+    }
+
+    boolean isAnnotated() {
+        return annotation != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    <A extends Annotation> A getAnnotation() {
+        return (A) annotation;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the generic parameter of collections, the component type of arrays or the type itself; null if the
+     * element is not annotated or its type is not supported
+     */
+    Class<?> getElementType() {
+        return elementType;
+    }
+
+    private static final class Key {
+        private final AnnotatedElement element;
+        private final Class<?> annotationType;
+
+        private Key(AnnotatedElement element, Class<?> annotationType) {
+            this.element = element;
+            this.annotationType = annotationType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return element.equals(key.element) && annotationType == key.annotationType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(element, annotationType);
+        }
+    }
+}
@@ -20,7 +20,7 @@ package com.adobe.acs.commons.models.injectors.impl;
 
 import com.adobe.acs.commons.models.injectors.annotation.JsonValueMapValue;
 import com.google.gson.Gson;
-import org.apache.commons.lang3.StringUtils;
+import com.google.gson.JsonElement;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.models.spi.DisposalCallbackRegistry;
 import org.apache.sling.models.spi.Injector;
@@ -29,22 +29,17 @@ import org.osgi.service.component.annotations.Component;
 
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.adobe.acs.commons.models.injectors.impl.InjectorUtils.getResource;
-import static com.adobe.acs.commons.util.impl.ReflectionUtil.getClassOrGenericParam;
-import static com.adobe.acs.commons.util.impl.ReflectionUtil.getGenericParameter;
-import static com.adobe.acs.commons.util.impl.ReflectionUtil.isArray;
-import static com.adobe.acs.commons.util.impl.ReflectionUtil.isCollectionType;
-import static com.adobe.acs.commons.util.impl.ReflectionUtil.isListType;
-import static com.adobe.acs.commons.util.impl.ReflectionUtil.isSetType;
 import static com.adobe.acs.commons.util.impl.ReflectionUtil.toArray;
-import static org.apache.commons.lang3.ArrayUtils.isEmpty;
 import static org.apache.commons.lang3.ArrayUtils.isNotEmpty;
 import static org.apache.commons.lang3.StringUtils.defaultIfEmpty;
 
@@ -52,6 +47,10 @@ import static org.apache.commons.lang3.StringUtils.defaultIfEmpty;
  * JsonValueMapValueInjector
  * Injects a POJO into a field using GSON.
  * Supports a list or a single value.
+ * <p>
+ * Parsed JSON trees are cached by resource path and property, so components rendered over and over only bind the
+ * tree to a fresh POJO instead of parsing the string again. The raw JSON is kept with the tree, so a changed property
+ * is simply parsed again.
  */
 @Component(
         property = {
@@ -61,6 +60,8 @@ import static org.apache.commons.lang3.StringUtils.defaultIfEmpty;
 )
 public class JsonValueMapValueInjector implements Injector {
 
+    static final int MAX_CACHED_VALUES = 1000;
+
     @Override
     public String getName() {
         return JsonValueMapValue.SOURCE;
@@ -68,55 +69,96 @@ public class JsonValueMapValueInjector implements Injector {
 
     private static final Gson GSON = new Gson();
 
+    private final Map<String, ParsedJson> parsedJson = new ConcurrentHashMap<>();
+
     @Override
     public Object getValue(Object adaptable, String name, Type declaredType, AnnotatedElement element, DisposalCallbackRegistry callbackRegistry) {
 
-        if (element.isAnnotationPresent(JsonValueMapValue.class)) {
+        InjectionMetadata metadata = InjectionMetadata.of(element, declaredType, JsonValueMapValue.class);
+        if (metadata.isAnnotated()) {
             Resource resource = getResource(adaptable);
-            JsonValueMapValue annotation = element.getAnnotation(JsonValueMapValue.class);
+            JsonValueMapValue annotation = metadata.getAnnotation();
             String key = defaultIfEmpty(annotation.name(), name);
             String[] jsonStringArray = resource.getValueMap().get(key, String[].class);
-            return parseValue(declaredType, jsonStringArray, key, resource);
+            return parseValue(metadata, jsonStringArray, key, resource);
         }
 
         return null;
     }
 
-    private Object parseValue(Type declaredType,String[] jsonStringArray, String key, Resource resource){
-         if ((isSetType(declaredType)) && isNotEmpty(jsonStringArray)) {
-             return createSet(jsonStringArray, getGenericParameter(declaredType));
-         } else if ((isListType(declaredType) || isCollectionType(declaredType)) && isNotEmpty(jsonStringArray)) {
-             return createList(jsonStringArray, getGenericParameter(declaredType));
-         } else if (isArray(declaredType) && isNotEmpty(jsonStringArray)) {
-             return createArray(jsonStringArray, getGenericParameter(declaredType));
+    private Object parseValue(InjectionMetadata metadata, String[] jsonStringArray, String key, Resource resource){
+         // raw collections have no element type, their elements are injected as the plain JSON values
+         Class<?> elementType = metadata.getElementType() != null ? metadata.getElementType() : Object.class;
+         if (metadata.getKind() == InjectionMetadata.Kind.SET && isNotEmpty(jsonStringArray)) {
+             return createSet(parse(resource, key, jsonStringArray), elementType);
+         } else if (metadata.getKind() == InjectionMetadata.Kind.LIST && isNotEmpty(jsonStringArray)) {
+             return createList(parse(resource, key, jsonStringArray), elementType);
+         } else if (metadata.getKind() == InjectionMetadata.Kind.ARRAY && isNotEmpty(jsonStringArray)) {
+             return createArray(parse(resource, key, jsonStringArray), elementType);
          } else if (resource.getValueMap().containsKey(key)) {
              String jsonString = resource.getValueMap().get(key, String.class);
-             return GSON.fromJson(jsonString, getClassOrGenericParam(declaredType));
+             if (jsonString == null || metadata.getElementType() == null) {
+                 // type variables and wildcards cannot be deserialized, leave the injection point unresolved
+                 return null;
+             }
+             return GSON.fromJson(parse(resource, key, new String[]{ jsonString }).get(0), metadata.getElementType());
          } else {
              return null;
          }
     }
 
+    /**
+     * @return the parsed trees of the JSON strings, from the cache if the property did not change
+     */
+    private List<JsonElement> parse(Resource resource, String key, String[] jsonStringArray) {
+        String cacheKey = resource.getPath() + '@' + key;
+        ParsedJson cached = parsedJson.get(cacheKey);
+        if (cached != null && Arrays.equals(cached.json, jsonStringArray)) {
+            return cached.elements;
+        }
+        List<JsonElement> elements = new ArrayList<>(jsonStringArray.length);
+        for (String json : jsonStringArray) {
+            elements.add(GSON.fromJson(json, JsonElement.class));
+        }
+        if (parsedJson.size() >= MAX_CACHED_VALUES) {
+            parsedJson.clear();
+        }
+        parsedJson.put(cacheKey, new ParsedJson(jsonStringArray.clone(), Collections.unmodifiableList(elements)));
+        return elements;
+    }
 
-    private <T> T[] createArray(String[] jsonStringList, Class<T> targetClass) {
-        return toArray(createList(jsonStringList, targetClass));
+    int getCacheSize() {
+        return parsedJson.size();
     }
 
-    private <T> Set<T> createSet(String[] jsonStringArray, Class<T> targetClass) {
-        return new HashSet<>(createList(jsonStringArray, targetClass));
+    private <T> T[] createArray(List<JsonElement> elements, Class<T> targetClass) {
+        return toArray(createList(elements, targetClass));
     }
 
-    private <T> List<T> createList(String[] jsonStringArray, Class<T> targetClass) {
+    private <T> Set<T> createSet(List<JsonElement> elements, Class<T> targetClass) {
+        return new HashSet<>(createList(elements, targetClass));
+    }
+
+    private <T> List<T> createList(List<JsonElement> elements, Class<T> targetClass) {
 
-        if (isEmpty(jsonStringArray)) {
+        if (elements.isEmpty()) {
             return Collections.emptyList();
         }
 
-        List<String> jsonStringList = Arrays.asList(jsonStringArray);
-        return jsonStringList.stream()
-                .map(json -> GSON.fromJson(json, targetClass))
-                .collect(Collectors.toList());
+        List<T> values = new ArrayList<>(elements.size());
+        for (JsonElement element : elements) {
+            values.add(GSON.fromJson(element, targetClass));
+        }
+        return values;
     }
 
+    private static final class ParsedJson {
+        private final String[] json;
+        private final List<JsonElement> elements;
 
+        private ParsedJson(String[] json, List<JsonElement> elements) {
+            this.json = json;
+            this.elements = elements;
+        }
+    }
 }
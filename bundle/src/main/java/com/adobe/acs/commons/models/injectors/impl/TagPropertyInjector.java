@@ -20,7 +20,6 @@
 package com.adobe.acs.commons.models.injectors.impl;
 
 import com.adobe.acs.commons.models.injectors.annotation.TagProperty;
-import com.adobe.acs.commons.util.impl.ReflectionUtil;
 import com.day.cq.commons.inherit.HierarchyNodeInheritanceValueMap;
 import com.day.cq.commons.inherit.InheritanceValueMap;
 import com.day.cq.tagging.Tag;
@@ -66,10 +65,11 @@ public class TagPropertyInjector implements Injector {
     @Override
     public Object getValue(Object adaptable, String name, Type declaredType, AnnotatedElement element, DisposalCallbackRegistry callbackRegistry) {
 
-        if (element.isAnnotationPresent(TagProperty.class)) {
+        InjectionMetadata metadata = InjectionMetadata.of(element, declaredType, TagProperty.class);
+        if (metadata.isAnnotated()) {
 
             // only inject directly. @ValueMapValue will handle the rest
-            TagProperty annotation = element.getAnnotation(TagProperty.class);
+            TagProperty annotation = metadata.getAnnotation();
 
             ResourceResolver resourceResolver = getResourceResolver(adaptable);
 
@@ -97,11 +97,12 @@ public class TagPropertyInjector implements Injector {
 
             final Stream<Tag> tagStream = Arrays.stream(tagKeys).map(tagManager::resolve);
 
-            if(ReflectionUtil.isSetType(declaredType) && ReflectionUtil.getGenericParameter(declaredType).equals(Tag.class)){
+            final boolean ofTags = Tag.class.equals(metadata.getElementType());
+            if(metadata.getKind() == InjectionMetadata.Kind.SET && ofTags){
                 return tagStream.collect(Collectors.toSet());
-            }else if((ReflectionUtil.isListType(declaredType) || ReflectionUtil.isCollectionType(declaredType)) && ReflectionUtil.getGenericParameter(declaredType).equals(Tag.class)){
+            }else if(metadata.getKind() == InjectionMetadata.Kind.LIST && ofTags){
                 return tagStream.collect(Collectors.toList());
-            }else if(ReflectionUtil.isArray(declaredType) && ReflectionUtil.getClassOrGenericParam(declaredType).equals(Tag.class)) {
+            }else if(metadata.getKind() == InjectionMetadata.Kind.ARRAY && ofTags) {
                 // array
                 return tagStream.toArray(Tag[]::new);
             }else{
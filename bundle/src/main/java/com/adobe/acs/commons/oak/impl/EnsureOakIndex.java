@@ -20,6 +20,8 @@ package com.adobe.acs.commons.oak.impl;
 import com.adobe.acs.commons.analysis.jcrchecksum.ChecksumGenerator;
 import com.adobe.acs.commons.oak.EnsureOakIndexManager;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.apache.sling.commons.scheduler.ScheduleOptions;
 import org.apache.sling.commons.scheduler.Scheduler;
@@ -37,8 +39,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jcr.RepositoryException;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 //@formatter:off
@@ -196,6 +200,24 @@ public class EnsureOakIndex implements AppliableEnsureOakIndex {
         log.info("Job scheduled for ensuring Oak Indexes [ {} ~> {} ]", ensureDefinitionsPath, oakIndexesPath);
     }
 
+    /**
+     * Compares the ensure definitions with the oak indexes without applying anything.
+     *
+     * @return the changes the next apply would make
+     * @throws LoginException if the service user is not available
+     * @throws RepositoryException
+     * @throws IOException
+     */
+    EnsureOakIndexPlan plan() throws LoginException, RepositoryException, IOException {
+        final EnsureOakIndexJobHandler jobHandler =
+                new EnsureOakIndexJobHandler(this, oakIndexesPath, ensureDefinitionsPath);
+        final Map<String, Object> authInfo =
+                Collections.singletonMap(ResourceResolverFactory.SUBSERVICE, EnsureOakIndexJobHandler.SERVICE_NAME);
+        try (ResourceResolver resourceResolver = resourceResolverFactory.getServiceResourceResolver(authInfo)) {
+            return jobHandler.plan(resourceResolver, getEnsureDefinitionsPath(), getOakIndexesPath());
+        }
+    }
+
     @Override
     public final boolean isApplied() {
         return this.applied;
@@ -26,6 +26,10 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.jcr.Node;
 import javax.jcr.Property;
@@ -82,6 +86,15 @@ public class EnsureOakIndexJobHandler implements Runnable {
 
     static final String NN_FACETS = "facets";
 
+    static final String PN_ASYNC = "async";
+
+    /**
+     * Values of the async property which do not name an indexing lane.
+     */
+    static final String[] NON_LANE_ASYNC_VALUES = {"nrt", "sync"};
+
+    static final int MAX_PLANNING_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
     static final String ENSURE_OAK_INDEX_USER_NAME = "Ensure Oak Index";
 
     static final String[] MANDATORY_IGNORE_PROPERTIES = {
@@ -167,8 +180,9 @@ public class EnsureOakIndexJobHandler implements Runnable {
      * Main work method. Responsible for ensuring the ensure definitions under srcPath are reflected in the real oak
      * index under oakIndexesPath.
      * <p/>
-     * The handling is split, so that all re-indexings can be combined into a single commit; this
-     * ensures, that a single repository traversal can be used to reindex all affected indexes.
+     * The ensure definitions are first compared with the oak indexes (see {@link #plan}), then the handling is split,
+     * so that all re-indexings can be combined into a single commit; this ensures, that a single repository traversal
+     * per indexing lane can be used to reindex all affected indexes.
      *
      * @param resourceResolver      the resource resolver (must have permissions to read definitions and change indexes)
      * @param ensureDefinitionsPath the path containing the ensure definitions
@@ -180,6 +194,58 @@ public class EnsureOakIndexJobHandler implements Runnable {
                         final String oakIndexesPath)
             throws RepositoryException, IOException {
 
+        final EnsureOakIndexPlan plan = this.plan(resourceResolver, ensureDefinitionsPath, oakIndexesPath);
+        final Resource ensureDefinitions = resourceResolver.getResource(ensureDefinitionsPath);
+        final Resource oakIndexes = resourceResolver.getResource(oakIndexesPath);
+
+        // First, handle all things that may not result in a a collective re-indexing
+        // Includes: IGNORES, DELETES, DISABLED ensure definitions
+        for (final EnsureOakIndexPlan.Step step : plan.getSteps()) {
+            final Resource ensureDefinition = ensureDefinitions.getChild(step.getName());
+            if (step.getOperation().isLightWeight() && ensureDefinition != null) {
+                handleLightWeightIndexOperations(ensureDefinition, oakIndexes.getChild(step.getName()));
+            }
+        }
+
+        if (resourceResolver.hasChanges()) {
+            log.info("Saving all DELETES, IGNORES, and DISABLES to [ {} ]", oakIndexesPath);
+            resourceResolver.commit();
+            log.debug("Commit succeeded");
+        }
+
+        // Combine the index updates which will potentially result in a repository traversal into a single commit.
+        // second iteration: handle CREATE, UPDATE and REINDEXING
+        for (final EnsureOakIndexPlan.Step step : plan.getSteps()) {
+            final Resource ensureDefinition = ensureDefinitions.getChild(step.getName());
+            if (!step.getOperation().isLightWeight() && ensureDefinition != null) {
+                handleHeavyWeightIndexOperations(oakIndexes, ensureDefinition, oakIndexes.getChild(step.getName()),
+                        step.getOperation());
+            }
+        }
+
+        if (resourceResolver.hasChanges()) {
+            log.info("Saving all CREATE, UPDATES, and RE-INDEXES, re-indexing may start now. Reindexes by lane: {}",
+                    plan.getReindexGroups());
+            resourceResolver.commit();
+            log.debug("Commit succeeded");
+        }
+    }
+
+    /**
+     * Compares all ensure definitions under ensureDefinitionsPath with the oak indexes under oakIndexesPath, without
+     * changing anything.
+     * <p/>
+     * The comparisons run in parallel, each on its own service session.
+     *
+     * @param resourceResolver      the resource resolver used to list the ensure definitions
+     * @param ensureDefinitionsPath the path containing the ensure definitions
+     * @param oakIndexesPath        the path of the real oak index
+     * @return the plan, with a step per ensure definition
+     * @throws RepositoryException
+     * @throws IOException
+     */
+    EnsureOakIndexPlan plan(final ResourceResolver resourceResolver, final String ensureDefinitionsPath,
+                            final String oakIndexesPath) throws RepositoryException, IOException {
         final Resource ensureDefinitions = resourceResolver.getResource(ensureDefinitionsPath);
         final Resource oakIndexes = resourceResolver.getResource(oakIndexesPath);
 
@@ -191,52 +257,121 @@ public class EnsureOakIndexJobHandler implements Runnable {
                     + oakIndexesPath + " ]");
         }
 
-        final Iterator<Resource> ensureDefinitionsIterator = ensureDefinitions.listChildren();
-        if (!ensureDefinitionsIterator.hasNext()) {
+        final List<String> names = new ArrayList<>();
+        ensureDefinitions.listChildren().forEachRemaining(child -> names.add(child.getName()));
+        if (names.isEmpty()) {
             log.info("Ensure Definitions path [ {} ] does NOT have children to process", ensureDefinitions.getPath());
         }
 
-        final List<Resource> delayedProcessing = new ArrayList<>();
-
-        // First, handle all things that may not result in a a collective re-indexing
-        // Includes: IGNORES, DELETES, DISABLED ensure definitions
-
-        while (ensureDefinitionsIterator.hasNext()) {
-            final Resource ensureDefinition = ensureDefinitionsIterator.next();
-            final Resource oakIndex = oakIndexes.getChild(ensureDefinition.getName());
-
-            log.debug("Ensuring Oak Index [ {} ] ~> [ {}/{} ]",
-                    ensureDefinition.getPath(), oakIndexesPath, ensureDefinition.getName());
+        final List<EnsureOakIndexPlan.Step> steps = new ArrayList<>();
+        if (names.size() < 2) {
+            for (final String name : names) {
+                steps.add(planStep(ensureDefinitions.getChild(name), oakIndexes.getChild(name)));
+            }
+        } else {
+            steps.addAll(planInParallel(names, ensureDefinitionsPath, oakIndexesPath));
+        }
+        return new EnsureOakIndexPlan(ensureDefinitionsPath, oakIndexesPath, steps);
+    }
 
-            if (!handleLightWeightIndexOperations(
-                    ensureDefinition, oakIndex)) {
-                delayedProcessing.add(ensureDefinition);
+    @SuppressWarnings("squid:S2142")
+    private List<EnsureOakIndexPlan.Step> planInParallel(final List<String> names, final String ensureDefinitionsPath,
+                                                         final String oakIndexesPath)
+            throws RepositoryException, IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(names.size(), MAX_PLANNING_THREADS));
+        try {
+            final List<Future<EnsureOakIndexPlan.Step>> futures = new ArrayList<>();
+            for (final String name : names) {
+                futures.add(executor.submit(() -> planStep(name, ensureDefinitionsPath, oakIndexesPath)));
             }
+            final List<EnsureOakIndexPlan.Step> steps = new ArrayList<>();
+            for (final Future<EnsureOakIndexPlan.Step> future : futures) {
+                steps.add(future.get());
+            }
+            return steps;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while comparing ensure definitions under " + ensureDefinitionsPath, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RepositoryException) {
+                throw (RepositoryException) e.getCause();
+            } else if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RepositoryException("Could not compare ensure definitions under " + ensureDefinitionsPath, e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
+    }
 
-        if (resourceResolver.hasChanges()) {
-            log.info("Saving all DELETES, IGNORES, and DISABLES to [ {} ]", oakIndexesPath);
-            resourceResolver.commit();
-            log.debug("Commit succeeded");
+    private EnsureOakIndexPlan.Step planStep(final String name, final String ensureDefinitionsPath,
+                                             final String oakIndexesPath)
+            throws LoginException, RepositoryException, IOException {
+        Map<String, Object> authInfo = Collections.singletonMap(ResourceResolverFactory.SUBSERVICE, (Object) SERVICE_NAME);
+        try (ResourceResolver resourceResolver = this.ensureOakIndex.getResourceResolverFactory().getServiceResourceResolver(authInfo)) {
+            final Resource ensureDefinition = resourceResolver.getResource(ensureDefinitionsPath + "/" + name);
+            if (ensureDefinition == null) {
+                return new EnsureOakIndexPlan.Step(name, ensureDefinitionsPath + "/" + name,
+                        EnsureOakIndexPlan.Operation.IGNORE, false, null);
+            }
+            return planStep(ensureDefinition, resourceResolver.getResource(oakIndexesPath + "/" + name));
         }
+    }
 
-        // Combine the index updates which will potentially result in a repository traversal into a single commit.
-        // second iteration: handle CREATE, UPDATE and REINDEXING
-        Iterator<Resource> delayedProcessingEnsureDefinitions = delayedProcessing.iterator();
+    /**
+     * Determine the operation required to bring the oak index in line with the ensure definition.
+     *
+     * @param ensureDefinition the ensure definition
+     * @param oakIndex         the same-named oak index, if it exists
+     * @return the planned step
+     * @throws RepositoryException
+     * @throws IOException
+     */
+    EnsureOakIndexPlan.Step planStep(final @NotNull Resource ensureDefinition, final @Nullable Resource oakIndex)
+            throws RepositoryException, IOException {
+        final ValueMap properties = ensureDefinition.getValueMap();
+        final String name = ensureDefinition.getName();
+        final String path = ensureDefinition.getPath();
+
+        if (properties.get(PN_IGNORE, false)) {
+            return new EnsureOakIndexPlan.Step(name, path, EnsureOakIndexPlan.Operation.IGNORE, false, null);
+        } else if (properties.get(PN_DELETE, false)) {
+            return new EnsureOakIndexPlan.Step(name, path, EnsureOakIndexPlan.Operation.DELETE, false, null);
+        } else if (properties.get(PN_DISABLE, false)) {
+            return new EnsureOakIndexPlan.Step(name, path, EnsureOakIndexPlan.Operation.DISABLE, false, null);
+        }
 
-        while (delayedProcessingEnsureDefinitions.hasNext()) {
-            final Resource ensureDefinition = delayedProcessingEnsureDefinitions.next();
-            final Resource oakIndex = oakIndexes.getChild(ensureDefinition.getName());
+        try {
+            validateEnsureDefinition(ensureDefinition);
+        } catch (OakIndexDefinitionException e) {
+            log.error("Skipping processing of {}", path, e);
+            return new EnsureOakIndexPlan.Step(name, path, EnsureOakIndexPlan.Operation.INVALID, false, null);
+        }
 
-            handleHeavyWeightIndexOperations(oakIndexes, ensureDefinition,
-                    oakIndex);
+        final String lane = getIndexingLane(properties);
+        if (oakIndex == null) {
+            return new EnsureOakIndexPlan.Step(name, path, EnsureOakIndexPlan.Operation.CREATE, true, lane);
+        } else if (!this.needsUpdate(ensureDefinition, oakIndex)) {
+            return new EnsureOakIndexPlan.Step(name, path, EnsureOakIndexPlan.Operation.UNCHANGED, false, lane);
+        } else if (properties.get(PN_RECREATE_ON_UPDATE, false)) {
+            return new EnsureOakIndexPlan.Step(name, path, EnsureOakIndexPlan.Operation.RECREATE, true, lane);
+        } else {
+            return new EnsureOakIndexPlan.Step(name, path, EnsureOakIndexPlan.Operation.UPDATE,
+                    properties.get(PN_FORCE_REINDEX, false), lane);
         }
+    }
 
-        if (resourceResolver.hasChanges()) {
-            log.info("Saving all CREATE, UPDATES, and RE-INDEXES, re-indexing may start now.");
-            resourceResolver.commit();
-            log.debug("Commit succeeded");
+    /**
+     * @return the async lane of the index definition, or {@link EnsureOakIndexPlan#SYNC_LANE} for synchronous indexes
+     */
+    static String getIndexingLane(final ValueMap properties) {
+        final String[] async = properties.get(PN_ASYNC, new String[0]);
+        for (final String lane : async) {
+            if (!ArrayUtils.contains(NON_LANE_ASYNC_VALUES, lane)) {
+                return lane;
+            }
         }
+        return EnsureOakIndexPlan.SYNC_LANE;
     }
 
     /**
@@ -245,41 +380,48 @@ public class EnsureOakIndexJobHandler implements Runnable {
      * @param oakIndexes
      * @param ensureDefinition
      * @param oakIndex
+     * @param operation        the planned operation
      * @throws RepositoryException
      * @throws PersistenceException
      * @throws IOException
      */
     void handleHeavyWeightIndexOperations(final Resource oakIndexes,
-                                          final @NotNull Resource ensureDefinition, final @Nullable Resource oakIndex)
+                                          final @NotNull Resource ensureDefinition, final @Nullable Resource oakIndex,
+                                          final EnsureOakIndexPlan.Operation operation)
             throws RepositoryException, IOException {
         final ValueMap ensureDefinitionProperties = ensureDefinition.getValueMap();
+        final boolean forceReindex = ensureDefinitionProperties.get(PN_FORCE_REINDEX, false);
 
-        try {
-            Resource ensuredOakIndex = null;
-            validateEnsureDefinition(ensureDefinition);
-            if (oakIndex == null) {
-                // CREATE
-                ensuredOakIndex = this.create(ensureDefinition, oakIndexes);
+        switch (operation) {
+            case CREATE:
+                final Resource ensuredOakIndex = this.create(ensureDefinition, oakIndexes);
 
                 // Force re-index
-                if (ensureDefinitionProperties.get(PN_FORCE_REINDEX, false)) {
+                if (forceReindex) {
                     this.forceRefresh(ensuredOakIndex);
                 }
-            } else {
-                // UPDATE
-                boolean forceReindex = ensureDefinitionProperties.get(PN_FORCE_REINDEX, false);
-
-                if (ensureDefinitionProperties.get(PN_RECREATE_ON_UPDATE, false)) {
-                    // Recreate on Update, refresh not required (is implicit)
-                    this.delete(oakIndex);
-                    this.create(ensureDefinition, oakIndexes);
+                break;
+            case RECREATE:
+                // Recreate on Update, refresh not required (is implicit)
+                this.delete(oakIndex);
+                this.create(ensureDefinition, oakIndexes);
+                break;
+            case UPDATE:
+                // Normal Update
+                this.copyDefinition(ensureDefinition, oakIndex, forceReindex);
+                break;
+            case UNCHANGED:
+                if (forceReindex) {
+                    log.info("Skipping update... Oak Index at [ {} ] is the same as [ {} ] and forceIndex flag is ignored",
+                            oakIndex.getPath(), ensureDefinition.getPath());
                 } else {
-                    // Normal Update
-                    this.update(ensureDefinition, oakIndexes, forceReindex);
+                    log.info("Skipping update... Oak Index at [ {} ] is the same as [ {} ]",
+                            oakIndex.getPath(), ensureDefinition.getPath());
                 }
-            }
-        } catch (OakIndexDefinitionException e) {
-            log.error("Skipping processing of {}", ensureDefinition.getPath(), e);
+                break;
+            default:
+                // INVALID definitions have been reported when planning
+                break;
         }
     }
 
@@ -391,9 +533,6 @@ public class EnsureOakIndexJobHandler implements Runnable {
         final ValueMap ensureDefinitionProperties = ensureDefinition.getValueMap();
         final Resource oakIndex = oakIndexes.getChild(ensureDefinition.getName());
 
-        final Node oakIndexNode = oakIndex.adaptTo(Node.class);
-        final Node ensureDefinitionNode = ensureDefinition.adaptTo(Node.class);
-
         if (!this.needsUpdate(ensureDefinition, oakIndex)) {
             if (ensureDefinitionProperties.get(PN_FORCE_REINDEX, false)) {
                 log.info("Skipping update... Oak Index at [ {} ] is the same as [ {} ] and forceIndex flag is ignored",
@@ -406,6 +545,14 @@ public class EnsureOakIndexJobHandler implements Runnable {
             return null;
         }
 
+        return copyDefinition(ensureDefinition, oakIndex, forceReindex);
+    }
+
+    private Resource copyDefinition(final @NotNull Resource ensureDefinition, final @NotNull Resource oakIndex,
+                                    boolean forceReindex) throws RepositoryException, IOException {
+        final Node oakIndexNode = oakIndex.adaptTo(Node.class);
+        final Node ensureDefinitionNode = ensureDefinition.adaptTo(Node.class);
+
         // Handle oak:QueryIndexDefinition node
         // Do NOT delete it as this will delete the existing index below it
 
@@ -207,6 +207,59 @@ public class EnsureOakIndexManagerImpl extends AnnotatedStandardMBean implements
     }
 
 
+    /**
+     * Method for the dry run of all Ensure Oak Indexes in the MBean
+     *
+     * @return the planned changes in a Tabular Format for the MBean
+     * @throws OpenDataException
+     */
+    @Override
+    @SuppressWarnings("squid:S1192")
+    public final TabularData dryRun() throws OpenDataException {
+        final String[] itemNames = new String[]{"Ensure Definitions Path", "Index", "Operation", "Reindex",
+                "Reindex Lane", "Estimated Traversals"};
+        final CompositeType planType = new CompositeType(
+                "Ensure Oak Index Plan",
+                "Ensure Oak Index Plan",
+                itemNames,
+                itemNames,
+                new OpenType[]{SimpleType.STRING, SimpleType.STRING, SimpleType.STRING, SimpleType.BOOLEAN,
+                        SimpleType.STRING, SimpleType.INTEGER});
+
+        final TabularDataSupport tabularData = new TabularDataSupport(new TabularType(
+                "Ensure Oak Index Plans",
+                "Ensure Oak Index Plans",
+                planType,
+                new String[]{"Ensure Definitions Path", "Index"}));
+
+        for (final AppliableEnsureOakIndex index : this.ensureIndexes) {
+            if (!(index instanceof EnsureOakIndex)) {
+                continue;
+            }
+            final EnsureOakIndexPlan plan;
+            try {
+                plan = ((EnsureOakIndex) index).plan();
+            } catch (Exception e) {
+                log.error("Could not compute the ensure plan for [ {} ]", index, e);
+                continue;
+            }
+            for (final EnsureOakIndexPlan.Step step : plan.getSteps()) {
+                final Map<String, Object> data = new HashMap<String, Object>();
+
+                data.put("Ensure Definitions Path", plan.getEnsureDefinitionsPath());
+                data.put("Index", step.getName());
+                data.put("Operation", step.getOperation().name());
+                data.put("Reindex", step.isReindex());
+                data.put("Reindex Lane", step.isReindex() ? step.getLane() : "");
+                data.put("Estimated Traversals", plan.getEstimatedTraversals());
+
+                tabularData.put(new CompositeDataSupport(planType, data));
+            }
+        }
+
+        return tabularData;
+    }
+
     @Activate
     protected void activate(Config config) {
         additionalIgnoreProperties = config.properties_ignore();
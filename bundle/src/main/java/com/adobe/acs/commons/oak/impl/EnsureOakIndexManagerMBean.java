@@ -31,4 +31,8 @@ public interface EnsureOakIndexManagerMBean extends EnsureOakIndexManager {
 
     @Description("Ensure Oak Indexes")
     TabularData getEnsureOakIndexes() throws OpenDataException;
+
+    @Description("Dry run: lists the index changes and reindexes that ensuring all Ensure Oak Index definitions would "
+            + "make, with the estimated number of repository traversals per Ensure Definitions Path")
+    TabularData dryRun() throws OpenDataException;
 }
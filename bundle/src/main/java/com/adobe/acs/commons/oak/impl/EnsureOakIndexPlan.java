@@ -0,0 +1,122 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.oak.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * The changes an ensure run is going to apply to the oak indexes, computed before anything is written.
+ * <p>
+ * Reindexes are grouped by indexing lane: all synchronous indexes reindexed in the same commit share one repository
+ * traversal, and so do all indexes of the same async lane.
+ */
+final class EnsureOakIndexPlan {
+
+    static final String SYNC_LANE = "sync";
+
+    enum Operation {
+        IGNORE, DELETE, DISABLE, CREATE, UPDATE, RECREATE, UNCHANGED, INVALID;
+
+        boolean isLightWeight() {
+            return this == IGNORE || this == DELETE || this == DISABLE;
+        }
+    }
+
+    static final class Step {
+        private final String name;
+        private final String ensureDefinitionPath;
+        private final Operation operation;
+        private final boolean reindex;
+        private final String lane;
+
+        Step(String name, String ensureDefinitionPath, Operation operation, boolean reindex, String lane) {
+            this.name = name;
+            this.ensureDefinitionPath = ensureDefinitionPath;
+            this.operation = operation;
+            this.reindex = reindex;
+            this.lane = lane;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getEnsureDefinitionPath() {
+            return ensureDefinitionPath;
+        }
+
+        Operation getOperation() {
+            return operation;
+        }
+
+        boolean isReindex() {
+            return reindex;
+        }
+
+        String getLane() {
+            return lane;
+        }
+    }
+
+    private final String ensureDefinitionsPath;
+    private final String oakIndexesPath;
+    private final List<Step> steps;
+
+    EnsureOakIndexPlan(String ensureDefinitionsPath, String oakIndexesPath, List<Step> steps) {
+        this.ensureDefinitionsPath = ensureDefinitionsPath;
+        this.oakIndexesPath = oakIndexesPath;
+        this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+    }
+
+    String getEnsureDefinitionsPath() {
+        return ensureDefinitionsPath;
+    }
+
+    String getOakIndexesPath() {
+        return oakIndexesPath;
+    }
+
+    /**
+     * @return the steps in the order of the ensure definitions
+     */
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return the names of the reindexed indexes by indexing lane
+     */
+    Map<String, List<String>> getReindexGroups() {
+        return steps.stream()
+                .filter(Step::isReindex)
+                .collect(Collectors.groupingBy(Step::getLane, TreeMap::new,
+                        Collectors.mapping(Step::getName, Collectors.toList())));
+    }
+
+    /**
+     * @return the estimated number of repository traversals needed to apply this plan
+     */
+    int getEstimatedTraversals() {
+        return getReindexGroups().size();
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.replication.dispatcher.impl;
+
+import com.adobe.acs.commons.replication.dispatcher.DispatcherFlushFilter;
+import com.adobe.acs.commons.replication.dispatcher.DispatcherFlushFilter.FlushType;
+import com.day.cq.replication.ReplicationActionType;
+import com.day.cq.replication.ReplicationException;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects flush paths over a short window and issues one de-duplicated flush request per
+ * replication action type and flush type, instead of one request per matched rule and replicated path.
+ * Hierarchical flush paths that are descendants of another hierarchical flush path in the same
+ * window are dropped, since flushing the ancestor already invalidates them.
+ */
+final class DispatcherFlushAggregator {
+    private static final Logger log = LoggerFactory.getLogger(DispatcherFlushAggregator.class);
+
+    /**
+     * Issues the flush for one batch of paths.
+     */
+    @FunctionalInterface
+    interface FlushCallback {
+        void flush(ResourceResolver resourceResolver, ReplicationActionType actionType,
+                   DispatcherFlushFilter filter, String... paths) throws ReplicationException;
+    }
+
+    /**
+     * Provides a resource resolver to issue the flushes with.
+     */
+    @FunctionalInterface
+    interface ResolverSupplier {
+        ResourceResolver get() throws LoginException;
+    }
+
+    private static final class BatchKey {
+        private final ReplicationActionType actionType;
+        private final DispatcherFlushFilter filter;
+
+        private BatchKey(ReplicationActionType actionType, DispatcherFlushFilter filter) {
+            this.actionType = actionType;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            final BatchKey other = (BatchKey) o;
+            return actionType == other.actionType && filter == other.filter;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(actionType, filter);
+        }
+    }
+
+    private final long windowMs;
+    private final int maxPaths;
+    private final ResolverSupplier resolverSupplier;
+    private final FlushCallback flushCallback;
+    private final ScheduledExecutorService executor;
+
+    private Map<BatchKey, Set<String>> pending = new LinkedHashMap<>();
+    private int pendingCount;
+    private boolean scheduled;
+
+    DispatcherFlushAggregator(final long windowMs, final int maxPaths,
+                              final ResolverSupplier resolverSupplier, final FlushCallback flushCallback) {
+        this.windowMs = windowMs;
+        this.maxPaths = Math.max(1, maxPaths);
+        this.resolverSupplier = resolverSupplier;
+        this.flushCallback = flushCallback;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "ACS AEM Commons - Dispatcher Flush Aggregator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues flush paths; they are flushed when the window elapses or the batch is full, whichever is first.
+     *
+     * @param actionType the replication action type of the flush
+     * @param filter     the agent filter of the flush
+     * @param paths      the paths to flush
+     */
+    void add(final ReplicationActionType actionType, final DispatcherFlushFilter filter, final Collection<String> paths) {
+        if (paths.isEmpty()) {
+            return;
+        }
+        boolean flushNow = false;
+        boolean schedule = false;
+        synchronized (this) {
+            final Set<String> batch = pending.computeIfAbsent(new BatchKey(actionType, filter), k -> new LinkedHashSet<>());
+            for (final String path : paths) {
+                if (batch.add(path)) {
+                    pendingCount++;
+                }
+            }
+            if (pendingCount >= maxPaths) {
+                flushNow = true;
+            } else if (!scheduled) {
+                scheduled = true;
+                schedule = true;
+            }
+        }
+        try {
+            if (flushNow) {
+                executor.execute(this::flushPending);
+            } else if (schedule) {
+                executor.schedule(this::flushPending, windowMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // the aggregator is being closed; don't lose the flush
+            flushPending();
+        }
+    }
+
+    /**
+     * Flushes everything still pending and stops the aggregator.
+     */
+    void close() {
+        executor.shutdownNow();
+        flushPending();
+    }
+
+    void flushPending() {
+        final Map<BatchKey, Set<String>> batches;
+        synchronized (this) {
+            batches = pending;
+            pending = new LinkedHashMap<>();
+            pendingCount = 0;
+            scheduled = false;
+        }
+        if (batches.isEmpty()) {
+            return;
+        }
+
+        try (ResourceResolver resourceResolver = resolverSupplier.get()) {
+            for (final Map.Entry<BatchKey, Set<String>> entry : batches.entrySet()) {
+                final BatchKey key = entry.getKey();
+                final Collection<String> paths = key.filter.getFlushType() == FlushType.Hierarchical
+                        ? collapseDescendants(entry.getValue()) : entry.getValue();
+                log.debug("Requesting batched {} flush of {} paths ({} requested)", key.filter.getFlushType(),
+                        paths.size(), entry.getValue().size());
+                try {
+                    flushCallback.flush(resourceResolver, key.actionType, key.filter, paths.toArray(new String[0]));
+                } catch (ReplicationException e) {
+                    log.error("Error issuing batched dispatcher flush, some downstream replication exception occurred: {}",
+                            e.getMessage(), e);
+                }
+            }
+        } catch (LoginException e) {
+            log.error("Error issuing batched dispatcher flush due to a repository login exception: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes every path which has an ancestor in the collection.
+     *
+     * @param paths the paths to collapse, in request order
+     * @return the paths not covered by another path, in request order
+     */
+    static List<String> collapseDescendants(final Collection<String> paths) {
+        final Set<String> all = new HashSet<>(paths);
+        final List<String> result = new ArrayList<>();
+        for (final String path : paths) {
+            if (!hasAncestorIn(path, all)) {
+                result.add(path);
+            }
+        }
+        return result;
+    }
+
+    private static boolean hasAncestorIn(final String path, final Set<String> paths) {
+        if (!"/".equals(path) && paths.contains("/")) {
+            return true;
+        }
+        int idx = path.lastIndexOf('/');
+        while (idx > 0) {
+            if (paths.contains(path.substring(0, idx))) {
+                return true;
+            }
+            idx = path.lastIndexOf('/', idx - 1);
+        }
+        return false;
+    }
+}
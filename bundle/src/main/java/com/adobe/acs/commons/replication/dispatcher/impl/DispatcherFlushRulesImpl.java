@@ -29,6 +29,7 @@ import com.day.cq.replication.ReplicationAction;
 import com.day.cq.replication.ReplicationActionType;
 import com.day.cq.replication.ReplicationException;
 import com.day.cq.replication.ReplicationOptions;
+import com.day.cq.replication.Replicator;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.felix.scr.annotations.Activate;
@@ -48,11 +49,12 @@ import org.apache.sling.commons.osgi.PropertiesUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.jcr.Session;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Component(
@@ -121,6 +123,23 @@ public class DispatcherFlushRulesImpl implements Preprocessor, DispatcherFlushRu
             value = { })
     private static final String PROP_RESOURCE_ONLY_FLUSH_RULES = "prop.rules.resource-only";
 
+    /* Flush Aggregation */
+    private static final long DEFAULT_AGGREGATION_WINDOW = 0L;
+
+    @Property(label = "Flush Aggregation Window (ms)",
+            description = "Collect flush paths for this many milliseconds and issue one de-duplicated flush request "
+                    + "per flush type, dropping hierarchical flush paths already covered by an ancestor. "
+                    + "Recommended for tree activations. 0 flushes immediately for every replication action.",
+            longValue = DEFAULT_AGGREGATION_WINDOW)
+    private static final String PROP_AGGREGATION_WINDOW = "prop.aggregation.window";
+
+    private static final int DEFAULT_AGGREGATION_MAX_PATHS = 1000;
+
+    @Property(label = "Flush Aggregation Max Paths",
+            description = "Issue the aggregated flush early once this many distinct paths are pending.",
+            intValue = DEFAULT_AGGREGATION_MAX_PATHS)
+    private static final String PROP_AGGREGATION_MAX_PATHS = "prop.aggregation.max-paths";
+
     private static final String SERVICE_NAME = "dispatcher-flush";
     protected static final Map<String, Object> AUTH_INFO;
 
@@ -134,6 +153,9 @@ public class DispatcherFlushRulesImpl implements Preprocessor, DispatcherFlushRu
     @Reference
     private AgentManager agentManager;
 
+    @Reference
+    private Replicator replicator;
+
     @Reference
     private ResourceResolverFactory resourceResolverFactory;
 
@@ -141,6 +163,12 @@ public class DispatcherFlushRulesImpl implements Preprocessor, DispatcherFlushRu
     private Map<Pattern, String[]> resourceOnlyFlushRules = new LinkedHashMap<Pattern, String[]>();
     private ReplicationActionType replicationActionType = null;
 
+    /* Indexed views of the flush rules, built from the rule maps on first use */
+    private volatile FlushRuleMatcher hierarchicalMatcher;
+    private volatile FlushRuleMatcher resourceOnlyMatcher;
+
+    private volatile DispatcherFlushAggregator flushAggregator;
+
     /**
      * {@inheritDoc}
      */
@@ -159,41 +187,38 @@ public class DispatcherFlushRulesImpl implements Preprocessor, DispatcherFlushRu
         final ReplicationActionType flushActionType =
                 replicationActionType == null ? replicationAction.getType() : replicationActionType;
 
+        final List<String> hierarchicalFlushPaths = getHierarchicalMatcher().getFlushPaths(path);
+        final List<String> resourceOnlyFlushPaths = getResourceOnlyMatcher().getFlushPaths(path);
+
+        if (hierarchicalFlushPaths.isEmpty() && resourceOnlyFlushPaths.isEmpty()) {
+            return;
+        }
+
+        final DispatcherFlushAggregator aggregator = this.flushAggregator;
+        if (aggregator != null) {
+            log.debug("Queueing flush of associated paths: {} ~> hierarchical {}, resource-only {}", path,
+                    hierarchicalFlushPaths, resourceOnlyFlushPaths);
+            aggregator.add(flushActionType, HIERARCHICAL_FILTER, hierarchicalFlushPaths);
+            aggregator.add(flushActionType, RESOURCE_ONLY_FILTER, resourceOnlyFlushPaths);
+            return;
+        }
+
         try (ResourceResolver resourceResolver = resourceResolverFactory.getServiceResourceResolver(AUTH_INFO)){
 
             // Flush full content hierarchies
-            for (final Map.Entry<Pattern, String[]> entry : this.hierarchicalFlushRules.entrySet()) {
-                final Pattern pattern = entry.getKey();
-                final Matcher m = pattern.matcher(path);
-
-                if (m.matches()) {
-                    for (final String value : entry.getValue()) {
-                        final String flushPath = m.replaceAll(value);
-    
-                        log.debug("Requesting hierarchical flush of associated path: {} ~> {}", path,
-                                flushPath);
-                        dispatcherFlusher.flush(resourceResolver, flushActionType, false,
-                                HIERARCHICAL_FILTER,
-                                flushPath);
-                    }
-                }
+            for (final String flushPath : hierarchicalFlushPaths) {
+                log.debug("Requesting hierarchical flush of associated path: {} ~> {}", path, flushPath);
+                dispatcherFlusher.flush(resourceResolver, flushActionType, false,
+                        HIERARCHICAL_FILTER,
+                        flushPath);
             }
 
             // Flush explicit resources using the CQ-Action-Scope ResourceOnly header
-            for (final Map.Entry<Pattern, String[]> entry : this.resourceOnlyFlushRules.entrySet()) {
-                final Pattern pattern = entry.getKey();
-                final Matcher m = pattern.matcher(path);
-
-                if (m.matches()) {
-                    for (final String value : entry.getValue()) {
-                        final String flushPath = m.replaceAll(value);
-    
-                        log.debug("Requesting ResourceOnly flush of associated path: {} ~> {}", path, entry.getValue());
-                        dispatcherFlusher.flush(resourceResolver, flushActionType, false,
-                                RESOURCE_ONLY_FILTER,
-                                flushPath);
-                    }
-                }
+            for (final String flushPath : resourceOnlyFlushPaths) {
+                log.debug("Requesting ResourceOnly flush of associated path: {} ~> {}", path, flushPath);
+                dispatcherFlusher.flush(resourceResolver, flushActionType, false,
+                        RESOURCE_ONLY_FILTER,
+                        flushPath);
             }
 
         } catch (ReplicationException e) {
@@ -204,6 +229,24 @@ public class DispatcherFlushRulesImpl implements Preprocessor, DispatcherFlushRu
         }
     }
 
+    private FlushRuleMatcher getHierarchicalMatcher() {
+        FlushRuleMatcher matcher = this.hierarchicalMatcher;
+        if (matcher == null) {
+            matcher = new FlushRuleMatcher(this.hierarchicalFlushRules);
+            this.hierarchicalMatcher = matcher;
+        }
+        return matcher;
+    }
+
+    private FlushRuleMatcher getResourceOnlyMatcher() {
+        FlushRuleMatcher matcher = this.resourceOnlyMatcher;
+        if (matcher == null) {
+            matcher = new FlushRuleMatcher(this.resourceOnlyFlushRules);
+            this.resourceOnlyMatcher = matcher;
+        }
+        return matcher;
+    }
+
     /**
      * Checks if this service should react to or ignore this replication action.
      *
@@ -261,6 +304,23 @@ public class DispatcherFlushRulesImpl implements Preprocessor, DispatcherFlushRu
                         DEFAULT_RESOURCE_ONLY_FLUSH_RULES), "="));
 
         log.debug("ResourceOnly flush rules: {}", this.resourceOnlyFlushRules);
+
+        this.hierarchicalMatcher = new FlushRuleMatcher(this.hierarchicalFlushRules);
+        this.resourceOnlyMatcher = new FlushRuleMatcher(this.resourceOnlyFlushRules);
+
+        /* Flush Aggregation */
+        final long aggregationWindow = PropertiesUtil.toLong(properties.get(PROP_AGGREGATION_WINDOW),
+                DEFAULT_AGGREGATION_WINDOW);
+        if (aggregationWindow > 0) {
+            final int maxPaths = PropertiesUtil.toInteger(properties.get(PROP_AGGREGATION_MAX_PATHS),
+                    DEFAULT_AGGREGATION_MAX_PATHS);
+            this.flushAggregator = new DispatcherFlushAggregator(aggregationWindow, maxPaths,
+                    () -> resourceResolverFactory.getServiceResourceResolver(AUTH_INFO),
+                    (resourceResolver, actionType, filter, paths) ->
+                            replicator.replicate(resourceResolver.adaptTo(Session.class), actionType, paths,
+                                    DispatcherFlusherImpl.createFlushOptions(filter, false)));
+            log.debug("Aggregating flushes over {} ms windows of at most {} paths", aggregationWindow, maxPaths);
+        }
     }
 
     /**
@@ -302,6 +362,13 @@ public class DispatcherFlushRulesImpl implements Preprocessor, DispatcherFlushRu
 
     @Deactivate
     protected final void deactivate(final Map<String, String> properties) {
+        final DispatcherFlushAggregator aggregator = this.flushAggregator;
+        this.flushAggregator = null;
+        if (aggregator != null) {
+            aggregator.close();
+        }
+        this.hierarchicalMatcher = null;
+        this.resourceOnlyMatcher = null;
         this.hierarchicalFlushRules = new HashMap<Pattern, String[]>();
         this.resourceOnlyFlushRules = new HashMap<Pattern, String[]>();
         this.replicationActionType = null;
@@ -85,19 +85,10 @@ public class DispatcherFlusherImpl implements DispatcherFlusher {
                                                      final boolean synchronous,
                                                      final AgentFilter agentFilter,
                                                      final String... paths) throws ReplicationException {
-        final ReplicationOptions options = new ReplicationOptions();
         final ReplicationResultListener listener = new ReplicationResultListener();
-
-        options.setFilter(agentFilter);
-        options.setSynchronous(synchronous);
-        options.setSuppressStatusUpdate(true);
-        options.setSuppressVersions(true);
+        final ReplicationOptions options = createFlushOptions(agentFilter, synchronous);
         options.setListener(listener);
 
-		// Issue 3045 - Add custom AggregateHandler.  
-		// Returns only the provided path instead of all the descendent nodes on that path.
-		options.setAggregateHandler(new FlushAggregateHandler());
-
         for (final String path : paths) {
             if (log.isDebugEnabled()) {
                 log.debug("--------------------------------------------------------------------------------");
@@ -113,6 +104,28 @@ public class DispatcherFlusherImpl implements DispatcherFlusher {
         return listener.getResults();
     }
 
+    /**
+     * Creates the replication options used to issue flush requests.
+     *
+     * @param agentFilter the filter selecting the flush agents
+     * @param synchronous true to replicate synchronously
+     * @return the replication options
+     */
+    static ReplicationOptions createFlushOptions(final AgentFilter agentFilter, final boolean synchronous) {
+        final ReplicationOptions options = new ReplicationOptions();
+
+        options.setFilter(agentFilter);
+        options.setSynchronous(synchronous);
+        options.setSuppressStatusUpdate(true);
+        options.setSuppressVersions(true);
+
+		// Issue 3045 - Add custom AggregateHandler.  
+		// Returns only the provided path instead of all the descendent nodes on that path.
+		options.setAggregateHandler(new FlushAggregateHandler());
+
+        return options;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,139 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.replication.dispatcher.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Indexes flush rules by the literal prefix of their trigger pattern so that only the rules
+ * which can possibly match a replicated path are evaluated, instead of every configured rule.
+ */
+final class FlushRuleMatcher {
+
+    private static final String REGEX_META_CHARS = ".[]{}()*+?^$|\\";
+    private static final String REGEX_QUANTIFIERS = "*+?{";
+
+    private static final class Rule {
+        private final int order;
+        private final Pattern pattern;
+        private final String[] targets;
+
+        private Rule(int order, Pattern pattern, String[] targets) {
+            this.order = order;
+            this.pattern = pattern;
+            this.targets = targets;
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final List<Rule> rules = new ArrayList<>();
+    }
+
+    private final Node root = new Node();
+    private final int size;
+
+    FlushRuleMatcher(final Map<Pattern, String[]> flushRules) {
+        int order = 0;
+        if (flushRules != null) {
+            for (final Map.Entry<Pattern, String[]> entry : flushRules.entrySet()) {
+                Node node = root;
+                // flags such as CASE_INSENSITIVE or COMMENTS change what a literal means, so don't index those
+                final String prefix = entry.getKey().flags() == 0 ? literalPrefix(entry.getKey().pattern()) : "";
+                for (int i = 0; i < prefix.length(); i++) {
+                    node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+                }
+                node.rules.add(new Rule(order++, entry.getKey(), entry.getValue()));
+            }
+        }
+        this.size = order;
+    }
+
+    /**
+     * @return true if no flush rules are indexed
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Resolves the paths to flush for a replicated path, in the order the rules were configured.
+     *
+     * @param path the replicated path
+     * @return the flush paths of every rule whose pattern matches the path
+     */
+    List<String> getFlushPaths(final String path) {
+        final List<Rule> candidates = new ArrayList<>();
+        Node node = root;
+        candidates.addAll(node.rules);
+        for (int i = 0; i < path.length() && node != null; i++) {
+            node = node.children.get(path.charAt(i));
+            if (node != null) {
+                candidates.addAll(node.rules);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        candidates.sort((a, b) -> Integer.compare(a.order, b.order));
+
+        final List<String> flushPaths = new ArrayList<>();
+        for (final Rule rule : candidates) {
+            final Matcher m = rule.pattern.matcher(path);
+            if (m.matches()) {
+                for (final String value : rule.targets) {
+                    flushPaths.add(m.replaceAll(value));
+                }
+            }
+        }
+        return flushPaths;
+    }
+
+    /**
+     * Computes the literal text every match of the regex must start with. Patterns with top-level
+     * alternation or a leading group are conservatively given an empty prefix.
+     *
+     * @param regex the trigger pattern
+     * @return the literal prefix, possibly empty
+     */
+    static String literalPrefix(final String regex) {
+        if (regex.indexOf('|') >= 0) {
+            return "";
+        }
+        final StringBuilder prefix = new StringBuilder();
+        int i = regex.startsWith("^") ? 1 : 0;
+        for (; i < regex.length(); i++) {
+            final char c = regex.charAt(i);
+            if (REGEX_META_CHARS.indexOf(c) >= 0) {
+                if (REGEX_QUANTIFIERS.indexOf(c) >= 0 && prefix.length() > 0) {
+                    // the preceding character is optional or repeated, so it is not part of the prefix
+                    prefix.setLength(prefix.length() - 1);
+                }
+                break;
+            }
+            prefix.append(c);
+        }
+        return prefix.toString();
+    }
+}
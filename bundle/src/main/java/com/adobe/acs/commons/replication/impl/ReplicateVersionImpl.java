@@ -18,25 +18,31 @@
 package com.adobe.acs.commons.replication.impl;
 
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.GregorianCalendar;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
-import javax.jcr.version.Version;
-import javax.jcr.version.VersionIterator;
+import javax.jcr.version.VersionHistory;
 
+import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.Service;
+import org.apache.sling.api.resource.LoginException;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.commons.osgi.PropertiesUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,7 +62,11 @@ import com.day.cq.wcm.api.NameConstants;
  * Service used to replicate specific version of a resource tree through a
  * specific replication agent
  */
-@Component
+@Component(
+        label = "ACS AEM Commons - Replicate Version",
+        description = "Replicates the versions of resource trees that were current at a given date.",
+        metatype = true
+)
 @Service
 public class ReplicateVersionImpl implements
         ReplicateVersion {
@@ -64,9 +74,24 @@ public class ReplicateVersionImpl implements
     private static final Logger log = LoggerFactory
             .getLogger(ReplicateVersionImpl.class);
 
+    private static final int PROGRESS_INTERVAL = 500;
+
+    private static final int DEFAULT_PARALLELISM = 1;
+    private int parallelism = DEFAULT_PARALLELISM;
+    @Property(label = "Parallelism",
+            description = "Number of threads looking up and replicating the versions of a resource tree, each using "
+                    + "its own session. [ Default: 1 ]",
+            intValue = DEFAULT_PARALLELISM)
+    public static final String PROP_PARALLELISM = "parallelism";
+
     @Reference
     private transient Replicator replicator;
 
+    @Activate
+    protected void activate(final Map<String, Object> config) {
+        parallelism = Math.max(1, PropertiesUtil.toInteger(config.get(PROP_PARALLELISM), DEFAULT_PARALLELISM));
+    }
+
     @Override
     public final List<ReplicationResult> replicate(
             ResourceResolver resolver, String[] rootPaths, String[] agents,
@@ -76,12 +101,14 @@ public class ReplicateVersionImpl implements
             if (rootPaths != null) {
                 for (String rootPath : rootPaths) {
                     String normalizedPath = getNormalizedPath(rootPath);
-                    List<Resource> resources = getResources(resolver, normalizedPath);
-                    
-                    List<ReplicationResult> resultsForPath = 
-                            replicateResource(resolver, resources, agents, date);
-                    list.addAll(resultsForPath);
+                    List<String> paths = getPaths(resolver, normalizedPath);
 
+                    final long start = System.currentTimeMillis();
+                    List<ReplicationResult> resultsForPath =
+                            replicatePaths(resolver, paths, agents, date);
+                    list.addAll(resultsForPath);
+                    log.info("Replicated versions of {} resources below {} in {} ms", paths.size(), normalizedPath,
+                            System.currentTimeMillis() - start);
                 }
 
             }
@@ -90,124 +117,158 @@ public class ReplicateVersionImpl implements
         return list;
     }
 
-    private List<Resource> getResources(ResourceResolver resolver, String root) {
+    private List<String> getPaths(ResourceResolver resolver, String root) {
 
         Resource res = resolver.getResource(root);
-        List<Resource> resources = new ArrayList<Resource>();
+        List<String> paths = new ArrayList<String>();
         try {
-            buildResourceList(resolver, res, resources);
+            buildPathList(resolver, res, paths);
         } catch (RepositoryException e) {
             log.error("exception occured", e);
         }
-        return resources;
+        return paths;
     }
 
-    private void buildResourceList(ResourceResolver resolver, Resource res,
-            List<Resource> resources) throws RepositoryException {
+    private void buildPathList(ResourceResolver resolver, Resource res,
+            List<String> paths) throws RepositoryException {
         Node node = res.adaptTo(Node.class);
         if (!node.isNodeType(JcrConstants.NT_HIERARCHYNODE)) {
             return;
         }
-        resources.add(res);
+        paths.add(res.getPath());
 
         for (Iterator<Resource> iter = resolver.listChildren(res); iter.hasNext();) {
             Resource resChild = iter.next();
-            buildResourceList(resolver, resChild, resources);
+            buildPathList(resolver, resChild, paths);
+        }
+    }
+
+    private List<ReplicationResult> replicatePaths(ResourceResolver resolver,
+            List<String> paths, String[] agents, Date date) {
+        final ReplicationResult[] results = new ReplicationResult[paths.size()];
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger done = new AtomicInteger();
+
+        final int threads = Math.min(parallelism, paths.size());
+        if (threads < 2 || !replicatePathsInParallel(resolver, threads, paths, agents, date, results, next, done)) {
+            replicatePaths(resolver.adaptTo(Session.class), paths, agents, date, results, next, done);
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                // left over by a worker that was interrupted or failed unexpectedly
+                results[i] = new ReplicationResult(paths.get(i), Status.error);
+            }
         }
+        return Arrays.asList(results);
     }
 
-    private List<ReplicationResult> replicateResource(ResourceResolver resolver,
-            List<Resource> resources, String[] agents, Date date) {
-        List<ReplicationResult> results = new ArrayList<ReplicationResult>();
+    /**
+     * Replicates the paths with several workers, each using its own clone of the resource resolver, as sessions must
+     * not be shared across threads.
+     *
+     * @return false if the resource resolver cannot be cloned, nothing has been replicated then
+     */
+    private boolean replicatePathsInParallel(ResourceResolver resolver, int threads, List<String> paths,
+            String[] agents, Date date, ReplicationResult[] results, AtomicInteger next, AtomicInteger done) {
+        final List<ResourceResolver> resolvers = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                resolvers.add(resolver.clone(null));
+            }
+        } catch (LoginException | UnsupportedOperationException e) {
+            log.warn("Could not clone the resource resolver, replicating versions sequentially", e);
+            resolvers.forEach(ResourceResolver::close);
+            return false;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (final ResourceResolver workerResolver : resolvers) {
+                futures.add(executor.submit(() -> replicatePaths(workerResolver.adaptTo(Session.class), paths,
+                        agents, date, results, next, done)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while replicating versions", e);
+        } catch (ExecutionException e) {
+            log.error("Exception while replicating versions", e);
+        } finally {
+            executor.shutdownNow();
+            resolvers.forEach(ResourceResolver::close);
+        }
+        return true;
+    }
 
+    private void replicatePaths(Session session, List<String> paths, String[] agents, Date date,
+            ReplicationResult[] results, AtomicInteger next, AtomicInteger done) {
         ReplicationOptions opts = new ReplicationOptions();
 
         AgentIdFilter agentFilter = new AgentIdFilter(agents);
         opts.setFilter(agentFilter);
-        Session session = resolver.adaptTo(Session.class);
-        for (Resource resource : resources) {
-            String path = resource.getPath();
-            try {
-                Version v = getAppropriateVersion(resource, date, session);
-                if (v == null) {
-                    results.add(new ReplicationResult(path, Status.not_replicated));
-                    continue;
-                }
+        for (int i = next.getAndIncrement(); i < paths.size(); i = next.getAndIncrement()) {
+            results[i] = replicateVersion(session, paths.get(i), date, opts);
 
-                String versionName = v.getName();
-                opts.setRevision(versionName);
+            final int count = done.incrementAndGet();
+            if (count % PROGRESS_INTERVAL == 0) {
+                log.info("Replicated versions of {} of {} resources", count, paths.size());
+            }
+        }
+    }
 
-                replicator.replicate(session, ReplicationActionType.ACTIVATE, path, opts);
+    private ReplicationResult replicateVersion(Session session, String path, Date date, ReplicationOptions opts) {
+        try {
+            String versionName = getAppropriateVersion(path, date, session);
+            if (versionName == null) {
+                return new ReplicationResult(path, Status.not_replicated);
+            }
 
-                results.add(new ReplicationResult(path, Status.replicated, versionName));
+            opts.setRevision(versionName);
 
-            } catch (RepositoryException e) {
-                results.add(new ReplicationResult(path, Status.error));
-                log.error("Exception while replicating version of " + path, e);
-            } catch (ReplicationException e) {
-                results.add(new ReplicationResult(path, Status.error));
-                log.error("Exception while replicating version of " + path, e);
-            }
-        }
+            replicator.replicate(session, ReplicationActionType.ACTIVATE, path, opts);
+
+            return new ReplicationResult(path, Status.replicated, versionName);
 
-        return results;
+        } catch (RepositoryException e) {
+            log.error("Exception while replicating version of " + path, e);
+        } catch (ReplicationException e) {
+            log.error("Exception while replicating version of " + path, e);
+        }
+        return new ReplicationResult(path, Status.error);
     }
 
-    private Version getAppropriateVersion(Resource resource, Date date,
+    private String getAppropriateVersion(String path, Date date,
             Session session) throws RepositoryException {
 
-        String path = resource.getPath();
-        List<Version> versions = findAllVersions(path, session);
-        Collections.sort(versions, (v1, v2) -> {
-            try {
-                return v2.getCreated().compareTo(v1.getCreated());
-            } catch (RepositoryException e) {
-                return 0;
-            }
-        });
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(date);
-        for (Version v : versions) {
-            try {
-                if (v.getCreated().compareTo(cal) < 1) {
-                    return v;
-                }
-            } catch (RepositoryException e) {
-                log.error("exception occured", e);
-            }
+        VersionHistory versionHistory = findVersionHistory(path, session);
+        if (versionHistory == null) {
+            return null;
         }
-        return null;
+        return VersionIndex.of(versionHistory).getVersionAt(date.getTime());
 
     }
 
-    private List<Version> findAllVersions(String path, Session session)
+    private VersionHistory findVersionHistory(String path, Session session)
             throws RepositoryException {
-        List<Version> versions = new ArrayList<Version>();
-
         Node node = session.getNode(path);
         if (node.hasNode(NameConstants.NN_CONTENT)) {
             Node contentNode = node.getNode(NameConstants.NN_CONTENT);
             if (contentNode.isNodeType(JcrConstants.MIX_VERSIONABLE)) {
-                versions =   getVersions(contentNode.getPath(), session);
+                return getVersionHistory(contentNode.getPath(), session);
             } else if (node.isNodeType(JcrConstants.MIX_VERSIONABLE)) {
-                versions = getVersions(path, session);
+                return getVersionHistory(path, session);
             }
         }
 
-        return versions;
+        return null;
     }
 
-    private List<Version> getVersions(String nodePath, Session session) throws RepositoryException {
-        List<Version> versions = new ArrayList<Version>();
-
-        for (VersionIterator iter = session.getWorkspace()
-                .getVersionManager().getVersionHistory(nodePath)
-                .getAllVersions(); iter.hasNext();) {
-            Version v = iter.nextVersion();
-            versions.add(v);
-        }
-
-        return versions;
+    private VersionHistory getVersionHistory(String nodePath, Session session) throws RepositoryException {
+        return session.getWorkspace().getVersionManager().getVersionHistory(nodePath);
     }
 
     private String getNormalizedPath(String path) {
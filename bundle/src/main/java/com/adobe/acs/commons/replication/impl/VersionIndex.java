@@ -0,0 +1,92 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.replication.impl;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.version.Version;
+import javax.jcr.version.VersionHistory;
+import javax.jcr.version.VersionIterator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The versions of a version history ordered by their creation date, so the version that was current at a given date
+ * is found by a binary search. The creation date of every version is read from the repository only once.
+ */
+final class VersionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(VersionIndex.class);
+
+    private final long[] created;
+    private final String[] names;
+
+    private VersionIndex(long[] created, String[] names) {
+        this.created = created;
+        this.names = names;
+    }
+
+    static VersionIndex of(VersionHistory versionHistory) throws RepositoryException {
+        final List<Map.Entry<Long, String>> versions = new ArrayList<>();
+        for (VersionIterator iter = versionHistory.getAllVersions(); iter.hasNext();) {
+            final Version version = iter.nextVersion();
+            try {
+                versions.add(new AbstractMap.SimpleImmutableEntry<>(version.getCreated().getTimeInMillis(), version.getName()));
+            } catch (RepositoryException e) {
+                log.error("Could not read the creation date of a version in {}, ignoring it", versionHistory.getPath(), e);
+            }
+        }
+        versions.sort(Map.Entry.comparingByKey());
+
+        final long[] created = new long[versions.size()];
+        final String[] names = new String[versions.size()];
+        for (int i = 0; i < versions.size(); i++) {
+            created[i] = versions.get(i).getKey();
+            names[i] = versions.get(i).getValue();
+        }
+        return new VersionIndex(created, names);
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    /**
+     * @param time the date in milliseconds
+     * @return the name of the latest version created at or before the given date, or null if there is none
+     */
+    String getVersionAt(long time) {
+        int index = Arrays.binarySearch(created, time);
+        if (index < 0) {
+            // the insertion point is the first version created after the date
+            index = -index - 2;
+        } else {
+            // several versions may share the creation date, take the last one
+            while (index + 1 < created.length && created[index + 1] == time) {
+                index++;
+            }
+        }
+        return index >= 0 ? names[index] : null;
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.ConfigurationPolicy;
+import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Properties;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.PropertyOption;
@@ -41,6 +42,7 @@ import org.apache.jackrabbit.vault.packaging.JcrPackageDefinition;
 import org.apache.jackrabbit.vault.packaging.PackageException;
 import org.apache.jackrabbit.vault.packaging.Packaging;
 import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
@@ -49,6 +51,8 @@ import org.apache.sling.commons.osgi.PropertiesUtil;
 import org.apache.sling.event.jobs.Job;
 import org.apache.sling.event.jobs.JobManager;
 import org.apache.sling.event.jobs.consumer.JobConsumer;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventConstants;
 import org.osgi.service.event.EventHandler;
@@ -57,15 +61,24 @@ import org.slf4j.LoggerFactory;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
 import java.io.IOException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -189,6 +202,22 @@ public class JcrPackageReplicationStatusEventHandler implements JobConsumer, Eve
             })
     public static final String PROP_REPLICATED_AT = "replicated-at";
 
+    private static final int DEFAULT_BATCH_WINDOW = 0;
+    private long batchWindow = DEFAULT_BATCH_WINDOW;
+    @Property(label = "Batch Window",
+            description = "Time in milliseconds a package job waits for other package jobs processed at the same time, "
+                    + "so that the replication status of all their contents is written in one batch and paths contained "
+                    + "in several packages are updated only once. Set to 0 to update each package on its own. [ Default: 0 ]",
+            intValue = DEFAULT_BATCH_WINDOW)
+    public static final String PROP_BATCH_WINDOW = "batch-window";
+
+    private final Object batchLock = new Object();
+    private final List<PendingPackage> pendingPackages = new ArrayList<>();
+    private boolean batchScheduled = false;
+
+    private JcrPackageReplicationStatusStats stats;
+    private ServiceRegistration<?> statsRegistration;
+
     private static final String SERVICE_NAME = "package-replication-status-event-listener";
     private static final Map<String, Object> AUTH_INFO;
 
@@ -234,6 +263,10 @@ public class JcrPackageReplicationStatusEventHandler implements JobConsumer, Eve
         }
         log.debug("Processing Replication Status Update for JCR Package: {}", path);
 
+        if (batchWindow > 0) {
+            return processInBatch(job, new PendingPackage(path, replicatedBy, agentIds));
+        }
+
         try (ResourceResolver resourceResolver = resourceResolverFactory.getServiceResourceResolver(AUTH_INFO)){
 
             final JcrPackage jcrPackage = this.getJcrPackage(resourceResolver, path);
@@ -260,6 +293,137 @@ public class JcrPackageReplicationStatusEventHandler implements JobConsumer, Eve
         return JobResult.OK;
     }
 
+    /**
+     * Adds the package to the pending batch and waits until the batch has been written. The first job joining a batch
+     * waits for the batch window to pass and then writes the replication status for all packages collected meanwhile.
+     */
+    private JobResult processInBatch(final Job job, final PendingPackage pendingPackage) {
+        final boolean writer;
+        synchronized (batchLock) {
+            pendingPackages.add(pendingPackage);
+            writer = !batchScheduled;
+            batchScheduled = true;
+        }
+
+        if (writer) {
+            try {
+                Thread.sleep(batchWindow);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            final List<PendingPackage> batch;
+            synchronized (batchLock) {
+                batch = new ArrayList<>(pendingPackages);
+                pendingPackages.clear();
+                batchScheduled = false;
+            }
+            processBatch(batch);
+        }
+
+        try {
+            return pendingPackage.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return JobResult.FAILED;
+        } catch (ExecutionException e) {
+            logJobError(job, "Could not update replication metadata", e.getCause());
+            return JobResult.FAILED;
+        }
+    }
+
+    /**
+     * Writes the replication status for the contents of all given packages. Packages replicated by the same user to
+     * the same agents share their writes, so a path contained in several packages is updated once, with the
+     * replication date of the latest package.
+     */
+    private void processBatch(final List<PendingPackage> batch) {
+        final Map<Map.Entry<String, Set<String>>, List<PendingPackage>> packagesByReplication = new LinkedHashMap<>();
+        for (final PendingPackage pendingPackage : batch) {
+            packagesByReplication.computeIfAbsent(pendingPackage.getReplication(), k -> new ArrayList<>()).add(pendingPackage);
+        }
+
+        try (ResourceResolver resourceResolver = resourceResolverFactory.getServiceResourceResolver(AUTH_INFO)) {
+            for (final Map.Entry<Map.Entry<String, Set<String>>, List<PendingPackage>> entry : packagesByReplication.entrySet()) {
+                final String replicatedBy = entry.getKey().getKey();
+                final Set<String> agentIds = entry.getKey().getValue();
+                setReplicationStatus(entry.getValue(), agentIds, replicatedBy, resourceResolver);
+            }
+        } catch (LoginException e) {
+            log.error("Could not obtain a resource resolver for applying replication status updates", e);
+            batch.forEach(pendingPackage -> pendingPackage.result.complete(JobResult.CANCEL));
+        } finally {
+            // no-op for packages already done, fails those left over by an unexpected exception so no job waits forever
+            batch.forEach(pendingPackage -> pendingPackage.result.complete(JobResult.FAILED));
+        }
+    }
+
+    private void setReplicationStatus(final List<PendingPackage> packages, final Collection<String> agentIds,
+                                      final String replicatedBy, final ResourceResolver resourceResolver) {
+        final Map<String, Resource> resources = new LinkedHashMap<>();
+        final Map<String, Calendar> replicatedAts = new HashMap<>();
+        final List<PendingPackage> included = new ArrayList<>();
+        int requestedPathCount = 0;
+
+        for (final PendingPackage pendingPackage : packages) {
+            final JcrPackage jcrPackage = this.getJcrPackage(resourceResolver, pendingPackage.path);
+            if (jcrPackage == null) {
+                log.warn("JCR Package is unavailable for Replication Status Update at: {}", pendingPackage.path);
+                pendingPackage.result.complete(JobResult.OK);
+                continue;
+            }
+
+            try {
+                final String packageId = getPackageId(jcrPackage);
+                final Calendar packageReplicatedAt = getJcrPackageLastModified(jcrPackage);
+                for (final Resource resource : getResources(jcrPackage, packageId, resourceResolver)) {
+                    requestedPathCount++;
+                    final Calendar replicatedAt = replicatedAts.get(resource.getPath());
+                    if (replicatedAt == null || (packageReplicatedAt != null && packageReplicatedAt.after(replicatedAt))) {
+                        replicatedAts.put(resource.getPath(), packageReplicatedAt);
+                    }
+                    resources.putIfAbsent(resource.getPath(), resource);
+                }
+                included.add(pendingPackage);
+            } catch (RepositoryException | IOException e) {
+                pendingPackage.result.completeExceptionally(e);
+            } finally {
+                jcrPackage.close();
+            }
+        }
+
+        final Map<Calendar, List<Resource>> resourcesByReplicatedAt = new LinkedHashMap<>();
+        for (final Resource resource : resources.values()) {
+            resourcesByReplicatedAt.computeIfAbsent(replicatedAts.get(resource.getPath()), k -> new ArrayList<>()).add(resource);
+        }
+
+        try {
+            final long start = System.currentTimeMillis();
+            for (final Map.Entry<Calendar, List<Resource>> entry : resourcesByReplicatedAt.entrySet()) {
+                replicationStatusManager.setReplicationStatus(resourceResolver,
+                        agentIds,
+                        replicatedBy,
+                        entry.getKey(),
+                        ReplicationStatusManager.Status.ACTIVATED,
+                        entry.getValue().toArray(new Resource[0]));
+            }
+            recordBatch(included.size(), requestedPathCount, resources.size(), System.currentTimeMillis() - start);
+            log.info("Updated Replication Status of {} resources for {} JCR Packages", resources.size(), included.size());
+            included.forEach(pendingPackage -> pendingPackage.result.complete(JobResult.OK));
+        } catch (RepositoryException | PersistenceException e) {
+            final String paths = resources.keySet().stream().limit(10).collect(Collectors.joining(", "));
+            final RepositoryException exception = new RepositoryException(
+                    "Exception occurred updating replication status for contents of " + included.size()
+                            + " packages covering paths: '" + paths + ", ...'", e);
+            included.forEach(pendingPackage -> pendingPackage.result.completeExceptionally(exception));
+        }
+    }
+
+    private void recordBatch(int packageCount, int requestedPathCount, int updatedPathCount, long duration) {
+        if (stats != null) {
+            stats.recordBatch(packageCount, requestedPathCount, updatedPathCount, duration);
+        }
+    }
+
     /**
      * Emits the given error and exception either with level WARN or ERROR depending on whether the job is retried.
      * This method can be removed once <a href="https://issues.apache.org/jira/browse/SLING-7756">SLING-7756</a> is resolved.
@@ -268,7 +432,7 @@ public class JcrPackageReplicationStatusEventHandler implements JobConsumer, Eve
      * @param e
      * 
      */
-    private void logJobError(Job job, String errorMessage, Exception e) {
+    private void logJobError(Job job, String errorMessage, Throwable e) {
         if (job.getRetryCount() < job.getNumberOfRetries()) {
             log.warn("Job failed with error '{}' in attempt '{}', retry later.", errorMessage, job.getRetryCount(), e);
         } else {
@@ -278,7 +442,32 @@ public class JcrPackageReplicationStatusEventHandler implements JobConsumer, Eve
     
     
     private void setReplicationStatus(JcrPackage jcrPackage, Collection<String> agentIds, String replicatedBy, ResourceResolver resourceResolver) throws RepositoryException {
-        final List<Resource> resources = new ArrayList<>();
+        final String packageId = getPackageId(jcrPackage);
+        final List<Resource> resources = getResources(jcrPackage, packageId, resourceResolver);
+        try {
+            if (resources.size() > 0) {
+                final long start = System.currentTimeMillis();
+                replicationStatusManager.setReplicationStatus(resourceResolver,
+                        agentIds,
+                        replicatedBy,
+                        getJcrPackageLastModified(jcrPackage),
+                        ReplicationStatusManager.Status.ACTIVATED,
+                        resources.toArray(new Resource[resources.size()]));
+                recordBatch(1, resources.size(), resources.size(), System.currentTimeMillis() - start);
+
+                log.info("Updated Replication Status for JCR Package: {}", packageId);
+            } else {
+                log.info("Could not find any resources in JCR Package [ {} ] that are candidates to have their Replication Status updated",
+                        packageId);
+            }
+        } catch (RepositoryException|IOException e) {
+            // enrich exception with path information (limited to 10 paths only)
+            String paths = resources.stream().map( r -> r.getPath() ).limit(10).collect( Collectors.joining( ", " ) );
+            throw new RepositoryException("Exception occurred updating replication status for contents of package '" + packageId + "' covering paths: '" + paths + ", ...'", e);
+        }
+    }
+
+    private String getPackageId(JcrPackage jcrPackage) throws RepositoryException {
         final String packageId;
         try {
             JcrPackageDefinition packageDefinition = jcrPackage.getDefinition();
@@ -289,8 +478,12 @@ public class JcrPackageReplicationStatusEventHandler implements JobConsumer, Eve
             }
         } catch (RepositoryException e) {
             throw new RepositoryException("Could not determine the ID for just replicated package (package invalid?).", e);
-        } 
-        
+        }
+        return packageId;
+    }
+
+    private List<Resource> getResources(JcrPackage jcrPackage, String packageId, ResourceResolver resourceResolver) throws RepositoryException {
+        final List<Resource> resources = new ArrayList<>();
         try {
             for (final String packagePath : packageHelper.getContents(jcrPackage)) {
                 final Resource resource = resourceResolver.getResource(packagePath);
@@ -301,25 +494,7 @@ public class JcrPackageReplicationStatusEventHandler implements JobConsumer, Eve
         } catch (RepositoryException|PackageException|IOException e) {
             throw new RepositoryException("Could not retrieve the Packages contents for package '" + packageId + "'", e);
         }
-        try {
-            if (resources.size() > 0) {
-                replicationStatusManager.setReplicationStatus(resourceResolver,
-                        agentIds,
-                        replicatedBy,
-                        getJcrPackageLastModified(jcrPackage),
-                        ReplicationStatusManager.Status.ACTIVATED,
-                        resources.toArray(new Resource[resources.size()]));
-
-                log.info("Updated Replication Status for JCR Package: {}", packageId);
-            } else {
-                log.info("Could not find any resources in JCR Package [ {} ] that are candidates to have their Replication Status updated",
-                        packageId);
-            }
-        } catch (RepositoryException|IOException e) {
-            // enrich exception with path information (limited to 10 paths only)
-            String paths = resources.stream().map( r -> r.getPath() ).limit(10).collect( Collectors.joining( ", " ) );
-            throw new RepositoryException("Exception occurred updating replication status for contents of package '" + packageId + "' covering paths: '" + paths + ", ...'", e);
-        }
+        return resources;
     }
 
     /**
@@ -468,7 +643,8 @@ public class JcrPackageReplicationStatusEventHandler implements JobConsumer, Eve
     }
 
     @Activate
-    protected void activate(final Map<String, String> config) throws LoginException {
+    protected void activate(final BundleContext bundleContext, final Map<String, String> config)
+            throws LoginException, NotCompliantMBeanException {
         log.trace("Activating the ACS AEM Commons - JCR Package Replication Status Updater (Event Handler)");
 
         this.replicatedByOverride = PropertiesUtil.toString(config.get(PROP_REPLICATED_BY_OVERRIDE),
@@ -498,8 +674,47 @@ public class JcrPackageReplicationStatusEventHandler implements JobConsumer, Eve
             
             pathRestrictionByNodeType.put(nodeTypeAndPathRestriction.getKey(), pathRestrictionPattern);
         }
+        this.batchWindow = PropertiesUtil.toInteger(config.get(PROP_BATCH_WINDOW), DEFAULT_BATCH_WINDOW);
+
         log.info("Package Replication Status - Replicated By Override User: [ {} ]", this.replicatedByOverride);
         log.info("Package Replication Status - Replicated At: [ {} ]", this.replicatedAt);
         log.info("Package Replication Status - Node Types and Path Restrictions: [ {} ]", pathRestrictionByNodeType);
+        log.info("Package Replication Status - Batch Window: [ {} ms ]", this.batchWindow);
+
+        stats = new JcrPackageReplicationStatusStats();
+        final Dictionary<String, Object> mbeanProps = new Hashtable<>();
+        mbeanProps.put("jmx.objectname", "com.adobe.acs.commons:type=Package Replication Status Updater");
+        statsRegistration = bundleContext.registerService(DynamicMBean.class.getName(), stats, mbeanProps);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if (statsRegistration != null) {
+            statsRegistration.unregister();
+            statsRegistration = null;
+        }
+    }
+
+    /**
+     * A package job waiting for its replication status batch to be written.
+     */
+    private static final class PendingPackage {
+        private final String path;
+        private final String replicatedBy;
+        private final Set<String> agentIds;
+        private final CompletableFuture<JobResult> result = new CompletableFuture<>();
+
+        PendingPackage(String path, String replicatedBy, Collection<String> agentIds) {
+            this.path = path;
+            this.replicatedBy = replicatedBy;
+            this.agentIds = new HashSet<>(agentIds);
+        }
+
+        /**
+         * @return the user and agents of the replication, packages of the same replication share their writes
+         */
+        Map.Entry<String, Set<String>> getReplication() {
+            return new AbstractMap.SimpleImmutableEntry<>(replicatedBy, agentIds);
+        }
     }
 }
@@ -0,0 +1,49 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.replication.status.impl;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+@Description("ACS AEM Commons - Package Replication Status Updater")
+public interface JcrPackageReplicationStatusMBean {
+
+    @Description("Number of replication status batches written")
+    long getBatchCount();
+
+    @Description("Number of JCR packages whose replication status was updated")
+    long getPackageCount();
+
+    @Description("Number of package paths that were candidates for a replication status update")
+    long getRequestedPathCount();
+
+    @Description("Number of resources whose replication status was updated after removing duplicates across packages")
+    long getUpdatedPathCount();
+
+    @Description("Number of JCR packages merged into the last batch")
+    int getLastBatchPackageCount();
+
+    @Description("Number of resources updated by the last batch")
+    int getLastBatchPathCount();
+
+    @Description("Time in milliseconds the last batch took to write the replication status")
+    long getLastBatchDuration();
+
+    /* Operations */
+    @Description("Reset all statistics")
+    void resetStatistics();
+}
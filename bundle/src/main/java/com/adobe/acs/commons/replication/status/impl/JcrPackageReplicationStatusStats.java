@@ -0,0 +1,98 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.replication.status.impl;
+
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+
+import javax.management.NotCompliantMBeanException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the replication status batches written by the {@link JcrPackageReplicationStatusEventHandler}.
+ */
+public class JcrPackageReplicationStatusStats extends AnnotatedStandardMBean implements JcrPackageReplicationStatusMBean {
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder packages = new LongAdder();
+    private final LongAdder requestedPaths = new LongAdder();
+    private final LongAdder updatedPaths = new LongAdder();
+
+    private volatile int lastBatchPackageCount;
+    private volatile int lastBatchPathCount;
+    private volatile long lastBatchDuration;
+
+    public JcrPackageReplicationStatusStats() throws NotCompliantMBeanException {
+        super(JcrPackageReplicationStatusMBean.class);
+    }
+
+    void recordBatch(int packageCount, int requestedPathCount, int updatedPathCount, long duration) {
+        batches.increment();
+        packages.add(packageCount);
+        requestedPaths.add(requestedPathCount);
+        updatedPaths.add(updatedPathCount);
+        lastBatchPackageCount = packageCount;
+        lastBatchPathCount = updatedPathCount;
+        lastBatchDuration = duration;
+    }
+
+    @Override
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    @Override
+    public long getPackageCount() {
+        return packages.sum();
+    }
+
+    @Override
+    public long getRequestedPathCount() {
+        return requestedPaths.sum();
+    }
+
+    @Override
+    public long getUpdatedPathCount() {
+        return updatedPaths.sum();
+    }
+
+    @Override
+    public int getLastBatchPackageCount() {
+        return lastBatchPackageCount;
+    }
+
+    @Override
+    public int getLastBatchPathCount() {
+        return lastBatchPathCount;
+    }
+
+    @Override
+    public long getLastBatchDuration() {
+        return lastBatchDuration;
+    }
+
+    @Override
+    public void resetStatistics() {
+        batches.reset();
+        packages.reset();
+        requestedPaths.reset();
+        updatedPaths.reset();
+        lastBatchPackageCount = 0;
+        lastBatchPathCount = 0;
+        lastBatchDuration = 0;
+    }
+}
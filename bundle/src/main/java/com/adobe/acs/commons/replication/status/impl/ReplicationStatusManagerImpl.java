@@ -19,10 +19,13 @@
 package com.adobe.acs.commons.replication.status.impl;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -63,6 +66,15 @@ public class ReplicationStatusManagerImpl implements ReplicationStatusManager {
     private static final String REP_STATUS_ACTIVATE = "Activate";
     private static final String REP_STATUS_DEACTIVATE = "Deactivate";
     private static final int SAVE_THRESHOLD = 1024;
+    private static final int MIN_SAVE_THRESHOLD = 128;
+    private static final int MAX_SAVE_THRESHOLD = 8192;
+    private static final long TARGET_SAVE_DURATION = 1000;
+
+    /**
+     * Number of updated nodes committed at once, adjusted to the observed commit durations so that large updates
+     * neither end up in a single huge commit nor in many small ones.
+     */
+    private volatile int saveThreshold = SAVE_THRESHOLD;
 
     /**
      * {@inheritDoc}
@@ -107,6 +119,7 @@ public class ReplicationStatusManagerImpl implements ReplicationStatusManager {
                                            final Calendar replicatedAt,
                                            final Status status,
                                            final String... paths) throws RepositoryException, PersistenceException {
+        final List<Resource> resources = new ArrayList<>(paths.length);
         for (final String path : paths) {
             final Resource resource = resourceResolver.getResource(path);
 
@@ -115,8 +128,11 @@ public class ReplicationStatusManagerImpl implements ReplicationStatusManager {
                 continue;
             }
 
-            this.setReplicationStatus(resourceResolver, replicatedBy, replicatedAt, status, resource);
+            resources.add(resource);
         }
+
+        this.setReplicationStatus(resourceResolver, agentIds, replicatedBy, replicatedAt, status,
+                resources.toArray(new Resource[0]));
     }
 
     @Override
@@ -157,7 +173,11 @@ public class ReplicationStatusManagerImpl implements ReplicationStatusManager {
                     ReplicationStatus.NODE_PROPERTY_LAST_REPLICATED_BY, replicatedByClean);
         }
 
+        final Set<String> propertyNameSuffixes = Stream.concat(Stream.of(""), agentIds.stream().map(s -> "_" + s))
+                .collect(Collectors.toSet());
+
         int count = 0;
+        int threshold = saveThreshold;
         for (final Resource resource : resources) {
 
             final Node node = resource.adaptTo(Node.class);
@@ -166,7 +186,7 @@ public class ReplicationStatusManagerImpl implements ReplicationStatusManager {
 
                 /* Clear replication status; Set all to null to remove properties */
 
-                setReplicationStatus(node, agentIds, null, null, null);
+                setReplicationStatus(node, propertyNameSuffixes, null, null, null);
 
                 if (!node.isNodeType(ReplicationStatus.NODE_TYPE)) {
                     // Remove Mixin if node is not a cq:ReplicationStatus nodeType
@@ -180,17 +200,17 @@ public class ReplicationStatusManagerImpl implements ReplicationStatusManager {
                 final String replicationStatus = Status.ACTIVATED.equals(status) ? REP_STATUS_ACTIVATE
                         : REP_STATUS_DEACTIVATE;
 
-                if (!node.isNodeType(ReplicationStatus.NODE_TYPE)) {
-                    // Add mixin if node is not already a cq:ReplicationStatus nodeType
-                    this.addReplicationStatusMixin(node);
+                if (!node.isNodeType(ReplicationStatus.NODE_TYPE) && node.canAddMixin(ReplicationStatus.NODE_TYPE)) {
+                    // Add mixin if node is not already a cq:ReplicationStatus nodeType (which covers its mixins, too)
+                    node.addMixin(ReplicationStatus.NODE_TYPE);
                 }
-                setReplicationStatus(node, agentIds, replicatedAtClean, replicatedByClean, replicationStatus);
+                setReplicationStatus(node, propertyNameSuffixes, replicatedAtClean, replicatedByClean, replicationStatus);
             }
 
             log.debug("Updated replication status for resource [ {} ] to [ {} ].", resource.getPath(), status.name());
 
-            if (count++ > SAVE_THRESHOLD) {
-                session.save();
+            if (++count >= threshold) {
+                threshold = save(session);
                 count = 0;
             }
         }
@@ -200,8 +220,40 @@ public class ReplicationStatusManagerImpl implements ReplicationStatusManager {
         }
     }
 
-    private void setReplicationStatus(Node node, Collection<String> agentIds, Calendar replicatedAt, String replicatedBy, String replicationStatus) throws RepositoryException {
-        Set<String> propertyNameSuffixes = Stream.concat(Stream.of(""), agentIds.stream().map(s -> "_" + s)).collect(Collectors.toSet());
+    /**
+     * Saves the session and adapts the save threshold to the time the save took.
+     *
+     * @param session the session to save
+     * @return the number of nodes to update before the next save
+     * @throws RepositoryException
+     */
+    private int save(final Session session) throws RepositoryException {
+        final long start = System.nanoTime();
+        session.save();
+        final long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        final int threshold = getNextSaveThreshold(saveThreshold, duration);
+        if (threshold != saveThreshold) {
+            log.debug("Saving {} nodes took {} ms, saving every {} nodes from now on", saveThreshold, duration, threshold);
+            saveThreshold = threshold;
+        }
+        return threshold;
+    }
+
+    /**
+     * Halves the threshold if a save took longer than the target duration and doubles it if it took less than a
+     * quarter of it, staying within the minimum and maximum threshold.
+     */
+    static int getNextSaveThreshold(final int threshold, final long saveDuration) {
+        if (saveDuration > TARGET_SAVE_DURATION) {
+            return Math.max(MIN_SAVE_THRESHOLD, threshold / 2);
+        } else if (saveDuration < TARGET_SAVE_DURATION / 4) {
+            return Math.min(MAX_SAVE_THRESHOLD, threshold * 2);
+        }
+        return threshold;
+    }
+
+    private void setReplicationStatus(Node node, Set<String> propertyNameSuffixes, Calendar replicatedAt, String replicatedBy, String replicationStatus) throws RepositoryException {
         for (String propertyNameSuffix : propertyNameSuffixes) {
             JcrUtil.setProperty(node, ReplicationStatus.NODE_PROPERTY_LAST_REPLICATED + propertyNameSuffix, replicatedAt);
             JcrUtil.setProperty(node, ReplicationStatus.NODE_PROPERTY_LAST_REPLICATED_BY + propertyNameSuffix, replicatedBy);
@@ -217,20 +269,6 @@ public class ReplicationStatusManagerImpl implements ReplicationStatusManager {
         this.setReplicationStatus(resourceResolver, null, null, Status.CLEAR, resources);
     }
 
-    /**
-     * Adds the cq:ReplicationStatus mixin if the node doesnt already have it or does have it as its jcr:supertype
-     * already.
-     *
-     * @param node the node obj
-     * @throws RepositoryException
-     */
-    private void addReplicationStatusMixin(final Node node) throws RepositoryException {
-        if (!this.hasMixin(node, ReplicationStatus.NODE_TYPE)
-                && node.canAddMixin(ReplicationStatus.NODE_TYPE)) {
-            node.addMixin(ReplicationStatus.NODE_TYPE);
-        }
-    }
-
     /**
      * Removes the cq:ReplicationStatus mixin from the node if it has it.
      *
@@ -0,0 +1,111 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.rewriter.impl;
+
+import java.util.Arrays;
+
+/**
+ * Immutable character trie answering "does this value start with any of the configured prefixes"
+ * in a single pass over the value, without allocating.
+ */
+final class PrefixTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private boolean terminal;
+
+        private Node child(char c) {
+            final int idx = Arrays.binarySearch(keys, c);
+            return idx >= 0 ? children[idx] : null;
+        }
+
+        private Node addChild(char c) {
+            int idx = Arrays.binarySearch(keys, c);
+            if (idx >= 0) {
+                return children[idx];
+            }
+            idx = -(idx + 1);
+            final char[] newKeys = new char[keys.length + 1];
+            final Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, idx);
+            System.arraycopy(children, 0, newChildren, 0, idx);
+            System.arraycopy(keys, idx, newKeys, idx + 1, keys.length - idx);
+            System.arraycopy(children, idx, newChildren, idx + 1, children.length - idx);
+            final Node node = new Node();
+            newKeys[idx] = c;
+            newChildren[idx] = node;
+            keys = newKeys;
+            children = newChildren;
+            return node;
+        }
+    }
+
+    private final Node root = new Node();
+
+    private final boolean empty;
+
+    PrefixTrie(final String... prefixes) {
+        boolean noPrefixes = true;
+        if (prefixes != null) {
+            for (final String prefix : prefixes) {
+                if (prefix == null) {
+                    continue;
+                }
+                Node node = root;
+                for (int i = 0; i < prefix.length(); i++) {
+                    node = node.addChild(prefix.charAt(i));
+                }
+                node.terminal = true;
+                noPrefixes = false;
+            }
+        }
+        this.empty = noPrefixes;
+    }
+
+    /**
+     * @return true if no prefixes were configured
+     */
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * @param value the value to test
+     * @return true if the value starts with at least one of the configured prefixes
+     */
+    boolean matches(final CharSequence value) {
+        Node node = root;
+        if (node.terminal) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            node = node.child(value.charAt(i));
+            if (node == null) {
+                return false;
+            }
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -19,7 +19,6 @@ package com.adobe.acs.commons.rewriter.impl;
 
 import com.adobe.acs.commons.rewriter.ContentHandlerBasedTransformer;
 import com.adobe.acs.commons.util.ParameterUtil;
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.felix.scr.annotations.Activate;
@@ -39,6 +38,7 @@ import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
 
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Map;
@@ -114,16 +114,18 @@ public final class StaticReferenceRewriteTransformerFactory implements Transform
     @Property(label = "Override existing host", description = "This property allows you to override the existing host in the attribute that has to be rewritten", boolValue = false)
     private static final String PROP_REPLACE_HOST = "replaceHost";
 
-    private Map<String, String[]> attributes;
+    /**
+     * Rewrite rules per element name, keyed by attribute name. Compiled once on activation.
+     */
+    private Map<String, Map<String, AttributeRule>> rules = Collections.emptyMap();
 
-    private Map<String, Pattern> matchingPatterns;
+    private PrefixTrie prefixTrie = new PrefixTrie();
 
-    private String[] prefixes;
-
-    private int staticHostCount;
-
-    private String[] staticHostPattern;
-    private String staticHostScheme;
+    /**
+     * Host prefix ({@code //host} or {@code scheme://host}) to prepend, indexed by the value's hash
+     * modulo the number of shards. Null if no static host is configured.
+     */
+    private String[] hostPrefixes;
 
     private boolean replaceHost;
 
@@ -131,100 +133,120 @@ public final class StaticReferenceRewriteTransformerFactory implements Transform
         return new StaticReferenceRewriteTransformer();
     }
 
-    private static String getShardValue(final String filePath, final int shardCount, final ShardNameProvider sharder) {
-        int result = 1;
-        if (shardCount > 1) {
-            final int fileHash = ((filePath.hashCode() & Integer.MAX_VALUE) % shardCount) + 1;
-            String hostNumberString = Integer.toString(fileHash);
-            if (hostNumberString.length() >= 2) {
-                // get the 2nd digit as the 1st digit will not contain "0"
-                char c = hostNumberString.charAt(1);
-                hostNumberString = Character.toString(c);
-                // If there are more than 10 hosts, convert it back to base10
-                // so we do not have alpha
-                hostNumberString = Integer.toString(Integer.parseInt(hostNumberString, shardCount));
-
-                result = Integer.parseInt(hostNumberString) + 1;
-            } else {
-                result = fileHash;
-            }
+    /**
+     * How a single element attribute is rewritten: either by prefix or, if a matching pattern
+     * is configured, by rewriting every match of the pattern's first group.
+     */
+    private static final class AttributeRule {
+        private final Pattern matchingPattern;
+
+        private AttributeRule(Pattern matchingPattern) {
+            this.matchingPattern = matchingPattern;
         }
+    }
 
-        return sharder.lookup(result);
+    /**
+     * Computes the 1-based shard for a value whose hash modulo {@code shardCount} is {@code residue}.
+     * For ten or more shards, the second decimal digit of the shard number is used; this keeps the
+     * distribution the rewriter has always produced so existing cache keys remain stable.
+     */
+    static int getShard(final int residue, final int shardCount) {
+        if (shardCount <= 1) {
+            return 1;
+        }
+        final int fileHash = residue + 1;
+        if (fileHash < 10) {
+            return fileHash;
+        }
+        int magnitude = 10;
+        while (magnitude * 10 <= fileHash) {
+            magnitude *= 10;
+        }
+        return ((fileHash / (magnitude / 10)) % 10) + 1;
     }
 
-    private String prependHostName(String value) {
-        if (staticHostPattern != null && staticHostPattern.length > 0) {
+    static String[] compileHostPrefixes(final String[] hostPatterns, final int hostCount, final String scheme) {
+        if (hostPatterns == null || hostPatterns.length == 0) {
+            return null;
+        }
+        final int shardCount = hostPatterns.length == 1 ? hostCount : hostPatterns.length;
+        final String[] result = new String[Math.max(1, shardCount)];
+        for (int residue = 0; residue < result.length; residue++) {
+            final int shard = getShard(residue, shardCount);
             final String host;
-            if (staticHostPattern.length == 1) {
-                final String hostNum = getShardValue(value, staticHostCount, toStringShardNameProvider);
-                host = staticHostPattern[0].replace("{}", hostNum);
+            if (hostPatterns.length == 1) {
+                host = hostPatterns[0].replace("{}", Integer.toString(shard));
             } else {
-                host = getShardValue(value, staticHostPattern.length, lookupShardNameProvider);
+                host = hostPatterns[shard - 1];
             }
-            if(StringUtils.isNotBlank(staticHostScheme)) {
-                return String.format("%s://%s%s", staticHostScheme, host, value);
+            if (StringUtils.isNotBlank(scheme)) {
+                result[residue] = scheme + "://" + host;
+            } else {
+                result[residue] = "//" + host;
             }
-            return String.format("//%s%s", host, value);
-        } else {
+        }
+        return result;
+    }
+
+    private String prependHostName(String value) {
+        if (hostPrefixes == null) {
             return value;
         }
+        final int idx = hostPrefixes.length == 1 ? 0 : (value.hashCode() & Integer.MAX_VALUE) % hostPrefixes.length;
+        return hostPrefixes[idx].concat(value);
     }
 
     private Attributes rebuildAttributes(final String elementName, final Attributes attrs) {
-        if (attributes.containsKey(elementName)) {
-            final String[] modifyableAttributes = attributes.get(elementName);
-
-            // first - check for the nostatic class
-            boolean rewriteStatic = true;
-            for (int i = 0; i < attrs.getLength(); i++) {
-                final String attrName = attrs.getLocalName(i);
-                if (ATTR_CLASS.equals(attrName)) {
-                    String attrValue = attrs.getValue(i);
-                    if (attrValue.contains(CLASS_NOSTATIC)) {
-                        rewriteStatic = false;
-                    }
-                }
-            }
+        final Map<String, AttributeRule> elementRules = rules.get(elementName);
+        if (elementRules == null || hasNoStaticClass(attrs)) {
+            return attrs;
+        }
 
-            if (rewriteStatic) {
-                return rebuildAttributes(elementName, attrs, modifyableAttributes);
+        // only clone the attributes once something actually has to change
+        AttributesImpl newAttrs = null;
+        for (int i = 0; i < attrs.getLength(); i++) {
+            final AttributeRule rule = elementRules.get(attrs.getLocalName(i));
+            final String attrValue = attrs.getValue(i);
+            if (rule == null || attrValue == null) {
+                continue;
+            }
+            final String newValue = rewriteAttribute(rule, attrValue);
+            if (!attrValue.equals(newValue)) {
+                if (newAttrs == null) {
+                    newAttrs = new AttributesImpl(attrs);
+                }
+                newAttrs.setValue(i, newValue);
             }
         }
 
-        return attrs;
+        return newAttrs == null ? attrs : newAttrs;
     }
 
-    @SuppressWarnings("squid:S3776")
-    private Attributes rebuildAttributes(String elementName, Attributes attrs, String[] modifyableAttributes) {
-        // clone the attributes
-        final AttributesImpl newAttrs = new AttributesImpl(attrs);
-
-        for (int i = 0; i < newAttrs.getLength(); i++) {
-            final String attrName = newAttrs.getLocalName(i);
-            if (ArrayUtils.contains(modifyableAttributes, attrName)) {
-                final String attrValue = newAttrs.getValue(i);
-
-                String key = elementName + ":" + attrName;
-                if (matchingPatterns.containsKey(key)) {
-                    // Find value based on matching pattern
-                    Pattern matchingPattern = matchingPatterns.get(key);
-                    try {
-                        newAttrs.setValue(i, handleMatchingPatternAttribute(matchingPattern, attrValue));
-                    } catch (Exception e) {
-                        log.error("Could not perform replacement based on matching pattern", e);
-                    }
-                } else {
-                    for (String prefix : prefixes) {
-                        if (attrValue.startsWith(prefix)) {
-                            newAttrs.setValue(i, prependHostName(attrValue));
-                        }
-                    }
+    private static boolean hasNoStaticClass(final Attributes attrs) {
+        for (int i = 0; i < attrs.getLength(); i++) {
+            if (ATTR_CLASS.equals(attrs.getLocalName(i))) {
+                final String attrValue = attrs.getValue(i);
+                if (attrValue != null && attrValue.contains(CLASS_NOSTATIC)) {
+                    return true;
                 }
             }
         }
+        return false;
+    }
 
-        return newAttrs;
+    private String rewriteAttribute(final AttributeRule rule, final String attrValue) {
+        if (rule.matchingPattern != null) {
+            // Find value based on matching pattern
+            try {
+                return handleMatchingPatternAttribute(rule.matchingPattern, attrValue);
+            } catch (Exception e) {
+                log.error("Could not perform replacement based on matching pattern", e);
+                return attrValue;
+            }
+        } else if (prefixTrie.matches(attrValue)) {
+            return prependHostName(attrValue);
+        }
+        return attrValue;
     }
 
     private String handleMatchingPatternAttribute(Pattern pattern, String attrValue) {
@@ -234,23 +256,19 @@ public final class StaticReferenceRewriteTransformerFactory implements Transform
 
         while (m.find()) {
             String url = m.group(1);
-            for (String prefix : prefixes) {
-                if (url.startsWith(prefix)) {
-                    // prepend host
-                    url = prependHostName(url);
-                    // Added check to determine whether the existing host has to be replaced
-                    if (this.replaceHost) {
-                        sb.setLength(0);
-                        if (!url.contains("://")) {
-                            String reuseScheme = attrValue.substring(0, attrValue.indexOf("://") + 1);
-                            sb.append(reuseScheme);
-                        }
-                        sb.append(url);
-                    } else {
-                        m.appendReplacement(sb, Matcher.quoteReplacement(url));
-                        // First prefix match wins
+            if (prefixTrie.matches(url)) {
+                // prepend host
+                url = prependHostName(url);
+                // Added check to determine whether the existing host has to be replaced
+                if (this.replaceHost) {
+                    sb.setLength(0);
+                    if (!url.contains("://")) {
+                        String reuseScheme = attrValue.substring(0, attrValue.indexOf("://") + 1);
+                        sb.append(reuseScheme);
                     }
-                    break;
+                    sb.append(url);
+                } else {
+                    m.appendReplacement(sb, Matcher.quoteReplacement(url));
                 }
             }
         }
@@ -271,15 +289,17 @@ public final class StaticReferenceRewriteTransformerFactory implements Transform
 
         final String[] attrProp = PropertiesUtil
                 .toStringArray(properties.get(PROP_ATTRIBUTES), DEFAULT_ATTRIBUTES);
-        this.attributes = ParameterUtil.toMap(attrProp, tagAttributeSeparator, listSeparator);
+        final Map<String, String[]> attributes = ParameterUtil.toMap(attrProp, tagAttributeSeparator, listSeparator);
 
         final String[] matchingPatternsProp = PropertiesUtil.toStringArray(properties.get(PROP_MATCHING_PATTERNS));
-        this.matchingPatterns = initializeMatchingPatterns(matchingPatternsProp);
-
-        this.prefixes = PropertiesUtil.toStringArray(properties.get(PROP_PREFIXES), new String[0]);
-        this.staticHostPattern = PropertiesUtil.toStringArray(properties.get(PROP_HOST_NAME_PATTERN), null);
-        this.staticHostScheme = PropertiesUtil.toString(properties.get(PROP_HOST_SCHEME), "");
-        this.staticHostCount = PropertiesUtil.toInteger(properties.get(PROP_HOST_COUNT), DEFAULT_HOST_COUNT);
+        final Map<String, Pattern> matchingPatterns = initializeMatchingPatterns(matchingPatternsProp);
+        this.rules = compileRules(attributes, matchingPatterns);
+
+        this.prefixTrie = new PrefixTrie(PropertiesUtil.toStringArray(properties.get(PROP_PREFIXES), new String[0]));
+        final String[] staticHostPattern = PropertiesUtil.toStringArray(properties.get(PROP_HOST_NAME_PATTERN), null);
+        final String staticHostScheme = PropertiesUtil.toString(properties.get(PROP_HOST_SCHEME), "");
+        final int staticHostCount = PropertiesUtil.toInteger(properties.get(PROP_HOST_COUNT), DEFAULT_HOST_COUNT);
+        this.hostPrefixes = compileHostPrefixes(staticHostPattern, staticHostCount, staticHostScheme);
         this.replaceHost = PropertiesUtil.toBoolean(properties.get(PROP_REPLACE_HOST), false);
 
         if (!this.replaceHost && matchingPatterns.values().stream().noneMatch(str -> str.toString().startsWith("^"))) {
@@ -287,6 +307,20 @@ public final class StaticReferenceRewriteTransformerFactory implements Transform
         }
     }
 
+    private static Map<String, Map<String, AttributeRule>> compileRules(final Map<String, String[]> attributes,
+                                                                        final Map<String, Pattern> matchingPatterns) {
+        final Map<String, Map<String, AttributeRule>> result = new HashMap<>();
+        for (Map.Entry<String, String[]> entry : attributes.entrySet()) {
+            final Map<String, AttributeRule> attributeRules = new HashMap<>();
+            for (String attrName : entry.getValue()) {
+                final Pattern matchingPattern = matchingPatterns.get(entry.getKey() + ":" + attrName);
+                attributeRules.put(attrName, new AttributeRule(matchingPattern));
+            }
+            result.put(entry.getKey(), attributeRules);
+        }
+        return result;
+    }
+
     private static Map<String, Pattern> initializeMatchingPatterns(String[] matchingPatternsProp) {
         Map<String, Pattern> result = new HashMap<>();
 
@@ -303,26 +337,4 @@ public final class StaticReferenceRewriteTransformerFactory implements Transform
         }
         return result;
     }
-
-    private interface ShardNameProvider {
-        String lookup(int idx);
-    }
-
-    @SuppressWarnings("squid:S1604")
-    private static final ShardNameProvider toStringShardNameProvider = new ShardNameProvider() {
-
-        @Override
-        public String lookup(int idx) {
-            return Integer.toString(idx);
-        }
-    };
-
-    @SuppressWarnings("squid:S1604")
-    private final ShardNameProvider lookupShardNameProvider = new ShardNameProvider() {
-
-        @Override
-        public String lookup(int idx) {
-            return staticHostPattern[idx - 1];
-        }
-    };
 }
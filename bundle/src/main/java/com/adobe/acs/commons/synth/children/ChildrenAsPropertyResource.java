@@ -17,10 +17,14 @@
  */
 package com.adobe.acs.commons.synth.children;
 
-import com.adobe.acs.commons.json.JsonObjectUtil;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import org.apache.jackrabbit.JcrConstants;
 import org.apache.sling.api.resource.ModifiableValueMap;
 import org.apache.sling.api.resource.Resource;
@@ -31,7 +35,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jcr.RepositoryException;
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -44,6 +51,7 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -76,6 +84,10 @@ import java.util.TreeSet;
  *     child.getValueMap().get("prop-1", String.class);
  * }
  *
+ * The property is only scanned for the child names on construction. The children are parsed in a single pass over
+ * the property, which continues up to a child the first time it is requested; a child is only converted to a resource
+ * when it is requested, and persisting copies the JSON of children which were never requested as is.
+ *
  */
 public class ChildrenAsPropertyResource extends ResourceWrapper {
     private static final Logger log = LoggerFactory.getLogger(ChildrenAsPropertyResource.class);
@@ -88,14 +100,29 @@ public class ChildrenAsPropertyResource extends ResourceWrapper {
 
     private final String propertyName;
 
+    /* the serialized children; the source of all children which have not been deserialized yet */
+    private String propertyData;
+
+    /* child name -> child resource, or null while the child is only present in propertyData */
     private Map<String, Resource> lookupCache = null;
 
+    /* children which were parsed on the way to a requested child, but not converted yet */
+    private final Map<String, JsonObject> parsedChildren = new HashMap<>();
+
+    /* the number of children in lookupCache which are neither converted nor parsed yet */
+    private int unreadCount = 0;
+
+    /* reads the serialized children; all children before its position are parsed */
+    private JsonReader pendingReader = null;
+
     private Set<Resource> orderedCache = null;
 
     private Comparator<Resource> comparator = null;
 
     public static final Comparator<Resource> RESOURCE_NAME_COMPARATOR = new ResourceNameComparator();
 
+    private static final Gson SERIALIZER = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+
     /**
      * ResourceWrapper that allows resource children to be modeled in data stored into a property using the default
      * property name of "children".
@@ -133,18 +160,13 @@ public class ChildrenAsPropertyResource extends ResourceWrapper {
         this.propertyName = propertyName;
         this.comparator = comparator;
 
-        if (this.comparator == null) {
-            this.orderedCache = new LinkedHashSet<Resource>();
-        } else {
-            this.orderedCache = new TreeSet<Resource>(this.comparator);
-        }
-
-        this.lookupCache = new HashMap<String, Resource>();
+        this.lookupCache = new LinkedHashMap<String, Resource>();
 
-        for (SyntheticChildAsPropertyResource r : this.deserialize()) {
-            this.orderedCache.add(r);
-            this.lookupCache.put(r.getName(), r);
+        this.propertyData = this.resource.getValueMap().get(this.propertyName, EMPTY_JSON);
+        for (String name : this.index()) {
+            this.lookupCache.put(name, null);
         }
+        this.unreadCount = this.lookupCache.size();
     }
 
     /**
@@ -152,7 +174,7 @@ public class ChildrenAsPropertyResource extends ResourceWrapper {
      **/
     @Override
     public final Iterator<Resource> listChildren() {
-        return this.orderedCache.iterator();
+        return this.getOrderedCache().iterator();
     }
 
     /**
@@ -160,7 +182,7 @@ public class ChildrenAsPropertyResource extends ResourceWrapper {
      **/
     @Override
     public final Iterable<Resource> getChildren() {
-        return Collections.unmodifiableSet(this.orderedCache);
+        return Collections.unmodifiableSet(this.getOrderedCache());
     }
 
     /**
@@ -168,6 +190,9 @@ public class ChildrenAsPropertyResource extends ResourceWrapper {
      **/
     @Override
     public final Resource getChild(String name) {
+        if (this.lookupCache.containsKey(name) && this.lookupCache.get(name) == null) {
+            this.deserialize(name);
+        }
         return this.lookupCache.get(name);
     }
 
@@ -198,10 +223,11 @@ public class ChildrenAsPropertyResource extends ResourceWrapper {
 
         if (this.lookupCache.containsKey(child.getName())) {
             log.info("Existing synthetic child [ {} ] overwritten", name);
+            this.forget(child.getName());
         }
 
         this.lookupCache.put(child.getName(), child);
-        this.orderedCache.add(child);
+        this.orderedCache = null;
 
         return child;
     }
@@ -216,9 +242,9 @@ public class ChildrenAsPropertyResource extends ResourceWrapper {
      */
     public final void delete(String name) throws RepositoryException {
         if (this.lookupCache.containsKey(name)) {
-            Resource tmp = this.lookupCache.get(name);
-            this.orderedCache.remove(tmp);
+            this.forget(name);
             this.lookupCache.remove(name);
+            this.orderedCache = null;
         }
     }
 
@@ -231,13 +257,11 @@ public class ChildrenAsPropertyResource extends ResourceWrapper {
      */
     public final void deleteAll() throws InvalidDataFormatException {
         // Clear the caches; requires serialize
-        if (this.comparator == null) {
-            this.orderedCache = new LinkedHashSet<Resource>();
-        } else {
-            this.orderedCache = new TreeSet<Resource>(this.comparator);
-        }
-
-        this.lookupCache = new HashMap<String, Resource>();
+        this.lookupCache = new LinkedHashMap<String, Resource>();
+        this.parsedChildren.clear();
+        this.unreadCount = 0;
+        this.pendingReader = null;
+        this.orderedCache = null;
     }
 
     /**
@@ -249,69 +273,256 @@ public class ChildrenAsPropertyResource extends ResourceWrapper {
         this.serialize();
     }
 
+    /**
+     * @return all children, deserializing the ones which were not requested yet, in the order they are serialized in.
+     */
+    private Set<Resource> getOrderedCache() {
+        if (this.orderedCache == null) {
+            this.deserializeAll();
+            if (this.comparator == null) {
+                this.orderedCache = new LinkedHashSet<Resource>(this.lookupCache.values());
+            } else {
+                this.orderedCache = new TreeSet<Resource>(this.comparator);
+                this.orderedCache.addAll(this.lookupCache.values());
+            }
+        }
+        return this.orderedCache;
+    }
 
     /**
      * Serializes all children data as JSON to the resource's propertyName.
      *
+     * Children which were never deserialized are copied from the current property value without being parsed;
+     * only the children which were requested or created are converted again.
+     *
      * @throws InvalidDataFormatException
      */
     private void serialize() throws InvalidDataFormatException {
         final long start = System.currentTimeMillis();
 
         final ModifiableValueMap modifiableValueMap = this.resource.adaptTo(ModifiableValueMap.class);
-        JsonObject childrenJSON = new JsonObject();
-
-        try {
-            // Add the new entries to the JSON
-            for (Resource childResource : this.orderedCache) {
-                childrenJSON.add(childResource.getName(), this.serializeToJSON(childResource));
-            }
-
-            if (childrenJSON.entrySet().size() > 0) {
-                // Persist the JSON back to the Node
-                modifiableValueMap.put(this.propertyName, childrenJSON.toString());
+        final StringWriter childrenJSON = new StringWriter();
+
+        try (JsonReader reader = newReader(); JsonWriter writer = new JsonWriter(childrenJSON)) {
+            reader.beginObject();
+            writer.beginObject();
+            if (this.comparator != null) {
+                // the comparator needs all children, so they are all deserialized already
+                for (Resource childResource : this.getOrderedCache()) {
+                    writer.name(childResource.getName());
+                    SERIALIZER.toJson(this.serializeToJSON(childResource), writer);
+                }
             } else {
-                // Nothing to persist; delete the property
-                modifiableValueMap.remove(this.propertyName);
+                // children which are still only serialized appear in the same order in lookupCache and propertyData
+                for (Map.Entry<String, Resource> child : this.lookupCache.entrySet()) {
+                    writer.name(child.getKey());
+                    if (child.getValue() == null) {
+                        copyChild(reader, writer, child.getKey());
+                    } else {
+                        SERIALIZER.toJson(this.serializeToJSON(child.getValue()), writer);
+                    }
+                }
             }
+            writer.endObject();
+        } catch (IOException | IllegalStateException | JsonParseException e) {
+            throw new InvalidDataFormatException(this.resource, this.propertyName, this.propertyData);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new InvalidDataFormatException(this.resource, this.propertyName, childrenJSON.toString());
+        }
 
-            log.debug("Persist operation for [ {} ] in [ {} ms ]",
-                    this.resource.getPath() + "/" + this.propertyName,
-                    System.currentTimeMillis() - start);
+        if (this.lookupCache.size() > 0) {
+            // Persist the JSON back to the Node
+            this.propertyData = childrenJSON.toString();
+            modifiableValueMap.put(this.propertyName, this.propertyData);
+        } else {
+            // Nothing to persist; delete the property
+            this.propertyData = EMPTY_JSON;
+            modifiableValueMap.remove(this.propertyName);
+        }
 
-        } catch (NoSuchMethodException e) {
-            throw new InvalidDataFormatException(this.resource, this.propertyName, childrenJSON.toString());
-        } catch (IllegalAccessException e) {
-            throw new InvalidDataFormatException(this.resource, this.propertyName, childrenJSON.toString());
-        } catch (InvocationTargetException e) {
-            throw new InvalidDataFormatException(this.resource, this.propertyName, childrenJSON.toString());
+        log.debug("Persist operation for [ {} ] in [ {} ms ]",
+                this.resource.getPath() + "/" + this.propertyName,
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Advances the reader to the named child and copies its value to the writer, token by token.
+     */
+    private static void copyChild(final JsonReader reader, final JsonWriter writer, final String name)
+            throws IOException {
+        while (reader.hasNext()) {
+            if (name.equals(reader.nextName())) {
+                copyValue(reader, writer);
+                return;
+            }
+            reader.skipValue();
         }
+        throw new IllegalStateException("Child " + name + " not found in serialized data");
+    }
+
+    private static void copyValue(final JsonReader reader, final JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copyValue(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copyValue(reader, writer);
+                }
+                reader.endArray();
+                writer.endArray();
+                break;
+            case STRING:
+                writer.value(reader.nextString());
+                break;
+            case NUMBER:
+                writer.jsonValue(reader.nextString());
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            default:
+                throw new IllegalStateException("Unexpected token " + reader.peek());
+        }
+    }
+
+    private JsonReader newReader() {
+        final JsonReader reader = new JsonReader(new StringReader(this.propertyData));
+        // same leniency as the JsonParser used so far
+        reader.setLenient(true);
+        return reader;
     }
 
     /**
-     * Convert the serialized JSON data found in the node property to Resources.
+     * Scans the serialized JSON data found in the node property for the names of the children, without converting
+     * them.
      *
-     * @return the list of children sorting using the comparator.
+     * @return the names of the children in the order they are serialized in.
      * @throws InvalidDataFormatException
      */
-    private List<SyntheticChildAsPropertyResource> deserialize() throws InvalidDataFormatException {
+    private List<String> index() throws InvalidDataFormatException {
         final long start = System.currentTimeMillis();
+        final List<String> names = new ArrayList<>();
 
-        final String propertyData = this.resource.getValueMap().get(this.propertyName, EMPTY_JSON);
+        try (JsonReader reader = newReader()) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                names.add(reader.nextName());
+                reader.skipValue();
+            }
+            reader.endObject();
+        } catch (IOException | IllegalStateException e) {
+            throw new InvalidDataFormatException(this.resource, this.propertyName, this.propertyData);
+        }
 
-        List<SyntheticChildAsPropertyResource> resources;
+        log.debug("Index operation for [ {} ] in [ {} ms ]",
+                this.resource.getPath() + "/" + this.propertyName,
+                System.currentTimeMillis() - start);
 
-        resources = deserializeToSyntheticChildResources(JsonObjectUtil.toJsonObject(propertyData));
+        return names;
+    }
 
-        if (this.comparator != null) {
-            Collections.sort(resources, this.comparator);
+    /**
+     * Converts the named child, which was not converted yet, to a Resource.
+     *
+     * @param name the name of the child to deserialize
+     */
+    private void deserialize(final String name) {
+        JsonObject entryJSON = this.parsedChildren.remove(name);
+        if (entryJSON == null) {
+            entryJSON = this.read(name);
+        }
+        if (entryJSON != null) {
+            this.lookupCache.put(name, this.toSyntheticChildResource(name, entryJSON));
+        }
+    }
+
+    /**
+     * Converts all children which were not converted yet to Resources.
+     */
+    private void deserializeAll() {
+        this.read(null);
+        for (Map.Entry<String, JsonObject> entry : this.parsedChildren.entrySet()) {
+            this.lookupCache.put(entry.getKey(), this.toSyntheticChildResource(entry.getKey(), entry.getValue()));
+        }
+        this.parsedChildren.clear();
+    }
+
+    /**
+     * Parses the serialized JSON data, continuing where the previous call stopped, up to and including the named
+     * child (or up to the end when name is null). All other unread children on the way are kept in parsedChildren,
+     * so each child is parsed only once and looking up all children one by one takes a single pass over the data.
+     *
+     * @param name the name of the child to read, or null to read all children
+     * @return the JSON of the named child, or null if it was not found
+     */
+    private JsonObject read(final String name) {
+        if (this.unreadCount == 0) {
+            return null;
+        }
+        final long start = System.currentTimeMillis();
+        JsonObject found = null;
+
+        try {
+            if (this.pendingReader == null) {
+                this.pendingReader = newReader();
+                this.pendingReader.beginObject();
+            }
+            while (found == null && this.unreadCount > 0 && this.pendingReader.hasNext()) {
+                final String childName = this.pendingReader.nextName();
+                if (this.isUnread(childName)) {
+                    final JsonObject entryJSON = new JsonParser().parse(this.pendingReader).getAsJsonObject();
+                    this.unreadCount--;
+                    if (childName.equals(name)) {
+                        found = entryJSON;
+                    } else {
+                        this.parsedChildren.put(childName, entryJSON);
+                    }
+                } else {
+                    // deleted or overwritten since the data was read
+                    this.pendingReader.skipValue();
+                }
+            }
+        } catch (IOException | JsonParseException e) {
+            // the data was validated when indexing the children
+            throw new IllegalStateException("Unable to read children from " + this.resource.getPath(), e);
+        }
+        if (this.unreadCount == 0) {
+            this.pendingReader = null;
         }
 
         log.debug("Get operation for [ {} ] in [ {} ms ]",
                 this.resource.getPath() + "/" + this.propertyName,
                 System.currentTimeMillis() - start);
+        return found;
+    }
 
-        return resources;
+    private boolean isUnread(final String name) {
+        return this.lookupCache.containsKey(name) && this.lookupCache.get(name) == null
+                && !this.parsedChildren.containsKey(name);
+    }
+
+    /**
+     * Drops the serialized data of a child which is deleted or overwritten.
+     */
+    private void forget(final String name) {
+        if (this.isUnread(name)) {
+            this.unreadCount--;
+        }
+        this.parsedChildren.remove(name);
     }
 
     /**
@@ -362,18 +573,22 @@ public class ChildrenAsPropertyResource extends ResourceWrapper {
                 continue;
             }
 
-            final ValueMap properties = new ValueMapDecorator(new HashMap<>());
-            for (Entry<String, JsonElement> prop : entryJSON.entrySet()) {
-                final String propName = prop.getKey();
-                properties.put(propName, prop.getValue().getAsString());
-            }
-
-            resources.add(new SyntheticChildAsPropertyResource(this.getParent(), nodeName, properties));
+            resources.add(this.toSyntheticChildResource(nodeName, entryJSON));
         }
 
         return resources;
     }
 
+    private SyntheticChildAsPropertyResource toSyntheticChildResource(String nodeName, JsonObject entryJSON) {
+        final ValueMap properties = new ValueMapDecorator(new HashMap<>());
+        for (Entry<String, JsonElement> prop : entryJSON.entrySet()) {
+            final String propName = prop.getKey();
+            properties.put(propName, prop.getValue().getAsString());
+        }
+
+        return new SyntheticChildAsPropertyResource(this.getParent(), nodeName, properties);
+    }
+
     /**
      * Sort by resource name ascending (resource.getName()).
      */
@@ -17,6 +17,13 @@
  */
 package com.adobe.acs.commons.util.impl;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.sling.api.adapter.AdapterManager;
 import org.apache.sling.settings.SlingSettingsService;
 import org.osgi.annotation.bundle.Header;
@@ -41,6 +48,16 @@ public class Activator implements BundleActivator {
      */
     private static final Logger LOG = LoggerFactory.getLogger(Activator.class);
 
+    /**
+     * temporary files of MCP reports, see com.adobe.acs.commons.mcp.model.ReportRowSpool
+     */
+    private static final String REPORT_SPOOL_GLOB = "acs-commons-report*.json";
+
+    /**
+     * spool files are written to while their report is produced, so older ones were abandoned
+     */
+    private static final long REPORT_SPOOL_MAX_AGE = TimeUnit.DAYS.toMillis(1);
+
     /*
      * (non-Javadoc)
      * @see org.osgi.framework.BundleActivator#start(org.osgi.framework.BundleContext)
@@ -59,6 +76,25 @@ public class Activator implements BundleActivator {
         context.ungetService(ref);
         adapterManagerServiceTracker = new ServiceTracker<>(context, AdapterManager.class, null);
         adapterManagerServiceTracker.open();
+        deleteStaleReportSpools();
+    }
+
+    /**
+     * Removes the spool files of reports whose process ended without persisting or dropping them, e.g. because the
+     * instance was stopped while the report was produced.
+     */
+    private static void deleteStaleReportSpools() {
+        long cutoff = System.currentTimeMillis() - REPORT_SPOOL_MAX_AGE;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(System.getProperty("java.io.tmpdir")),
+                REPORT_SPOOL_GLOB)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < cutoff) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOG.warn("Unable to remove stale report spool files", ex);
+        }
     }
 
     /*
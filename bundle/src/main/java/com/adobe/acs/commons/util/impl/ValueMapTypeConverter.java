@@ -102,7 +102,8 @@ public class ValueMapTypeConverter {
     }
 
     private Object handleSetType(ParameterizedType pType) {
-        return new HashSet<>((List) handleListType(pType));
+        List list = (List) handleListType(pType);
+        return list != null ? new HashSet<>(list) : null;
     }
 
     private Object handleListType(ParameterizedType pType) {
@@ -0,0 +1,322 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.util.visitors;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.sling.api.resource.AbstractResource;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceMetadata;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+
+import javax.jcr.Node;
+import javax.jcr.PropertyIterator;
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel tree walk for {@link SimpleFilteringResourceVisitor}.
+ * <p>
+ * Worker threads share a queue of paths still to be expanded, each worker reading the tree with its own clone of the
+ * head's resource resolver. Idle workers pick up whatever subtree is queued next, so uneven trees are balanced
+ * across workers. Each worker copies the name, type and properties of the resources it reads, and these copies go
+ * through a bounded queue back to the calling thread, which invokes the visitor callbacks with them, so callbacks
+ * never run concurrently and the calling thread does not read the visited resources again. The copies belong to the
+ * head's resource resolver; anything beyond their properties, such as their children or adapting them to other
+ * types, is read through that resolver. Properties of resources with binary properties are not copied either, since
+ * their streams would belong to a worker's resolver, which is closed once the walk is over.
+ * <p>
+ * The workers run on the executor the visitor provides, which is not shut down afterwards. Resource resolvers which
+ * cannot be cloned are walked on the calling thread instead.
+ * <p>
+ * Within a worker the breadth or depth first mode decides which queued path is expanded next, but the order in
+ * which resources reach the callbacks is not deterministic.
+ */
+final class ParallelTraversal {
+
+    static final int VISIT_QUEUE_CAPACITY = 1000;
+    private static final long POLL_MILLIS = 50;
+
+    private final SimpleFilteringResourceVisitor visitor;
+    private final int parallelism;
+    private final ExecutorService executor;
+    private final BlockingQueue<Visit> visits = new ArrayBlockingQueue<>(VISIT_QUEUE_CAPACITY);
+    private final LinkedBlockingDeque<String> work = new LinkedBlockingDeque<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private volatile boolean stopped;
+
+    ParallelTraversal(SimpleFilteringResourceVisitor visitor, int parallelism, ExecutorService executor) {
+        this.visitor = visitor;
+        this.parallelism = parallelism;
+        this.executor = executor;
+    }
+
+    /**
+     * @return false if the head's resource resolver cannot be cloned, in which case nothing was visited
+     */
+    @SuppressWarnings("squid:S2142")
+    boolean accept(final Resource head) throws TraversalException {
+        final ResourceResolver resolver = head.getResourceResolver();
+        final int headLevel = SimpleFilteringResourceVisitor.getDepth(head.getPath());
+        final List<ResourceResolver> workerResolvers = new ArrayList<>();
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                workerResolvers.add(resolver.clone(null));
+            }
+        } catch (UnsupportedOperationException e) {
+            workerResolvers.forEach(ResourceResolver::close);
+            return false;
+        } catch (LoginException e) {
+            workerResolvers.forEach(ResourceResolver::close);
+            throw new TraversalException("Unable to open resource resolvers for a parallel traversal", e);
+        }
+
+        final CountDownLatch workersDone = new CountDownLatch(workerResolvers.size());
+        try {
+            pending.set(1);
+            work.add(head.getPath());
+            for (final ResourceResolver workerResolver : workerResolvers) {
+                executor.execute(() -> {
+                    try {
+                        expand(workerResolver, headLevel);
+                    } finally {
+                        workersDone.countDown();
+                    }
+                });
+            }
+            drain(resolver);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TraversalException("Interrupted while traversing " + head.getPath(), e);
+        } finally {
+            stopped = true;
+            awaitWorkers(workersDone);
+            workerResolvers.forEach(ResourceResolver::close);
+        }
+        if (failure.get() != null) {
+            throw new TraversalException(failure.get());
+        }
+        return true;
+    }
+
+    private void drain(final ResourceResolver resolver) throws InterruptedException, TraversalException {
+        while (failure.get() == null) {
+            final Visit visit = visits.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (visit != null) {
+                visitor.visit(new VisitedResource(resolver, visit), visit.level, visit.traversed);
+            } else if (pending.get() == 0 && visits.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private void expand(final ResourceResolver workerResolver, final int headLevel) {
+        while (!stopped) {
+            try {
+                final String path = work.pollFirst(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (path == null) {
+                    if (pending.get() == 0) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    expand(workerResolver, path, headLevel);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+                stopped = true;
+            }
+        }
+    }
+
+    private void expand(final ResourceResolver workerResolver, final String path, final int headLevel) throws Exception {
+        final Resource res = workerResolver.getResource(path);
+        if (res == null) {
+            return;
+        }
+        final boolean traversed = visitor.traversalFilter == null || visitor.traversalFilter.apply(res);
+        emit(new Visit(res, SimpleFilteringResourceVisitor.getDepth(path) - headLevel, traversed));
+        if (traversed) {
+            final List<String> childPaths = new ArrayList<>();
+            res.getChildren().forEach(child -> childPaths.add(child.getPath()));
+            pending.addAndGet(childPaths.size());
+            if (visitor.mode == SimpleFilteringResourceVisitor.TraversalMode.DEPTH) {
+                for (int i = childPaths.size() - 1; i >= 0; i--) {
+                    work.addFirst(childPaths.get(i));
+                }
+            } else {
+                work.addAll(childPaths);
+            }
+        }
+    }
+
+    private void emit(final Visit visit) throws InterruptedException {
+        while (!stopped) {
+            if (visits.offer(visit, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Workers notice that the walk stopped within one poll, so this only waits for the resources being read.
+     */
+    @SuppressWarnings("squid:S2142")
+    private static void awaitWorkers(final CountDownLatch workersDone) {
+        try {
+            workersDone.await(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Visit {
+        private final String path;
+        private final String resourceType;
+        private final String resourceSuperType;
+        /* null if the resource has binary properties, which are read through the head's resolver instead */
+        private final Map<String, Object> properties;
+        private final int level;
+        private final boolean traversed;
+
+        Visit(Resource res, int level, boolean traversed) throws RepositoryException {
+            this.path = res.getPath();
+            this.resourceType = res.getResourceType();
+            this.resourceSuperType = res.getResourceSuperType();
+            this.properties = copyProperties(res);
+            this.level = level;
+            this.traversed = traversed;
+        }
+
+        private static Map<String, Object> copyProperties(final Resource res) throws RepositoryException {
+            final Node node = res.adaptTo(Node.class);
+            if (node != null) {
+                // check the property types first, as reading a binary value opens its stream
+                for (final PropertyIterator properties = node.getProperties(); properties.hasNext(); ) {
+                    if (properties.nextProperty().getType() == PropertyType.BINARY) {
+                        return null;
+                    }
+                }
+                return new HashMap<>(res.getValueMap());
+            }
+            final Map<String, Object> copy = new HashMap<>();
+            for (final Map.Entry<String, Object> entry : res.getValueMap().entrySet()) {
+                if (entry.getValue() instanceof InputStream) {
+                    IOUtils.closeQuietly((InputStream) entry.getValue());
+                    return null;
+                }
+                copy.put(entry.getKey(), entry.getValue());
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * A resource read by a worker, handed to the callbacks on the calling thread.
+     */
+    private static final class VisitedResource extends AbstractResource {
+        private final ResourceResolver resolver;
+        private final Visit visit;
+        private final ResourceMetadata metadata = new ResourceMetadata();
+        private ValueMap properties;
+        private Resource resolved;
+
+        VisitedResource(ResourceResolver resolver, Visit visit) {
+            this.resolver = resolver;
+            this.visit = visit;
+            metadata.setResolutionPath(visit.path);
+        }
+
+        @Override
+        public String getPath() {
+            return visit.path;
+        }
+
+        @Override
+        public String getResourceType() {
+            return visit.resourceType;
+        }
+
+        @Override
+        public String getResourceSuperType() {
+            return visit.resourceSuperType;
+        }
+
+        @Override
+        public ResourceMetadata getResourceMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public ResourceResolver getResourceResolver() {
+            return resolver;
+        }
+
+        @Override
+        public ValueMap getValueMap() {
+            if (properties == null) {
+                if (visit.properties != null) {
+                    properties = new ValueMapDecorator(visit.properties);
+                } else {
+                    final Resource res = resolve();
+                    properties = res == null ? ValueMap.EMPTY : res.getValueMap();
+                }
+            }
+            return properties;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T adaptTo(Class<T> type) {
+            if (type == ValueMap.class || type == Map.class) {
+                return (T) getValueMap();
+            }
+            final Resource res = resolve();
+            return res == null ? null : res.adaptTo(type);
+        }
+
+        private Resource resolve() {
+            if (resolved == null) {
+                resolved = resolver.getResource(visit.path);
+            }
+            return resolved;
+        }
+    }
+}
@@ -24,6 +24,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -44,6 +48,9 @@ public class SimpleFilteringResourceVisitor {
     LinkedList<Resource> stack = new LinkedList<>();
     CheckedFunction<String, Boolean> propertyFilter = s -> true;
     CheckedFunction<Resource, Boolean> traversalFilter = r -> true;
+    int parallelism = 1;
+    ExecutorService executor = null;
+    private ThreadPoolExecutor ownExecutor = null;
 
     public void setPropertyFilter(Function<String, Boolean> filter) {
         propertyFilter = CheckedFunction.from(filter);
@@ -93,11 +100,61 @@ public class SimpleFilteringResourceVisitor {
         mode = TraversalMode.DEPTH;
     }
 
+    /**
+     * Walk the tree with several threads, each reading with its own clone of the head's resource resolver.
+     * Visitor callbacks are still invoked one at a time on the calling thread, with copies of the resources the
+     * workers read that belong to the head's resource resolver, but in no particular order; the traversal filter is
+     * invoked concurrently on the worker threads.
+     * <p>
+     * The threads are kept by the visitor and reused by later walks until they have been idle for a minute.
+     *
+     * @param parallelism number of threads reading the tree, 1 (the default) walks it on the calling thread
+     */
+    public void setParallelism(int parallelism) {
+        setParallelism(parallelism, null);
+    }
+
+    /**
+     * Walk the tree with several threads as {@link #setParallelism(int)} does, running the workers on an executor
+     * owned by the caller. The executor is not shut down by the visitor, and must be able to run the given number
+     * of tasks on threads other than the one calling {@link #accept(Resource)}.
+     *
+     * @param parallelism number of threads reading the tree, 1 (the default) walks it on the calling thread
+     * @param executor    executor running the workers, or null to let the visitor manage its own threads
+     */
+    public void setParallelism(int parallelism, ExecutorService executor) {
+        this.parallelism = Math.max(1, parallelism);
+        this.executor = executor;
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor != null) {
+            return executor;
+        }
+        if (ownExecutor == null || ownExecutor.getMaximumPoolSize() != parallelism) {
+            if (ownExecutor != null) {
+                ownExecutor.shutdown();
+            }
+            ownExecutor = new ThreadPoolExecutor(parallelism, parallelism, 1, TimeUnit.MINUTES,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        final Thread thread = new Thread(runnable, "Resource visitor worker");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            ownExecutor.allowCoreThreadTimeOut(true);
+        }
+        return ownExecutor;
+    }
+
     public void accept(final Resource head) throws TraversalException {
         if (head == null) {
             return;
         }
 
+        if (parallelism > 1 && new ParallelTraversal(this, parallelism, getExecutor()).accept(head)) {
+            return;
+        }
+
         stack.clear();
         stack.add(head);
 
@@ -128,6 +185,26 @@ public class SimpleFilteringResourceVisitor {
         }
     }
 
+    /**
+     * Invoke the callbacks for a resource whose traversal filter result is already known.
+     */
+    void visit(Resource res, int level, boolean traversed) throws TraversalException {
+        if (propertyVisitor != null) {
+            visitProperties(res, level);
+        }
+        try {
+            if (traversed) {
+                if (resourceVisitor != null) {
+                    resourceVisitor.accept(res, level);
+                }
+            } else if (leafVisitor != null) {
+                leafVisitor.accept(res, level);
+            }
+        } catch (Exception e) {
+            throw new TraversalException(e);
+        }
+    }
+
     private void visitProperties(Resource res, int level) throws TraversalException {
         try {
             for (Entry<String, Object> entry : res.getValueMap().entrySet()) {
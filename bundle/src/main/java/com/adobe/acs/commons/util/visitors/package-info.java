@@ -18,7 +18,7 @@
 /**
  * Miscellaneous Utilities.
  */
-@Version("3.0.0")
+@Version("3.1.0")
 package com.adobe.acs.commons.util.visitors;
 
 import org.osgi.annotation.versioning.Version;
@@ -27,6 +27,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.ConfigurationPolicy;
+import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Properties;
 import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
@@ -36,10 +37,16 @@ import org.apache.sling.api.SlingHttpServletResponse;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.apache.sling.commons.osgi.PropertiesUtil;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
@@ -49,7 +56,14 @@ import javax.servlet.ServletResponse;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Dictionary;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component(
         label = "ACS AEM Commons - Component-Level Error Handler",
@@ -88,6 +102,7 @@ public class ComponentErrorHandlerImpl implements ComponentErrorHandler, Filter
     private static final Map<String, Object> AUTH_INFO;
     private static final String DISABLED = "Disabled";
     private static final String ENABLED = "Enabled";
+    private static final String[] DEFAULT_SEARCH_PATHS = new String[]{"/apps/", "/libs/"};
 
     static {
         AUTH_INFO = Collections.singletonMap(ResourceResolverFactory.SUBSERVICE, (Object) SERVICE_NAME);
@@ -163,7 +178,10 @@ public class ComponentErrorHandlerImpl implements ComponentErrorHandler, Filter
 
     private static final String[] DEFAULT_SUPPRESSED_RESOURCE_TYPES = new String[]{};
 
-    private String[] suppressedResourceTypes = DEFAULT_SUPPRESSED_RESOURCE_TYPES;
+    /**
+     * Suppressed resource types, relative to the search paths.
+     */
+    private Set<String> suppressedResourceTypes = Collections.emptySet();
 
     @Property(label = "Suppressed Resource Types",
             description = "Resource types this Filter will ignore during Sling Includes.",
@@ -171,6 +189,14 @@ public class ComponentErrorHandlerImpl implements ComponentErrorHandler, Filter
             value = {})
     public static final String PROP_SUPPRESSED_RESOURCE_TYPES = "suppress-resource-types";
 
+    /**
+     * Error HTML by path, read from the repository once and dropped when the HTML file changes.
+     */
+    private final Map<String, String> errorHTMLCache = new ConcurrentHashMap<>();
+
+    private ComponentErrorHandlerStats stats;
+    private ServiceRegistration<?> statsRegistration;
+    private ServiceRegistration<?> listenerRegistration;
 
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
@@ -260,6 +286,10 @@ public class ComponentErrorHandlerImpl implements ComponentErrorHandler, Filter
         // Log the error to the log files, so the exception is not lost
         log.error(ex.getMessage(), ex);
 
+        if (stats != null) {
+            stats.recordError(resource.getResourceType());
+        }
+
         // Write the custom "pretty" error message out to the response
         this.writeErrorHTML(slingResponse, resource, pathToHTML);
     }
@@ -278,16 +308,33 @@ public class ComponentErrorHandlerImpl implements ComponentErrorHandler, Filter
             return "";
         }
 
+        String html = errorHTMLCache.get(path);
+        if (html != null) {
+            return html;
+        }
+
         try (ResourceResolver resourceResolver = resourceResolverFactory.getServiceResourceResolver(AUTH_INFO)) {
             // Component error renditions are typically stored under /apps as part of the application; and thus
             // requires elevated ACLs to work on Publish instances.
 
-            return ResourceDataUtil.getNTFileAsString(path, resourceResolver);
+            html = ResourceDataUtil.getNTFileAsString(path, resourceResolver);
         } catch (final Exception e) {
             log.error("Could not get the component error HTML at [ {} ], using blank.", path);
+            return "";
         }
 
-        return "";
+        if (html != null) {
+            errorHTMLCache.put(path, html);
+        }
+        return StringUtils.defaultString(html);
+    }
+
+    private void onErrorHTMLChange(final List<ResourceChange> changes) {
+        for (final ResourceChange change : changes) {
+            // the HTML file itself or its jcr:content node changed
+            errorHTMLCache.keySet().removeIf(path -> StringUtils.equals(change.getPath(), path)
+                    || StringUtils.startsWith(change.getPath(), path + "/"));
+        }
     }
 
     protected final boolean accepts(final SlingHttpServletRequest request, final SlingHttpServletResponse response) {
@@ -313,14 +360,46 @@ public class ComponentErrorHandlerImpl implements ComponentErrorHandler, Filter
         }
 
         // Check to make sure the SlingRequest's resource isn't in the suppress list
-        final SlingHttpServletRequest slingRequest = (SlingHttpServletRequest) request;
-        for (final String suppressedResourceType : suppressedResourceTypes) {
-            if (slingRequest.getResource().isResourceType(suppressedResourceType)) {
-                return false;
+        return !this.isSuppressedResourceType(request.getResource());
+    }
+
+    /**
+     * Looks up the resource type and its super types in the suppressed resource types, equivalent to
+     * {@link Resource#isResourceType(String)} for each suppressed resource type.
+     */
+    private boolean isSuppressedResourceType(final Resource resource) {
+        if (suppressedResourceTypes.isEmpty()) {
+            return false;
+        }
+
+        final ResourceResolver resourceResolver = resource.getResourceResolver();
+        final String[] searchPaths = resourceResolver != null ? resourceResolver.getSearchPath() : DEFAULT_SEARCH_PATHS;
+        if (suppressedResourceTypes.contains(toRelativeResourceType(resource.getResourceType(), searchPaths))) {
+            return true;
+        } else if (resourceResolver == null) {
+            return false;
+        }
+
+        final Set<String> checked = new HashSet<>();
+        String superType = resourceResolver.getParentResourceType(resource);
+        while (superType != null && checked.add(superType)) {
+            if (suppressedResourceTypes.contains(toRelativeResourceType(superType, searchPaths))) {
+                return true;
             }
+            superType = resourceResolver.getParentResourceType(superType);
         }
+        return false;
+    }
 
-        return true;
+    private static String toRelativeResourceType(final String resourceType, final String[] searchPaths) {
+        if (resourceType != null && resourceType.startsWith("/")) {
+            for (final String searchPath : searchPaths) {
+                if (resourceType.startsWith(searchPath)) {
+                    return resourceType.substring(searchPath.length());
+                }
+            }
+        }
+        return resourceType;
     }
 
     private boolean isFirstInChain(final SlingHttpServletRequest request) {
@@ -340,7 +419,8 @@ public class ComponentErrorHandlerImpl implements ComponentErrorHandler, Filter
     }
 
     @Activate
-    public final void activate(final Map<String, String> config) {
+    public final void activate(final BundleContext bundleContext, final Map<String, String> config)
+            throws NotCompliantMBeanException {
         final String legacyPrefix = "prop.";
 
         editModeEnabled = PropertiesUtil.toBoolean(config.get(PROP_EDIT_ENABLED),
@@ -381,10 +461,46 @@ public class ComponentErrorHandlerImpl implements ComponentErrorHandler, Filter
                 publishModeEnabled ? ENABLED : DISABLED,
                 publishErrorHTMLPath);
 
-        suppressedResourceTypes = PropertiesUtil.toStringArray(config.get(PROP_SUPPRESSED_RESOURCE_TYPES),
+        final String[] resourceTypes = PropertiesUtil.toStringArray(config.get(PROP_SUPPRESSED_RESOURCE_TYPES),
                 DEFAULT_SUPPRESSED_RESOURCE_TYPES);
+        suppressedResourceTypes = new HashSet<>();
+        for (final String resourceType : resourceTypes) {
+            suppressedResourceTypes.add(toRelativeResourceType(resourceType, DEFAULT_SEARCH_PATHS));
+        }
+
+        log.info("Suppressed Resource Types: {}", Arrays.toString(resourceTypes));
 
-        log.info("Suppressed Resource Types: {}", Arrays.toString(suppressedResourceTypes));
+        errorHTMLCache.clear();
+        final Set<String> errorHTMLPaths = new LinkedHashSet<>();
+        for (final String path : new String[]{editErrorHTMLPath, previewErrorHTMLPath, publishErrorHTMLPath}) {
+            if (StringUtils.isNotBlank(path) && !StringUtils.equals(BLANK_HTML, path)) {
+                errorHTMLPaths.add(path);
+            }
+        }
+        if (!errorHTMLPaths.isEmpty()) {
+            final Dictionary<String, Object> listenerProps = new Hashtable<>();
+            listenerProps.put(ResourceChangeListener.PATHS, errorHTMLPaths.toArray(new String[0]));
+            listenerRegistration = bundleContext.registerService(ResourceChangeListener.class,
+                    (ResourceChangeListener) this::onErrorHTMLChange, listenerProps);
+        }
+
+        stats = new ComponentErrorHandlerStats();
+        final Dictionary<String, Object> mbeanProps = new Hashtable<>();
+        mbeanProps.put("jmx.objectname", "com.adobe.acs.commons:type=Component Error Handler");
+        statsRegistration = bundleContext.registerService(DynamicMBean.class.getName(), stats, mbeanProps);
+    }
+
+    @Deactivate
+    protected final void deactivate() {
+        if (listenerRegistration != null) {
+            listenerRegistration.unregister();
+            listenerRegistration = null;
+        }
+        if (statsRegistration != null) {
+            statsRegistration.unregister();
+            statsRegistration = null;
+        }
+        errorHTMLCache.clear();
     }
 
     @Override
@@ -0,0 +1,102 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.wcm.impl;
+
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+
+import javax.management.NotCompliantMBeanException;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the component errors handled by the {@link ComponentErrorHandlerImpl} per resource type.
+ */
+public class ComponentErrorHandlerStats extends AnnotatedStandardMBean implements ComponentErrorHandlerStatsMBean {
+
+    /**
+     * Errors of resource types beyond this number are only counted in total.
+     */
+    private static final int MAX_RESOURCE_TYPES = 1000;
+
+    private final Map<String, LongAdder> errorCounts = new ConcurrentHashMap<>();
+    private final LongAdder errorCount = new LongAdder();
+
+    public ComponentErrorHandlerStats() throws NotCompliantMBeanException {
+        super(ComponentErrorHandlerStatsMBean.class);
+    }
+
+    void recordError(String resourceType) {
+        errorCount.increment();
+        if (resourceType == null) {
+            return;
+        }
+        LongAdder counter = errorCounts.get(resourceType);
+        if (counter == null && errorCounts.size() < MAX_RESOURCE_TYPES) {
+            counter = errorCounts.computeIfAbsent(resourceType, type -> new LongAdder());
+        }
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    @Override
+    @SuppressWarnings("squid:S1192")
+    public TabularData getErrorCounts() throws OpenDataException {
+        final CompositeType errorType = new CompositeType(
+                "Component Errors",
+                "Component Errors",
+                new String[]{"Resource Type", "Errors"},
+                new String[]{"Resource Type", "Errors"},
+                new OpenType[]{SimpleType.STRING, SimpleType.LONG});
+
+        final TabularDataSupport tabularData = new TabularDataSupport(new TabularType(
+                "Component Errors",
+                "Component Errors",
+                errorType,
+                new String[]{"Resource Type"}));
+
+        for (final Map.Entry<String, LongAdder> entry : errorCounts.entrySet()) {
+            final Map<String, Object> data = new HashMap<>();
+            data.put("Resource Type", entry.getKey());
+            data.put("Errors", entry.getValue().sum());
+            tabularData.put(new CompositeDataSupport(errorType, data));
+        }
+        return tabularData;
+    }
+
+    @Override
+    public void resetErrorCounts() {
+        errorCounts.clear();
+        errorCount.reset();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.wcm.impl;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.TabularData;
+
+@Description("ACS AEM Commons - Component-Level Error Handler")
+public interface ComponentErrorHandlerStatsMBean {
+
+    @Description("Number of component errors handled")
+    long getErrorCount();
+
+    @Description("Component errors handled per resource type")
+    TabularData getErrorCounts() throws OpenDataException;
+
+    /* Operations */
+    @Description("Reset the component error counts")
+    void resetErrorCounts();
+}
@@ -18,7 +18,9 @@
 package com.adobe.acs.commons.wcm.properties.shared.impl;
 
 import com.adobe.acs.commons.wcm.properties.shared.SharedComponentProperties;
+import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.ReferencePolicyOption;
@@ -26,12 +28,17 @@ import org.apache.felix.scr.annotations.Service;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.apache.sling.api.scripting.SlingBindings;
 import org.apache.sling.scripting.api.BindingsValuesProvider;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.script.Bindings;
+import java.util.Dictionary;
+import java.util.Hashtable;
 
 /**
  * Bindings Values Provider that adds bindings for globalProperties,
@@ -47,6 +54,10 @@ import javax.script.Bindings;
  * global properties for the current component, giving preference
  * to instance-level values, then shared values, and finally global
  * values when properties exist at multiple levels with the same name.
+ * <p>
+ * The global and shared property maps are cached across requests and dropped when their
+ * resources change; the merged properties depend on the component instance and are only
+ * cached for the current request.
  */
 @Component
 @Service
@@ -59,6 +70,29 @@ public class SharedComponentPropertiesBindingsValuesProvider implements Bindings
     @Reference(policyOption = ReferencePolicyOption.GREEDY, cardinality = ReferenceCardinality.OPTIONAL_UNARY)
     SharedComponentProperties sharedComponentProperties;
 
+    private static final String CONTENT_ROOT = "/content";
+
+    private SharedPropertiesCache propertiesCache;
+    private ServiceRegistration<ResourceChangeListener> listenerRegistration;
+
+    @Activate
+    protected void activate(final BundleContext bundleContext) {
+        final SharedPropertiesCache cache = new SharedPropertiesCache();
+        final Dictionary<String, Object> properties = new Hashtable<>();
+        properties.put(ResourceChangeListener.PATHS, new String[]{ CONTENT_ROOT });
+        listenerRegistration = bundleContext.registerService(ResourceChangeListener.class, cache, properties);
+        propertiesCache = cache;
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if (listenerRegistration != null) {
+            listenerRegistration.unregister();
+            listenerRegistration = null;
+        }
+        propertiesCache = null;
+    }
+
     @Override
     public void addBindings(final Bindings bindings) {
         final SlingHttpServletRequest request = (SlingHttpServletRequest) bindings.get(SlingBindings.REQUEST);
@@ -86,7 +120,7 @@ public class SharedComponentPropertiesBindingsValuesProvider implements Bindings
                 bindings.putAll(cache.getBindings(globalPropsPath, (newBindings) -> {
                     final Resource globalPropsResource = resource.getResourceResolver().getResource(globalPropsPath);
                     if (globalPropsResource != null) {
-                        newBindings.put(SharedComponentProperties.GLOBAL_PROPERTIES, globalPropsResource.getValueMap());
+                        newBindings.put(SharedComponentProperties.GLOBAL_PROPERTIES, getProperties(globalPropsResource));
                         newBindings.put(SharedComponentProperties.GLOBAL_PROPERTIES_RESOURCE, globalPropsResource);
                     }
                 }));
@@ -97,7 +131,7 @@ public class SharedComponentPropertiesBindingsValuesProvider implements Bindings
                 bindings.putAll(cache.getBindings(sharedPropsPath, (newBindings) -> {
                     Resource sharedPropsResource = resource.getResourceResolver().getResource(sharedPropsPath);
                     if (sharedPropsResource != null) {
-                        newBindings.put(SharedComponentProperties.SHARED_PROPERTIES, sharedPropsResource.getValueMap());
+                        newBindings.put(SharedComponentProperties.SHARED_PROPERTIES, getProperties(sharedPropsResource));
                         newBindings.put(SharedComponentProperties.SHARED_PROPERTIES_RESOURCE, sharedPropsResource);
                     }
                 }));
@@ -116,6 +150,11 @@ public class SharedComponentPropertiesBindingsValuesProvider implements Bindings
         }
     }
 
+    private ValueMap getProperties(final Resource propertiesResource) {
+        final SharedPropertiesCache cache = propertiesCache;
+        return cache != null ? cache.getProperties(propertiesResource) : propertiesResource.getValueMap();
+    }
+
     private void setDefaultBindings(final Bindings bindings,
                                     final Resource resource) {
         if (!bindings.containsKey(SharedComponentProperties.GLOBAL_PROPERTIES)) {
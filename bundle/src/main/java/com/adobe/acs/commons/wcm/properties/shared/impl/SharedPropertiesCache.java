@@ -0,0 +1,81 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.wcm.properties.shared.impl;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Application wide cache of the global and shared property maps, keyed by the path of the properties resource.
+ * <p>
+ * Cached maps are immutable copies, so they can be handed to any number of requests. They are dropped when the
+ * properties resource, or the page holding it, changes. The resources themselves are still resolved per request, so
+ * only sessions that can read a properties resource get its cached map.
+ */
+final class SharedPropertiesCache implements ResourceChangeListener, ExternalResourceChangeListener {
+
+    static final int MAX_ENTRIES = 1000;
+
+    private final Map<String, ValueMap> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param resource the global or shared properties resource, as resolved for the current request
+     * @return the immutable properties of the resource
+     */
+    ValueMap getProperties(final Resource resource) {
+        final ValueMap cached = cache.get(resource.getPath());
+        if (cached != null) {
+            return cached;
+        }
+        final ValueMap properties = resource.getValueMap();
+        final Map<String, Object> copy = new HashMap<>(properties);
+        if (copy.values().stream().anyMatch(InputStream.class::isInstance)) {
+            // binary streams can only be read once, keep serving those maps from the resource
+            return properties;
+        }
+        final ValueMap immutable = new ValueMapDecorator(Collections.unmodifiableMap(copy));
+        if (cache.size() >= MAX_ENTRIES) {
+            cache.clear();
+        }
+        cache.put(resource.getPath(), immutable);
+        return immutable;
+    }
+
+    @Override
+    public void onChange(final List<ResourceChange> changes) {
+        for (final ResourceChange change : changes) {
+            final String path = change.getPath();
+            cache.keySet().removeIf(key -> key.equals(path) || key.startsWith(path + "/") || path.startsWith(key + "/"));
+        }
+    }
+
+    int size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.wcm.vanity.impl;
+
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.query.Query;
+import javax.management.NotCompliantMBeanException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory index of the <code>sling:vanityPath</code> properties below a set of content paths.
+ * <p>
+ * The index maps every vanity path to the paths of the resources it points to, so both hits and misses are answered
+ * with a single map lookup instead of a resource resolution. It is built with one query on activation and kept
+ * current from resource change events afterwards. As it is built with a service user, hits are only reported for
+ * targets the requesting resource resolver can read.
+ */
+public class VanityPathIndex extends AnnotatedStandardMBean implements VanityPathIndexMBean, ResourceChangeListener,
+        ExternalResourceChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(VanityPathIndex.class);
+
+    static final String SERVICE_NAME = "vanity-path-index";
+    static final String PN_VANITY_PATH = "sling:vanityPath";
+
+    private static final Map<String, Object> AUTH_INFO =
+            Collections.singletonMap(ResourceResolverFactory.SUBSERVICE, (Object) SERVICE_NAME);
+
+    private final ResourceResolverFactory resourceResolverFactory;
+    private final String[] paths;
+
+    /* vanity path -> paths of the resources it points to */
+    private final Map<String, Set<String>> targetsByVanityPath = new ConcurrentHashMap<>();
+    /* path of the resource holding the property -> its vanity paths, sorted so that subtrees are contiguous */
+    private final NavigableMap<String, String[]> vanityPathsByResource = new TreeMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile boolean ready = false;
+    private volatile long lastBuildDuration = 0;
+
+    public VanityPathIndex(final ResourceResolverFactory resourceResolverFactory, final String[] paths)
+            throws NotCompliantMBeanException {
+        super(VanityPathIndexMBean.class);
+        this.resourceResolverFactory = resourceResolverFactory;
+        this.paths = paths.clone();
+    }
+
+    /**
+     * @return true once the index has been built and can answer lookups
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @param vanityPath       the vanity path to look up, with or without its extension
+     * @param pathScope        the path the target has to be below
+     * @param resourceResolver the resolver of the request, which has to be able to read the target
+     * @return true if a resource below the path scope that the resolver can read declares the vanity path
+     */
+    public boolean isVanityPath(final String vanityPath, final String pathScope, final ResourceResolver resourceResolver) {
+        final String normalized = normalize(vanityPath);
+        final int extension = normalized.lastIndexOf('.');
+        if (matches(targetsByVanityPath.get(normalized), pathScope, resourceResolver)
+                || (extension > normalized.lastIndexOf('/')
+                    && matches(targetsByVanityPath.get(normalized.substring(0, extension)), pathScope, resourceResolver))) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    private static boolean matches(final Set<String> targets, final String pathScope,
+                                   final ResourceResolver resourceResolver) {
+        if (targets != null) {
+            for (final String target : targets) {
+                if (StringUtils.startsWith(target, pathScope) && resourceResolver.getResource(target) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void rebuild() {
+        final long start = System.nanoTime();
+        try (ResourceResolver resourceResolver = resourceResolverFactory.getServiceResourceResolver(AUTH_INFO)) {
+            synchronized (vanityPathsByResource) {
+                vanityPathsByResource.clear();
+                targetsByVanityPath.clear();
+                for (final String path : paths) {
+                    indexTree(resourceResolver, path);
+                }
+            }
+            ready = true;
+            lastBuildDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.info("Indexed {} vanity paths of {} resources in {} ms", getVanityPathCount(), getResourceCount(),
+                    lastBuildDuration);
+        } catch (LoginException | RuntimeException e) {
+            ready = false;
+            log.warn("Unable to build the vanity path index, vanity paths will be resolved on every request", e);
+        }
+    }
+
+    @Override
+    public void onChange(final List<ResourceChange> changes) {
+        if (!ready) {
+            return;
+        }
+        try (ResourceResolver resourceResolver = resourceResolverFactory.getServiceResourceResolver(AUTH_INFO)) {
+            final List<String> addedTrees = new ArrayList<>();
+            synchronized (vanityPathsByResource) {
+                for (final ResourceChange change : changes) {
+                    final String path = change.getPath();
+                    switch (change.getType()) {
+                        case REMOVED:
+                            removeTree(path);
+                            break;
+                        case ADDED:
+                            addedTrees.add(path);
+                            break;
+                        default:
+                            index(path, resourceResolver.getResource(path));
+                    }
+                }
+                // A moved or imported tree only reports its root, so look for vanity paths below the topmost additions
+                for (final String path : topmost(addedTrees)) {
+                    index(path, resourceResolver.getResource(path));
+                    indexTree(resourceResolver, path);
+                }
+            }
+        } catch (LoginException | RuntimeException e) {
+            log.warn("Unable to update the vanity path index, rebuilding it", e);
+            rebuild();
+        }
+    }
+
+    private void indexTree(final ResourceResolver resourceResolver, final String path) {
+        final String query = "SELECT * FROM [nt:base] AS s WHERE ISDESCENDANTNODE(s, '" + path.replace("'", "''")
+                + "') AND s.[" + PN_VANITY_PATH + "] IS NOT NULL";
+        final Iterator<Resource> resources = resourceResolver.findResources(query, Query.JCR_SQL2);
+        while (resources.hasNext()) {
+            final Resource resource = resources.next();
+            index(resource.getPath(), resource);
+        }
+    }
+
+    private void index(final String path, final Resource resource) {
+        final String[] vanityPaths = resource == null ? null
+                : resource.getValueMap().get(PN_VANITY_PATH, String[].class);
+        final String[] previous = vanityPathsByResource.remove(path);
+        if (previous != null) {
+            for (final String vanityPath : previous) {
+                unlink(vanityPath, getTarget(path));
+            }
+        }
+        if (vanityPaths != null && vanityPaths.length > 0) {
+            final String[] normalized = Arrays.stream(vanityPaths).filter(StringUtils::isNotBlank)
+                    .map(VanityPathIndex::normalize).distinct().toArray(String[]::new);
+            vanityPathsByResource.put(path, normalized);
+            for (final String vanityPath : normalized) {
+                link(vanityPath, getTarget(path));
+            }
+        }
+    }
+
+    private void removeTree(final String path) {
+        index(path, null);
+        // '0' follows '/', so this view holds exactly the descendants of the path
+        final Iterator<Map.Entry<String, String[]>> entries =
+                vanityPathsByResource.subMap(path + "/", true, path + "0", false).entrySet().iterator();
+        while (entries.hasNext()) {
+            final Map.Entry<String, String[]> entry = entries.next();
+            entries.remove();
+            for (final String vanityPath : entry.getValue()) {
+                unlink(vanityPath, getTarget(entry.getKey()));
+            }
+        }
+    }
+
+    /* Target sets are replaced rather than modified so that lookups never see a set being changed */
+    private void link(final String vanityPath, final String target) {
+        targetsByVanityPath.compute(vanityPath, (key, targets) -> {
+            final Set<String> updated = targets == null ? new HashSet<>() : new HashSet<>(targets);
+            updated.add(target);
+            return Collections.unmodifiableSet(updated);
+        });
+    }
+
+    private void unlink(final String vanityPath, final String target) {
+        targetsByVanityPath.computeIfPresent(vanityPath, (key, targets) -> {
+            final Set<String> updated = new HashSet<>(targets);
+            updated.remove(target);
+            return updated.isEmpty() ? null : Collections.unmodifiableSet(updated);
+        });
+    }
+
+    /**
+     * Vanity paths declared on a jcr:content node point to its page, like the Sling resource resolver does.
+     */
+    private static String getTarget(final String path) {
+        return path.endsWith("/jcr:content") ? StringUtils.substringBeforeLast(path, "/") : path;
+    }
+
+    private static String normalize(final String vanityPath) {
+        return StringUtils.prependIfMissing(StringUtils.removeEnd(vanityPath.trim(), "/"), "/");
+    }
+
+    private static List<String> topmost(final List<String> paths) {
+        final List<String> sorted = new ArrayList<>(paths);
+        Collections.sort(sorted);
+        final List<String> topmost = new ArrayList<>();
+        for (final String path : sorted) {
+            if (topmost.isEmpty() || !path.startsWith(topmost.get(topmost.size() - 1) + "/")) {
+                topmost.add(path);
+            }
+        }
+        return topmost;
+    }
+
+    // ---------------------------------------------------------< MBean methods >-------------
+
+    @Override
+    public int getVanityPathCount() {
+        return targetsByVanityPath.size();
+    }
+
+    @Override
+    public int getResourceCount() {
+        synchronized (vanityPathsByResource) {
+            return vanityPathsByResource.size();
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getLastBuildDuration() {
+        return lastBuildDuration;
+    }
+}
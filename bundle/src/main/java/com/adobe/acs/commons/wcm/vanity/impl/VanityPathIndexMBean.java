@@ -0,0 +1,43 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.wcm.vanity.impl;
+
+import com.adobe.granite.jmx.annotation.Description;
+
+@Description("ACS AEM Commons - Vanity Path Index")
+public interface VanityPathIndexMBean {
+
+    @Description("Number of distinct vanity paths in the index")
+    int getVanityPathCount();
+
+    @Description("Number of resources declaring at least one vanity path")
+    int getResourceCount();
+
+    @Description("Number of lookups answered with a vanity resource")
+    long getHitCount();
+
+    @Description("Number of lookups answered as a known miss")
+    long getMissCount();
+
+    @Description("Duration of the last full index build in milliseconds")
+    long getLastBuildDuration();
+
+    /* Operations */
+    @Description("Rebuild the index from the repository")
+    void rebuild();
+}
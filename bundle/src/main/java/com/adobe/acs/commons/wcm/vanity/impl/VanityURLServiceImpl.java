@@ -24,25 +24,59 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jcr.RepositoryException;
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Dictionary;
+import java.util.Hashtable;
 
 @Component(service = VanityURLService.class)
+@Designate(ocd = VanityURLServiceImpl.Config.class)
 @SuppressWarnings("checkstyle:abbreviationaswordinname")
 public class VanityURLServiceImpl implements VanityURLService {
 
+    @ObjectClassDefinition(
+            name = "ACS AEM Commons - Vanity URL Service",
+            description = "Dispatches requests for vanity paths"
+    )
+    public @interface Config {
+        @AttributeDefinition(
+                name = "Vanity path index",
+                description = "Keep an in-memory index of the sling:vanityPath properties below the index paths, so "
+                        + "that vanity checks do not resolve the candidate path. When enabled, only sling:vanityPath "
+                        + "properties are considered; sling:redirect resources and resource resolver mappings are not."
+        )
+        boolean index_enabled() default false;
+
+        @AttributeDefinition(
+                name = "Index paths",
+                description = "Paths below which sling:vanityPath properties are indexed"
+        )
+        String[] index_paths() default {DEFAULT_PATH_SCOPE};
+    }
+
     private static final Logger log = LoggerFactory.getLogger(VanityURLServiceImpl.class);
 
     private static final String VANITY_DISPATCH_CHECK_ATTR = "acs-aem-commons__vanity-check-loop-detection";
@@ -55,6 +89,48 @@ public class VanityURLServiceImpl implements VanityURLService {
     )
     private volatile VanityUrlAdjuster vanityUrlAdjuster;
 
+    @Reference
+    private ResourceResolverFactory resourceResolverFactory;
+
+    private VanityPathIndex vanityPathIndex;
+    private ServiceRegistration<?> listenerRegistration;
+    private ServiceRegistration<?> mbeanRegistration;
+
+    @Activate
+    protected void activate(BundleContext bundleContext, Config config) {
+        if (!config.index_enabled()) {
+            return;
+        }
+        try {
+            vanityPathIndex = new VanityPathIndex(resourceResolverFactory, config.index_paths());
+        } catch (NotCompliantMBeanException e) {
+            log.error("Unable to create the vanity path index, vanity paths will be resolved on every request", e);
+            return;
+        }
+        vanityPathIndex.rebuild();
+
+        final Dictionary<String, Object> listenerProps = new Hashtable<>();
+        listenerProps.put(ResourceChangeListener.PATHS, config.index_paths());
+        listenerRegistration = bundleContext.registerService(ResourceChangeListener.class, vanityPathIndex, listenerProps);
+
+        final Dictionary<String, Object> mbeanProps = new Hashtable<>();
+        mbeanProps.put("jmx.objectname", "com.adobe.acs.commons:type=Vanity Path Index");
+        mbeanRegistration = bundleContext.registerService(DynamicMBean.class.getName(), vanityPathIndex, mbeanProps);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        if (listenerRegistration != null) {
+            listenerRegistration.unregister();
+            listenerRegistration = null;
+        }
+        if (mbeanRegistration != null) {
+            mbeanRegistration.unregister();
+            mbeanRegistration = null;
+        }
+        vanityPathIndex = null;
+    }
+
     public boolean dispatch(SlingHttpServletRequest request, SlingHttpServletResponse response) throws ServletException, IOException, RepositoryException {
         if (request.getAttribute(VANITY_DISPATCH_CHECK_ATTR) != null) {
             log.trace("Processing a previously vanity dispatched request. Skipping...");
@@ -136,6 +212,12 @@ public class VanityURLServiceImpl implements VanityURLService {
      * @return return true if the vanityPath is a registered sling:vanityPath under /content
      */
     protected boolean isVanityPath(String pathScope, String vanityPath, SlingHttpServletRequest request) throws RepositoryException {
+        final VanityPathIndex index = vanityPathIndex;
+        if (index != null && index.isReady()) {
+            return index.isVanityPath(getPath(vanityPath), StringUtils.defaultIfEmpty(pathScope, DEFAULT_PATH_SCOPE),
+                    request.getResourceResolver());
+        }
+
         final Resource vanityResource = request.getResourceResolver().resolve(vanityPath);
 
         if (vanityResource != null) {
@@ -155,4 +237,16 @@ public class VanityURLServiceImpl implements VanityURLService {
 
         return false;
     }
+
+    /**
+     * Strips the scheme, host and port AEM as a Cloud Service includes in mapped candidates.
+     */
+    private String getPath(final String vanityPath) {
+        try {
+            final String path = new URI(vanityPath).getPath();
+            return StringUtils.isEmpty(path) ? vanityPath : path;
+        } catch (URISyntaxException e) {
+            return vanityPath;
+        }
+    }
 }
@@ -24,9 +24,11 @@ import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import org.apache.commons.io.IOUtils;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.xssf.usermodel.XSSFCell;
 import org.apache.poi.xssf.usermodel.XSSFRow;
@@ -260,6 +262,58 @@ public class SpreadsheetTest {
         assertEquals("test:camelcase", spreadsheet.convertHeaderName("test:camelCase"));
     }
 
+    @Test
+    public void testStreamingMatchesBuiltSpreadsheet() throws IOException {
+        assertStreamingMatchesBuilt(workbookData.toByteArray(), true);
+        try (InputStream dataTypesFile = SpreadsheetTest.class.getResourceAsStream("/com/adobe/acs/commons/data/spreadsheet-data-types.xlsx")) {
+            assertStreamingMatchesBuilt(IOUtils.toByteArray(dataTypesFile), false);
+        }
+    }
+
+    @Test
+    public void testStreamingRowsAreReadOnce() throws IOException {
+        Spreadsheet instance = new Spreadsheet(new ByteArrayInputStream(workbookData.toByteArray())).streamSpreadsheet();
+        assertEquals(6, instance.getRowCount());
+        Iterator<Map<String, CompositeVariant>> rows = instance.getDataRowIterator();
+        assertEquals("/test/a1", rows.next().get("path").toString());
+        rows.forEachRemaining(row -> assertNotNull(row.get("path")));
+        assertFalse(rows.hasNext());
+        assertFalse("Streamed rows are not retained", instance.getDataRowIterator().hasNext());
+    }
+
+    @Test
+    public void testStreamedRowsAreNotListed() throws IOException {
+        Spreadsheet instance = new Spreadsheet(new ByteArrayInputStream(workbookData.toByteArray())).streamSpreadsheet();
+        try {
+            instance.getDataRowsAsCompositeVariants();
+            fail("Streamed rows are only available through the iterator");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        instance.getDataRowIterator().forEachRemaining(row -> assertNotNull(row.get("path")));
+    }
+
+    private static void assertStreamingMatchesBuilt(byte[] data, boolean convertHeaderNames) throws IOException {
+        Spreadsheet built = new Spreadsheet(convertHeaderNames, new ByteArrayInputStream(data)).buildSpreadsheet(Locale.US);
+        Spreadsheet streamed = new Spreadsheet(convertHeaderNames, new ByteArrayInputStream(data)).streamSpreadsheet(Locale.US);
+
+        assertEquals(built.getHeaderRow(), streamed.getHeaderRow());
+        assertEquals(built.getRowCount(), streamed.getRowCount());
+        Iterator<Map<String, CompositeVariant>> streamedRows = streamed.getDataRowIterator();
+        for (Map<String, CompositeVariant> builtRow : built.getDataRowsAsCompositeVariants()) {
+            assertTrue(streamedRows.hasNext());
+            Map<String, CompositeVariant> streamedRow = streamedRows.next();
+            assertEquals(builtRow.keySet(), streamedRow.keySet());
+            for (Map.Entry<String, CompositeVariant> entry : builtRow.entrySet()) {
+                CompositeVariant streamedValue = streamedRow.get(entry.getKey());
+                assertEquals(entry.getKey(), entry.getValue().getSingularType(), streamedValue.getSingularType());
+                assertEquals(entry.getKey(), entry.getValue().isArray(), streamedValue.isArray());
+                assertEquals(entry.getKey(), entry.getValue().getValuesAs(String.class), streamedValue.getValuesAs(String.class));
+            }
+        }
+        assertFalse(streamedRows.hasNext());
+    }
+
     private static XSSFRow createRow(XSSFSheet sheet, String... values) {
         int rowNum = sheet.getPhysicalNumberOfRows();
         XSSFRow row = sheet.createRow(rowNum);
@@ -26,6 +26,7 @@ import static org.junit.Assume.assumeTrue;
 
 import java.text.SimpleDateFormat;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
@@ -109,4 +110,57 @@ public class VariantTest {
         assertNull(Variant.convert("Known type", Exception.class));
         assertNull(Variant.convert("Known type", VariantTest.class));
     }
+
+    @Test
+    public void cachedConversionsFollowUpdates() {
+        Variant v = new Variant(12L);
+        assertEquals("12", v.toString());
+        v.setValue(12.5);
+        assertEquals("12.5", v.toString());
+        assertEquals(12L, (long) v.toLong());
+        v.setValue(false);
+        assertEquals(Boolean.FALSE, v.toBoolean());
+        v.setValue(true);
+        assertEquals(Boolean.TRUE, v.toBoolean());
+
+        Variant date = new Variant("2016-02-12T14:47:41.922-05:00");
+        Date first = date.toDate();
+        first.setTime(0);
+        assertEquals("Cached date must not be shared", 2016L, Variant.convert(date.toDate(), Calendar.class).get(Calendar.YEAR));
+        assertNull(new Variant("not a date").toDate());
+
+        v.clear();
+        assertTrue(v.isEmpty());
+        assertNull(v.toString());
+    }
+
+    @Test
+    public void combinedValues() {
+        // a date cell keeps its numeric value, date and formatted text side by side
+        Date now = new Date();
+        Variant v = new Variant(43000L);
+        v.setValue(now);
+        v.setValue("formatted");
+        assertEquals(43000L, (long) v.toLong());
+        assertEquals(now, v.toDate());
+        assertEquals("formatted", v.toString());
+        assertEquals(Calendar.class, v.getBaseType());
+        assertEquals(1.5, Variant.convert(1.5f, Double.class), 0.0001);
+    }
+
+    @Test
+    public void compositeValues() {
+        CompositeVariant<String> single = new CompositeVariant<>("one");
+        assertEquals(Arrays.asList("one"), single.getValues());
+        assertEquals("one", single.toPropertyValue());
+
+        CompositeVariant multi = new CompositeVariant(String[].class);
+        assertTrue(multi.isEmpty());
+        assertTrue(multi.getValues().isEmpty());
+        multi.addValue("a");
+        multi.addValue("b");
+        multi.addValue(new Variant("c"));
+        assertEquals(Arrays.asList("a", "b", "c"), multi.getValuesAs(String.class));
+        assertEquals("[a, b, c]", multi.toString());
+    }
 }
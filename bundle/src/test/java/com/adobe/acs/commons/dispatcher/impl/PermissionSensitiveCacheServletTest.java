@@ -17,6 +17,11 @@
  */
 package com.adobe.acs.commons.dispatcher.impl;
 
+import org.apache.jackrabbit.api.security.user.Group;
+import org.apache.jackrabbit.api.security.user.User;
+import org.apache.sling.api.resource.NonExistingResource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.apache.sling.testing.mock.sling.ResourceResolverType;
 import org.apache.sling.testing.mock.sling.junit.SlingContext;
 import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
@@ -27,13 +32,22 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import static junitx.framework.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
 
 
 @RunWith(MockitoJUnitRunner.class)
@@ -87,6 +101,155 @@ public class PermissionSensitiveCacheServletTest {
 
     }
 
+    @Test
+    public void doHeadShouldRequireAccessToAllUris() throws Exception {
+
+        context.create().resource( "/content/test" );
+        context.create().resource( "/content/other" );
+
+        request = context.request();
+
+        Map<String,Object> requestMap = new HashMap<>();
+        requestMap.put( "uri", new String[]{ TEST_PAGE, "/content/other.html" } );
+        request.setParameterMap( requestMap );
+
+        MockSlingHttpServletResponse response = context.response();
+        servlet.doHead( request, response );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+
+        requestMap.put( "uri", new String[]{ TEST_PAGE, "/content/missing.html" } );
+        request.setParameterMap( requestMap );
+
+        response = new MockSlingHttpServletResponse();
+        servlet.doHead( request, response );
+        assertEquals( HttpServletResponse.SC_UNAUTHORIZED, response.getStatus() );
+    }
+
+    @Test
+    public void doHeadShouldCacheDecisionsUntilInvalidated() throws Exception {
+
+        User user = mock( User.class );
+        when( user.getPrincipal() ).thenReturn( () -> "user" );
+        when( user.memberOf() ).thenReturn( Collections.emptyIterator() );
+        context.registerAdapter( ResourceResolver.class, User.class, user );
+
+        Map<String,Object> config = new HashMap<>();
+        config.put( PermissionSensitiveCacheServlet.PROP_CACHE_TTL, 60L );
+        servlet.activate( context.bundleContext(), config );
+
+        context.create().resource( "/content/test" );
+        context.resourceResolver().commit();
+
+        request = context.request();
+        Map<String,Object> requestMap = new HashMap<>();
+        requestMap.put( "uri", TEST_PAGE );
+        request.setParameterMap( requestMap );
+
+        MockSlingHttpServletResponse response = context.response();
+        servlet.doHead( request, response );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+
+        context.resourceResolver().delete( context.resourceResolver().getResource( "/content/test" ) );
+        context.resourceResolver().commit();
+
+        response = new MockSlingHttpServletResponse();
+        servlet.doHead( request, response );
+        assertEquals( "decision should be served from the cache", HttpServletResponse.SC_OK, response.getStatus() );
+
+        for( ResourceChangeListener listener : context.getServices( ResourceChangeListener.class, null ) ){
+            listener.onChange( Collections.emptyList() );
+        }
+
+        response = new MockSlingHttpServletResponse();
+        servlet.doHead( request, response );
+        assertEquals( HttpServletResponse.SC_UNAUTHORIZED, response.getStatus() );
+
+        servlet.deactivate();
+    }
+
+    @Test
+    public void doHeadShouldNotCacheDecisionsOfAdmins() throws Exception {
+
+        User user = mock( User.class );
+        when( user.isAdmin() ).thenReturn( true );
+        context.registerAdapter( ResourceResolver.class, User.class, user );
+
+        Map<String,Object> config = new HashMap<>();
+        config.put( PermissionSensitiveCacheServlet.PROP_CACHE_TTL, 60L );
+        servlet.activate( context.bundleContext(), config );
+
+        context.create().resource( "/content/test" );
+        context.resourceResolver().commit();
+
+        request = context.request();
+        Map<String,Object> requestMap = new HashMap<>();
+        requestMap.put( "uri", TEST_PAGE );
+        request.setParameterMap( requestMap );
+
+        MockSlingHttpServletResponse response = context.response();
+        servlet.doHead( request, response );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+
+        context.resourceResolver().delete( context.resourceResolver().getResource( "/content/test" ) );
+        context.resourceResolver().commit();
+
+        // admins don't get their access from groups, so their decisions must not be shared
+        response = new MockSlingHttpServletResponse();
+        servlet.doHead( request, response );
+        assertEquals( HttpServletResponse.SC_UNAUTHORIZED, response.getStatus() );
+
+        servlet.deactivate();
+    }
+
+    @Test
+    public void doHeadShouldNotShareDecisionsOfUserSpecificEntries() throws Exception {
+
+        Map<String,Object> config = new HashMap<>();
+        config.put( PermissionSensitiveCacheServlet.PROP_CACHE_TTL, 60L );
+        servlet.activate( context.bundleContext(), config );
+
+        context.create().resource( "/content/test" );
+        context.resourceResolver().commit();
+
+        Group authors = mock( Group.class );
+        when( authors.getPrincipal() ).thenReturn( () -> "authors" );
+
+        // a DENY entry for the principal of alice hides the page from her, but not from the other authors
+        MockSlingHttpServletResponse response = doHeadAs( userResolver( "alice", authors, true ) );
+        assertEquals( HttpServletResponse.SC_UNAUTHORIZED, response.getStatus() );
+
+        response = doHeadAs( userResolver( "bob", authors, false ) );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+
+        servlet.deactivate();
+    }
+
+    private ResourceResolver userResolver( String userId, Group group, boolean denied ) throws Exception {
+        User user = mock( User.class );
+        when( user.getPrincipal() ).thenReturn( () -> userId );
+        when( user.memberOf() ).thenAnswer( invocation -> Collections.singleton( group ).iterator() );
+
+        ResourceResolver resolver = spy( context.resourceResolver() );
+        doReturn( userId ).when( resolver ).getUserID();
+        doReturn( user ).when( resolver ).adaptTo( User.class );
+        if( denied ){
+            doAnswer( invocation -> new NonExistingResource( resolver, invocation.getArgument( 1 ) ) )
+                    .when( resolver ).resolve( any( HttpServletRequest.class ), anyString() );
+        }
+        return resolver;
+    }
+
+    private MockSlingHttpServletResponse doHeadAs( ResourceResolver resolver ) {
+        MockSlingHttpServletRequest userRequest = new MockSlingHttpServletRequest( resolver, context.bundleContext() );
+        Map<String,Object> requestMap = new HashMap<>();
+        requestMap.put( "uri", TEST_PAGE );
+        userRequest.setParameterMap( requestMap );
+
+        MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+        servlet.doHead( userRequest, response );
+        return response;
+    }
+
     @Test
     public void testRequestUriNull(){
 
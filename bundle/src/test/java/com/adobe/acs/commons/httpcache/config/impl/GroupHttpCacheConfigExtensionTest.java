@@ -0,0 +1,142 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.httpcache.config.impl;
+
+import com.adobe.acs.commons.httpcache.config.HttpCacheConfig;
+import org.apache.jackrabbit.api.security.user.Group;
+import org.apache.jackrabbit.api.security.user.User;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.jcr.RepositoryException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GroupHttpCacheConfigExtensionTest {
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    @Mock
+    private ResourceResolver resourceResolver;
+
+    @Mock
+    private User user;
+
+    @Mock
+    private HttpCacheConfig cacheConfig;
+
+    private final GroupHttpCacheConfigExtension extension = new GroupHttpCacheConfigExtension();
+
+    @Before
+    public void setUp() throws RepositoryException {
+        when(request.getResourceResolver()).thenReturn(resourceResolver);
+        when(resourceResolver.getUserID()).thenReturn("jdoe");
+        when(resourceResolver.adaptTo(User.class)).thenReturn(user);
+        when(user.memberOf()).thenAnswer(invocation -> groups("everyone", "authors"));
+    }
+
+    private static Iterator<Group> groups(String... ids) throws RepositoryException {
+        final Group[] groups = new Group[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            groups[i] = mock(Group.class);
+            when(groups[i].getID()).thenReturn(ids[i]);
+        }
+        return Arrays.asList(groups).iterator();
+    }
+
+    private void activate(long ttl, String... userGroups) {
+        final Map<String, Object> config = new HashMap<>();
+        config.put("httpcache.config.extension.user-groups.allowed", userGroups);
+        config.put("httpcache.config.extension.user-groups.cache.ttl", ttl);
+        extension.activate(null, config);
+    }
+
+    @Test
+    public void testAcceptsMatchingGroup() throws Exception {
+        activate(60, "authors", "");
+        assertTrue(extension.accepts(request, cacheConfig));
+
+        activate(60, "administrators");
+        assertFalse(extension.accepts(request, cacheConfig));
+    }
+
+    @Test
+    public void testMembershipIsCached() throws Exception {
+        activate(60, "authors");
+        assertTrue(extension.accepts(request, cacheConfig));
+        assertTrue(extension.accepts(request, cacheConfig));
+        assertTrue(extension.accepts(request, cacheConfig));
+        verify(user, times(1)).memberOf();
+    }
+
+    @Test
+    public void testMembershipNotCachedWithoutTtl() throws Exception {
+        activate(0, "authors");
+        assertTrue(extension.accepts(request, cacheConfig));
+        assertTrue(extension.accepts(request, cacheConfig));
+        verify(user, times(2)).memberOf();
+    }
+
+    @Test
+    public void testMembershipCacheExpiresAndInvalidates() throws Exception {
+        final AtomicLong now = new AtomicLong(1000);
+        final UserGroupMembershipCache cache = new UserGroupMembershipCache(100, now::get);
+
+        assertTrue(cache.getGroups("jdoe", () -> user).contains("authors"));
+        assertEquals(1, cache.size());
+        cache.getGroups("jdoe", () -> user);
+        verify(user, times(1)).memberOf();
+
+        now.addAndGet(100);
+        cache.getGroups("jdoe", () -> user);
+        verify(user, times(2)).memberOf();
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        cache.getGroups("jdoe", () -> user);
+        verify(user, times(3)).memberOf();
+    }
+
+    @Test
+    public void testGroupSetMatchesOnHashCollisions() {
+        // "Aa" and "BB" share the same hash code
+        final UserGroupMembershipCache.GroupSet groups = new UserGroupMembershipCache.GroupSet(Arrays.asList("Aa", "x"));
+        assertTrue(groups.contains("Aa"));
+        assertFalse(groups.contains("BB"));
+        assertTrue(groups.containsAny(new UserGroupMembershipCache.GroupSet(Arrays.asList("BB", "x"))));
+        assertFalse(groups.containsAny(new UserGroupMembershipCache.GroupSet(Arrays.asList("BB", "y"))));
+    }
+}
@@ -159,4 +159,121 @@ public class JCRHttpCacheStoreImplTest {
 
     }
 
+    @Test
+    public void indexedLookupsAfterPurge() throws HttpCacheDataStreamException {
+        context.registerInjectActivateService(store, config);
+        CacheKey key1 = new CacheKeyMock("http://localhost/content/geometrixx/en.html", "/content/geometrixx/en", 1234,
+                "example");
+        store.put(key1, new CacheContent("UTF-8", "text/html", cacheContentHeaders,
+                new ByteArrayInputStream(INPUT.getBytes())));
+
+        // the first purge traverses the tree and builds the index
+        store.purgeExpiredEntries();
+        assertEquals(1, store.size());
+
+        CacheKey key2 = new CacheKeyMock("http://localhost/content/geometrixx/fr.html", "/content/geometrixx/fr", 1234,
+                "example2");
+        store.put(key2, new CacheContent("UTF-8", "text/html", cacheContentHeaders,
+                new ByteArrayInputStream(INPUT.getBytes())));
+        assertTrue(store.contains(key1));
+        assertTrue(store.contains(key2));
+        assertEquals(2, store.size());
+        assertEquals(2, store.getCacheEntriesCount());
+
+        store.invalidate(key1);
+        assertFalse(store.contains(key1));
+        assertEquals(1, store.size());
+
+        // the remaining entry expires and is purged through the index
+        setTime(currentInstant.plus(12, ChronoUnit.SECONDS));
+        store.purgeExpiredEntries();
+        assertFalse(store.contains(key2));
+        assertEquals(0, store.size());
+        assertEquals(0, store.getCacheEntriesCount());
+    }
+
+    @Test
+    public void entriesWrittenByOtherStoresAreFound() throws Exception {
+        context.registerInjectActivateService(store, config);
+        CacheKey key1 = new CacheKeyMock("http://localhost/content/geometrixx/en.html", "/content/geometrixx/en", 1234,
+                "example");
+        store.put(key1, new CacheContent("UTF-8", "text/html", cacheContentHeaders,
+                new ByteArrayInputStream(INPUT.getBytes())));
+        store.purgeExpiredEntries();
+
+        // e.g. another cluster node sharing the repository
+        JCRHttpCacheStoreImpl other = new JCRHttpCacheStoreImpl();
+        other.clock = store.clock;
+        context.registerInjectActivateService(other, config);
+        CacheKey key2 = new CacheKeyMock("http://localhost/content/geometrixx/fr.html", "/content/geometrixx/fr", 1234,
+                "example2");
+        other.put(key2, new CacheContent("UTF-8", "text/html", cacheContentHeaders,
+                new ByteArrayInputStream(INPUT.getBytes())));
+
+        assertTrue(store.contains(key2));
+        assertEquals("text/html", store.getIfPresent(key2).getContentType());
+
+        // updating the entry must not create a second node for the key
+        store.put(key2, new CacheContent("UTF-8", "text/plain", cacheContentHeaders,
+                new ByteArrayInputStream(INPUT.getBytes())));
+        assertEquals(2, store.getCacheEntriesCount());
+        assertEquals("text/plain", other.getIfPresent(key2).getContentType());
+    }
+
+    @Test
+    public void entryPathsReusedByOtherStoresAreNotServedForTheIndexedKey() throws Exception {
+        context.registerInjectActivateService(store, config);
+        CacheKey key1 = new CacheKeyMock("http://localhost/content/geometrixx/en.html", "/content/geometrixx/en", 1234,
+                "example");
+        store.put(key1, new CacheContent("UTF-8", "text/html", cacheContentHeaders,
+                new ByteArrayInputStream(INPUT.getBytes())));
+        assertTrue(store.contains(key1));
+
+        // another cluster node removes the entry and writes a different key in the same bucket
+        JCRHttpCacheStoreImpl other = new JCRHttpCacheStoreImpl();
+        other.clock = store.clock;
+        context.registerInjectActivateService(other, config);
+        other.invalidate(key1);
+        CacheKey key2 = new CacheKeyMock("http://localhost/content/geometrixx/fr.html", "/content/geometrixx/fr", 1234,
+                "example2");
+        other.put(key2, new CacheContent("UTF-8", "text/plain", cacheContentHeaders,
+                new ByteArrayInputStream(INPUT.getBytes())));
+        assertEquals(1, store.getCacheEntriesCount());
+
+        assertFalse(store.contains(key1));
+        assertNull(store.getIfPresent(key1));
+        assertEquals("text/plain", store.getIfPresent(key2).getContentType());
+    }
+
+    @Test
+    public void writeBehind() throws Exception {
+        config.put(JCRHttpCacheStoreImpl.PN_WRITEBEHIND, true);
+        config.put(JCRHttpCacheStoreImpl.PN_WRITEBEHIND_BATCHSIZE, 5);
+        context.registerInjectActivateService(store, config);
+        List<CacheKey> keys = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            CacheKey key = new CacheKeyMock("http://localhost/content/geometrixx/en.html", "/content/geometrixx/en",
+                    1234, "example" + i);
+            keys.add(key);
+            store.put(key, new CacheContent("UTF-8", "text/html", cacheContentHeaders,
+                    new ByteArrayInputStream(INPUT.getBytes())));
+        }
+
+        // pending entries are served before they are written
+        for (CacheKey key : keys) {
+            assertTrue(store.contains(key));
+        }
+        assertEquals("text/html", store.getIfPresent(keys.get(0)).getContentType());
+
+        for (int i = 0; i < 100 && store.getCacheEntriesCount() < 10; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(10, store.getCacheEntriesCount());
+        assertNotNull(store.getIfPresent(keys.get(9)));
+
+        store.invalidate(keys.get(0));
+        assertFalse(store.contains(keys.get(0)));
+        assertEquals(9, store.getCacheEntriesCount());
+        store.deactivate();
+    }
 }
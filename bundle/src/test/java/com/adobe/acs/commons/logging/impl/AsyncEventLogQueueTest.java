@@ -0,0 +1,125 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.logging.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.osgi.service.event.Event;
+
+public class AsyncEventLogQueueTest {
+
+    private static Event event(String topic) {
+        return new Event(topic, Collections.emptyMap());
+    }
+
+    @Test
+    public void testEventsAreLoggedInOrder() throws Exception {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(3);
+        AsyncEventLogQueue queue = new AsyncEventLogQueue("test", 16, 2,
+                AsyncEventLogQueue.DropPolicy.DROP_NEWEST, message -> {
+                    messages.add(message);
+                    done.countDown();
+                });
+        assertTrue(queue.offer(event("a/topic")));
+        assertTrue(queue.offer(event("b/topic")));
+        assertTrue(queue.offer(event("c/topic")));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        queue.close();
+
+        assertEquals(3, messages.size());
+        assertTrue(messages.get(0).contains("a/topic"));
+        assertTrue(messages.get(2).contains("c/topic"));
+        assertEquals(3, queue.getEnqueuedCount());
+        assertEquals(3, queue.getLoggedCount());
+        assertEquals(0, queue.getDroppedCount());
+        assertEquals(0, queue.getQueueDepth());
+    }
+
+    /**
+     * Blocks the worker on the first event so that the queue can be filled deterministically.
+     */
+    private AsyncEventLogQueue blockedQueue(AsyncEventLogQueue.DropPolicy policy, List<String> messages,
+                                            CountDownLatch started, CountDownLatch release) throws Exception {
+        AsyncEventLogQueue queue = new AsyncEventLogQueue("test", 2, 10, policy, message -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            messages.add(message);
+        });
+        queue.offer(event("first/topic"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        queue.offer(event("second/topic"));
+        queue.offer(event("third/topic"));
+        assertEquals(2, queue.getQueueDepth());
+        return queue;
+    }
+
+    @Test
+    public void testDropNewest() throws Exception {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final CountDownLatch release = new CountDownLatch(1);
+        AsyncEventLogQueue queue = blockedQueue(AsyncEventLogQueue.DropPolicy.DROP_NEWEST, messages,
+                new CountDownLatch(1), release);
+
+        assertFalse(queue.offer(event("fourth/topic")));
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals("DROP_NEWEST", queue.getDropPolicy());
+        release.countDown();
+        queue.close();
+
+        assertEquals(3, messages.size());
+        assertTrue(messages.get(2).contains("third/topic"));
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final CountDownLatch release = new CountDownLatch(1);
+        AsyncEventLogQueue queue = blockedQueue(AsyncEventLogQueue.DropPolicy.DROP_OLDEST, messages,
+                new CountDownLatch(1), release);
+
+        assertTrue(queue.offer(event("fourth/topic")));
+        assertEquals(1, queue.getDroppedCount());
+        release.countDown();
+        queue.close();
+
+        assertEquals(3, messages.size());
+        assertTrue(messages.get(1).contains("third/topic"));
+        assertTrue(messages.get(2).contains("fourth/topic"));
+    }
+
+    @Test
+    public void testDropPolicyFromProperty() {
+        assertEquals(AsyncEventLogQueue.DropPolicy.CALLER_RUNS, AsyncEventLogQueue.DropPolicy.fromProperty("caller_runs"));
+        assertEquals(AsyncEventLogQueue.DropPolicy.DROP_NEWEST, AsyncEventLogQueue.DropPolicy.fromProperty(null));
+        assertEquals(AsyncEventLogQueue.DropPolicy.DROP_NEWEST, AsyncEventLogQueue.DropPolicy.fromProperty("bogus"));
+    }
+}
@@ -123,20 +123,35 @@ public class JsonEventLoggerTest {
     public void testActivate() {
         for (String logLevel : Arrays.asList("ERROR", "WARN", "INFO", "DEBUG", "TRACE", null)) {
             JsonEventLogger eventLogger = new JsonEventLogger();
-            eventLogger.activate(constructConfig("test", logLevel, null, "some/topic"));
+            eventLogger.activate(null, constructConfig("test", logLevel, null, "some/topic"));
             Event event = new Event("my/simple/topic", Collections.emptyMap());
             eventLogger.handleEvent(event);
             eventLogger.deactivate();
         }
 
         JsonEventLogger eventLogger = new JsonEventLogger();
-        eventLogger.activate(constructConfig(null, "INFO", null, "some/topic"));
+        eventLogger.activate(null, constructConfig(null, "INFO", null, "some/topic"));
         Event event = new Event("my/simple/topic", Collections.emptyMap());
         eventLogger.handleEvent(event);
         eventLogger.deactivate();
 
     }
 
+    @Test
+    public void testActivateAsync() {
+        JsonEventLogger eventLogger = new JsonEventLogger();
+        Map<String, Object> config = constructConfig("test", "INFO", null, "some/topic");
+        config.put(JsonEventLogger.OSGI_ASYNC, true);
+        config.put(JsonEventLogger.OSGI_QUEUE_CAPACITY, 4);
+        config.put(JsonEventLogger.OSGI_DROP_POLICY, "DROP_OLDEST");
+        eventLogger.activate(null, config);
+        assertTrue(eventLogger.toString().contains("async=true"));
+        for (int i = 0; i < 10; i++) {
+            eventLogger.handleEvent(new Event("my/simple/topic", Collections.emptyMap()));
+        }
+        eventLogger.deactivate();
+    }
+
     @Test
     public void testConvertValue() {
         assertNull("null should convert to null", JsonEventLogger.convertValue(null));
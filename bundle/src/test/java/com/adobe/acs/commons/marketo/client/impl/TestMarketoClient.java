@@ -24,11 +24,14 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.osgi.service.cm.ConfigurationAdmin;
+import org.osgi.util.converter.Converters;
 
 import com.adobe.acs.commons.marketo.MarketoClientConfiguration;
 import com.adobe.acs.commons.marketo.client.MarketoApiException;
@@ -106,6 +109,49 @@ public class TestMarketoClient {
     assertEquals("MarketoForm [id=1, locale=en_US, name=Sample Form]", forms.get(0).toString());
   }
 
+  @Test
+  public void testCachesTokensAndListings() throws Exception {
+    StaticResponseMarketoClient client = new StaticResponseMarketoClient(new String[] {
+        "/com/adobe/acs/commons/marketo/token-response-cacheable.json", "/com/adobe/acs/commons/marketo/form-response.json",
+        "/com/adobe/acs/commons/marketo/response-noassets.json", "/com/adobe/acs/commons/marketo/response-error.json" });
+    client.configAdmin = context.getService(ConfigurationAdmin.class);
+    client.activate(context.bundleContext(), Converters.standardConverter()
+        .convert(Collections.singletonMap("listing.cache.ttl", 300L)).to(MarketoClientImpl.Config.class));
+
+    List<MarketoForm> forms = client.getForms(config);
+    assertEquals(1, forms.size());
+    // served from the cache, requesting the forms again would run into the error response
+    assertEquals(forms, client.getForms(config));
+    assertEquals("TOKEN", client.getApiToken(config));
+
+    assertEquals(1, client.getTokenRequestCount());
+    assertEquals(1, client.getTokenCacheHitCount());
+    assertEquals(1, client.getFormCache().getMissCount());
+    assertEquals(1, client.getFormCache().getHitCount());
+    client.deactivate();
+  }
+
+  @Test
+  public void testBypassesTheCaches() throws Exception {
+    StaticResponseMarketoClient client = new StaticResponseMarketoClient(new String[] {
+        "/com/adobe/acs/commons/marketo/token-response-cacheable.json", "/com/adobe/acs/commons/marketo/form-response.json",
+        "/com/adobe/acs/commons/marketo/response-noassets.json",
+        "/com/adobe/acs/commons/marketo/token-response-cacheable.json", "/com/adobe/acs/commons/marketo/form-response.json",
+        "/com/adobe/acs/commons/marketo/response-noassets.json" });
+    client.configAdmin = context.getService(ConfigurationAdmin.class);
+    client.activate(context.bundleContext(), Converters.standardConverter()
+        .convert(Collections.emptyMap()).to(MarketoClientImpl.Config.class));
+
+    List<MarketoForm> forms = client.getForms(config);
+    assertEquals(forms.toString(), client.getForms(config, false).toString());
+
+    assertEquals(2, client.getTokenRequestCount());
+    assertEquals(0, client.getTokenCacheHitCount());
+    assertEquals(1, client.getFormCache().getMissCount());
+    assertEquals(0, client.getFormCache().getHitCount());
+    client.deactivate();
+  }
+
   @Test
   public void testGetToken() throws IOException {
     MarketoClient client = new StaticResponseMarketoClient("/com/adobe/acs/commons/marketo/token-response.json");
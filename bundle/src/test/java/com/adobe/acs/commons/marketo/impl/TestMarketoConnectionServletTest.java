@@ -20,6 +20,7 @@ package com.adobe.acs.commons.marketo.impl;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -120,7 +121,7 @@ public class TestMarketoConnectionServletTest {
     public void mustGetAccessToken() throws ServletException, IOException {
         createConfig();
 
-        when(client.getApiToken(any())).thenThrow(mock(MarketoApiException.class));
+        when(client.getApiToken(any(), eq(false))).thenThrow(mock(MarketoApiException.class));
 
         context.request().addRequestParameter("path", "/conf/marketo");
         servlet.doGet(context.request(), context.response());
@@ -133,8 +134,8 @@ public class TestMarketoConnectionServletTest {
     public void mustGetForms() throws ServletException, IOException {
         createConfig();
 
-        when(client.getApiToken(any())).thenReturn("TOKEN");
-        when(client.getForms(any())).thenThrow(mock(MarketoApiException.class));
+        when(client.getApiToken(any(), eq(false))).thenReturn("TOKEN");
+        when(client.getForms(any(), eq(false))).thenThrow(mock(MarketoApiException.class));
 
         context.request().addRequestParameter("path", "/conf/marketo");
         servlet.doGet(context.request(), context.response());
@@ -147,8 +148,8 @@ public class TestMarketoConnectionServletTest {
     public void mustGetJavaScriptResponse() throws ServletException, IOException {
         createConfig();
 
-        when(client.getApiToken(any())).thenReturn("TOKEN");
-        when(client.getForms(any())).thenReturn(Collections.emptyList());
+        when(client.getApiToken(any(), eq(false))).thenReturn("TOKEN");
+        when(client.getForms(any(), eq(false))).thenReturn(Collections.emptyList());
 
         CloseableHttpResponse response = mock(CloseableHttpResponse.class);
         StatusLine sl = mock(StatusLine.class);
@@ -168,8 +169,8 @@ public class TestMarketoConnectionServletTest {
     public void canRunSuccessfully() throws ServletException, IOException {
         createConfig();
 
-        when(client.getApiToken(any())).thenReturn("TOKEN");
-        when(client.getForms(any())).thenReturn(Collections.emptyList());
+        when(client.getApiToken(any(), eq(false))).thenReturn("TOKEN");
+        when(client.getForms(any(), eq(false))).thenReturn(Collections.emptyList());
 
         CloseableHttpResponse response = mock(CloseableHttpResponse.class);
         StatusLine sl = mock(StatusLine.class);
@@ -0,0 +1,150 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.mcp.impl;
+
+import com.adobe.acs.commons.mcp.ProcessInstance;
+import io.wcm.testing.mock.aem.junit.AemContext;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ArchivedProcessIndexTest {
+
+    private static final String BASE_PATH = "/var/acs-commons/mcp/instances";
+
+    @Rule
+    public AemContext ctx = new AemContext(ResourceResolverType.JCR_MOCK);
+
+    private final AtomicInteger resolverCount = new AtomicInteger();
+
+    private ArchivedProcessIndex index;
+
+    @Before
+    public void setUp() throws PersistenceException {
+        ctx.create().resource(BASE_PATH, "jcr:primaryType", "nt:folder");
+        createInstance("first", "First process");
+        createInstance("second", "Second process");
+        ctx.resourceResolver().commit();
+        index = new ArchivedProcessIndex(() -> {
+            resolverCount.incrementAndGet();
+            return ctx.getService(ResourceResolverFactory.class).getServiceResourceResolver(null);
+        }, BASE_PATH, ArchivedProcessIndexTest::adapt);
+    }
+
+    @Test
+    public void testIndexIsBuiltOnce() {
+        index.rebuild();
+        assertEquals(1, resolverCount.get());
+
+        assertEquals(setOf("first", "second"), getIds(index.getInstances(p -> false)));
+        assertEquals(setOf("second"), getIds(index.getInstances(p -> "first".equals(p.getId()))));
+        assertEquals("Reads should not touch the repository", 1, resolverCount.get());
+    }
+
+    @Test
+    public void testIndexFollowsChanges() throws PersistenceException {
+        index.rebuild();
+
+        createInstance("third", "Third process");
+        index.onChange(Collections.singletonList(change(ResourceChange.ChangeType.ADDED, BASE_PATH + "/third/jcr:content")));
+        assertEquals(setOf("first", "second", "third"), getIds(index.getInstances(p -> false)));
+        assertEquals(2, resolverCount.get());
+
+        ResourceResolver rr = ctx.resourceResolver();
+        rr.delete(rr.getResource(BASE_PATH + "/first"));
+        rr.commit();
+        index.onChange(Collections.singletonList(change(ResourceChange.ChangeType.REMOVED, BASE_PATH + "/first")));
+        assertEquals(setOf("second", "third"), getIds(index.getInstances(p -> false)));
+        assertEquals("Removals should not touch the repository", 2, resolverCount.get());
+    }
+
+    @Test
+    public void testInvalidatedInstanceIsReloaded() {
+        index.rebuild();
+        createInstance("fourth", "Fourth process");
+        index.invalidate(BASE_PATH + "/fourth");
+
+        Collection<ProcessInstance> instances = index.getInstances(p -> false);
+        assertEquals(3, instances.size());
+        assertTrue(instances.stream().anyMatch(p -> "Fourth process".equals(p.getName())));
+    }
+
+    @Test
+    public void testChangesDuringRebuildAreKept() {
+        AtomicBoolean changed = new AtomicBoolean();
+        index = new ArchivedProcessIndex(() -> ctx.getService(ResourceResolverFactory.class).getServiceResourceResolver(null),
+                BASE_PATH, resource -> {
+                    if ("first".equals(resource.getName()) && !changed.getAndSet(true)) {
+                        // the walk has already passed the place this instance is created at
+                        createInstance("fifth", "Fifth process");
+                        index.invalidate(BASE_PATH + "/fifth");
+                    }
+                    return adapt(resource);
+                });
+        index.rebuild();
+
+        assertEquals(setOf("first", "second", "fifth"), getIds(index.getInstances(p -> false)));
+    }
+
+    private void createInstance(String id, String name) {
+        ctx.create().resource(BASE_PATH + "/" + id, "jcr:primaryType", "cq:Page");
+        ctx.create().resource(BASE_PATH + "/" + id + "/jcr:content",
+                "jcr:primaryType", "cq:PageContent",
+                "name", name,
+                "startTime", 1000L,
+                "stopTime", 2000L);
+    }
+
+    private static ProcessInstance adapt(Resource resource) {
+        ProcessInstance instance = mock(ProcessInstance.class);
+        when(instance.getId()).thenReturn(resource.getName());
+        when(instance.getPath()).thenReturn(resource.getPath());
+        when(instance.getName()).thenReturn(resource.getChild("jcr:content").getValueMap().get("name", String.class));
+        return instance;
+    }
+
+    private static ResourceChange change(ResourceChange.ChangeType type, String path) {
+        return new ResourceChange(type, path, false);
+    }
+
+    private static Set<String> getIds(Collection<ProcessInstance> instances) {
+        return instances.stream().map(ProcessInstance::getId).collect(Collectors.toSet());
+    }
+
+    private static Set<String> setOf(String... ids) {
+        return Arrays.stream(ids).collect(Collectors.toSet());
+    }
+}
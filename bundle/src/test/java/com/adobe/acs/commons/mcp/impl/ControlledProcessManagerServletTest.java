@@ -168,4 +168,43 @@ public class ControlledProcessManagerServletTest {
             assertEquals(1, instances.size());
         }
     }
+
+    @Test
+    public void testListPagingAndSorting() throws IOException, ServletException {
+        List<ProcessInstance> inactiveProcesses = new ArrayList<>();
+        for (long i = 1; i <= 5; i++) {
+            ArchivedProcessInstance p = new ArchivedProcessInstance();
+            p.infoBean = new ManagedProcess();
+            p.infoBean.setName("process" + i);
+            p.infoBean.setDescription("Test process " + i);
+            p.infoBean.setStopTime(i * 2000);
+            p.infoBean.setStartTime(i * 1000);
+            inactiveProcesses.add(p);
+        }
+        when(manager.getInactiveProcesses()).thenReturn(inactiveProcesses);
+
+        MockSlingHttpServletRequest request = new MockSlingHttpServletRequest(ctx.resourceResolver(), ctx.bundleContext());
+        ((MockRequestPathInfo) request.getRequestPathInfo()).setSelectorString("list");
+        Map<String, Object> params = new HashMap<>();
+        params.put("offset", "1");
+        params.put("limit", "2");
+        request.setParameterMap(params);
+        MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+        servlet.doGet(request, response);
+
+        Type list = new TypeToken<ArrayList<ArchivedProcessInstance>>() {}.getType();
+        List<ArchivedProcessInstance> instances = servlet.getGson().fromJson(response.getOutputAsString(), list);
+        assertEquals(2, instances.size());
+        assertEquals("process4", instances.get(0).infoBean.getName());
+        assertEquals("process3", instances.get(1).infoBean.getName());
+
+        params.put("sort", "name");
+        params.put("order", "asc");
+        request.setParameterMap(params);
+        response = new MockSlingHttpServletResponse();
+        servlet.doGet(request, response);
+        instances = servlet.getGson().fromJson(response.getOutputAsString(), list);
+        assertEquals("process2", instances.get(0).infoBean.getName());
+        assertEquals("process3", instances.get(1).infoBean.getName());
+    }
 }
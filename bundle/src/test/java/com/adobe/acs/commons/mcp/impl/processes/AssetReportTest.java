@@ -0,0 +1,108 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.mcp.impl.processes;
+
+import com.adobe.acs.commons.fam.ActionManager;
+import com.adobe.acs.commons.fam.actions.Actions;
+import com.adobe.acs.commons.functions.CheckedConsumer;
+import com.adobe.acs.commons.mcp.impl.processes.AssetReport.Column;
+import com.day.cq.dam.api.Asset;
+import com.day.cq.dam.api.DamConstants;
+import io.wcm.testing.mock.aem.junit.AemContext;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class AssetReportTest {
+
+    @Rule
+    public AemContext ctx = new AemContext();
+
+    private ActionManager actionManager;
+    private AssetReport assetReport;
+
+    @Before
+    public void setUp() throws Exception {
+        actionManager = Mockito.mock(ActionManager.class);
+        Actions.setCurrentActionManager(actionManager);
+        Mockito.doAnswer(invocation -> {
+            CheckedConsumer<ResourceResolver> method = (CheckedConsumer<ResourceResolver>) invocation.getArguments()[0];
+            method.accept(ctx.resourceResolver());
+            return null;
+        }).when(actionManager).deferredWithResolver(Mockito.any(CheckedConsumer.class));
+
+        for (String folder : new String[]{"/content/dam/test", "/content/dam/test/a", "/content/dam/test/a/b", "/content/dam/test/c"}) {
+            ctx.create().resource(folder, "jcr:primaryType", "sling:Folder");
+        }
+        Asset first = ctx.create().asset("/content/dam/test/a/first.jpg", 10, 10, "image/jpeg",
+                Collections.singletonMap(DamConstants.DAM_SIZE, 1000L));
+        ctx.create().assetRendition(first, "thumbnail.png", 5, 5, "image/png");
+        ctx.create().asset("/content/dam/test/a/b/second.jpg", 10, 10, "image/jpeg",
+                Collections.singletonMap(DamConstants.DAM_SIZE, 2000L));
+        ctx.create().asset("/content/dam/test/c/third.jpg", 10, 10, "image/jpeg");
+
+        assetReport = new AssetReport();
+        assetReport.baseFolder = "/content/dam/test";
+        assetReport.folderLevels = 5;
+        assetReport.batchSize = 2;
+    }
+
+    private Map<String, EnumMap<Column, Long>> runReport() throws Exception {
+        assetReport.init();
+        assetReport.evaluateStructure(actionManager);
+        assetReport.examineAssets(actionManager);
+        assetReport.evaluateDeepStructure(actionManager);
+        assetReport.examineAssets(actionManager);
+        return assetReport.getReportData();
+    }
+
+    @Test
+    public void testCountersRollUp() throws Exception {
+        Map<String, EnumMap<Column, Long>> rows = runReport();
+
+        assertEquals(3L, (long) rows.get("/content/dam/test").get(Column.asset_count));
+        assertEquals(2L, (long) rows.get("/content/dam/test/a").get(Column.asset_count));
+        assertEquals(1L, (long) rows.get("/content/dam/test/a/b").get(Column.asset_count));
+        assertEquals(1L, (long) rows.get("/content/dam/test/a").get(Column.rendition_count));
+        assertEquals(0L, (long) rows.get("/content/dam/test/c").get(Column.rendition_count));
+
+        long original = rows.get("/content/dam/test/a").get(Column.original_size)
+                + rows.get("/content/dam/test/c").get(Column.original_size);
+        assertEquals(original, (long) rows.get("/content/dam/test").get(Column.original_size));
+        assertEquals(original + rows.get("/content/dam/test/a").get(Column.rendition_size),
+                (long) rows.get("/content/dam/test").get(Column.combined_size));
+    }
+
+    @Test
+    public void testSizeMetadata() throws Exception {
+        assetReport.useSizeMetadata = true;
+        Map<String, EnumMap<Column, Long>> rows = runReport();
+
+        assertEquals(3000L, (long) rows.get("/content/dam/test/a").get(Column.original_size));
+        assertFalse("Assets without dam:size fall back to the binary",
+                rows.get("/content/dam/test/c").get(Column.original_size) == 0L);
+    }
+}
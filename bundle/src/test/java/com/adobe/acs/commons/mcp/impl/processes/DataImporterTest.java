@@ -136,6 +136,22 @@ public class DataImporterTest {
         assertNotNull(values.get("date6", Calendar.class));
     }
 
+    @Test
+    public void assertStreamedImport() throws LoginException, RepositoryException, IOException {
+        try (InputStream importerInput = DataImporterTest.class.getResourceAsStream("/com/adobe/acs/commons/mcp/impl/processes/data-importer.xlsx")) {
+            importer.data = new Spreadsheet(false, importerInput).streamSpreadsheet();
+            importer.buildProcess(process, rr);
+            process.run(rr);
+        }
+        assertNotNull("Node1 wasn't created", rr.getResource("/tmp/node1"));
+        assertNotNull("Node2 wasn't created", rr.getResource("/tmp/node2"));
+        ValueMap values = rr.getResource("/tmp/node1").getValueMap();
+        assertEquals((Long) 1234L, values.get("int2", Long.class));
+        assertEquals((Long) 123L, values.get("int1", Long.class));
+        assertEquals("123.456", values.get("double2str", String.class));
+        assertNotNull(values.get("date3", Calendar.class));
+    }
+
     @Test
     public void assertDetectedTypes() throws LoginException, RepositoryException {
         importer.buildProcess(process, rr);
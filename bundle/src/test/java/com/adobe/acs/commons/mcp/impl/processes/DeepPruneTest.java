@@ -0,0 +1,156 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.mcp.impl.processes;
+
+import com.adobe.acs.commons.fam.ActionManager;
+import com.adobe.acs.commons.functions.CheckedConsumer;
+import io.wcm.testing.mock.aem.junit.AemContext;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.event.jobs.JobManager;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class DeepPruneTest {
+
+    private static final String FOLDER = "sling:Folder";
+
+    @Rule
+    public AemContext ctx = new AemContext(ResourceResolverType.JCR_MOCK);
+
+    private ActionManager actionManager;
+    private DeepPrune deepPrune;
+
+    @Before
+    public void setUp() throws Exception {
+        actionManager = Mockito.mock(ActionManager.class);
+        Mockito.doAnswer(invocation -> {
+            CheckedConsumer<ResourceResolver> method = (CheckedConsumer<ResourceResolver>) invocation.getArguments()[0];
+            method.accept(ctx.resourceResolver());
+            return null;
+        }).when(actionManager).deferredWithResolver(Mockito.any(CheckedConsumer.class));
+
+        ctx.create().resource("/var/eventing/jobs", "jcr:primaryType", FOLDER);
+        for (String topic : new String[]{"topicA", "topicB"}) {
+            for (String year : new String[]{"2020", "2021"}) {
+                String folder = "/var/eventing/jobs/" + topic + "/" + year;
+                ctx.create().resource("/var/eventing/jobs/" + topic, "jcr:primaryType", FOLDER);
+                ctx.create().resource(folder, "jcr:primaryType", FOLDER);
+                ctx.create().resource(folder + "/01", "jcr:primaryType", FOLDER);
+                ctx.create().resource(folder + "/01/job1", "jcr:primaryType", DeepPrune.JOB_TYPE);
+                ctx.create().resource(folder + "/01/job2", "jcr:primaryType", DeepPrune.JOB_TYPE);
+            }
+            ctx.create().resource("/var/eventing/jobs/" + topic + "/rep:policy", "jcr:primaryType", "rep:ACL");
+        }
+        ctx.create().resource("/var/eventing/jobs/stray", "jcr:primaryType", DeepPrune.JOB_TYPE);
+        ctx.resourceResolver().commit();
+
+        deepPrune = new DeepPrune(Mockito.mock(JobManager.class));
+        deepPrune.startingFolder = "/var/eventing/jobs";
+        deepPrune.ignore = "rep:policy";
+        deepPrune.minPurgeDepth = 2;
+        deepPrune.batchSize = 2;
+        deepPrune.init();
+    }
+
+    @Test
+    public void testPurgeJobs() {
+        deepPrune.purgeJobs(actionManager);
+
+        ResourceResolver rr = ctx.resourceResolver();
+        assertNull(rr.getResource("/var/eventing/jobs/stray"));
+        assertNull(rr.getResource("/var/eventing/jobs/topicA/2020/01"));
+        assertNull("Folders split below the minimum purge level are removed after their subtrees",
+                rr.getResource("/var/eventing/jobs/topicA/2020"));
+        assertNotNull("Folders above the minimum purge level are kept", rr.getResource("/var/eventing/jobs/topicA"));
+        assertNull(rr.getResource("/var/eventing/jobs/topicB/2021"));
+        assertNotNull("Ignored nodes are kept", rr.getResource("/var/eventing/jobs/topicB/rep:policy"));
+        assertNotNull("The tree is split below the minimum purge level", rr.getResource(DeepPrune.CHECKPOINT_PATH
+                + "/%2Fvar%2Feventing%2Fjobs/%2Fvar%2Feventing%2Fjobs%2FtopicA%2F2020%2F01"));
+    }
+
+    @Test
+    public void testLaterPassesPruneEverythingAgain() throws Exception {
+        deepPrune.purgeJobs(actionManager);
+        ctx.create().resource("/var/eventing/jobs/topicA/2020", "jcr:primaryType", FOLDER);
+        ctx.create().resource("/var/eventing/jobs/topicA/2020/02", "jcr:primaryType", FOLDER);
+        ctx.resourceResolver().commit();
+
+        deepPrune.purgeJobs(actionManager);
+        assertNull(ctx.resourceResolver().getResource("/var/eventing/jobs/topicA/2020"));
+    }
+
+    @Test
+    public void testCheckpointedPartitionsAreSkippedOnResume() throws Exception {
+        // enough folders below the starting folder to prune them as separate subtrees
+        createTopics();
+        deepPrune.minPurgeDepth = 1;
+        deepPrune.purgeJobs(actionManager);
+        assertNull(ctx.resourceResolver().getResource("/var/eventing/jobs/topicA"));
+
+        createTopics();
+        ctx.create().resource("/var/eventing/jobs/topicA", "jcr:primaryType", FOLDER);
+        ctx.create().resource("/var/eventing/jobs/topicB", "jcr:primaryType", FOLDER);
+        ctx.create().resource("/var/eventing/jobs/topicB/2020", "jcr:primaryType", FOLDER);
+        ctx.create().resource("/var/eventing/jobs/topicC", "jcr:primaryType", FOLDER);
+        ctx.resourceResolver().commit();
+
+        DeepPrune resumed = new DeepPrune(Mockito.mock(JobManager.class));
+        resumed.startingFolder = deepPrune.startingFolder;
+        resumed.ignore = deepPrune.ignore;
+        resumed.minPurgeDepth = deepPrune.minPurgeDepth;
+        resumed.batchSize = deepPrune.batchSize;
+        resumed.resume = true;
+        resumed.init();
+
+        resumed.purgeJobs(actionManager);
+        assertNotNull("Empty finished subtrees are skipped", ctx.resourceResolver().getResource("/var/eventing/jobs/topicA"));
+        assertNull("Finished subtrees with new content are pruned", ctx.resourceResolver().getResource("/var/eventing/jobs/topicB"));
+        assertNull(ctx.resourceResolver().getResource("/var/eventing/jobs/topic0"));
+        assertNull("New subtrees are pruned", ctx.resourceResolver().getResource("/var/eventing/jobs/topicC"));
+
+        resumed.purgeJobs(actionManager);
+        assertNull("The second pass prunes all subtrees", ctx.resourceResolver().getResource("/var/eventing/jobs/topicA"));
+
+        resumed.clearCheckpoint(actionManager);
+        assertNull(ctx.resourceResolver().getResource(DeepPrune.CHECKPOINT_PATH + "/%2Fvar%2Feventing%2Fjobs"));
+    }
+
+    private void createTopics() throws Exception {
+        for (int i = 0; i < DeepPrune.TARGET_PARTITIONS; i++) {
+            ctx.create().resource("/var/eventing/jobs/topic" + i, "jcr:primaryType", FOLDER);
+            ctx.create().resource("/var/eventing/jobs/topic" + i + "/job", "jcr:primaryType", DeepPrune.JOB_TYPE);
+        }
+        ctx.resourceResolver().commit();
+    }
+
+    @Test
+    public void testGetNextBatchSize() {
+        assertEquals(20, PruneBatch.getNextBatchSize(10, 100, 500));
+        assertEquals(10, PruneBatch.getNextBatchSize(10, 300, 500));
+        assertEquals(5, PruneBatch.getNextBatchSize(10, 800, 500));
+        assertEquals(PruneBatch.MIN_BATCH_SIZE, PruneBatch.getNextBatchSize(1, 800, 500));
+        assertEquals(PruneBatch.MAX_BATCH_SIZE, PruneBatch.getNextBatchSize(PruneBatch.MAX_BATCH_SIZE, 10, 500));
+    }
+}
@@ -41,6 +41,8 @@ import java.nio.file.Files;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.UUID;
 import java.util.Vector;
 import java.util.function.Function;
@@ -296,6 +298,48 @@ public class FileAssetIngestorTest {
                 containsInAnyOrder(tempDirectory.getAbsolutePath(), rootImage.getAbsolutePath()));
     }
 
+    @Test
+    public void testImportAssetsInPrefetchedBatches() throws Exception {
+        ingestor.baseFolder = ingestor.getBaseFolder(ingestor.fileBasePath);
+        ingestor.prefetchSources = true;
+        ingestor.commitBatchSize = 2;
+        addFile(tempDirectory, "image.png", "/img/test.png");
+        final File folder1 = mkdir(tempDirectory, "folder1");
+        addFile(folder1, "image.png", "/img/test.png");
+        addFile(folder1, "image2.png", "/img/test.png");
+        when(assetManager.createAsset(anyString(), any(), anyString(), any(Boolean.class))).thenReturn(createdAsset);
+
+        // Queue deferred actions so that staged assets accumulate the way they would on the FAM thread pool
+        Deque<CheckedConsumer<ResourceResolver>> deferred = new ArrayDeque<>();
+        doAnswer(invocation -> deferred.add(invocation.getArgument(0)))
+                .when(actionManager).deferredWithResolver(any(CheckedConsumer.class));
+
+        ingestor.importAssets(actionManager);
+        while (!deferred.isEmpty()) {
+            deferred.poll().accept(context.resourceResolver());
+        }
+
+        assertFalse(context.resourceResolver().hasChanges());
+        assertEquals(3, ingestor.getCount(ingestor.importedAssets));
+        assertEquals(FILE_SIZE * 3, (long) ingestor.importedData.get(AssetIngestor.ReportColumns.bytes));
+        verify(assetManager, times(3)).createAsset(anyString(), any(), any(), eq(false));
+
+        AssetImportPipeline pipeline = ingestor.getPipeline();
+        assertEquals(3, pipeline.prefetchStage.getItems());
+        assertEquals(FILE_SIZE * 3, pipeline.prefetchStage.getBytes());
+        assertEquals(3, pipeline.writeStage.getItems());
+        assertEquals(2, pipeline.getCommitCount());
+        assertEquals(2, pipeline.getPeakQueueDepth());
+    }
+
+    @Test
+    public void testVersioningCommitsEachAsset() {
+        ingestor.commitBatchSize = 5;
+        assertEquals(5, ingestor.getEffectiveBatchSize());
+        ingestor.existingAssetAction = AssetIngestor.AssetAction.version;
+        assertEquals(1, ingestor.getEffectiveBatchSize());
+    }
+
     private File mkdir(File dir, String name) {
         File newDir = new File(dir, name);
         newDir.mkdir();
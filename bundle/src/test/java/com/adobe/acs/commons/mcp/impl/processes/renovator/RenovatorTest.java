@@ -30,6 +30,7 @@ import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
@@ -40,6 +41,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -266,6 +268,48 @@ public class RenovatorTest {
         assertTrue("Should publish new folders", activationCaptor.getAllValues().contains("/content/dam/folderC/subfolder"));
     }
 
+    @Test
+    public void testBatchedReplication() throws DeserializeException, RepositoryException, ReplicationException {
+        Map<String, Object> values = new HashMap<>();
+        values.put("dryRun", "false");
+        values.put("replicationBatchSize", "10");
+        values.put("sourceJcrPath", "/content/dam/folderA");
+        values.put("destinationJcrPath", "/content/dam/folderB");
+
+        instance.init(rr, values);
+        tool.replicatorQueue.replicate(null, ReplicationActionType.ACTIVATE, "/content/dam/folderB/asset1");
+        tool.replicatorQueue.replicate(null, ReplicationActionType.ACTIVATE, "/content/dam/folderB/asset2");
+        instance.run(rr);
+        assertEquals(1.0, instance.updateProgress(), 0.00001);
+
+        ArgumentCaptor<String[]> activationCaptor = ArgumentCaptor.forClass(String[].class);
+        verify(replicator, times(1))
+                .replicate(any(Session.class), eq(ReplicationActionType.ACTIVATE), activationCaptor.capture(), isNull());
+        List<String> activated = Arrays.asList(activationCaptor.getValue());
+        assertTrue(activated.contains("/content/dam/folderB/asset1"));
+        assertTrue(activated.contains("/content/dam/folderB/asset2"));
+    }
+
+    @Test
+    public void testReplicatorQueueCollapsesOperations() throws ReplicationException {
+        queue.replicate(null, ReplicationActionType.ACTIVATE, "/content/a");
+        queue.replicate(null, ReplicationActionType.ACTIVATE, "/content/a");
+        queue.replicate(null, ReplicationActionType.DEACTIVATE, "/content/b");
+        queue.replicate(null, ReplicationActionType.ACTIVATE, "/content/b");
+
+        assertEquals(4, queue.getRequestedOperationCount());
+        assertEquals(2, queue.getCollapsedOperationCount());
+        assertEquals(2, queue.getActivateOperations().size());
+        assertTrue(queue.getDeactivateOperations().isEmpty());
+    }
+
+    @Test
+    public void testForEachBatch() {
+        List<List<String>> batches = new ArrayList<>();
+        Renovator.forEachBatch(Arrays.asList("a", "b", "c", "d", "e"), 2, batches::add);
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d"), Arrays.asList("e")), batches);
+    }
+
     Map<String, String> testNodes = new TreeMap<String, String>() {
         {
             put("/content", JcrResourceConstants.NT_SLING_FOLDER);
@@ -21,10 +21,15 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -34,7 +39,9 @@ import javax.jcr.Node;
 import javax.jcr.RepositoryException;
 
 import org.apache.jackrabbit.commons.JcrUtils;
+import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.models.factory.ModelFactory;
 import org.apache.sling.testing.mock.sling.ResourceResolverType;
@@ -140,6 +147,95 @@ public class GenericBlobReportTest {
         assertThat(rows.get(1), notNullValue());
     }
 
+    @Test
+    public void testSpooledRowsCanBeReadBack() throws Exception {
+        Map<String, EnumMap<Report, Object>> reportData = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            EnumMap<Report, Object> row = new EnumMap<>(Report.class);
+            row.put(Report.column1, "value" + i);
+            row.put(Report.column2, i);
+            reportData.put("/content/page" + i, row);
+        }
+
+        GenericBlobReport report = new GenericBlobReport();
+        report.setRows(reportData, "source", Report.class);
+        List<ValueMap> rows = report.getRows();
+        assertThat(rows.size(), equalTo(100));
+        assertThat(rows.get(42).get("source", String.class), equalTo("/content/page42"));
+        assertThat(rows.get(42).get("column2", Integer.class), equalTo(42));
+        assertThat(rows.get(42).containsKey("column3"), is(false));
+    }
+
+    @Test
+    public void testAppendedRows() throws Exception {
+        GenericBlobReport report = new GenericBlobReport();
+        report.setColumns("source", Report.class);
+        for (int i = 0; i < 3; i++) {
+            EnumMap<Report, Object> row = new EnumMap<>(Report.class);
+            row.put(Report.column3, "value" + i);
+            row.put(Report.column1, i);
+            report.appendRow("/content/page" + i, row);
+        }
+
+        assertThat(report.getColumns(), equalTo(Arrays.asList("source", "column1", "column2", "column3")));
+        List<ValueMap> rows = report.getRows();
+        assertThat(rows.size(), equalTo(3));
+        assertThat(new ArrayList<>(rows.get(1).keySet()), equalTo(Arrays.asList("source", "column1", "column3")));
+        assertThat(rows.get(1).get("source", String.class), equalTo("/content/page1"));
+        assertThat(rows.get(1).get("column3", String.class), equalTo("value1"));
+    }
+
+    @Test
+    public void testSpooledRowsAreKeptUntilStored() throws Exception {
+        context.build().resource(REPORT_PATH);
+        Map<String, EnumMap<Report, Object>> reportData = new LinkedHashMap<>();
+        reportData.put(PATH1, new EnumMap<>(Report.class));
+        reportData.get(PATH1).put(Report.column1, "abc");
+
+        GenericBlobReport report = new GenericBlobReport();
+        report.setName("test");
+        report.setRows(reportData, "source", Report.class);
+
+        ResourceResolver failingResolver = spy(context.resourceResolver());
+        doThrow(new PersistenceException("failed")).when(failingResolver).commit();
+        try {
+            report.persist(failingResolver, REPORT_PATH);
+            fail("The commit should have failed");
+        } catch (PersistenceException e) {
+            // expected
+        }
+        context.resourceResolver().revert();
+
+        report.persist(context.resourceResolver(), REPORT_PATH);
+        Node reportNode = context.resourceResolver().getResource(REPORT_PATH + "/blobreport").adaptTo(Node.class);
+        JsonNode node = new ObjectMapper().readTree(JcrUtils.readFile(reportNode));
+        assertThat(node.size(), equalTo(1));
+        assertThat(node.get(0).get("source").asText(), equalTo(PATH1));
+    }
+
+    @Test
+    public void testForEachRowStreamsBlob() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        String json = mapper.writeValueAsString(new ReportRecord[] {
+            new ReportRecord("abc", "1", "def"),
+            new ReportRecord("123", "2", "456"),
+            new ReportRecord("xyz", "3", "uvw")
+        });
+
+        try (InputStream is = new ByteArrayInputStream(json.getBytes())) {
+            context.build()
+                    .resource(REPORT_PATH, "sling:resourceType", GenericBlobReport.BLOB_REPORT_RESOURCE_TYPE, "name",
+                            "myName", "columns", new String[] { "column1", "column2", "column3" })
+                    .file("blobreport", is, "text/json", 1);
+        }
+        Resource reportResource = context.resourceResolver().getResource(REPORT_PATH);
+        GenericBlobReport report = context.getService(ModelFactory.class).createModel(reportResource,
+                GenericBlobReport.class);
+        List<String> values = new ArrayList<>();
+        report.forEachRow(row -> values.add(row.get("column2", String.class)));
+        assertThat(values, Matchers.contains("1", "2", "3"));
+    }
+
     // A container to ease the production of the JSON
     public class ReportRecord {
 
@@ -24,7 +24,11 @@ import com.adobe.acs.commons.models.injectors.impl.model.impl.TestHierarchicalPa
 import com.adobe.acs.commons.models.injectors.impl.model.impl.TestPagePropertiesModelModelImpl;
 import io.wcm.testing.mock.aem.junit.AemContext;
 import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.apache.sling.models.spi.Injector;
 import org.apache.sling.models.spi.injectorspecific.StaticInjectAnnotationProcessorFactory;
 import org.junit.Before;
@@ -34,7 +38,11 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.Collections;
+
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class HierarchicalPagePropertyInjectorTest {
@@ -77,4 +85,50 @@ public class HierarchicalPagePropertyInjectorTest {
 
         assertEquals("inherited!", hierarchicalModel.getSkipLevelHierarchicalPagePropertyString());
     }
+
+    @Test
+    public void test_inherited_lookups_are_cached() throws PersistenceException {
+        HierarchicalPagePropertyInjector.Config config = mock(HierarchicalPagePropertyInjector.Config.class);
+        when(config.cache_enabled()).thenReturn(true);
+        when(config.cache_paths()).thenReturn(new String[]{"/content"});
+        when(config.cache_max_entries()).thenReturn(100);
+        injector.activate(context.bundleContext(), config);
+        HierarchicalPagePropertyCache cache = getCache();
+
+        context.currentPage("/content/we-retail/language-masters/en/experience");
+        context.currentResource("/content/we-retail/language-masters/en/experience/arctic-surfing-in-lofoten/jcr:content/root");
+
+        hierarchicalModel = context.request().adaptTo(TestHierarchicalPagePropertiesModel.class);
+        assertEquals("inherited!", hierarchicalModel.getHierarchicalPagePropertyString());
+        assertNull(hierarchicalModel.getUndefinedProperty());
+        assertEquals(0, cache.getHitCount());
+
+        hierarchicalModel = context.request().adaptTo(TestHierarchicalPagePropertiesModel.class);
+        assertEquals("inherited!", hierarchicalModel.getHierarchicalPagePropertyString());
+        assertNull(hierarchicalModel.getUndefinedProperty());
+        assertEquals(cache.getMissCount(), cache.getHitCount());
+
+        String experienceContent = "/content/we-retail/language-masters/en/experience/jcr:content";
+        context.resourceResolver().getResource(experienceContent).adaptTo(ModifiableValueMap.class)
+                .put("hierarchicalPagePropertyString", "closer!");
+        context.resourceResolver().commit();
+        cache.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED, experienceContent, false)));
+        assertTrue(cache.getInvalidationCount() > 0);
+
+        hierarchicalModel = context.request().adaptTo(TestHierarchicalPagePropertiesModel.class);
+        assertEquals("closer!", hierarchicalModel.getHierarchicalPagePropertyString());
+
+        injector.deactivate();
+        assertNull(getCache());
+    }
+
+    private HierarchicalPagePropertyCache getCache() {
+        ResourceChangeListener[] listeners = context.getServices(ResourceChangeListener.class, null);
+        for (ResourceChangeListener listener : listeners) {
+            if (listener instanceof HierarchicalPagePropertyCache) {
+                return (HierarchicalPagePropertyCache) listener;
+            }
+        }
+        return null;
+    }
 }
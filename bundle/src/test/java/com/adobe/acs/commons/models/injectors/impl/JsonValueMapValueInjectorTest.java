@@ -17,10 +17,12 @@
  */
 package com.adobe.acs.commons.models.injectors.impl;
 
+import com.adobe.acs.commons.models.injectors.annotation.JsonValueMapValue;
 import com.adobe.acs.commons.models.injectors.annotation.impl.JsonValueMapValueAnnotationProcessorFactory;
 import com.adobe.acs.commons.models.injectors.impl.model.TestJsonObjectInjection;
 import com.adobe.acs.commons.models.injectors.impl.model.impl.TestJsonObjectInjectionImpl;
 import io.wcm.testing.mock.aem.junit.AemContext;
+import org.apache.sling.api.resource.ModifiableValueMap;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.models.spi.Injector;
 import org.apache.sling.models.spi.injectorspecific.StaticInjectAnnotationProcessorFactory;
@@ -31,8 +33,11 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.lang.reflect.Field;
+
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertNotSame;
 import static junit.framework.TestCase.assertNull;
 
 
@@ -78,4 +83,33 @@ public class JsonValueMapValueInjectorTest {
         assertNull(adapted.getTestJsonObjectSetEmpty());
         assertNull(adapted.getTestJsonObjectListEmpty());
     }
+
+    @Test
+    public void test_parsed_values_are_cached_until_changed() {
+        assertEquals(2, jsonValueMapValueInjector.getCacheSize());
+
+        String path = context.request().getResource().getPath();
+        TestJsonObjectInjection again = context.resourceResolver().getResource(path).adaptTo(TestJsonObjectInjection.class);
+        assertEquals(2, jsonValueMapValueInjector.getCacheSize());
+        assertEquals("value1", again.getTestJsonObject().getProperty1());
+        assertNotSame("cached trees are bound to new objects", adapted.getTestJsonObject(), again.getTestJsonObject());
+
+        context.resourceResolver().getResource(path).adaptTo(ModifiableValueMap.class)
+                .put("single", "{\"property1\":\"changed\"}");
+        TestJsonObjectInjection changed = context.resourceResolver().getResource(path).adaptTo(TestJsonObjectInjection.class);
+        assertEquals("changed", changed.getTestJsonObject().getProperty1());
+    }
+
+    @Test
+    public void test_type_variables_are_not_injected() throws Exception {
+        Field field = GenericModel.class.getDeclaredField("single");
+        Resource resource = context.request().getResource();
+
+        assertNull(jsonValueMapValueInjector.getValue(resource, "single", field.getGenericType(), field, null));
+    }
+
+    private static class GenericModel<T> {
+        @JsonValueMapValue
+        private T single;
+    }
 }
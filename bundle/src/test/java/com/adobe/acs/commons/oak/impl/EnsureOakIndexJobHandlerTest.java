@@ -239,6 +239,36 @@ public class EnsureOakIndexJobHandlerTest {
         vm = indexResource.adaptTo(ValueMap.class);
         assertEquals("2",vm.get("reindexCount",String.class));
     }
-    
 
+    @Test
+    public void testPlanInParallel() throws Exception {
+        context.build().resource(ENSURE_INDEX_PATH, ensureIndexProperties).commit();
+        Map<String,Object> asyncIndexProperties = new HashMap<>(ensureIndexProperties);
+        asyncIndexProperties.put("propertyNames", "otherProp");
+        asyncIndexProperties.put(EnsureOakIndexJobHandler.PN_ASYNC, new String[] {"async", "nrt"});
+        context.build().resource(DEFINITION_PATH + "/otherIndex", asyncIndexProperties).commit();
+        Map<String,Object> ignoredIndexProperties = new HashMap<>(ensureIndexProperties);
+        ignoredIndexProperties.put(EnsureOakIndexJobHandler.PN_IGNORE, "true");
+        context.build().resource(DEFINITION_PATH + "/ignoredIndex", ignoredIndexProperties).commit();
+
+        EnsureOakIndexPlan plan = handler.plan(context.resourceResolver(), DEFINITION_PATH, OAK_INDEX);
+        assertEquals(3, plan.getSteps().size());
+        assertEquals(INDEX_NAME, plan.getSteps().get(0).getName());
+        assertEquals(EnsureOakIndexPlan.Operation.CREATE, plan.getSteps().get(0).getOperation());
+        assertEquals(EnsureOakIndexPlan.SYNC_LANE, plan.getSteps().get(0).getLane());
+        assertEquals(EnsureOakIndexPlan.Operation.CREATE, plan.getSteps().get(1).getOperation());
+        assertEquals("async", plan.getSteps().get(1).getLane());
+        assertEquals(EnsureOakIndexPlan.Operation.IGNORE, plan.getSteps().get(2).getOperation());
+        assertEquals(2, plan.getEstimatedTraversals());
+        assertNull(context.resourceResolver().getResource(OAK_INDEX_PATH));
+
+        handler.run();
+        assertNotNull(context.resourceResolver().getResource(OAK_INDEX_PATH));
+        assertNotNull(context.resourceResolver().getResource(OAK_INDEX + "/otherIndex"));
+
+        plan = handler.plan(context.resourceResolver(), DEFINITION_PATH, OAK_INDEX);
+        assertEquals(EnsureOakIndexPlan.Operation.UNCHANGED, plan.getSteps().get(0).getOperation());
+        assertEquals(EnsureOakIndexPlan.Operation.UNCHANGED, plan.getSteps().get(1).getOperation());
+        assertEquals(0, plan.getEstimatedTraversals());
+    }
 }
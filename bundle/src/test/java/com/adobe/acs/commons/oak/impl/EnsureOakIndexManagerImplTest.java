@@ -19,6 +19,7 @@ package com.adobe.acs.commons.oak.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -29,6 +30,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 import javax.management.NotCompliantMBeanException;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
 
 import org.apache.sling.commons.scheduler.ScheduleOptions;
 import org.apache.sling.commons.scheduler.Scheduler;
@@ -135,8 +138,24 @@ public class EnsureOakIndexManagerImplTest {
         assertTrue(eoi2.isApplied());
         
     }
-    
 
-    
+    @Test
+    public void testDryRun() throws Exception {
+        EnsureOakIndexManagerImpl impl = new EnsureOakIndexManagerImpl();
+        context.registerInjectActivateService(impl,ensureOakIndexManagerProperties);
+        createAndRegisterEnsureOakIndexDefinition("/apps/my/index1", "abc");
+        Map<String,Object> definition = new HashMap<>();
+        definition.put("jcr:primaryType", EnsureOakIndexJobHandler.NT_OAK_UNSTRUCTURED);
+        definition.put("type", "property");
+        definition.put("propertyNames", "abc");
+        context.build().resource("/apps/my/index1/abcIndex", definition).commit();
 
+        TabularData plan = impl.dryRun();
+        assertEquals(1, plan.size());
+        CompositeData row = plan.get(new Object[]{"/apps/my/index1", "abcIndex"});
+        assertEquals("CREATE", row.get("Operation"));
+        assertEquals(true, row.get("Reindex"));
+        assertEquals(1, row.get("Estimated Traversals"));
+        assertNull(context.resourceResolver().getResource(OAK_INDEX + "/abcIndex"));
+    }
 }
@@ -0,0 +1,63 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.replication.dispatcher.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.adobe.acs.commons.replication.dispatcher.DispatcherFlushFilter;
+import com.day.cq.replication.ReplicationActionType;
+
+public class DispatcherFlushAggregatorTest {
+
+    @Test
+    public void testCollapseDescendants() {
+        assertEquals(Arrays.asList("/content/site", "/content/site-b"),
+                DispatcherFlushAggregator.collapseDescendants(Arrays.asList(
+                        "/content/site/en", "/content/site", "/content/site-b", "/content/site/en/page")));
+        assertEquals(Arrays.asList("/"),
+                DispatcherFlushAggregator.collapseDescendants(Arrays.asList("/content", "/")));
+    }
+
+    @Test
+    public void testBatchesPerActionAndFlushType() {
+        final List<String> flushes = new ArrayList<>();
+        final DispatcherFlushAggregator aggregator = new DispatcherFlushAggregator(60000L, 1000, () -> null,
+                (resourceResolver, actionType, filter, paths) ->
+                        flushes.add(actionType + " " + filter.getFlushType() + " " + Arrays.toString(paths)));
+
+        aggregator.add(ReplicationActionType.ACTIVATE, DispatcherFlushFilter.HIERARCHICAL, Arrays.asList("/content/site/en/a"));
+        aggregator.add(ReplicationActionType.ACTIVATE, DispatcherFlushFilter.HIERARCHICAL, Arrays.asList("/content/site/en"));
+        aggregator.add(ReplicationActionType.ACTIVATE, DispatcherFlushFilter.HIERARCHICAL, Arrays.asList("/content/site/en"));
+        aggregator.add(ReplicationActionType.ACTIVATE, DispatcherFlushFilter.RESOURCE_ONLY, Arrays.asList("/content/site/en/a"));
+        aggregator.add(ReplicationActionType.DELETE, DispatcherFlushFilter.HIERARCHICAL, Arrays.asList("/content/site/fr"));
+
+        assertEquals(0, flushes.size());
+        aggregator.close();
+
+        assertEquals(Arrays.asList(
+                "ACTIVATE Hierarchical [/content/site/en]",
+                "ACTIVATE ResourceOnly [/content/site/en/a]",
+                "DELETE Hierarchical [/content/site/fr]"), flushes);
+    }
+}
@@ -23,6 +23,7 @@ import com.adobe.acs.commons.replication.dispatcher.DispatcherFlusher;
 import com.day.cq.replication.ReplicationAction;
 import com.day.cq.replication.ReplicationActionType;
 import com.day.cq.replication.ReplicationOptions;
+import com.day.cq.replication.Replicator;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.junit.After;
@@ -34,9 +35,11 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
 
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.regex.Pattern;
+import javax.jcr.Session;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -62,6 +65,9 @@ public class DispatcherFlushRulesImplTest {
     @Mock
     private ResourceResolverFactory resourceResolverFactory;
 
+    @Mock
+    private Replicator replicator;
+
     @InjectMocks
     private DispatcherFlushRulesImpl dispatcherFlushRules = new DispatcherFlushRulesImpl();
 
@@ -431,4 +437,44 @@ public class DispatcherFlushRulesImplTest {
 
         verifyNoMoreInteractions(dispatcherFlusher);
     }
+
+    @Test
+    public void testPreprocess_aggregated() throws Exception {
+        final Map<String, String> properties = new HashMap<String, String>();
+        properties.put("prop.rules.hierarchical", "/content/acs-aem-commons/(.*)=/content/target/$1");
+        properties.put("prop.aggregation.window", "60000");
+        dispatcherFlushRules.activate(properties);
+
+        final ReplicationOptions replicationOptions = new ReplicationOptions();
+        replicationOptions.setSynchronous(false);
+
+        for (String path : new String[] { "/content/acs-aem-commons/en/page", "/content/acs-aem-commons/en",
+                "/content/acs-aem-commons/en/page" }) {
+            final ReplicationAction replicationAction = mock(ReplicationAction.class);
+            when(replicationAction.getPath()).thenReturn(path);
+            when(replicationAction.getType()).thenReturn(ReplicationActionType.ACTIVATE);
+            dispatcherFlushRules.preprocess(replicationAction, replicationOptions);
+        }
+
+        verifyNoInteractions(dispatcherFlusher, replicator);
+
+        final ResourceResolver resourceResolver = mock(ResourceResolver.class);
+        final Session session = mock(Session.class);
+        when(resourceResolver.adaptTo(Session.class)).thenReturn(session);
+        when(resourceResolverFactory.getServiceResourceResolver(any())).thenReturn(resourceResolver);
+
+        // deactivation issues the pending batch
+        dispatcherFlushRules.deactivate(properties);
+
+        final ArgumentCaptor<ReplicationOptions> optionsCaptor = ArgumentCaptor.forClass(ReplicationOptions.class);
+        verify(replicator, times(1)).replicate(eq(session), eq(ReplicationActionType.ACTIVATE),
+                eq(new String[] { "/content/target/en" }),
+                optionsCaptor.capture());
+        assertEquals(DispatcherFlushFilter.FlushType.Hierarchical,
+                ((DispatcherFlushFilter) optionsCaptor.getValue().getFilter()).getFlushType());
+        assertFalse(optionsCaptor.getValue().isSynchronous());
+
+        verifyNoMoreInteractions(replicator);
+        verifyNoInteractions(dispatcherFlusher);
+    }
 }
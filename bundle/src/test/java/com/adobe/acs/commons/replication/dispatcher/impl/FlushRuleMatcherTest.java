@@ -0,0 +1,64 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.replication.dispatcher.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class FlushRuleMatcherTest {
+
+    @Test
+    public void testLiteralPrefix() {
+        assertEquals("/content/", FlushRuleMatcher.literalPrefix("/content/.*"));
+        assertEquals("/content/site/", FlushRuleMatcher.literalPrefix("^/content/site/(.*)"));
+        assertEquals("/content/sit", FlushRuleMatcher.literalPrefix("/content/site?/.*"));
+        assertEquals("/content/", FlushRuleMatcher.literalPrefix("/content/[a-z]+"));
+        assertEquals("", FlushRuleMatcher.literalPrefix("/content/a|/content/b"));
+        assertEquals("", FlushRuleMatcher.literalPrefix("(?i)/content/.*"));
+    }
+
+    @Test
+    public void testFlushPathsKeepRuleOrder() {
+        final Map<Pattern, String[]> rules = new LinkedHashMap<>();
+        rules.put(Pattern.compile("/content/site/(.*)"), new String[] { "/content/other/$1" });
+        rules.put(Pattern.compile("/.*"), new String[] { "/content/all" });
+        rules.put(Pattern.compile("/content/.*"), new String[] { "/content/a", "/content/b" });
+        rules.put(Pattern.compile("/etc/.*"), new String[] { "/etc/never" });
+        rules.put(Pattern.compile("/CONTENT/.*", Pattern.CASE_INSENSITIVE), new String[] { "/content/ci" });
+
+        final FlushRuleMatcher matcher = new FlushRuleMatcher(rules);
+
+        assertEquals(Arrays.asList("/content/other/page", "/content/all", "/content/a", "/content/b", "/content/ci"),
+                matcher.getFlushPaths("/content/site/page"));
+        assertEquals(Arrays.asList("/content/all"), matcher.getFlushPaths("/var/foo"));
+    }
+
+    @Test
+    public void testEmpty() {
+        final FlushRuleMatcher matcher = new FlushRuleMatcher(null);
+        assertTrue(matcher.isEmpty());
+        assertTrue(matcher.getFlushPaths("/content/page").isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.replication.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Iterator;
+
+import javax.jcr.version.Version;
+import javax.jcr.version.VersionHistory;
+import javax.jcr.version.VersionIterator;
+
+import org.junit.Test;
+
+public class VersionIndexTest {
+
+    @Test
+    public void testGetVersionAt() throws Exception {
+        final Version v1 = version("1.0", 1000L);
+        final Version v2 = version("1.1", 3000L);
+        final Version v3 = version("1.2", 2000L);
+        final VersionIndex index = VersionIndex.of(history(v1, v2, v3));
+
+        assertEquals(3, index.size());
+        assertNull(index.getVersionAt(999L));
+        assertEquals("1.0", index.getVersionAt(1000L));
+        assertEquals("1.0", index.getVersionAt(1999L));
+        assertEquals("1.2", index.getVersionAt(2500L));
+        assertEquals("1.1", index.getVersionAt(3000L));
+        assertEquals("1.1", index.getVersionAt(Long.MAX_VALUE));
+
+        // creation dates are read once while building the index, not on every lookup
+        verify(v1, times(1)).getCreated();
+        verify(v2, times(1)).getCreated();
+        verify(v3, times(1)).getCreated();
+    }
+
+    @Test
+    public void testEmptyHistory() throws Exception {
+        final VersionIndex index = VersionIndex.of(history());
+
+        assertEquals(0, index.size());
+        assertNull(index.getVersionAt(Long.MAX_VALUE));
+    }
+
+    private static Version version(String name, long created) throws Exception {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(created);
+        final Version version = mock(Version.class);
+        when(version.getName()).thenReturn(name);
+        when(version.getCreated()).thenReturn(calendar);
+        return version;
+    }
+
+    private static VersionHistory history(Version... versions) throws Exception {
+        final Iterator<Version> versionIterator = Arrays.asList(versions).iterator();
+        final VersionIterator iterator = mock(VersionIterator.class);
+        when(iterator.hasNext()).thenAnswer(invocation -> versionIterator.hasNext());
+        when(iterator.nextVersion()).thenAnswer(invocation -> versionIterator.next());
+        final VersionHistory history = mock(VersionHistory.class);
+        when(history.getAllVersions()).thenReturn(iterator);
+        return history;
+    }
+}
@@ -35,6 +35,7 @@ import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.apache.sling.event.jobs.Job;
 import org.apache.sling.event.jobs.JobManager;
+import org.apache.sling.event.jobs.consumer.JobConsumer.JobResult;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -43,6 +44,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.osgi.framework.BundleContext;
 import org.osgi.service.event.Event;
 
 import javax.jcr.Node;
@@ -52,9 +54,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -86,6 +93,12 @@ public class JcrPackageReplicationStatusEventHandlerTest {
     @Mock
     Job job;
 
+    @Mock
+    Job otherJob;
+
+    @Mock
+    BundleContext bundleContext;
+
     @Mock
     Resource contentResource1;
 
@@ -168,7 +181,7 @@ public class JcrPackageReplicationStatusEventHandlerTest {
 
         config.put("replicated-by.override", "Package Replication");
 
-        eventHandler.activate(config);
+        eventHandler.activate(bundleContext, config);
         eventHandler.process(job);
 
         verify(replicationStatusManager, times(1)).setReplicationStatus(
@@ -180,6 +193,45 @@ public class JcrPackageReplicationStatusEventHandlerTest {
                 eq(contentResource1), eq(contentResource2), eq(contentResource3));
     }
 
+    @Test
+    public void testProcessInBatch() throws Exception {
+        final Map<String, String> config = new HashMap<>();
+        config.put("replicated-by.override", "Package Replication");
+        config.put("batch-window", "500");
+
+        final ArgumentCaptor<Object> stats = ArgumentCaptor.forClass(Object.class);
+        eventHandler.activate(bundleContext, config);
+        verify(bundleContext).registerService(eq("javax.management.DynamicMBean"), stats.capture(), any());
+
+        // both jobs replicated the same package, so its contents must only be written once
+        when(otherJob.getProperty("path")).thenReturn(PACKAGE_PATH);
+        when(contentResource2.getPath()).thenReturn("/content/bar");
+        when(contentResource3.getPath()).thenReturn("/content/dam/folder/jcr:content");
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<JobResult> first = executor.submit(() -> eventHandler.process(job));
+            final Future<JobResult> second = executor.submit(() -> eventHandler.process(otherJob));
+            assertEquals(JobResult.OK, first.get(5, TimeUnit.SECONDS));
+            assertEquals(JobResult.OK, second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(replicationStatusManager, times(1)).setReplicationStatus(
+                eq(resourceResolver),
+                eq(Collections.emptySet()),
+                eq("Package Replication"),
+                eq(calendar),
+                eq(ReplicationStatusManager.Status.ACTIVATED),
+                eq(contentResource1), eq(contentResource2), eq(contentResource3));
+
+        final JcrPackageReplicationStatusStats batchStats = (JcrPackageReplicationStatusStats) stats.getValue();
+        assertEquals(1, batchStats.getBatchCount());
+        assertEquals(2, batchStats.getPackageCount());
+        assertEquals(6, batchStats.getRequestedPathCount());
+        assertEquals(3, batchStats.getUpdatedPathCount());
+    }
+
     @Test
     public void testHandleEvent() throws LoginException {
         final Map<String, Object> eventParams  = new HashMap<>();
@@ -228,6 +228,15 @@ public class ReplicationStatusManagerImplTest {
         assertFalse(replicatedNode.hasProperty(ReplicationStatus.NODE_PROPERTY_LAST_REPLICATION_ACTION));
     }
 
+    @Test
+    public void testGetNextSaveThreshold() {
+        assertEquals(2048, ReplicationStatusManagerImpl.getNextSaveThreshold(1024, 10));
+        assertEquals(1024, ReplicationStatusManagerImpl.getNextSaveThreshold(1024, 500));
+        assertEquals(512, ReplicationStatusManagerImpl.getNextSaveThreshold(1024, 2000));
+        assertEquals(128, ReplicationStatusManagerImpl.getNextSaveThreshold(128, 2000));
+        assertEquals(8192, ReplicationStatusManagerImpl.getNextSaveThreshold(8192, 10));
+    }
+
     private static void assertSamePath(Resource expected, Resource actual) {
         assertEquals(expected.getPath(), actual.getPath());
     }
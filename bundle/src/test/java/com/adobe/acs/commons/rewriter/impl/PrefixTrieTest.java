@@ -0,0 +1,54 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.rewriter.impl;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PrefixTrieTest {
+
+    @Test
+    public void testMatches() {
+        PrefixTrie trie = new PrefixTrie("/etc/clientlibs", "/content/dam", "/etc.clientlibs");
+        assertFalse(trie.isEmpty());
+        assertTrue(trie.matches("/etc/clientlibs/site.css"));
+        assertTrue(trie.matches("/etc.clientlibs/site.js"));
+        assertTrue(trie.matches("/content/dam"));
+        assertFalse(trie.matches("/content/da"));
+        assertFalse(trie.matches("/content/site/page.html"));
+        assertFalse(trie.matches(""));
+    }
+
+    @Test
+    public void testOverlappingPrefixes() {
+        PrefixTrie trie = new PrefixTrie("/content/dam/site", "/content");
+        assertTrue(trie.matches("/content/site"));
+        assertTrue(trie.matches("/content/dam/site/image.png"));
+    }
+
+    @Test
+    public void testEmpty() {
+        PrefixTrie trie = new PrefixTrie();
+        assertTrue(trie.isEmpty());
+        assertFalse(trie.matches("/content/dam"));
+        assertTrue(new PrefixTrie("").matches("/anything"));
+        assertTrue(new PrefixTrie((String[]) null).isEmpty());
+    }
+}
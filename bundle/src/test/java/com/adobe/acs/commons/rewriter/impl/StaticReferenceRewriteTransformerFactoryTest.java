@@ -17,7 +17,9 @@
  */
 package com.adobe.acs.commons.rewriter.impl;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -328,4 +330,44 @@ public class StaticReferenceRewriteTransformerFactoryTest {
         assertEquals("/etc/clientlib/testABC.css", out.getValue(0));
     }
 
+    @Test
+    public void test_shard_matches_legacy_host_number_computation() {
+        for (int shardCount = 1; shardCount <= 30; shardCount++) {
+            for (int residue = 0; residue < shardCount; residue++) {
+                assertEquals("shard for residue " + residue + " of " + shardCount,
+                        legacyShard(residue + 1, shardCount),
+                        StaticReferenceRewriteTransformerFactory.getShard(residue, shardCount));
+            }
+        }
+    }
+
+    @Test
+    public void test_host_prefixes_are_precompiled_per_shard() {
+        String[] prefixes = StaticReferenceRewriteTransformerFactory.compileHostPrefixes(
+                new String[] { "static{}.host.com" }, 3, "https");
+        assertArrayEquals(new String[] { "https://static1.host.com", "https://static2.host.com",
+                "https://static3.host.com" }, prefixes);
+
+        prefixes = StaticReferenceRewriteTransformerFactory.compileHostPrefixes(
+                new String[] { "a.host.com", "b.host.com" }, 1, null);
+        assertArrayEquals(new String[] { "//a.host.com", "//b.host.com" }, prefixes);
+
+        assertNull(StaticReferenceRewriteTransformerFactory.compileHostPrefixes(null, 1, null));
+    }
+
+    /**
+     * The shard number computation the rewriter used before it was precompiled.
+     */
+    private static int legacyShard(int fileHash, int shardCount) {
+        if (shardCount <= 1) {
+            return 1;
+        }
+        String hostNumberString = Integer.toString(fileHash);
+        if (hostNumberString.length() >= 2) {
+            hostNumberString = Character.toString(hostNumberString.charAt(1));
+            hostNumberString = Integer.toString(Integer.parseInt(hostNumberString, shardCount));
+            return Integer.parseInt(hostNumberString) + 1;
+        }
+        return fileHash;
+    }
 }
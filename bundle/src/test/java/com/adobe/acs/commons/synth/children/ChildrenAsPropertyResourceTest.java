@@ -265,4 +265,56 @@ public class ChildrenAsPropertyResourceTest {
             Assert.assertEquals(expected.get(i).getName(), actual.get(i).getName());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetChild_DoesNotDeserializeSiblings() throws Exception {
+        // entry-2 cannot be converted to a synthetic child, so it must never be deserialized
+        valueMap.put("animals", "{\"entry-1\":{\"name\":\"dog\"},\"entry-2\":{\"sounds\":[\"meow\",\"purr\"]},"
+                + "\"entry-3\":{\"name\":\"fish\"}}");
+
+        childrenAsPropertyResource = new ChildrenAsPropertyResource(resource, "animals");
+
+        Assert.assertEquals("fish", childrenAsPropertyResource.getChild("entry-3").getValueMap().get("name", String.class));
+        Assert.assertNull(childrenAsPropertyResource.getChild("entry-4"));
+    }
+
+    @Test
+    public void testGetChild_ResumesWhereThePreviousLookupStopped() throws Exception {
+        valueMap.put("animals", "{\"entry-1\":{\"name\":\"dog\"},\"entry-2\":{\"sounds\":[\"meow\",\"purr\"]},"
+                + "\"entry-3\":{\"name\":\"fish\"},\"entry-4\":{\"name\":\"bird\"}}");
+
+        childrenAsPropertyResource = new ChildrenAsPropertyResource(resource, "animals");
+
+        Assert.assertEquals("fish", childrenAsPropertyResource.getChild("entry-3").getValueMap().get("name", String.class));
+        Assert.assertEquals("dog", childrenAsPropertyResource.getChild("entry-1").getValueMap().get("name", String.class));
+        childrenAsPropertyResource.delete("entry-2");
+        Assert.assertEquals("bird", childrenAsPropertyResource.getChild("entry-4").getValueMap().get("name", String.class));
+
+        List<Resource> actual = IteratorUtils.toList(childrenAsPropertyResource.listChildren());
+        Assert.assertEquals(3, actual.size());
+        Assert.assertEquals("entry-1", actual.get(0).getName());
+        Assert.assertEquals("entry-3", actual.get(1).getName());
+        Assert.assertEquals("entry-4", actual.get(2).getName());
+    }
+
+    @Test
+    public void testPersist_CopiesUnchangedChildren() throws Exception {
+        valueMap.put("animals", "{\"entry-1\":{\"name\":\"dog\"},\"entry-2\":{\"sounds\":[\"meow\",\"purr\"],\"lives\":9},"
+                + "\"entry-3\":{\"name\":\"fish\"}}");
+
+        childrenAsPropertyResource = new ChildrenAsPropertyResource(resource, "animals");
+        childrenAsPropertyResource.getChild("entry-1").adaptTo(ModifiableValueMap.class).put("name", "wolf");
+        childrenAsPropertyResource.delete("entry-3");
+        childrenAsPropertyResource.persist();
+
+        Assert.assertEquals("{\"entry-1\":{\"name\":\"wolf\"},\"entry-2\":{\"sounds\":[\"meow\",\"purr\"],\"lives\":9}}",
+                resource.getValueMap().get("animals", String.class));
+    }
+
+    @Test(expected = InvalidDataFormatException.class)
+    public void testInvalidData() throws Exception {
+        valueMap.put("animals", "[\"not\", \"an\", \"object\"]");
+
+        new ChildrenAsPropertyResource(resource, "animals");
+    }
+}
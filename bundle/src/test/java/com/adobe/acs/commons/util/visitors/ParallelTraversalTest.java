@@ -0,0 +1,176 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.util.visitors;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.apache.sling.testing.mock.sling.junit.SlingContext;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelTraversalTest {
+
+    private static final String ROOT = "/content/tree";
+
+    @Rule
+    public SlingContext context = new SlingContext(ResourceResolverType.JCR_OAK);
+
+    @Before
+    public void setUp() throws PersistenceException {
+        context.create().resource(ROOT, Collections.singletonMap("sling:resourceType", "sling:Folder"));
+        for (int i = 0; i < 10; i++) {
+            String folder = ROOT + "/folder" + i;
+            context.create().resource(folder, Collections.singletonMap("sling:resourceType", "sling:Folder"));
+            for (int j = 0; j < 10; j++) {
+                String subfolder = folder + "/sub" + j;
+                context.create().resource(subfolder, Collections.singletonMap("sling:resourceType", "sling:Folder"));
+                for (int k = 0; k < 5; k++) {
+                    context.create().resource(subfolder + "/leaf" + k, Collections.singletonMap("sling:resourceType", "leaf"));
+                }
+            }
+        }
+        context.resourceResolver().commit();
+    }
+
+    @Test
+    public void parallelTraversalVisitsTheSameResources() throws TraversalException {
+        Resource head = context.resourceResolver().getResource(ROOT);
+        for (boolean depthFirst : new boolean[]{false, true}) {
+            Map<String, Integer> sequentialNodes = new TreeMap<>();
+            Set<String> sequentialLeaves = new TreeSet<>();
+            traverse(head, 1, depthFirst, sequentialNodes, sequentialLeaves);
+
+            Map<String, Integer> parallelNodes = new TreeMap<>();
+            Set<String> parallelLeaves = new TreeSet<>();
+            traverse(head, 4, depthFirst, parallelNodes, parallelLeaves);
+
+            assertEquals(111, sequentialNodes.size());
+            assertEquals(500, sequentialLeaves.size());
+            assertEquals(sequentialNodes, parallelNodes);
+            assertEquals(sequentialLeaves, parallelLeaves);
+        }
+    }
+
+    @Test
+    public void callbacksReceiveTheWorkersPropertiesOnTheHeadResolver() throws TraversalException {
+        Resource head = context.resourceResolver().getResource(ROOT);
+        TreeFilteringResourceVisitor visitor = new TreeFilteringResourceVisitor();
+        visitor.setParallelism(4);
+        Set<String> leafTypes = new TreeSet<>();
+        visitor.setLeafVisitor((res, level) -> {
+            assertSame(head.getResourceResolver(), res.getResourceResolver());
+            leafTypes.add(res.getValueMap().get("sling:resourceType", String.class));
+        });
+        visitor.accept(head);
+        assertEquals(Collections.singleton("leaf"), leafTypes);
+    }
+
+    @Test
+    public void binaryPropertiesAreReadThroughTheHeadResolver() throws Exception {
+        Map<String, Object> file = new HashMap<>();
+        file.put("jcr:primaryType", "nt:unstructured");
+        file.put("jcr:data", new ByteArrayInputStream("binary".getBytes(StandardCharsets.UTF_8)));
+        context.create().resource(ROOT + "/folder0/sub0/file", file);
+        context.resourceResolver().commit();
+
+        Resource head = context.resourceResolver().getResource(ROOT);
+        TreeFilteringResourceVisitor visitor = new TreeFilteringResourceVisitor();
+        visitor.setParallelism(4);
+        Map<String, Resource> files = new HashMap<>();
+        visitor.setLeafVisitor((res, level) -> {
+            if (res.getName().equals("file")) {
+                files.put(res.getPath(), res);
+            }
+        });
+        visitor.accept(head);
+
+        // the worker resolvers are closed by now
+        assertEquals(1, files.size());
+        try (InputStream data = files.values().iterator().next().getValueMap().get("jcr:data", InputStream.class)) {
+            assertEquals("binary", IOUtils.toString(data, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void workersRunOnTheCallersExecutor() throws TraversalException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Resource head = context.resourceResolver().getResource(ROOT);
+            TreeFilteringResourceVisitor visitor = new TreeFilteringResourceVisitor();
+            visitor.setParallelism(4, executor);
+            Set<String> leaves = new TreeSet<>();
+            visitor.setLeafVisitor((res, level) -> leaves.add(res.getPath()));
+            visitor.accept(head);
+            visitor.accept(head);
+            assertEquals(500, leaves.size());
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void callbackFailureStopsTheTraversal() {
+        TreeFilteringResourceVisitor visitor = new TreeFilteringResourceVisitor();
+        visitor.setParallelism(4);
+        visitor.setLeafVisitor((res, level) -> {
+            throw new IllegalStateException("failed on " + res.getPath());
+        });
+        try {
+            visitor.accept(context.resourceResolver().getResource(ROOT));
+            fail("The traversal should have failed");
+        } catch (TraversalException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    private void traverse(Resource head, int parallelism, boolean depthFirst, Map<String, Integer> nodes,
+                          Set<String> leaves) throws TraversalException {
+        TreeFilteringResourceVisitor visitor = new TreeFilteringResourceVisitor();
+        visitor.setParallelism(parallelism);
+        if (depthFirst) {
+            visitor.setDepthFirstMode();
+        }
+        Map<String, Integer> visited = new HashMap<>();
+        visitor.setResourceVisitor((res, level) -> visited.put(res.getPath(), level));
+        visitor.setLeafVisitor((res, level) -> leaves.add(res.getPath()));
+        visitor.accept(head);
+        nodes.putAll(visited);
+    }
+}
@@ -26,24 +26,33 @@ import com.day.cq.wcm.api.components.ComponentContext;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.osgi.framework.BundleContext;
 
+import javax.jcr.Node;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
+import java.io.ByteArrayInputStream;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -74,6 +83,12 @@ public class ComponentErrorHandlerImplTest {
     @Mock
     Resource resource;
 
+    @Mock
+    ResourceResolverFactory resourceResolverFactory;
+
+    @Mock
+    BundleContext bundleContext;
+
 
     @Spy
     @InjectMocks
@@ -136,12 +151,59 @@ public class ComponentErrorHandlerImplTest {
         final Map<String, String> config = new HashMap<String, String>();
         config.put("suppress-resource-types", "acs-commons/test/demo");
 
-        handler.activate(config);
+        handler.activate(bundleContext, config);
+
+        final boolean result = handler.accepts(request, response);
+        assertFalse(result);
+    }
+
+    @Test
+    public void testAccepts_suppressResourceSuperTypes() throws Exception {
+        final ResourceResolver resourceResolver = mock(ResourceResolver.class);
+        when(resource.getResourceResolver()).thenReturn(resourceResolver);
+        when(resourceResolver.getSearchPath()).thenReturn(new String[]{"/apps/", "/libs/"});
+        when(resourceResolver.getParentResourceType(resource)).thenReturn("/apps/acs-commons/test/base");
+
+        final Map<String, String> config = new HashMap<String, String>();
+        config.put("suppress-resource-types", "acs-commons/test/base");
+
+        handler.activate(bundleContext, config);
 
         final boolean result = handler.accepts(request, response);
         assertFalse(result);
     }
 
+    @Test
+    public void testEditErrorHTMLIsCached() throws Exception {
+        final ResourceResolver resourceResolver = mock(ResourceResolver.class);
+        final Resource htmlResource = mock(Resource.class);
+        final Node htmlNode = mock(Node.class, Answers.RETURNS_DEEP_STUBS);
+        when(resourceResolverFactory.getServiceResourceResolver(anyMap())).thenReturn(resourceResolver);
+        when(resourceResolver.resolve("/apps/test/edit.html")).thenReturn(htmlResource);
+        when(htmlResource.adaptTo(Node.class)).thenReturn(htmlNode);
+        when(htmlNode.getNode("jcr:content").getProperty("jcr:data").getBinary().getStream())
+                .thenReturn(new ByteArrayInputStream("<p>Error</p>".getBytes(StandardCharsets.UTF_8)));
+
+        final Map<String, String> config = new HashMap<String, String>();
+        config.put("edit.html", "/apps/test/edit.html");
+        handler.activate(bundleContext, config);
+
+        final ArgumentCaptor<Object> stats = ArgumentCaptor.forClass(Object.class);
+        verify(bundleContext).registerService(eq("javax.management.DynamicMBean"), stats.capture(), any());
+
+        when(componentContext.isRoot()).thenReturn(false);
+        when(request.getAttribute(WCMMode.class.getName())).thenReturn(WCMMode.EDIT);
+        doThrow(new ServletException("Should not delegate to chained filters")).when(chain).doFilter(request, response);
+
+        handler.doFilter(request, response, chain);
+        handler.doFilter(request, response, chain);
+
+        verify(responseWriter, times(2)).print("<p>Error</p>");
+        verify(resourceResolverFactory, times(1)).getServiceResourceResolver(anyMap());
+        assertEquals(2, ((ComponentErrorHandlerStats) stats.getValue()).getErrorCount());
+        assertEquals(1, ((ComponentErrorHandlerStats) stats.getValue()).getErrorCounts().size());
+    }
+
     @Test
     public void testNullComponentContext() throws Exception {
         handler.doFilter(request, response, chain);
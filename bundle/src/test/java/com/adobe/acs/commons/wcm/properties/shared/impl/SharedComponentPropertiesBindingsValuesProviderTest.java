@@ -19,8 +19,13 @@ package com.adobe.acs.commons.wcm.properties.shared.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
@@ -37,12 +42,17 @@ import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.apache.sling.api.scripting.SlingBindings;
 import org.apache.sling.api.wrappers.ValueMapDecorator;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 
 import com.adobe.acs.commons.wcm.PageRootProvider;
 import com.adobe.acs.commons.wcm.properties.shared.SharedComponentProperties;
@@ -62,6 +72,7 @@ public class SharedComponentPropertiesBindingsValuesProviderTest {
   private ResourceResolver resourceResolver;
   private ValueMap sharedProps;
   private ValueMap globalProps;
+  private String globalPropsPath;
 
   @Before
   public void setUp() throws Exception {
@@ -73,7 +84,7 @@ public class SharedComponentPropertiesBindingsValuesProviderTest {
     resourceResolver = mock(ResourceResolver.class);
     request = mock(SlingHttpServletRequest.class);
 
-    final String globalPropsPath = SITE_ROOT + "/jcr:content/" + SharedComponentProperties.NN_GLOBAL_COMPONENT_PROPERTIES;
+    globalPropsPath = SITE_ROOT + "/jcr:content/" + SharedComponentProperties.NN_GLOBAL_COMPONENT_PROPERTIES;
     final String sharedPropsPath = SITE_ROOT + "/jcr:content/" + SharedComponentProperties.NN_SHARED_COMPONENT_PROPERTIES +  "/"
         + RESOURCE_TYPE;
 
@@ -151,4 +162,54 @@ public class SharedComponentPropertiesBindingsValuesProviderTest {
     assertEquals(sharedProps, bindings.get(SharedComponentProperties.SHARED_PROPERTIES));
     assertEquals(globalProps, bindings.get(SharedComponentProperties.GLOBAL_PROPERTIES));
   }
+
+  @Test
+  public void addBindingsCachesPropertiesAcrossRequests() {
+    final String sharedPropsPath = SITE_ROOT + "/jcr:content/" + SharedComponentProperties.NN_SHARED_COMPONENT_PROPERTIES + "/"
+        + RESOURCE_TYPE;
+    when(globalPropsResource.getPath()).thenReturn(globalPropsPath);
+    when(sharedPropsResource.getPath()).thenReturn(sharedPropsPath);
+
+    final SharedComponentPropertiesImpl sharedComponentProperties = new SharedComponentPropertiesImpl();
+    sharedComponentProperties.pageRootProvider = pageRootProvider;
+    final SharedComponentPropertiesBindingsValuesProvider provider = new SharedComponentPropertiesBindingsValuesProvider();
+    provider.sharedComponentProperties = sharedComponentProperties;
+
+    final BundleContext bundleContext = mock(BundleContext.class);
+    final ServiceRegistration registration = mock(ServiceRegistration.class);
+    when(bundleContext.registerService(any(Class.class), any(ResourceChangeListener.class), any())).thenReturn(registration);
+    provider.activate(bundleContext);
+
+    provider.addBindings(bindings);
+    final Object firstGlobal = bindings.get(SharedComponentProperties.GLOBAL_PROPERTIES);
+    assertEquals(globalProps, firstGlobal);
+
+    final Bindings secondBindings = newBindings();
+    provider.addBindings(secondBindings);
+    assertSame(firstGlobal, secondBindings.get(SharedComponentProperties.GLOBAL_PROPERTIES));
+    assertEquals(sharedProps, secondBindings.get(SharedComponentProperties.SHARED_PROPERTIES));
+    assertEquals(globalPropsResource, secondBindings.get(SharedComponentProperties.GLOBAL_PROPERTIES_RESOURCE));
+    verify(globalPropsResource, times(1)).getValueMap();
+
+    final ArgumentCaptor<ResourceChangeListener> listener = ArgumentCaptor.forClass(ResourceChangeListener.class);
+    verify(bundleContext).registerService(any(Class.class), listener.capture(), any());
+    listener.getValue().onChange(Collections.singletonList(
+        new ResourceChange(ResourceChange.ChangeType.CHANGED, globalPropsPath, false)));
+
+    final Bindings thirdBindings = newBindings();
+    provider.addBindings(thirdBindings);
+    assertNotSame(firstGlobal, thirdBindings.get(SharedComponentProperties.GLOBAL_PROPERTIES));
+    verify(globalPropsResource, times(2)).getValueMap();
+    verify(sharedPropsResource, times(1)).getValueMap();
+
+    provider.deactivate();
+    verify(registration).unregister();
+  }
+
+  private Bindings newBindings() {
+    final Bindings newBindings = new SimpleBindings();
+    newBindings.put(SlingBindings.REQUEST, request);
+    newBindings.put(SlingBindings.RESOURCE, resource);
+    return newBindings;
+  }
 }
@@ -0,0 +1,112 @@
+/*
+ * ACS AEM Commons
+ *
+ * Copyright (C) 2013 - 2023 Adobe
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.adobe.acs.commons.wcm.vanity.impl;
+
+import io.wcm.testing.mock.aem.junit.AemContext;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class VanityPathIndexTest {
+
+    private static final String PAGE_CONTENT = "/content/site/page/jcr:content";
+
+    @Rule
+    public final AemContext ctx = new AemContext(ResourceResolverType.JCR_OAK);
+
+    private VanityPathIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        ctx.build().resource("/content/site/page").resource(PAGE_CONTENT,
+                "sling:vanityPath", new String[]{"/promo", "summer"}).commit();
+        index = new VanityPathIndex(ctx.getService(ResourceResolverFactory.class), new String[]{"/content"});
+        index.rebuild();
+    }
+
+    @Test
+    public void rebuild() {
+        assertTrue(index.isReady());
+        assertEquals(2, index.getVanityPathCount());
+        assertEquals(1, index.getResourceCount());
+
+        assertTrue(index.isVanityPath("/promo", "/content", ctx.resourceResolver()));
+        assertTrue(index.isVanityPath("/summer", "/content/site", ctx.resourceResolver()));
+        assertTrue(index.isVanityPath("/promo.html", "/content", ctx.resourceResolver()));
+        assertFalse(index.isVanityPath("/promo", "/content/other", ctx.resourceResolver()));
+        assertFalse(index.isVanityPath("/unknown", "/content", ctx.resourceResolver()));
+
+        assertEquals(3, index.getHitCount());
+        assertEquals(2, index.getMissCount());
+    }
+
+    @Test
+    public void onChange() throws Exception {
+        ctx.resourceResolver().getResource(PAGE_CONTENT).adaptTo(ModifiableValueMap.class)
+                .put("sling:vanityPath", new String[]{"/winter"});
+        ctx.resourceResolver().commit();
+        index.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED, PAGE_CONTENT, false)));
+
+        assertTrue(index.isVanityPath("/winter", "/content", ctx.resourceResolver()));
+        assertFalse(index.isVanityPath("/promo", "/content", ctx.resourceResolver()));
+
+        ctx.build().resource("/content/site/moved").resource("/content/site/moved/child/jcr:content",
+                "sling:vanityPath", "/moved").commit();
+        index.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.ADDED, "/content/site/moved", false)));
+
+        assertTrue(index.isVanityPath("/moved", "/content/site/moved/child", ctx.resourceResolver()));
+
+        index.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.REMOVED, "/content/site", false)));
+
+        assertFalse(index.isVanityPath("/winter", "/content", ctx.resourceResolver()));
+        assertFalse(index.isVanityPath("/moved", "/content", ctx.resourceResolver()));
+        assertEquals(0, index.getVanityPathCount());
+    }
+
+    @Test
+    public void targetsMustBeReadable() {
+        assertFalse(index.isVanityPath("/promo", "/content", mock(ResourceResolver.class)));
+        assertTrue(index.isVanityPath("/promo", "/content", ctx.resourceResolver()));
+    }
+
+    @Test
+    public void onlyTheRemovedTreeIsDropped() {
+        ctx.build().resource("/content/site-other/page/jcr:content", "sling:vanityPath", "/other").commit();
+        index.onChange(Collections.singletonList(
+                new ResourceChange(ResourceChange.ChangeType.ADDED, "/content/site-other", false)));
+        assertEquals(2, index.getResourceCount());
+
+        index.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.REMOVED, "/content/site", false)));
+
+        assertFalse(index.isVanityPath("/promo", "/content", ctx.resourceResolver()));
+        assertTrue(index.isVanityPath("/other", "/content", ctx.resourceResolver()));
+        assertEquals(1, index.getResourceCount());
+    }
+}